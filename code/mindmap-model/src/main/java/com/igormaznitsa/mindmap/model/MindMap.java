@@ -35,6 +35,7 @@ public final class MindMap<T extends Topic<T>> implements Serializable, Constant
     private static final Pattern PATTERN_ATTRIBUTES = Pattern.compile("^\\s*\\>\\s(.+)$");
     private static final Pattern PATTERN_ATTRIBUTE = Pattern.compile("[,]?\\s*([\\S]+?)\\s*=\\s*(\\`+)(.*?)\\2");
     private static final String GENERATOR_VERSION_NAME = "__version__";
+    private static final String PACKED_TOPICS_HOLDER = "__topics__";
     private final transient Lock locker = new ReentrantLock();
     private final Map<String, String> attributes = new TreeMap<>(ModelUtils.STRING_COMPARATOR);
 
@@ -148,13 +149,6 @@ public final class MindMap<T extends Topic<T>> implements Serializable, Constant
             throw new IllegalArgumentException("Topic doesn't belong to the mind map");
         }
 
-        boolean findPluginNote = (extrasToFind != null && !extrasToFind.isEmpty())
-                                 && (topicFinders != null && !topicFinders.isEmpty())
-                                 && extrasToFind.contains(Extra.ExtraType.NOTE);
-        boolean findPluginFile = (extrasToFind != null && !extrasToFind.isEmpty())
-                                 && (topicFinders != null && !topicFinders.isEmpty())
-                                 && extrasToFind.contains(Extra.ExtraType.FILE);
-
         T result = null;
 
         this.lock();
@@ -162,18 +156,8 @@ public final class MindMap<T extends Topic<T>> implements Serializable, Constant
             boolean startFound = start == null;
             for (T t : this) {
                 if (startFound) {
-                    if (t.containsPattern(baseFolder, pattern, findInTopicText, extrasToFind)) {
+                    if (isTopicMatched(t, baseFolder, pattern, findInTopicText, extrasToFind, topicFinders)) {
                         result = t;
-                    }
-                    else if (topicFinders != null) {
-                        for (TopicFinder<T> f : topicFinders) {
-                            if (f.doesTopicContentMatches(t, baseFolder, pattern, extrasToFind)) {
-                                result = t;
-                                break;
-                            }
-                        }
-                    }
-                    if (result != null) {
                         break;
                     }
                 }
@@ -215,17 +199,9 @@ public final class MindMap<T extends Topic<T>> implements Serializable, Constant
             if (startIndex > 0) {
                 while (startIndex > 0 && result == null) {
                     T candidate = plain.get(--startIndex);
-                    if (candidate.containsPattern(baseFolder, pattern, findInTopicText, extrasToFind)) {
+                    if (isTopicMatched(candidate, baseFolder, pattern, findInTopicText, extrasToFind, topicFinders)) {
                         result = candidate;
                     }
-                    else if (topicFinders != null) {
-                        for (TopicFinder<T> f : topicFinders) {
-                            if (f.doesTopicContentMatches(candidate, baseFolder, pattern, extrasToFind)) {
-                                result = candidate;
-                                break;
-                            }
-                        }
-                    }
                 }
             }
         } finally {
@@ -235,6 +211,47 @@ public final class MindMap<T extends Topic<T>> implements Serializable, Constant
         return result;
     }
 
+    /**
+     * Find all topics matching the pattern by visiting each topic only once.
+     *
+     * @param baseFolder      base folder for file links, can be null
+     * @param pattern         compiled pattern to be used for all topics
+     * @param findInTopicText search in topic text
+     * @param extrasToFind    types of extras to search in, can be null
+     * @param topicFinders    extra finders (like code snippets), can be null
+     * @return matched topics in the same order as the iteration of the mind map, never null
+     */
+    public List<T> findAll(File baseFolder, Pattern pattern, boolean findInTopicText,
+                           Set<Extra.ExtraType> extrasToFind, Set<TopicFinder<T>> topicFinders) {
+        List<T> result = new ArrayList<>();
+        this.lock();
+        try {
+            for (T t : this) {
+                if (isTopicMatched(t, baseFolder, pattern, findInTopicText, extrasToFind, topicFinders)) {
+                    result.add(t);
+                }
+            }
+        } finally {
+            this.unlock();
+        }
+        return result;
+    }
+
+    private boolean isTopicMatched(T topic, File baseFolder, Pattern pattern, boolean findInTopicText,
+                                   Set<Extra.ExtraType> extrasToFind, Set<TopicFinder<T>> topicFinders) {
+        if (topic.containsPattern(baseFolder, pattern, findInTopicText, extrasToFind)) {
+            return true;
+        }
+        if (topicFinders != null) {
+            for (TopicFinder<T> f : topicFinders) {
+                if (f.doesTopicContentMatches(topic, baseFolder, pattern, extrasToFind)) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
     public void setRoot(T newRoot) {
         this.lock();
         try {
@@ -397,6 +414,47 @@ public final class MindMap<T extends Topic<T>> implements Serializable, Constant
     }
 
 
+    /**
+     * Pack topics with their subtrees in the text format of mind map, like for clipboard.
+     * Nothing is cloned, and the text is much more compact than the serialized topics.
+     *
+     * @param topics topics that don't have any ancestor-descendant relationship.
+     * @return
+     * @see #unpackTopics(String, RootCreate)
+     */
+    public static <T extends Topic<T>> String packTopics(List<T> topics) {
+        StringWriter writer = new StringWriter(4096);
+        try {
+            writer.append(NEXT_LINE).append("# ").append(PACKED_TOPICS_HOLDER).append(NEXT_LINE);
+            for (T t : topics) {
+                t.getMap().lock();
+                try {
+                    t.write(2, writer);
+                } finally {
+                    t.getMap().unlock();
+                }
+            }
+        } catch (IOException ex) {
+            throw new Error("Unexpected exception", ex);
+        }
+        return writer.toString();
+    }
+
+    /**
+     * Create topics of this mind map from the text packed by {@link #packTopics(List)}.
+     * The topics are children of a temporary topic, move them to the destination with {@link Topic#moveToNewParent(Topic)}.
+     *
+     * @param packed
+     * @param creator
+     * @return
+     */
+    public List<T> unpackTopics(String packed, RootCreate<T> creator) {
+        MindMapLexer lexer = new MindMapLexer();
+        lexer.start(packed, 0, packed.length(), MindMapLexer.TokenType.WHITESPACE);
+        T holder = Topic.parse(this, lexer, creator);
+        return holder == null ? Collections.emptyList() : new ArrayList<>(holder.getChildren());
+    }
+
     public <W extends Writer> W write(W out) throws IOException {
         this.lock();
         try {
@@ -462,8 +520,15 @@ public final class MindMap<T extends Topic<T>> implements Serializable, Constant
                 result = true;
             }
             else {
-                rootTopic.removeTopic(topic);
-                result = rootTopic.removeAllLinksTo(topic);
+                T parent = topic.getParent();
+                if (parent != null && topic.findRoot() == rootTopic) {
+                    parent.removeTopic(topic);
+                }
+                else {
+                    rootTopic.removeTopic(topic);
+                }
+                // only the topic with UID can be linked.
+                result = topic.getAttribute(ExtraTopic.TOPIC_UID_ATTR) != null && rootTopic.removeAllLinksTo(topic);
             }
             return result;
         } finally {
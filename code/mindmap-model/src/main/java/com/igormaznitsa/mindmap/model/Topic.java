@@ -793,6 +793,9 @@ public class Topic<T extends Topic<T>> implements Serializable, Constants, Itera
         if (topic == null) {
             return false;
         }
+        if (topic.getParent() == this && this.children.remove(topic)) {
+            return true; // direct child, no need to search the whole subtree.
+        }
         Iterator<T> iterator = this.children.iterator();
         while (iterator.hasNext()) {
             T t = iterator.next();
@@ -104,6 +104,17 @@ public class MindMapTest {
         assertNull(map.findPrev(null, solar, Pattern.compile(Pattern.quote("ar")), true, null));
     }
 
+    @Test
+    public void testFindAll() throws Exception {
+        MindMap<TestTopicNode> map = new MindMap<>(new StringReader("test\n---\n# Solar\n## Mercury\n## Venus\n## Earth\n### Moon\n## Mars\n### Phobos\n### Deimos"), TestTopicNode.testTopicCreator);
+        List<TestTopicNode> found = map.findAll(null, Pattern.compile(Pattern.quote("ar")), true, null, null);
+        assertEquals(3, found.size());
+        assertEquals("Solar", found.get(0).getText());
+        assertEquals("Earth", found.get(1).getText());
+        assertEquals("Mars", found.get(2).getText());
+        assertTrue(map.findAll(null, Pattern.compile(Pattern.quote("Pluto")), true, null, null).isEmpty());
+    }
+
     @Test
     public void testMindMapParse_NoAttributes() throws Exception {
         MindMap<TestTopicNode> map = new MindMap<>(new StringReader("lkf\n---\n# Hello"), TestTopicNode.testTopicCreator);
@@ -225,4 +236,60 @@ public class MindMapTest {
         Assert.assertEquals("child2.2", firstInTree.get().getText());
         System.out.println(firstInTree.get().getText());
     }
+
+    @Test
+    public void testPackAndUnpackTopics() throws Exception {
+        MindMap<TestTopicNode> source = new MindMap<>(new StringReader("""
+                ---
+                # root
+                ## child1
+                > fillColor=`#ff0000`
+
+                - NOTE
+                <pre>note of child1</pre>
+
+                ### child1.1
+                ### child1.2
+                ## child2
+                ### child2.1
+                """), TestTopicNode.testTopicCreator);
+        List<TestTopicNode> children = source.getRoot().getChildren();
+        String packed = MindMap.packTopics(List.of(children.get(0), children.get(1)));
+
+        MindMap<TestTopicNode> target = new MindMap<>(new StringReader("---\n# target"), TestTopicNode.testTopicCreator);
+        List<TestTopicNode> unpacked = target.unpackTopics(packed, TestTopicNode.testTopicCreator);
+        assertEquals(2, unpacked.size());
+        for (TestTopicNode t : unpacked) {
+            t.moveToNewParent(target.getRoot());
+        }
+        List<TestTopicNode> pasted = target.getRoot().getChildren();
+        assertEquals(2, pasted.size());
+        assertEquals("child1", pasted.get(0).getText());
+        assertEquals("#ff0000", pasted.get(0).getAttribute("fillColor"));
+        assertEquals("note of child1", pasted.get(0).getExtras().get(Extra.ExtraType.NOTE).getValue());
+        assertEquals(2, pasted.get(0).getChildren().size());
+        assertEquals("child1.2", pasted.get(0).getChildren().get(1).getText());
+        assertEquals("child2.1", pasted.get(1).getChildren().get(0).getText());
+        assertTrue(pasted.stream().allMatch(t -> t.getMap() == target && t.getParent() == target.getRoot()));
+        // the source is not changed
+        assertEquals(2, source.getRoot().getChildren().size());
+    }
+
+    @Test
+    public void testRemoveDeepTopic() throws Exception {
+        MindMap<TestTopicNode> map = new MindMap<>(new StringReader("""
+                ---
+                # root
+                ## child1
+                ### child1.1
+                ## child2
+                ### child2.1
+                ### child2.2
+                """), TestTopicNode.testTopicCreator);
+        TestTopicNode child22 = map.getRoot().getChildren().get(1).getChildren().get(1);
+        map.removeTopic(child22);
+        assertEquals(1, map.getRoot().getChildren().get(1).getChildren().size());
+        assertEquals("child2.1", map.getRoot().getChildren().get(1).getChildren().get(0).getText());
+        assertNull(map.findFirstInTree(t -> "child2.2".equals(t.getText())).orElse(null));
+    }
 }
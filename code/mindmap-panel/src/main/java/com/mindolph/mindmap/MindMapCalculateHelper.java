@@ -3,7 +3,6 @@ package com.mindolph.mindmap;
 import com.igormaznitsa.mindmap.model.MindMap;
 import com.mindolph.base.graphic.CanvasGraphicsWrapper;
 import com.mindolph.mindmap.gfx.MindMapCanvas;
-import com.mindolph.mindmap.model.BaseElement;
 import com.mindolph.mindmap.model.TopicNode;
 import javafx.geometry.Dimension2D;
 import javafx.scene.canvas.Canvas;
@@ -33,12 +32,11 @@ public class MindMapCalculateHelper {
         MindMapCanvas mmCanvas = new MindMapCanvas(gfx,cfg, context);
         Dimension2D blockSize = null;
         try {
+            if (expandAll) {
+                // the collapsed topics have no elements, so expand them in model before calculating.
+                workMap.getRoot().removeCollapseAttr();
+            }
             if (mmCanvas.calculateElementSizes(workMap)) {
-                if (expandAll) {
-                    BaseElement root = (BaseElement) workMap.getRoot().getPayload();
-                    root.collapseOrExpandAllChildren(false);
-                    mmCanvas.calculateElementSizes(workMap);
-                }
                 blockSize = mmCanvas.layoutModelElements(workMap);
                 double paperMargin = cfg.getTheme().getPaperMargins() * context.getScale();
                 blockSize = new Dimension2D(blockSize.getWidth() + paperMargin * 2, blockSize.getHeight() + paperMargin * 2);
@@ -37,6 +37,10 @@ public final class MindMapConfig implements EditorConfig, Serializable {
     private boolean copyColorInfoToNewChild = false;
     private boolean smartTextPaste = false;
     private int maxRedoUndo = 20;
+    // level of detail: topics are drawn as blocks below this scale.
+    private float lodBlockScale = 0.3f;
+    // level of detail: tiny subtrees are drawn as summary shapes below this scale.
+    private float lodSummaryScale = 0.15f;
 
     public MindMapConfig(MindMapConfig cfg) {
         this();
@@ -154,4 +158,20 @@ public final class MindMapConfig implements EditorConfig, Serializable {
     public void setMaxRedoUndo(int maxRedoUndo) {
         this.maxRedoUndo = maxRedoUndo;
     }
+
+    public float getLodBlockScale() {
+        return lodBlockScale;
+    }
+
+    public void setLodBlockScale(float lodBlockScale) {
+        this.lodBlockScale = lodBlockScale;
+    }
+
+    public float getLodSummaryScale() {
+        return lodSummaryScale;
+    }
+
+    public void setLodSummaryScale(float lodSummaryScale) {
+        this.lodSummaryScale = lodSummaryScale;
+    }
 }
@@ -9,6 +9,12 @@ public class MindMapContext {
 
     private boolean debugMode = false;
 
+    // load images in background and draw placeholders before they are ready, for the interactive view only.
+    private boolean asyncImageLoading = false;
+
+    // whether placeholders are drawn for the images being loaded.
+    private boolean waitingForImages = false;
+
     public double getScale() {
         return scale;
     }
@@ -30,4 +36,26 @@ public class MindMapContext {
     public void setDebugMode(boolean debugMode) {
         this.debugMode = debugMode;
     }
+
+    public boolean isAsyncImageLoading() {
+        return asyncImageLoading;
+    }
+
+    public MindMapContext setAsyncImageLoading(boolean asyncImageLoading) {
+        this.asyncImageLoading = asyncImageLoading;
+        return this;
+    }
+
+    public void setWaitingForImages(boolean waitingForImages) {
+        this.waitingForImages = waitingForImages;
+    }
+
+    /**
+     * @return whether placeholders are drawn for the images being loaded, the flag is reset once it's taken.
+     */
+    public boolean takeWaitingForImages() {
+        boolean waiting = this.waitingForImages;
+        this.waitingForImages = false;
+        return waiting;
+    }
 }
@@ -22,6 +22,7 @@ import com.mindolph.mindmap.event.TopicEditEventHandler;
 import com.mindolph.mindmap.extension.MindMapExtensionRegistry;
 import com.mindolph.mindmap.extension.api.VisualAttributeExtension;
 import com.mindolph.mindmap.extension.attributes.emoticon.EmoticonVisualAttributeExtension;
+import com.mindolph.mindmap.extension.attributes.images.ImageCache;
 import com.mindolph.mindmap.model.*;
 import com.mindolph.mindmap.util.ElementUtils;
 import com.mindolph.mindmap.util.MindMapUtils;
@@ -43,6 +44,7 @@ import javafx.scene.text.Font;
 import org.apache.commons.collections4.CollectionUtils;
 import org.apache.commons.io.FileUtils;
 import org.apache.commons.lang3.StringUtils;
+import org.reactfx.Subscription;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -51,6 +53,7 @@ import java.nio.charset.StandardCharsets;
 import java.util.*;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicReference;
+import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 import java.util.stream.Collectors;
 
@@ -86,6 +89,8 @@ public class MindMapView extends BaseScalableView {
 
     // Search in Mind Map
     private static Set<TopicFinder<TopicNode>> TOPIC_FINDERS;
+    private int foundIndex = -1;
+    private int foundCount = 0;
 
     // Handle loading model
     private DiagramEventHandler diagramEventHandler;
@@ -104,6 +109,9 @@ public class MindMapView extends BaseScalableView {
 
     private final ObjectProperty<TopicNode> collapsingTopic = new SimpleObjectProperty<>();
 
+    // the pending re-layout is only for folding/unfolding, the measured elements of visible topics can be kept.
+    private boolean foldingOnlyLayout;
+
     // selected text in input text area
     private final StringProperty selectedInputText = new SimpleStringProperty();
 
@@ -116,6 +124,9 @@ public class MindMapView extends BaseScalableView {
 
     protected MindMapContext mindMapContext;
 
+    // re-layout when images are decoded in background
+    private Subscription imageLoadedSubscription;
+
     public MindMapView() {
         super();
         this.init();
@@ -139,7 +150,7 @@ public class MindMapView extends BaseScalableView {
     }
 
     private void init() {
-        this.mindMapContext = new MindMapContext();
+        this.mindMapContext = new MindMapContext().setAsyncImageLoading(true);
         this.setOpacity(1);
         this.setFocusTraversable(false);
         Shortcuts.init();
@@ -148,6 +159,10 @@ public class MindMapView extends BaseScalableView {
         collapsingTopic.addListener((observable, oldValue, newValue) -> {
             if (oldValue != newValue) repaint();
         });
+        imageLoadedSubscription = ImageCache.getIns().subscribeImageLoaded(v -> {
+            // the layout doesn't depend on the images, repaint if this view is waiting for images.
+            if (getSkin() != null && model != null && mindMapContext.takeWaitingForImages()) repaint();
+        });
     }
 
     private void initStateMachine() {
@@ -196,7 +211,8 @@ public class MindMapView extends BaseScalableView {
                 .in(payload -> {
                     MouseEvent e = (MouseEvent) payload;
                     Point2D point = translateMousePos(e);
-                    if (draggedElement == null) {
+                    boolean started = draggedElement == null;
+                    if (started) {
                         // start dragging
                         Point2D mouseOffset = new Point2D(point.getX() - elementUnderMouse.getBounds().getMinX(),
                                 point.getY() - elementUnderMouse.getBounds().getMinY());
@@ -242,7 +258,12 @@ public class MindMapView extends BaseScalableView {
                         if(log.isTraceEnabled())log.trace("scroll to: %s %s".formatted(vr.getMinX() + offsetx, vr.getMinY() + offsety));
                         scrollEventHandler.onScroll(new Point2D(vr.getMinX() + offsetx, vr.getMinY() + offsety), false);
                     }
-                    repaint();
+                    if (started) {
+                        repaint(); // the selection might be changed
+                    }
+                    else {
+                        repaintOverlay();
+                    }
                 })
                 .state(AREA_SELECTING)
                 .in(payload -> {
@@ -258,12 +279,13 @@ public class MindMapView extends BaseScalableView {
                             if (element == null) {
                                 mouseDragSelection = new MouseSelectedArea(point);
                             }
+                            repaint(); // the selection might be cleared
                         }
                     }
                     else {
                         // keep area selecting
                         mouseDragSelection.update(point);
-                        repaint();
+                        repaintOverlay();
                     }
                     EventBus.getIns().notifyStatusMsg(file, new StatusMsg("%d topics are selected".formatted(selection.get().size())));
                 })
@@ -417,8 +439,7 @@ public class MindMapView extends BaseScalableView {
                     e.consume();
                     List<BaseElement> elements = new ArrayList<>();
                     for (TopicNode t : getSelectedTopics()) {
-                        BaseElement element = (BaseElement) t.getPayload();
-                        if (element != null) {
+                        if (t.getPayload() instanceof BaseElement element) {
                             elements.add(element);
                         }
                     }
@@ -461,17 +482,18 @@ public class MindMapView extends BaseScalableView {
             }
         }
         log.debug("Calculate and set original dimension of this mind map");
-        getMindMapViewSkin().calculateAndSetOriginalDimension();
-
-        if (diagramEventHandler == null) {
-            log.warn("The model event handler is not provided");
-        }
-        else {
-            diagramEventHandler.onDiagramMeasured(rootToCenter);
-            if (notifyModelChangeListeners) {
-                onMindMapModelChanged(saveToHistory);
+        // large mind map is measured in background.
+        getMindMapViewSkin().calculateAndSetOriginalDimension(() -> {
+            if (diagramEventHandler == null) {
+                log.warn("The model event handler is not provided");
             }
-        }
+            else {
+                diagramEventHandler.onDiagramMeasured(rootToCenter);
+                if (notifyModelChangeListeners) {
+                    onMindMapModelChanged(saveToHistory);
+                }
+            }
+        });
     }
 
     public void reload() {
@@ -611,7 +633,7 @@ public class MindMapView extends BaseScalableView {
             }
             else if (hasOnlyTopicSelected()) {
                 e.consume();
-                startEdit((BaseElement) firstSelected.getPayload());
+                startEdit(firstSelected);
             }
         }
     }
@@ -624,8 +646,7 @@ public class MindMapView extends BaseScalableView {
             return;
         }
         TopicNode lastSelTopic = lastSelected.getModel();
-        BaseElement nextFocused = null;
-        boolean modelChanged = false;
+        TopicNode nextFocused = null;
         boolean expandFirstChild = false;
         if (lastSelected.isMoveable()) {
             if (sm.getKeyCombination(KEY_FOCUS_MOVE_UP_ADD_FOCUSED).getCode() == event.getCode()
@@ -644,8 +665,7 @@ public class MindMapView extends BaseScalableView {
                         return !topic.isLeftSidedTopic();
                     }
                 };
-                TopicNode topic = isUp ? lastSelTopic.findPrev(checker) : lastSelTopic.findNext(checker);
-                nextFocused = topic == null ? null : (BaseElement) topic.getPayload();
+                nextFocused = isUp ? lastSelTopic.findPrev(checker) : lastSelTopic.findNext(checker);
                 event.consume();
             }
             else if (sm.getKeyCombination(KEY_FOCUS_MOVE_LEFT_ADD_FOCUSED).getCode() == event.getCode()) {
@@ -653,13 +673,13 @@ public class MindMapView extends BaseScalableView {
                     expandFirstChild = true;
                 }
                 else {
-                    nextFocused = (BaseElement) lastSelTopic.getParent().getPayload();
+                    nextFocused = lastSelTopic.getParent();
                 }
                 event.consume();
             }
             else if (sm.getKeyCombination(KEY_FOCUS_MOVE_RIGHT_ADD_FOCUSED).getCode() == event.getCode()) {
                 if (lastSelected.isLeftDirection()) {
-                    nextFocused = (BaseElement) lastSelTopic.getParent().getPayload();
+                    nextFocused = lastSelTopic.getParent();
                 }
                 else {
                     expandFirstChild = true;
@@ -671,17 +691,17 @@ public class MindMapView extends BaseScalableView {
             if (lastSelected.hasChildren()) {
                 if (lastSelected.isCollapsed()) {
                     ((BaseCollapsableElement) lastSelected).setCollapse(false);
-                    modelChanged = true;
+                    // the children might have no elements until laid out, so the topics are used to decide the focus.
+                    this.onFoldingChanged();
                 }
-                nextFocused = (BaseElement) (lastSelTopic.getChildren().get(0)).getPayload();
+                nextFocused = lastSelTopic.getChildren().get(0);
             }
         }
         // left button
         if (event.getCode() == sm.getKeyCombination(KEY_FOCUS_MOVE_LEFT_ADD_FOCUSED).getCode()) {
             for (TopicNode t : lastSelTopic.getChildren()) {
-                BaseElement e = (BaseElement) t.getPayload();
-                if (e != null && e.isLeftDirection()) {
-                    nextFocused = e;
+                if (isLeftSided(t)) {
+                    nextFocused = t;
                     break;
                 }
             }
@@ -689,9 +709,8 @@ public class MindMapView extends BaseScalableView {
         // right button
         else if (event.getCode() == sm.getKeyCombination(KEY_FOCUS_MOVE_RIGHT_ADD_FOCUSED).getCode()) {
             for (TopicNode t : lastSelTopic.getChildren()) {
-                BaseElement e = (BaseElement) t.getPayload();
-                if (e != null && !e.isLeftDirection()) {
-                    nextFocused = e;
+                if (!isLeftSided(t)) {
+                    nextFocused = t;
                     break;
                 }
             }
@@ -701,23 +720,33 @@ public class MindMapView extends BaseScalableView {
             boolean addFocused = sm.isKeyEventMatch(event,
                     KEY_FOCUS_MOVE_UP_ADD_FOCUSED, KEY_FOCUS_MOVE_DOWN_ADD_FOCUSED,
                     KEY_FOCUS_MOVE_LEFT_ADD_FOCUSED, KEY_FOCUS_MOVE_RIGHT_ADD_FOCUSED);
-            if (!addFocused || this.selection.get().contains(nextFocused.getModel())) {
+            if (!addFocused || this.selection.get().contains(nextFocused)) {
                 removeAllSelection();
             }
-            selectAndUpdate(nextFocused.getModel(), false);
+            selectAndUpdate(nextFocused, false);
         }
+    }
 
-        if (modelChanged) {
-            onMindMapModelChanged(true);
+    /**
+     * Direction of topic decided by the model, the same as {@link BaseElement#isLeftDirection()} but works for the
+     * topics which are not laid out yet.
+     *
+     * @param topic
+     * @return
+     */
+    private boolean isLeftSided(TopicNode topic) {
+        TopicNode t = topic;
+        while (t.getParent() != null && t.getParent().getParent() != null) {
+            t = t.getParent();
         }
+        return t.getParent() != null && t.isLeftSidedTopic();
     }
 
     private void processMoveTopics(KeyEvent event) {
         if (event.isConsumed()) return;
         TopicNode lastSelectedTopic = getLastSelectedTopic();
         if (lastSelectedTopic != null) {
-            BaseElement element = (BaseElement) lastSelectedTopic.getPayload();
-            if (element == null || !element.isMoveable()) {
+            if (!(lastSelectedTopic.getPayload() instanceof BaseElement element) || !element.isMoveable()) {
                 return;
             }
             boolean changed = false;
@@ -772,10 +801,24 @@ public class MindMapView extends BaseScalableView {
     transient BaseElement elementUnderEdit = null;
 
     public void startEdit(BaseElement element) {
-        if (element == null) {
+        this.startEdit(element == null ? null : element.getModel());
+    }
+
+    /**
+     * Start editing the topic once it's laid out, since the topic might have no element yet (like newly created).
+     *
+     * @param topic
+     */
+    public void startEdit(TopicNode topic) {
+        if (topic == null) {
             this.elementUnderEdit = null;
+            return;
         }
-        else {
+        this.afterLayout(() -> {
+            if (!(topic.getPayload() instanceof BaseElement element)) {
+                log.debug("Topic is not laid out, ignore editing");
+                return;
+            }
             this.elementUnderEdit = element;
             log.info("Start edit with: " + RectangleUtils.rectangleInStr(element.getBounds()));
             Font font = element.getTextBlock().getFont();
@@ -784,7 +827,7 @@ public class MindMapView extends BaseScalableView {
             Rectangle2D b = new Rectangle2D(p.getX(), p.getY(), bounds.getWidth(), bounds.getHeight());
             log.debug("topic bounds: " + RectangleUtils.rectangleInStr(b));
             topicEditEventHandler.startEdit(element.getText(), font, b);
-        }
+        });
     }
 
     public Point2D onStartNewTopicEdit(String text, Dimension2D dimension) {
@@ -819,8 +862,6 @@ public class MindMapView extends BaseScalableView {
             newTopic.moveBefore(baseTopic);
         }
 
-        BaseElement parentElement = (BaseElement) parent.getPayload();
-
         // make new topic left or right when parent is root.
         if (parent.getChildren().size() != 1 && parent.isRoot() && baseTopic == null) {
             int numLeft = 0;
@@ -835,17 +876,17 @@ public class MindMapView extends BaseScalableView {
             }
             newTopic.makeTopicLeftSided(Utils.LTR_LANGUAGE ? numLeft < numRight : numLeft > numRight);
         }
-        else if (baseTopic != null && baseTopic.getPayload() != null) { // make new sibling left or right by the base topic.
-            BaseElement element = (BaseElement) baseTopic.getPayload();
-            newTopic.makeTopicLeftSided(element.isLeftDirection());
+        else if (baseTopic != null) { // make new sibling left or right by the base topic.
+            newTopic.makeTopicLeftSided(isLeftSided(baseTopic));
         }
         else {
             // make new child topic left or right by parent
-            newTopic.makeTopicLeftSided(parentElement.isLeftDirection());
+            newTopic.makeTopicLeftSided(isLeftSided(parent));
         }
 
-        if (parentElement instanceof BaseCollapsableElement && parentElement.isCollapsed()) {
-            ((BaseCollapsableElement) parentElement).setCollapse(false);
+        // the topics might not be laid out yet, so the model is used instead of the elements.
+        if (!parent.isRoot() && parent.isCollapsed()) {
+            parent.setCollapsed(false);
         }
 
         forceRefresh();
@@ -853,7 +894,7 @@ public class MindMapView extends BaseScalableView {
 
         scrollDoneEvents.subscribeFor(1, v -> {
             log.debug("Start edit new create topic of parent: %s".formatted(parent.getText()));
-            startEdit((BaseElement) newTopic.getPayload());
+            startEdit(newTopic);
         });
         selectAndUpdate(newTopic, false);
     }
@@ -1062,10 +1103,47 @@ public class MindMapView extends BaseScalableView {
         }
         if (changed) {
             log.debug("fold/unfold changed");
-            onMindMapModelChanged(true);
+            this.onFoldingChanged();
         }
     }
 
+    private void onFoldingChanged() {
+        onMindMapModelChanged(true);
+        this.foldingOnlyLayout = true;
+    }
+
+    @Override
+    public void forceRefresh() {
+        this.foldingOnlyLayout = false;
+        this.notifyLayoutOfModelChange();
+        super.forceRefresh();
+    }
+
+    @Override
+    public void requestRelayout() {
+        this.foldingOnlyLayout = false;
+        this.notifyLayoutOfModelChange();
+        super.requestRelayout();
+    }
+
+    // the result of layout in background (if there is) is out of date.
+    private void notifyLayoutOfModelChange() {
+        if (getSkin() != null) {
+            getMindMapViewSkin().onModelChanged();
+        }
+    }
+
+    /**
+     * Whether the pending re-layout is only caused by folding/unfolding, the flag is reset once it's taken.
+     *
+     * @return
+     */
+    boolean takeFoldingOnlyLayout() {
+        boolean result = this.foldingOnlyLayout;
+        this.foldingOnlyLayout = false;
+        return result;
+    }
+
     // remove from selection if any topic was folded
     private void removeInvisibleSelection() {
         new ArrayList<>(selection.get()).stream().filter(topicNode -> !topicNode.isTopicVisible())
@@ -1084,6 +1162,7 @@ public class MindMapView extends BaseScalableView {
     }
 
     public BaseElement findTopicUnderPoint(Point2D point) {
+        this.flushLayout();
         BaseElement result = null;
         if (this.model != null) {
             TopicNode root = this.model.getRoot();
@@ -1155,7 +1234,7 @@ public class MindMapView extends BaseScalableView {
         if (topic != null) {
             log.trace("Select topic: %s".formatted(topic));
             this.selection.get().add(topic);
-            repaint(); // this make sure the selection effect before the topic is visible
+            repaintTopic(topic); // this make sure the selection effect before the topic is visible
         }
     }
 
@@ -1170,7 +1249,7 @@ public class MindMapView extends BaseScalableView {
             else {
                 this.selection.get().add(topic);
                 updateStatusBarForTopic(topic);
-                repaint(); // this make sure the selection effect before the topic is visible
+                repaintTopic(topic); // this make sure the selection effect before the topic is visible
                 ensureVisibilityOfTopic(topic);
             }
         }
@@ -1214,7 +1293,10 @@ public class MindMapView extends BaseScalableView {
 
     public void ensureVisibilityOfTopic(TopicNode topic) {
         log.debug("ensureVisibilityOfTopic()");
+        this.afterLayout(() -> this.doEnsureVisibilityOfTopic(topic));
+    }
 
+    private void doEnsureVisibilityOfTopic(TopicNode topic) {
         BaseElement element = (BaseElement) topic.getPayload();
         if (element == null) {
             return;
@@ -1236,18 +1318,21 @@ public class MindMapView extends BaseScalableView {
             scrollDoneEvents.push(null);// to make sure that the topic edit begins if no scroll happens.
             return;
         }
-        this.viewTopic(topic, VisualStrategy.FIT, true);
+        this.scrollToTopic(topic, VisualStrategy.FIT, true);
     }
 
     /**
-     * Requires mind map dimension and viewport are ready.
+     * Scroll to the topic once it's laid out, requires mind map dimension and viewport are ready.
      *
      * @param topic
      * @param visualStrategy
      * @param animate
-     * @return
      */
-    public boolean viewTopic(TopicNode topic, VisualStrategy visualStrategy, boolean animate) {
+    public void viewTopic(TopicNode topic, VisualStrategy visualStrategy, boolean animate) {
+        this.afterLayout(() -> this.scrollToTopic(topic, visualStrategy, animate));
+    }
+
+    private boolean scrollToTopic(TopicNode topic, VisualStrategy visualStrategy, boolean animate) {
         boolean result = false;
         if (topic != null) {
             log.debug("Try to view topic '%s' with strategy %s".formatted(StringUtils.abbreviate(topic.getText(), 20), visualStrategy));
@@ -1311,6 +1396,35 @@ public class MindMapView extends BaseScalableView {
             if (this.selection.get().remove(t)) {
                 //fireNotificationSelectionChanged();
             }
+            repaintTopic(t);
+        }
+    }
+
+    /**
+     * Execute the pending re-layout, and run the action after the layout in background (if there is) is applied,
+     * use it for the actions which read the elements of topics.
+     *
+     * @param action
+     */
+    private void afterLayout(Runnable action) {
+        this.flushLayout();
+        getMindMapViewSkin().runAfterLayout(action);
+    }
+
+    /**
+     * Repaint only the area of the topic including the selection frame, like for selection changes.
+     * The whole view is repainted if the topic is not laid out yet.
+     *
+     * @param topic
+     */
+    private void repaintTopic(TopicNode topic) {
+        if (topic.getPayload() instanceof BaseElement element) {
+            double extra = mindMapContext.getScale() * (config.getTheme().getSelectLineGap() * 2
+                    + config.getTheme().getSelectLineWidth() + config.getTheme().getShadowOffset()) + 1;
+            Rectangle2D b = element.getBounds();
+            repaint(new Rectangle2D(b.getMinX() - extra, b.getMinY() - extra, b.getWidth() + extra * 2, b.getHeight() + extra * 2));
+        }
+        else {
             repaint();
         }
     }
@@ -1326,6 +1440,7 @@ public class MindMapView extends BaseScalableView {
     private BaseElement getLastSelectedTopicElement() {
         TopicNode lastSelected = getLastSelectedTopic();
         if (lastSelected == null) return null;
+        this.flushLayout();
         return (BaseElement) lastSelected.getPayload();
     }
 
@@ -1353,8 +1468,7 @@ public class MindMapView extends BaseScalableView {
 
     private void findDestinationElementForDragged() {
         TopicNode rootTopic = this.model.getRoot();
-        if (this.draggedElement != null && rootTopic != null) {
-            BaseElement rootElement = (BaseElement) rootTopic.getPayload();
+        if (this.draggedElement != null && rootTopic != null && rootTopic.getPayload() instanceof BaseElement rootElement) {
             this.destinationElement = ElementUtils.findNearestOpenedTopicToPoint(rootElement,
                     this.draggedElement.getElement(), this.draggedElement.getPosition());
         }
@@ -1395,61 +1509,55 @@ public class MindMapView extends BaseScalableView {
         }
 
         int pos = ElementUtils.calcDropPosition(destination, dropPoint);
+        // the dropped topics are handled by model, since the descendants of collapsed topics have no elements.
         List<TopicNode> toBeDropped = TopicUtils.convertSelectedTopicsToDroppedTopics(selection.get());
         switch (pos) {
             case MindMapConstants.DRAG_POSITION_TOP:
             case MindMapConstants.DRAG_POSITION_BOTTOM: {
-                for (TopicNode selectedTopic : toBeDropped) {
-                    BaseElement element = (BaseElement) selectedTopic.getPayload();
-                    TopicNode t = element.getModel();
-                    t.moveToNewParent(destination.getParent().getModel());
+                TopicNode destinationTopic = destination.getModel();
+                TopicNode destinationParent = destinationTopic.getParent();
+                boolean firstLevel = destination.getClass() == ElementLevelFirst.class;
+                boolean leftSided = destination.isLeftDirection();
+                for (TopicNode t : toBeDropped) {
+                    t.moveToNewParent(destinationParent);
                     if (pos == MindMapConstants.DRAG_POSITION_TOP) {
-                        t.moveBefore(destination.getModel());
-                    }
-                    else {
-                        t.moveAfter(destination.getModel());
-                    }
-
-                    if (destination.getClass() == ElementLevelFirst.class) {
-                        t.makeTopicLeftSided(destination.isLeftDirection());
+                        t.moveBefore(destinationTopic);
                     }
                     else {
-                        t.makeTopicLeftSided(false);
+                        t.moveAfter(destinationTopic);
                     }
-                    destination = (BaseElement) t.getPayload(); // change the drop destination for ordering.
+                    t.makeTopicLeftSided(firstLevel && leftSided);
+                    destinationTopic = t; // change the drop destination for ordering.
                 }
             }
             break;
             case MindMapConstants.DRAG_POSITION_RIGHT:
             case MindMapConstants.DRAG_POSITION_LEFT: {
                 for (TopicNode selectedTopic : toBeDropped) {
-                    BaseElement element = (BaseElement) selectedTopic.getPayload();
-                    if (element.getParent() == destination) {
+                    if (selectedTopic.getParent() == destination.getModel()) {
                         // the same parent
                         if (destination.getClass() == ElementRoot.class) {
                             // process only for the root, just update direction
-                            if (element instanceof BaseCollapsableElement) {
-                                ((BaseCollapsableElement) element).setLeftDirection(pos == MindMapConstants.DRAG_POSITION_LEFT);
-                            }
+                            selectedTopic.makeTopicLeftSided(pos == MindMapConstants.DRAG_POSITION_LEFT);
                         }
                     }
                     else {
-                        element.getModel().moveToNewParent(destination.getModel());
+                        selectedTopic.moveToNewParent(destination.getModel());
                         if (destination instanceof BaseCollapsableElement && destination.isCollapsed()
                                 && config.isUnfoldCollapsedTarget()) {
                             ((BaseCollapsableElement) destination).setCollapse(false);
                         }
                         if (dropPoint.getY() < destination.getBounds().getMinY()) {
-                            element.getModel().makeFirst();
+                            selectedTopic.makeFirst();
                         }
                         else {
-                            element.getModel().makeLast();
+                            selectedTopic.makeLast();
                         }
                         if (destination.getClass() == ElementRoot.class) {
-                            element.getModel().makeTopicLeftSided(pos == MindMapConstants.DRAG_POSITION_LEFT);
+                            selectedTopic.makeTopicLeftSided(pos == MindMapConstants.DRAG_POSITION_LEFT);
                         }
                         else {
-                            element.getModel().makeTopicLeftSided(false);
+                            selectedTopic.makeTopicLeftSided(false);
                         }
                     }
                 }
@@ -1512,20 +1620,29 @@ public class MindMapView extends BaseScalableView {
         }
         boolean inTopicText = options.isInTopic();
 
-        TopicNode found;
-        if (reverse) {
-            // first param projectDir is for searching in file link path.
-            found = this.getModel().findPrev(workspaceDir, startTopic, pattern, inTopicText, extras, TOPIC_FINDERS);
-            if (found == null && startTopic != null) {
-                found = this.getModel().findPrev(workspaceDir, null, pattern, inTopicText, extras, TOPIC_FINDERS);
+        // first param projectDir is for searching in file link path.
+        List<TopicNode> matched = this.getModel().findAll(workspaceDir, pattern, inTopicText, extras, TOPIC_FINDERS);
+        TopicNode found = null;
+        if (!matched.isEmpty()) {
+            int idx = matched.indexOf(startTopic);
+            if (idx >= 0) {
+                idx = reverse ? idx - 1 : idx + 1;
+            }
+            else if (startTopic != null) {
+                idx = this.locateMatchedIndex(matched, startTopic, reverse);
+            }
+            else {
+                idx = reverse ? matched.size() - 1 : 0;
             }
+            // wrap around like search from the beginning (or the end)
+            idx = (idx + matched.size()) % matched.size();
+            found = matched.get(idx);
+            this.foundIndex = idx;
         }
         else {
-            found = this.getModel().findNext(workspaceDir, startTopic, pattern, inTopicText, extras, TOPIC_FINDERS);
-            if (found == null && startTopic != null) {
-                found = this.getModel().findNext(workspaceDir, null, pattern, inTopicText, extras, TOPIC_FINDERS);
-            }
+            this.foundIndex = -1;
         }
+        this.foundCount = matched.size();
 
         if (found != null) {
             this.removeAllSelection();
@@ -1547,35 +1664,77 @@ public class MindMapView extends BaseScalableView {
             else {
                 newText = StringUtils.replace(found.getText(), keywords, replacement);
             }
-            BaseElement element = (BaseElement) found.getPayload();
-            element.setText(newText);
+            if (found.getPayload() instanceof BaseElement element) {
+                element.setText(newText);
+            }
+            else {
+                found.setText(newText); // not laid out (e.g. in collapsed topics)
+            }
             onMindMapModelChanged(true);
             log.debug("  with new text: " + newText);
         }
     }
 
     public void replaceAll(String keywords, TextSearchOptions options, String replacement) {
-        TopicNode found = getModel().getRoot();
+        Pattern pattern = SearchUtils.string2pattern(keywords, options.isCaseSensitive() ? 0 : Pattern.CASE_INSENSITIVE);
+        List<TopicNode> matched = this.getModel().findAll(null, pattern, true, null, null);
+        String quotedReplacement = Matcher.quoteReplacement(replacement);
         boolean replaced = false;
-        while (found != null) {
-            log.debug("found and replace '%s' with '%s'".formatted(found.getText(), replacement));
-            String newText;
-            if (options.isCaseSensitive()) {
-                newText = StringUtils.replaceIgnoreCase(found.getText(), keywords, replacement);
-            }
-            else {
-                newText = StringUtils.replace(found.getText(), keywords, replacement);
+        for (TopicNode found : matched) {
+            String newText = pattern.matcher(found.getText()).replaceAll(quotedReplacement);
+            if (!StringUtils.equals(newText, found.getText())) {
+                log.debug("replace '%s' with '%s'".formatted(found.getText(), newText));
+                if (found.getPayload() instanceof BaseElement element) {
+                    element.setText(newText);
+                }
+                else {
+                    found.setText(newText); // not laid out yet (e.g. in collapsed topics)
+                }
+                replaced = true;
             }
-            BaseElement element = (BaseElement) found.getPayload();
-            element.setText(newText);
-            replaced = true;
-            log.debug("  with new text: " + newText);
-            Pattern pattern = SearchUtils.string2pattern(keywords, options.isCaseSensitive() ? 0 : Pattern.CASE_INSENSITIVE);
-            found = this.getModel().findNext(null, found, pattern, true, null, TOPIC_FINDERS);
         }
+        this.foundIndex = -1;
+        this.foundCount = 0;
+        log.debug("%d topics matched for replacement".formatted(matched.size()));
+        // one undo record and one re-layout for all replacements.
         if (replaced) onMindMapModelChanged(true);
     }
 
+    /**
+     * Find the index of the matched topic which is next(or previous) to the start topic in the order of the mind map.
+     *
+     * @param matched  matched topics in order of the mind map
+     * @param start    start topic which is not matched
+     * @param reverse
+     * @return index in matched topics, might be out of bounds which means wrapping around.
+     */
+    private int locateMatchedIndex(List<TopicNode> matched, TopicNode start, boolean reverse) {
+        int idx = 0;
+        for (TopicNode t : this.getModel()) {
+            if (t == start) {
+                return reverse ? idx - 1 : idx;
+            }
+            if (idx < matched.size() && matched.get(idx) == t) {
+                idx++;
+            }
+        }
+        return reverse ? idx - 1 : idx;
+    }
+
+    /**
+     * @return index of the last found topic in all matched topics, -1 if nothing found.
+     */
+    public int getFoundIndex() {
+        return foundIndex;
+    }
+
+    /**
+     * @return count of all matched topics of last searching.
+     */
+    public int getFoundCount() {
+        return foundCount;
+    }
+
     public void undo() {
         if (!endEdit(null, false)) {
             if (this.undoStorage.hasUndo()) {
@@ -1655,7 +1814,7 @@ public class MindMapView extends BaseScalableView {
         if (topics.size() > 0) {
             Clipboard clipboard = Clipboard.getSystemClipboard();
             ClipboardContent clipboardContent = new ClipboardContent();
-            ClipboardTopicsContainer container = new ClipboardTopicsContainer(topics.toArray(new TopicNode[]{}));
+            ClipboardTopicsContainer container = new ClipboardTopicsContainer(topics);
             try {
                 clipboardContent.putString(ClipboardTopicsContainer.convertTopics(topics));
                 clipboardContent.put(MMD_DATA_FORMAT, container);
@@ -1695,8 +1854,7 @@ public class MindMapView extends BaseScalableView {
                         if (selected.size() > 0) {
                             for (TopicNode s : selected) { // paste to all selected topics.
                                 // paste topics in clipboard
-                                for (TopicNode t : container.getTopics()) {
-                                    TopicNode newTopic = t.cloneTopic(this.model, true);
+                                for (TopicNode newTopic : container.createTopics(this.model)) {
                                     newTopic.removeExtra(ExtraType.TOPIC);
                                     newTopic.moveToNewParent(s);
                                     newTopics.add(newTopic);
@@ -1778,6 +1936,22 @@ public class MindMapView extends BaseScalableView {
         return skin;
     }
 
+    /**
+     * Repaint only the interaction feedbacks (dragged topic, drop destination and selection area),
+     * the rendered topics are reused from the cache of skin.
+     */
+    public void repaintOverlay() {
+        if (frameScheduler.isDirty()) {
+            return; // the pending repaint draws the overlay layer as well.
+        }
+        if (getSkin() instanceof MindMapViewSkin<?> skin) {
+            skin.redrawOverlay();
+        }
+        else {
+            repaint();
+        }
+    }
+
     public MindMapViewSkin<MindMapView> getMindMapViewSkin() {
         return (MindMapViewSkin) getSkin();
     }
@@ -1796,6 +1970,10 @@ public class MindMapView extends BaseScalableView {
 
     @Override
     public WritableImage takeSnapshot() {
+        this.flushLayout();
+        // can't be deferred, so lay out in FX thread if the layout in background is not applied yet.
+        getMindMapViewSkin().finishLayout();
+        this.flushFrame();
         return getMindMapViewSkin().takeSnapshot();
     }
 
@@ -1829,7 +2007,11 @@ public class MindMapView extends BaseScalableView {
     }
 
     public void dispose() {
-
+        frameScheduler.stop();
+        if (imageLoadedSubscription != null) {
+            imageLoadedSubscription.unsubscribe();
+            imageLoadedSubscription = null;
+        }
     }
 
     public void setTopicEditEventHandler(TopicEditEventHandler topicEditEventHandler) {
@@ -8,6 +8,7 @@ import com.mindolph.mfx.util.DimensionUtils;
 import com.mindolph.mfx.util.KeyEventUtils;
 import com.mindolph.mfx.util.RectangleUtils;
 import com.mindolph.mindmap.event.TopicEditEventHandler;
+import com.mindolph.mindmap.gfx.AsyncMindMapLayout;
 import com.mindolph.mindmap.gfx.MindMapCanvas;
 import com.mindolph.mindmap.model.BaseElement;
 import com.mindolph.mindmap.model.DraggedElement;
@@ -17,6 +18,7 @@ import com.mindolph.mindmap.util.TextUtils;
 import javafx.application.Platform;
 import javafx.geometry.Dimension2D;
 import javafx.geometry.Rectangle2D;
+import javafx.scene.SnapshotParameters;
 import javafx.scene.canvas.GraphicsContext;
 import javafx.scene.control.TextArea;
 import javafx.scene.control.TextFormatter;
@@ -24,14 +26,25 @@ import javafx.scene.image.WritableImage;
 import javafx.scene.layout.StackPane;
 import javafx.scene.paint.Color;
 import javafx.scene.text.Font;
+import javafx.scene.transform.Transform;
+import javafx.stage.Window;
 import org.apache.commons.lang3.StringUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+
 import static com.mindolph.mindmap.constant.MindMapConstants.*;
 import static javafx.scene.input.KeyCode.*;
 
 /**
+ * The canvas is drawn in two layers: the static layer with background and topics, and the overlay layer with
+ * interaction feedbacks like dragged topic, drop destination and selection area.
+ * During dragging or area selecting, the static layer is rendered once and cached as image,
+ * each mouse event only restores the cached image and draws the overlay layer on it, see {@link #redrawOverlay()}.
+ *
  * @author mindolph.com@gmail.com
  * @see MindMapView
  */
@@ -51,6 +64,17 @@ public class MindMapViewSkin<T extends MindMapView> extends BaseScalableViewSkin
 
     private CanvasGraphicsWrapper graphicsWrapper;
 
+    // layout of large mind map in background.
+    private final AsyncMindMapLayout asyncLayout;
+    // scale of the last layout, the measured elements can only be kept for the same scale.
+    private double laidOutScale = -1;
+    private final List<Consumer<Dimension2D>> afterLayoutActions = new ArrayList<>();
+
+    // cached image of the static layer, reused if the size is not changed.
+    private WritableImage staticLayer;
+    // false if anything of static layer changed, like model, layout, scale, theme or viewport.
+    private boolean staticLayerValid = false;
+
     /**
      * Constructor for all SkinBase instances.
      *
@@ -60,6 +84,7 @@ public class MindMapViewSkin<T extends MindMapView> extends BaseScalableViewSkin
         super(control);
         this.graphicsWrapper = new CanvasGraphicsWrapper(canvas);
         this.mindMapCanvas = new MindMapCanvas(graphicsWrapper, control.getConfig(), getSkinnable().mindMapContext);
+        this.asyncLayout = new AsyncMindMapLayout(control.getConfig());
         this.stackPane = new StackPane();
         this.stackPane.setManaged(false);
         this.textArea = new TextArea();
@@ -147,39 +172,191 @@ public class MindMapViewSkin<T extends MindMapView> extends BaseScalableViewSkin
             log.trace("layoutChildren() for bounds: (%.2f, %.2f) (%.2f x %.2f)".formatted(contentX, contentY, contentWidth, contentHeight));
     }
 
-    public void calculateAndSetOriginalDimension() {
-        Dimension2D dimension2D = this.updateElementsAndSizeForGraphics(true);
-        log.debug("Original dimension set to %s".formatted(DimensionUtils.dimensionInStr(dimension2D)));
-        control.setOriginalDimension(dimension2D);
+    /**
+     * @param afterLayout called after the original dimension is set, it's called later if the mind map is laid out in background.
+     */
+    public void calculateAndSetOriginalDimension(Runnable afterLayout) {
+        this.layoutElements(false, dimension2D -> {
+            log.debug("Original dimension set to %s".formatted(DimensionUtils.dimensionInStr(dimension2D)));
+            control.setOriginalDimension(dimension2D);
+            afterLayout.run();
+        });
     }
 
     @Override
     public void reLayout(double newScale) {
         if (log.isTraceEnabled()) log.trace("reLayout()");
-        updateElementsAndSizeForGraphics(true);
-        control.fitViewport();
+        this.layoutElements(control.takeFoldingOnlyLayout(), dimension2D -> control.fitViewport());
+    }
+
+    /**
+     * Layout the elements in background if the mind map is large, otherwise in FX thread.
+     * The actions after layout are kept until any layout is done, even if the layout they were requested with
+     * is superseded by a newer one.
+     *
+     * @param foldingOnly true if the model is not changed except folding/unfolding since last layout, then only the
+     *                    newly unfolded topics are measured if it's laid out in FX thread.
+     * @param afterLayout
+     */
+    private void layoutElements(boolean foldingOnly, Consumer<Dimension2D> afterLayout) {
+        afterLayoutActions.add(afterLayout);
+        MindMap<TopicNode> model = this.control.getModel();
+        double scale = getSkinnable().mindMapContext.getScale();
+        boolean keepMeasured = foldingOnly && scale == laidOutScale;
+        laidOutScale = scale;
+        if (canvas != null && AsyncMindMapLayout.isWorthAsync(model)) {
+            asyncLayout.submit(model, getSkinnable().mindMapContext, graphicsWrapper, keepMeasured, dimension -> {
+                if (control.isZoomGesture()) {
+                    return; // the zoom preview is in another scale now, it will be laid out again when the gesture settled.
+                }
+                this.applyDimension(dimension);
+                this.runAfterLayoutActions(dimension);
+                this.endZoomPreview();
+                control.repaint();
+            });
+        }
+        else {
+            asyncLayout.cancel();
+            this.runAfterLayoutActions(this.updateElementsAndSizeForGraphics(true, keepMeasured));
+        }
+    }
+
+    private void runAfterLayoutActions(Dimension2D dimension) {
+        List<Consumer<Dimension2D>> actions = new ArrayList<>(afterLayoutActions);
+        afterLayoutActions.clear();
+        actions.forEach(action -> action.accept(dimension));
+    }
+
+    @Override
+    protected boolean isLayoutInProgress() {
+        return asyncLayout.isRunning();
+    }
+
+    /**
+     * Run the action after the layout in background (if there is) is applied, otherwise run it right now.
+     *
+     * @param action
+     */
+    public void runAfterLayout(Runnable action) {
+        if (asyncLayout.isRunning()) {
+            afterLayoutActions.add(dimension -> action.run());
+        }
+        else {
+            action.run();
+        }
+    }
+
+    /**
+     * Layout in FX thread right now if the layout in background is not applied yet, this is only for the code
+     * which can't be deferred, like taking snapshot.
+     */
+    public void finishLayout() {
+        if (asyncLayout.isRunning()) {
+            asyncLayout.cancel();
+            this.runAfterLayoutActions(this.updateElementsAndSizeForGraphics(true));
+        }
+    }
+
+    /**
+     * Called when the model is changed, the result of layout in background for the model before changing is discarded.
+     */
+    public void onModelChanged() {
+        asyncLayout.modelChanged();
     }
 
     @Override
     public void redraw() {
+        staticLayerValid = false;
         super.redraw();
     }
 
+    /**
+     * Redraw only the dirty region (clipped), the whole view is redrawn if anything in the overlay layer is present.
+     *
+     * @param dirtyRegion in coordinates of the view.
+     */
+    @Override
+    public void redraw(Rectangle2D dirtyRegion) {
+        Rectangle2D vr = this.control.getViewportRectangle();
+        if (this.control.getDraggedElement() != null || this.control.getMouseDragSelection() != null) {
+            this.redraw();
+            return;
+        }
+        if (vr == null || !vr.intersects(dirtyRegion)) {
+            return;
+        }
+        if (log.isTraceEnabled()) log.trace("Redraw region: " + RectangleUtils.rectangleInStr(dirtyRegion));
+        staticLayerValid = false;
+        double minX = Math.max(vr.getMinX(), dirtyRegion.getMinX());
+        double minY = Math.max(vr.getMinY(), dirtyRegion.getMinY());
+        Rectangle2D clip = new Rectangle2D(minX, minY,
+                Math.min(vr.getMaxX(), dirtyRegion.getMaxX()) - minX, Math.min(vr.getMaxY(), dirtyRegion.getMaxY()) - minY);
+        gc = this.canvas.getGraphicsContext2D();
+        gc.save();
+        super.translateGraphicsContext(false);
+        gc.beginPath();
+        gc.rect(clip.getMinX(), clip.getMinY(), clip.getWidth(), clip.getHeight());
+        gc.clip();
+        gc.clearRect(clip.getMinX(), clip.getMinY(), clip.getWidth(), clip.getHeight());
+        graphicsWrapper.setClipBounds(clip);
+        mindMapCanvas.drawBackground();
+        mindMapCanvas.drawGraphics(this.control.getModel(),
+                true, this.control.getSelectedTopics(), this.control.getCollapsingTopic());
+        gc.restore();
+        graphicsWrapper.setClipBounds(vr);
+    }
+
+    /**
+     * Redraw the overlay layer only, the static layer is restored from the cached image,
+     * it will be rendered and cached if it's invalid.
+     */
+    public void redrawOverlay() {
+        if (staticLayerValid) {
+            if (log.isTraceEnabled()) log.trace("Restore static layer from cache");
+            gc = this.canvas.getGraphicsContext2D();
+            gc.clearRect(0, 0, canvas.getWidth(), canvas.getHeight());
+            gc.drawImage(staticLayer, 0, 0, canvas.getWidth(), canvas.getHeight());
+        }
+        else {
+            this.drawBackground();
+            this.drawStaticContent();
+            this.cacheStaticLayer();
+        }
+        this.drawOverlayContent();
+    }
+
+    private void cacheStaticLayer() {
+        // snapshot in the output scale of the screen to keep the cached image as sharp as the canvas.
+        Window window = canvas.getScene() == null ? null : canvas.getScene().getWindow();
+        double outputScaleX = window == null ? 1 : window.getOutputScaleX();
+        double outputScaleY = window == null ? 1 : window.getOutputScaleY();
+        int w = (int) Math.ceil(canvas.getWidth() * outputScaleX);
+        int h = (int) Math.ceil(canvas.getHeight() * outputScaleY);
+        if (w <= 0 || h <= 0) {
+            return;
+        }
+        if (staticLayer == null || staticLayer.getWidth() != w || staticLayer.getHeight() != h) {
+            staticLayer = new WritableImage(w, h);
+        }
+        SnapshotParameters params = new SnapshotParameters();
+        params.setFill(Color.TRANSPARENT);
+        params.setTransform(Transform.scale(outputScaleX, outputScaleY));
+        canvas.snapshot(params, staticLayer);
+        staticLayerValid = true;
+    }
+
     public Dimension2D updateElementsAndSizeForGraphics(boolean forceLayout) {
+        return this.updateElementsAndSizeForGraphics(forceLayout, false);
+    }
+
+    private Dimension2D updateElementsAndSizeForGraphics(boolean forceLayout, boolean keepMeasured) {
         MindMap<TopicNode> model = this.control.getModel();
         if (forceLayout || !this.control.isModelValid()) {
             if (canvas != null) {
                 if (log.isTraceEnabled()) log.trace("updateElementsAndSizeForGraphics()");
                 //if (log.isTraceEnabled())log.trace("viewportBounds: " + RectangleUtils.rectangleInStr(vr));
-                Dimension2D diagramDimension = mindMapCanvas.layoutFullDiagramWithCenteringToPaper(model, null);
-                if (diagramDimension != null) {
-                    if (log.isTraceEnabled())
-                        log.trace(String.format("Calculated dimension for diagram : %s", DimensionUtils.dimensionInStr(diagramDimension)));
-                    this.control.setPrefSize(diagramDimension.getWidth(), diagramDimension.getHeight());
-                    // if without this line, the calculation of auto scroll will repeat for original size and new size.
-                    this.control.getParent().layout();
-                    this.control.setDimension(diagramDimension);
-                }
+                Dimension2D diagramDimension = mindMapCanvas.layoutFullDiagramWithCenteringToPaper(model, null, keepMeasured);
+                this.applyDimension(diagramDimension);
                 return diagramDimension;
             }
         }
@@ -189,6 +366,17 @@ public class MindMapViewSkin<T extends MindMapView> extends BaseScalableViewSkin
         return null;
     }
 
+    private void applyDimension(Dimension2D diagramDimension) {
+        if (diagramDimension != null) {
+            if (log.isTraceEnabled())
+                log.trace(String.format("Calculated dimension for diagram : %s", DimensionUtils.dimensionInStr(diagramDimension)));
+            this.control.setPrefSize(diagramDimension.getWidth(), diagramDimension.getHeight());
+            // if without this line, the calculation of auto scroll will repeat for original size and new size.
+            this.control.getParent().layout();
+            this.control.setDimension(diagramDimension);
+        }
+    }
+
     @Override
     protected void drawBackground() {
         super.drawBackground();
@@ -200,11 +388,22 @@ public class MindMapViewSkin<T extends MindMapView> extends BaseScalableViewSkin
 
     @Override
     protected void drawContent() {
+        this.drawStaticContent();
+        this.drawOverlayContent();
+    }
+
+    private void drawStaticContent() {
         super.translateGraphicsContext(false);
         if (log.isTraceEnabled()) log.trace("Draw content");
         graphicsWrapper.setClipBounds(this.control.getViewportRectangle());
         mindMapCanvas.drawGraphics(this.control.getModel(),
                 true, this.control.getSelectedTopics(), this.control.getCollapsingTopic());
+        super.translateGraphicsContext(true);
+    }
+
+    private void drawOverlayContent() {
+        super.translateGraphicsContext(false);
+        graphicsWrapper.setClipBounds(this.control.getViewportRectangle());
         drawDestinationElement(canvas.getGraphicsContext2D(), this.control.getConfig());
 
         // TODO  refactor to be more elegant.
@@ -383,4 +582,10 @@ public class MindMapViewSkin<T extends MindMapView> extends BaseScalableViewSkin
         return MindMapCanvas.renderMindMapAsImage(this.control.getModel(), control.getConfig(), true);
     }
 
+    @Override
+    public void dispose() {
+        super.dispose();
+        asyncLayout.cancel();
+        afterLayoutActions.clear();
+    }
 }
@@ -1,6 +1,7 @@
 package com.mindolph.mindmap.clipboard;
 
 import com.igormaznitsa.mindmap.model.*;
+import com.mindolph.mindmap.RootTopicCreator;
 import com.mindolph.mindmap.model.TopicNode;
 import org.apache.commons.lang3.StringUtils;
 
@@ -11,23 +12,25 @@ import java.util.Map;
 import static com.mindolph.core.constant.TextConstants.LINE_SEPARATOR;
 
 /**
+ * Topics in clipboard, they are kept in the packed text format of mind map instead of cloned topics,
+ * so that copying doesn't clone any topic and the serialized content is compact.
+ * The topics are only created when they are pasted, directly in the mind map to be pasted to.
  *
+ * @see MindMap#packTopics(List)
  */
 public final class ClipboardTopicsContainer implements Serializable {
 
-    private final TopicNode[] topics;
+    private final String packedTopics;
+    private final int count;
 
     /**
      *
      * @param topics topics that don't have any ancestor-descendant relationship,
      *               otherwise any operations on these topics might with redundant topics.
      */
-    public ClipboardTopicsContainer(TopicNode[] topics) {
-        MindMap<TopicNode> fakeMap = new MindMap<>();
-        this.topics = new TopicNode[topics.length];
-        for (int i = 0; i < topics.length; i++) {
-            this.topics[i] = new TopicNode(fakeMap, topics[i], true);
-        }
+    public ClipboardTopicsContainer(List<TopicNode> topics) {
+        this.packedTopics = MindMap.packTopics(topics);
+        this.count = topics.size();
     }
 
     private static String oneLineTitle(TopicNode topic) {
@@ -99,11 +102,17 @@ public final class ClipboardTopicsContainer implements Serializable {
     }
 
     public boolean isEmpty() {
-        return this.topics.length == 0;
+        return this.count == 0;
     }
 
-    public TopicNode[] getTopics() {
-        return this.topics;
+    /**
+     * Create the topics in the mind map, they are not attached to any topic of the mind map yet.
+     *
+     * @param map
+     * @return
+     */
+    public List<TopicNode> createTopics(MindMap<TopicNode> map) {
+        return map.unpackTopics(this.packedTopics, RootTopicCreator.defaultCreator);
     }
 
 }
@@ -7,8 +7,9 @@ import com.mindolph.mindmap.model.TopicNode;
 import com.mindolph.mindmap.extension.ContextMenuSection;
 import com.mindolph.mindmap.util.DialogUtils;
 import javafx.application.Platform;
-import javafx.scene.control.MenuItem;
-import javafx.scene.control.Tooltip;
+import javafx.concurrent.Task;
+import javafx.concurrent.Worker;
+import javafx.scene.control.*;
 import javafx.scene.image.Image;
 import javafx.scene.image.ImageView;
 import org.apache.commons.lang3.StringUtils;
@@ -78,6 +79,54 @@ public abstract class BaseImportExtension extends BasePopupMenuItemExtension {
                 fileFilterDescription);
     }
 
+    /**
+     * Run the import job in a background thread, a dialog shows the progress and allows user to cancel it.
+     * This method blocks (with nested event loop) until the job finishes or is cancelled.
+     *
+     * @param title title of the progress dialog
+     * @param job
+     * @return imported mind map, null if cancelled by user.
+     * @throws Exception any exception thrown by the job.
+     */
+    protected MindMap<TopicNode> importInBackground(String title, ImportJob job) throws Exception {
+        Task<MindMap<TopicNode>> task = new Task<>() {
+            @Override
+            protected MindMap<TopicNode> call() throws Exception {
+                return job.run(new ImportProgress(this::updateProgress, this::isCancelled));
+            }
+        };
+        ProgressBar progressBar = new ProgressBar();
+        progressBar.setPrefWidth(320);
+        progressBar.progressProperty().bind(task.progressProperty());
+        Dialog<Void> dialog = new Dialog<>();
+        dialog.initOwner(DialogFactory.DEFAULT_WINDOW);
+        dialog.setTitle(title);
+        dialog.getDialogPane().setContent(progressBar);
+        dialog.getDialogPane().getButtonTypes().add(ButtonType.CANCEL);
+        task.stateProperty().addListener((observable, oldValue, newValue) -> {
+            if (newValue == Worker.State.SUCCEEDED || newValue == Worker.State.FAILED) {
+                dialog.close();
+            }
+        });
+
+        Thread thread = new Thread(task, "mind-map-import");
+        thread.setDaemon(true);
+        thread.start();
+        dialog.showAndWait();
+
+        switch (task.getState()) {
+            case SUCCEEDED:
+                return task.getValue();
+            case FAILED:
+                Throwable ex = task.getException();
+                throw ex instanceof Exception e ? e : new RuntimeException(ex);
+            default:
+                log.info("Import is cancelled");
+                task.cancel();
+                return null;
+        }
+    }
+
     public abstract MindMap<TopicNode> doImport(ExtensionContext context) throws Exception;
 
 
@@ -89,5 +138,8 @@ public abstract class BaseImportExtension extends BasePopupMenuItemExtension {
 
     public abstract Image getIcon(ExtensionContext context);
 
-
+    @FunctionalInterface
+    public interface ImportJob {
+        MindMap<TopicNode> run(ImportProgress progress) throws Exception;
+    }
 }
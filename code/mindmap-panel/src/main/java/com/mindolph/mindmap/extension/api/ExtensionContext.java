@@ -37,6 +37,8 @@ public interface ExtensionContext {
 
     void startEdit(BaseElement element);
 
+    void startEdit(TopicNode topic);
+
     boolean hasSelectedTopics();
 
     void deleteSelectedTopics(boolean force);
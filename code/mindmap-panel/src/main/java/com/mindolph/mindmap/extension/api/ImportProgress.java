@@ -0,0 +1,71 @@
+package com.mindolph.mindmap.extension.api;
+
+import org.apache.commons.io.input.ProxyInputStream;
+
+import java.io.InputStream;
+import java.util.concurrent.CancellationException;
+import java.util.function.BiConsumer;
+import java.util.function.BooleanSupplier;
+
+/**
+ * Report progress of an import job and let the job know that it's cancelled by user.
+ *
+ * @author mindolph.com@gmail.com
+ */
+public class ImportProgress {
+
+    /**
+     * For importing without UI, like tests.
+     */
+    public static final ImportProgress NONE = new ImportProgress((done, total) -> {
+    }, () -> false);
+
+    private final BiConsumer<Long, Long> updater;
+    private final BooleanSupplier cancelled;
+
+    public ImportProgress(BiConsumer<Long, Long> updater, BooleanSupplier cancelled) {
+        this.updater = updater;
+        this.cancelled = cancelled;
+    }
+
+    public void update(long done, long total) {
+        updater.accept(done, total);
+    }
+
+    public boolean isCancelled() {
+        return cancelled.getAsBoolean();
+    }
+
+    /**
+     * @throws CancellationException if the import is cancelled.
+     */
+    public void checkCancelled() {
+        if (this.isCancelled()) {
+            throw new CancellationException("Import is cancelled");
+        }
+    }
+
+    /**
+     * Wrap the input stream to report progress by bytes read, the reading is stopped once the import is cancelled.
+     *
+     * @param in
+     * @param total total bytes expected to be read, progress is not reported if it's not positive.
+     * @return
+     */
+    public InputStream track(InputStream in, long total) {
+        return new ProxyInputStream(in) {
+            private long count = 0;
+
+            @Override
+            protected void afterRead(int n) {
+                if (n > 0) {
+                    count += n;
+                    if (total > 0) {
+                        update(Math.min(count, total), total);
+                    }
+                }
+                checkCancelled();
+            }
+        };
+    }
+}
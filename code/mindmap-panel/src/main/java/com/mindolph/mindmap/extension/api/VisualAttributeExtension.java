@@ -1,7 +1,9 @@
 package com.mindolph.mindmap.extension.api;
 
 import com.mindolph.mindmap.MindMapConfig;
+import com.mindolph.mindmap.MindMapContext;
 import com.mindolph.mindmap.model.TopicNode;
+import javafx.geometry.Dimension2D;
 import javafx.scene.image.Image;
 
 /**
@@ -19,6 +21,46 @@ public interface VisualAttributeExtension extends AttributeExtension {
      */
     Image getScaledImage(MindMapConfig config, TopicNode topic);
 
+    /**
+     * Get size of the image represents the attribute, it decides the size of the attribute in layout, so it should be
+     * known without loading the image if possible.
+     *
+     * @param config the configuration of context were it will be rendered
+     * @param topic  the topic
+     * @return size of the image, null if it is not shown
+     */
+    default Dimension2D getImageSize(MindMapConfig config, TopicNode topic) {
+        Image image = getScaledImage(config, topic);
+        return image == null ? null : new Dimension2D(image.getWidth(), image.getHeight());
+    }
+
+    /**
+     * Get image to be drawn for the scale, it might be a down-scaled variant of the image from
+     * {@link #getScaledImage(MindMapConfig, TopicNode)}, it's drawn in the size from
+     * {@link #getImageSize(MindMapConfig, TopicNode)}.
+     *
+     * @param config  the configuration of context were it will be rendered
+     * @param topic   the topic
+     * @param context the context it will be rendered in, if the image is loaded in background
+     *                ({@link MindMapContext#isAsyncImageLoading()}), a placeholder can be returned and the context
+     *                should be marked as waiting for images.
+     * @return object to render the attribute, null if it is not shown
+     */
+    default Image getImageForScale(MindMapConfig config, TopicNode topic, MindMapContext context) {
+        return getScaledImage(config, topic);
+    }
+
+    /**
+     * Key of the image in the shared icon atlas, the image can be cached in atlas only if it's small and
+     * the same for all topics with the same key (like emoticons).
+     *
+     * @param topic the topic
+     * @return key of the image, null if the image should not be cached in atlas.
+     */
+    default String getAtlasKey(TopicNode topic) {
+        return null;
+    }
+
     /**
      * Process click on image represents the attribute,
      *
@@ -37,6 +37,12 @@ public class EmoticonVisualAttributeExtension implements VisualAttributeExtensio
         }
     }
 
+    @Override
+    public String getAtlasKey(TopicNode topic) {
+        String name = topic.getAttribute(ATTR_KEY);
+        return name == null ? null : "emoticon:" + name;
+    }
+
     @Override
     public boolean doesTopicContentMatches(TopicNode topic, File baseFolder, Pattern pattern,
                                            Set<Extra.ExtraType> extraTypes) {
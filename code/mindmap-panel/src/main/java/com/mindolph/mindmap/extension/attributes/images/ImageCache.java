@@ -0,0 +1,374 @@
+package com.mindolph.mindmap.extension.attributes.images;
+
+import com.mindolph.mindmap.util.CryptoUtils;
+import javafx.application.Platform;
+import javafx.geometry.Dimension2D;
+import javafx.scene.image.Image;
+import javafx.scene.image.PixelWriter;
+import javafx.scene.image.WritableImage;
+import javafx.scene.paint.Color;
+import org.reactfx.EventSource;
+import org.reactfx.Subscription;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReader;
+import javax.imageio.stream.ImageInputStream;
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Consumer;
+
+/**
+ * Process-wide cache for images decoded from the base64 encoded image attribute of topics.
+ * The images are keyed by the content hash of the encoded data (not the topic), so they survive
+ * the re-creating of topics like undo/redo or reloading.
+ * The cache is bounded by the estimated bytes of the decoded pixels, the least recently used images are evicted first,
+ * but the images requested for displaying since the previous loading notification (a limited number of them) are
+ * evicted only if the others are not enough, since they are probably on screen, otherwise a mind map with more images
+ * than the cache can hold would keep decoding them.
+ * <p>
+ * The size of image is read from the image header without decoding the pixels, so the layout never depends on
+ * whether the image is decoded.
+ * The pixels are decoded in background threads, a placeholder image is returned until the decoded one is ready,
+ * the subscribers will be notified (in FX thread) to repaint. For exporting or printing, the images can be decoded
+ * synchronously.
+ * For zooming out, only a down-scaled variant is decoded and cached for each zoom bucket (1/2, 1/4, 1/8).
+ *
+ * @author mindolph.com@gmail.com
+ */
+public class ImageCache {
+
+    private static final Logger log = LoggerFactory.getLogger(ImageCache.class);
+
+    private static final ImageCache ins = new ImageCache();
+
+    private static final double MIN_BUCKET = 0.125;
+    private static final int PLACEHOLDER_SIZE = 32;
+    private static final int MAX_SIZES = 4096;
+    private static final int MAX_PINNED = 256;
+    // length of encoded data to read the image header from, most headers are in the first few KB.
+    private static final int HEADER_ENCODED_LENGTH = 64 * 1024;
+
+    private final long maxBytes;
+    private long currentBytes = 0;
+    // access-ordered for LRU
+    private final LinkedHashMap<String, Image> images = new LinkedHashMap<>(64, 0.75f, true);
+    // keys of images requested for displaying since the previous loading notification.
+    private final Set<String> pinned = new HashSet<>();
+    // image sizes by content hash
+    private final Map<String, Dimension2D> sizes = Collections.synchronizedMap(new LinkedHashMap<>(64, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, Dimension2D> eldest) {
+            return size() > MAX_SIZES;
+        }
+    });
+    // hashes of images which are failed to be decoded
+    private final Set<String> failed = ConcurrentHashMap.newKeySet();
+    private final Set<String> loading = ConcurrentHashMap.newKeySet();
+    // content hash for encoded data, to avoid hashing the same data repeatedly.
+    private final Map<String, String> digests = Collections.synchronizedMap(new WeakHashMap<>());
+
+    private final ExecutorService executor;
+    private final EventSource<Void> imageLoaded = new EventSource<>();
+    private final AtomicBoolean notifyPending = new AtomicBoolean(false);
+
+    private Image placeholder;
+
+    public static ImageCache getIns() {
+        return ins;
+    }
+
+    private ImageCache() {
+        this.maxBytes = Math.min(256L * 1024 * 1024, Runtime.getRuntime().maxMemory() / 8);
+        int threads = Math.max(1, Math.min(4, Runtime.getRuntime().availableProcessors() / 2));
+        this.executor = Executors.newFixedThreadPool(threads, r -> {
+            Thread t = new Thread(r, "image-decoder");
+            t.setDaemon(true);
+            return t;
+        });
+    }
+
+    /**
+     * Get size of the image from its header, the pixels are not decoded.
+     *
+     * @param encoded base64 encoded image data
+     * @return null if it's not a valid image.
+     */
+    public Dimension2D getSize(String encoded) {
+        if (encoded == null) {
+            return null;
+        }
+        String hash = this.digest(encoded);
+        if (failed.contains(hash)) {
+            return null;
+        }
+        Dimension2D size = sizes.get(hash);
+        if (size == null) {
+            size = this.readSize(encoded);
+            if (size == null) {
+                // unknown to image reader, decode it to know the size.
+                Image image = this.decode(encoded, hash, 1.0, false);
+                size = image == null ? null : new Dimension2D(image.getWidth(), image.getHeight());
+            }
+            if (size == null) {
+                failed.add(hash);
+                return null;
+            }
+            sizes.put(hash, size);
+        }
+        return size;
+    }
+
+    /**
+     * Get image for the scale, the image is decoded in background if it's not in cache yet.
+     *
+     * @param encoded base64 encoded image data
+     * @param scale   scale of the mind map, a down-scaled variant is returned if the scale is less than 1.
+     * @return decoded image, placeholder if it's being decoded (use {@link #isPlaceholder(Image)} to check),
+     * null if it can't be decoded.
+     */
+    public Image getImage(String encoded, double scale) {
+        if (encoded == null) {
+            return null;
+        }
+        String hash = this.digest(encoded);
+        double bucket = toBucket(scale);
+        String key = toKey(hash, bucket);
+        if (failed.contains(hash)) {
+            return null;
+        }
+        Image image = this.getCached(key, true);
+        if (image != null) {
+            return image;
+        }
+        if (loading.add(key)) {
+            executor.submit(() -> {
+                try {
+                    this.decode(encoded, hash, bucket, true);
+                } finally {
+                    loading.remove(key);
+                }
+                this.notifyLoaded();
+            });
+        }
+        // use the full size one if exists before the down-scaled one is ready.
+        Image full = bucket < 1.0 ? this.getCached(toKey(hash, 1.0), true) : null;
+        return full == null ? this.getPlaceholder() : full;
+    }
+
+    /**
+     * Get image for the scale, decode it in current thread if it's not in cache yet, for exporting or printing.
+     *
+     * @param encoded base64 encoded image data
+     * @param scale
+     * @return decoded image, null if it can't be decoded.
+     */
+    public Image getImageNow(String encoded, double scale) {
+        if (encoded == null) {
+            return null;
+        }
+        String hash = this.digest(encoded);
+        double bucket = toBucket(scale);
+        if (failed.contains(hash)) {
+            return null;
+        }
+        Image image = this.getCached(toKey(hash, bucket), false);
+        return image == null ? this.decode(encoded, hash, bucket, false) : image;
+    }
+
+    public boolean isPlaceholder(Image image) {
+        return image != null && image == placeholder;
+    }
+
+    /**
+     * Subscribe to the event that some images are decoded and ready to use, the events are merged
+     * so that the subscribers won't be notified for each image.
+     *
+     * @param consumer
+     * @return subscription to unsubscribe when the subscriber is disposed.
+     */
+    public Subscription subscribeImageLoaded(Consumer<Void> consumer) {
+        return imageLoaded.subscribe(consumer);
+    }
+
+    public synchronized void clear() {
+        images.clear();
+        pinned.clear();
+        currentBytes = 0;
+        sizes.clear();
+        failed.clear();
+    }
+
+    private Dimension2D readSize(String encoded) {
+        // only the beginning of the data is decoded, a base64 quantum is 4 chars.
+        int length = Math.min(encoded.length(), HEADER_ENCODED_LENGTH);
+        Dimension2D size = this.readHeader(encoded.substring(0, length - length % 4));
+        if (size == null && length < encoded.length()) {
+            size = this.readHeader(encoded);
+        }
+        return size;
+    }
+
+    private Dimension2D readHeader(String encodedHead) {
+        try (ImageInputStream in = ImageIO.createImageInputStream(new ByteArrayInputStream(CryptoUtils.base64decode(encodedHead)))) {
+            Iterator<ImageReader> readers = ImageIO.getImageReaders(in);
+            if (readers.hasNext()) {
+                ImageReader reader = readers.next();
+                try {
+                    reader.setInput(in, true, true);
+                    return new Dimension2D(reader.getWidth(0), reader.getHeight(0));
+                } finally {
+                    reader.dispose();
+                }
+            }
+        } catch (Exception e) {
+            log.trace("Can't read image size from header", e);
+        }
+        return null;
+    }
+
+    /**
+     * @param encoded
+     * @param hash
+     * @param bucket
+     * @param pin     whether the image is for displaying.
+     * @return
+     */
+    private Image decode(String encoded, String hash, double bucket, boolean pin) {
+        try {
+            byte[] data = CryptoUtils.base64decode(encoded);
+            Image image;
+            if (bucket >= 1.0) {
+                image = new Image(new ByteArrayInputStream(data));
+            }
+            else {
+                // the full size image is not kept, only the down-scaled one.
+                Dimension2D size = this.getSize(encoded);
+                if (size == null) {
+                    return null;
+                }
+                image = new Image(new ByteArrayInputStream(data),
+                        Math.max(1, size.getWidth() * bucket), Math.max(1, size.getHeight() * bucket), true, true);
+            }
+            if (image.isError()) {
+                throw image.getException() == null ? new IllegalStateException("Unknown image format") : image.getException();
+            }
+            this.putCached(toKey(hash, bucket), image, pin);
+            return image;
+        } catch (Exception ex) {
+            log.error("Can't extract image", ex);
+            failed.add(hash);
+            return null;
+        }
+    }
+
+    private void notifyLoaded() {
+        // merge notifications for images decoded in a burst
+        if (notifyPending.compareAndSet(false, true)) {
+            Platform.runLater(() -> {
+                notifyPending.set(false);
+                synchronized (this) {
+                    pinned.clear();
+                }
+                imageLoaded.push(null);
+            });
+        }
+    }
+
+    private synchronized Image getCached(String key, boolean pin) {
+        Image image = images.get(key);
+        if (image != null && pin) {
+            this.pin(key);
+        }
+        return image;
+    }
+
+    private synchronized void putCached(String key, Image image, boolean pin) {
+        Image old = images.put(key, image);
+        if (old != null) {
+            currentBytes -= estimateBytes(old);
+        }
+        currentBytes += estimateBytes(image);
+        if (pin) {
+            this.pin(key);
+        }
+        // the pinned ones are evicted only if evicting the others is not enough.
+        this.evict(true);
+        this.evict(false);
+    }
+
+    private void pin(String key) {
+        if (pinned.size() < MAX_PINNED) {
+            pinned.add(key);
+        }
+    }
+
+    private void evict(boolean skipPinned) {
+        Iterator<Map.Entry<String, Image>> it = images.entrySet().iterator();
+        while (currentBytes > maxBytes && it.hasNext()) {
+            Map.Entry<String, Image> eldest = it.next();
+            if (skipPinned && pinned.contains(eldest.getKey())) {
+                continue;
+            }
+            currentBytes -= estimateBytes(eldest.getValue());
+            pinned.remove(eldest.getKey());
+            it.remove();
+            log.trace("Image evicted from cache: %s".formatted(eldest.getKey()));
+        }
+    }
+
+    private String digest(String encoded) {
+        String hash = digests.get(encoded);
+        if (hash == null) {
+            hash = HexFormat.of().formatHex(CryptoUtils.sha256(encoded.getBytes(StandardCharsets.US_ASCII)));
+            digests.put(encoded, hash);
+        }
+        return hash;
+    }
+
+    private synchronized Image getPlaceholder() {
+        if (placeholder == null) {
+            WritableImage img = new WritableImage(PLACEHOLDER_SIZE, PLACEHOLDER_SIZE);
+            PixelWriter pw = img.getPixelWriter();
+            for (int x = 0; x < PLACEHOLDER_SIZE; x++) {
+                for (int y = 0; y < PLACEHOLDER_SIZE; y++) {
+                    boolean border = x == 0 || y == 0 || x == PLACEHOLDER_SIZE - 1 || y == PLACEHOLDER_SIZE - 1;
+                    pw.setColor(x, y, border ? Color.GRAY : Color.LIGHTGRAY);
+                }
+            }
+            placeholder = img;
+        }
+        return placeholder;
+    }
+
+    private static long estimateBytes(Image image) {
+        return (long) (image.getWidth() * image.getHeight() * 4);
+    }
+
+    private static String toKey(String hash, double bucket) {
+        return hash + "@" + bucket;
+    }
+
+    /**
+     * Round up the scale (less than 1) to the nearest power of 2, so that the down-scaled image is never enlarged in drawing.
+     *
+     * @param scale
+     * @return
+     */
+    static double toBucket(double scale) {
+        if (scale >= 1.0) {
+            return 1.0;
+        }
+        double bucket = 1.0;
+        while (bucket / 2 >= scale && bucket > MIN_BUCKET) {
+            bucket /= 2;
+        }
+        return bucket;
+    }
+}
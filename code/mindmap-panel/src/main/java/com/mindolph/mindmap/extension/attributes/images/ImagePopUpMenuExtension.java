@@ -43,7 +43,6 @@ public class ImagePopUpMenuExtension extends BasePopupMenuItemExtension {
             result.setOnAction(e -> {
                 if (DialogFactory.okCancelConfirmDialog(I18n.getIns().getString("Images.Extension.Remove.Dialog.Title"), I18n.getIns().getString("Images.Extension.Remove.Dialog.Text"))) {
                     setAttribute(context, activeTopic, null, null, null);
-                    ImageVisualAttributeExtension.clearCachedImages();
                     context.doNotifyModelChanged(true);
                 }
             });
@@ -4,21 +4,19 @@ import com.igormaznitsa.mindmap.model.Extra;
 import com.igormaznitsa.mindmap.model.MMapURI;
 import com.mindolph.mfx.dialog.DialogFactory;
 import com.mindolph.mindmap.MindMapConfig;
+import com.mindolph.mindmap.MindMapContext;
 import com.mindolph.mindmap.model.TopicNode;
 import com.mindolph.mindmap.extension.api.ExtensionContext;
 import com.mindolph.mindmap.extension.api.Extension;
 import com.mindolph.mindmap.extension.api.VisualAttributeExtension;
-import com.mindolph.mindmap.util.CryptoUtils;
+import javafx.geometry.Dimension2D;
 import javafx.scene.image.Image;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import java.io.ByteArrayInputStream;
 import java.io.File;
 import java.net.URISyntaxException;
-import java.util.Map;
 import java.util.Set;
-import java.util.WeakHashMap;
 import java.util.regex.Pattern;
 
 public class ImageVisualAttributeExtension implements VisualAttributeExtension {
@@ -28,11 +26,6 @@ public class ImageVisualAttributeExtension implements VisualAttributeExtension {
     public static final String ATTR_IMAGE_URI_KEY = "mmd.image.uri";
 
     private static final Logger log = LoggerFactory.getLogger(ImageVisualAttributeExtension.class);
-    private static final Map<TopicNode, Image> CACHED_IMAGES = new WeakHashMap<>();
-
-    public static void clearCachedImages() {
-        CACHED_IMAGES.clear();
-    }
 
     @Override
     public boolean doesTopicContentMatches(TopicNode topic, File baseFolder, Pattern pattern, Set<Extra.ExtraType> extraTypes) {
@@ -58,25 +51,25 @@ public class ImageVisualAttributeExtension implements VisualAttributeExtension {
 
     @Override
     public Image getScaledImage(MindMapConfig config, TopicNode activeTopic) {
-        Image result = CACHED_IMAGES.get(activeTopic);
-        if (result == null) {
-            result = extractImage(activeTopic);
-            CACHED_IMAGES.put(activeTopic, result);
-        }
-        return result;
+        return ImageCache.getIns().getImageNow(activeTopic.getAttribute(ATTR_KEY), 1.0);
+    }
+
+    @Override
+    public Dimension2D getImageSize(MindMapConfig config, TopicNode topic) {
+        return ImageCache.getIns().getSize(topic.getAttribute(ATTR_KEY));
     }
 
-    private Image extractImage(TopicNode topic) {
-        Image result = null;
+    @Override
+    public Image getImageForScale(MindMapConfig config, TopicNode topic, MindMapContext context) {
         String encoded = topic.getAttribute(ATTR_KEY);
-        if (encoded != null) {
-            try {
-                result = new Image(new ByteArrayInputStream(CryptoUtils.base64decode(encoded)));
-            } catch (Exception ex) {
-                log.error("Can't extract image", ex);
-            }
+        if (!context.isAsyncImageLoading()) {
+            return ImageCache.getIns().getImageNow(encoded, context.getScale());
         }
-        return result;
+        Image image = ImageCache.getIns().getImage(encoded, context.getScale());
+        if (ImageCache.getIns().isPlaceholder(image)) {
+            context.setWaitingForImages(true);
+        }
+        return image;
     }
 
     @Override
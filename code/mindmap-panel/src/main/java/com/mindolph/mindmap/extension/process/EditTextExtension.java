@@ -6,7 +6,6 @@ import com.mindolph.mindmap.I18n;
 import com.mindolph.mindmap.extension.ContextMenuSection;
 import com.mindolph.mindmap.extension.api.BaseTopicExtension;
 import com.mindolph.mindmap.extension.api.ExtensionContext;
-import com.mindolph.mindmap.model.BaseElement;
 import com.mindolph.mindmap.model.TopicNode;
 import javafx.scene.text.Text;
 
@@ -30,7 +29,7 @@ public class EditTextExtension extends BaseTopicExtension {
     @Override
     protected void doActionForTopic(ExtensionContext context, TopicNode activeTopic) {
         if (activeTopic != null) {
-            context.startEdit((BaseElement) activeTopic.getPayload());
+            context.startEdit(activeTopic);
         }
     }
 
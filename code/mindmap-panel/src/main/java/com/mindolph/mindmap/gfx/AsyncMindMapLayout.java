@@ -0,0 +1,217 @@
+package com.mindolph.mindmap.gfx;
+
+import com.igormaznitsa.mindmap.model.MindMap;
+import com.mindolph.base.graphic.Graphics;
+import com.mindolph.mindmap.MindMapConfig;
+import com.mindolph.mindmap.MindMapContext;
+import com.mindolph.mindmap.model.BaseElement;
+import com.mindolph.mindmap.model.TopicNode;
+import javafx.application.Platform;
+import javafx.geometry.Dimension2D;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+/**
+ * Layout large mind map in a background thread.
+ * The model is copied as a snapshot in FX thread, and the elements are created and measured for the snapshot in FX
+ * thread too, since measuring text and the data from extensions are not designed for concurrent access. Only the
+ * geometry (positions of elements) is calculated in background, then the elements are moved to the topics of the
+ * live model in FX thread. Until then, the view keeps displaying the elements of the previous layout.
+ * <p>
+ * Each layout request has a generation, the result of layout is discarded if a newer request has been made,
+ * or the live model has been changed (see {@link #modelChanged()}) since the snapshot was taken.
+ * Small mind maps are not worth it, they are laid out in FX thread as before.
+ *
+ * @author mindolph.com@gmail.com
+ * @see MindMapCanvas#layoutMeasuredDiagram(MindMap)
+ */
+public class AsyncMindMapLayout {
+
+    private static final Logger log = LoggerFactory.getLogger(AsyncMindMapLayout.class);
+
+    // mind maps with topics less than this are laid out in FX thread.
+    public static final int MIN_ASYNC_TOPICS = 1000;
+
+    private static final ExecutorService executor = Executors.newSingleThreadExecutor(r -> {
+        Thread t = new Thread(r, "mindmap-layout");
+        t.setDaemon(true);
+        return t;
+    });
+
+    private final MindMapConfig config;
+    private final AtomicLong generation = new AtomicLong();
+
+    // the following fields are only accessed in FX thread.
+    private CompletableFuture<Result> running;
+    // revision of the live model, increased each time the model is changed.
+    private long revision;
+    private MindMap<TopicNode> target;
+    private Graphics graphics;
+    private MindMapContext mindMapContext;
+    private Consumer<Dimension2D> onLaidOut;
+
+    public AsyncMindMapLayout(MindMapConfig config) {
+        this.config = config;
+    }
+
+    /**
+     * Whether the model is large enough to be laid out in background.
+     *
+     * @param model
+     * @return
+     */
+    public static boolean isWorthAsync(MindMap<TopicNode> model) {
+        return model != null && model.getRoot() != null && countTopics(model.getRoot(), 0) >= MIN_ASYNC_TOPICS;
+    }
+
+    // only visible topics are counted, the descendants of collapsed topics are not laid out.
+    private static int countTopics(TopicNode topic, int count) {
+        count++;
+        if (topic.isCollapsed()) {
+            return count;
+        }
+        for (TopicNode child : topic.getChildren()) {
+            if (count >= MIN_ASYNC_TOPICS) {
+                break;
+            }
+            count = countTopics(child, count);
+        }
+        return count;
+    }
+
+    /**
+     * Start layout of the model in background, the previous one is superseded. Must be called in FX thread.
+     *
+     * @param model          the live model.
+     * @param mindMapContext context of the view, the scale of layout is taken from it.
+     * @param g              graphics that the laid out elements draw on, it's also used to measure the elements.
+     * @param keepMeasured   true to keep the measured elements of the live model, see
+     *                       {@link MindMapCanvas#calculateElementSizes(MindMap, boolean)}. It's ignored if the previous
+     *                       layout is not applied yet, since the elements of live model are out of date.
+     * @param onLaidOut      called in FX thread with the dimension of diagram, after the elements are moved to the live model.
+     */
+    public void submit(MindMap<TopicNode> model, MindMapContext mindMapContext, Graphics g, boolean keepMeasured,
+                       Consumer<Dimension2D> onLaidOut) {
+        long gen = generation.incrementAndGet();
+        long rev = revision;
+        long start = System.currentTimeMillis();
+        MindMap<TopicNode> snapshot = new MindMap<>(model);
+        double scale = mindMapContext.getScale();
+        MindMapContext snapshotContext = new MindMapContext().setScale(scale);
+        boolean keep = keepMeasured && running == null;
+        if (keep) {
+            // the live elements are being displayed, so the copies of them are laid out.
+            this.copyElements(model.getRoot(), snapshot.getRoot(), g, snapshotContext);
+        }
+        MindMapCanvas mindMapCanvas = new MindMapCanvas(g, config, snapshotContext);
+        mindMapCanvas.calculateElementSizes(snapshot, keep);
+        if (log.isDebugEnabled())
+            log.debug("Measured elements of generation %d in %d ms".formatted(gen, System.currentTimeMillis() - start));
+        this.target = model;
+        this.graphics = g;
+        this.mindMapContext = mindMapContext;
+        this.onLaidOut = onLaidOut;
+        this.running = CompletableFuture.supplyAsync(() -> {
+            if (gen != generation.get()) {
+                return null; // superseded before started
+            }
+            Dimension2D dimension = mindMapCanvas.layoutMeasuredDiagram(snapshot);
+            if (log.isDebugEnabled())
+                log.debug("Layout generation %d in background in %d ms".formatted(gen, System.currentTimeMillis() - start));
+            return new Result(gen, rev, snapshot, dimension);
+        }, executor);
+        this.running.whenComplete((result, e) -> Platform.runLater(this::complete));
+    }
+
+    /**
+     * Called when the live model is changed, the running layout (if there is) is for the model before changing,
+     * so its result is discarded. Must be called in FX thread.
+     */
+    public void modelChanged() {
+        revision++;
+    }
+
+    /**
+     * @return true if a layout is running in background or its result is not applied yet.
+     */
+    public boolean isRunning() {
+        return running != null;
+    }
+
+    /**
+     * Discard the running layout, like when the model is laid out in FX thread.
+     */
+    public void cancel() {
+        generation.incrementAndGet();
+        running = null;
+    }
+
+    private void complete() {
+        if (running == null || !running.isDone()) {
+            return; // already applied, or a newer one is running.
+        }
+        CompletableFuture<Result> done = running;
+        running = null;
+        Result result;
+        try {
+            result = done.get();
+        } catch (InterruptedException | ExecutionException e) {
+            log.error("Failed to layout mind map in background", e);
+            return;
+        }
+        if (result == null || result.generation != generation.get()) {
+            return;
+        }
+        if (result.revision != revision) {
+            // the change of model requests another layout.
+            log.debug("Model changed during layout, discard the result of generation %d".formatted(result.generation));
+            return;
+        }
+        this.moveElement(result.snapshot.getRoot(), target.getRoot());
+        onLaidOut.accept(result.dimension);
+    }
+
+    /**
+     * Copy the elements of live model to the snapshot, the topics without element are measured later.
+     */
+    private void copyElements(TopicNode live, TopicNode snapshot, Graphics g, MindMapContext context) {
+        if (!(live.getPayload() instanceof BaseElement element)) {
+            return;
+        }
+        BaseElement copy = element.makeCopy();
+        copy.rebind(snapshot, g, context);
+        snapshot.setPayload(copy);
+        List<TopicNode> lc = live.getChildren();
+        List<TopicNode> sc = snapshot.getChildren();
+        for (int i = 0; i < lc.size(); i++) {
+            this.copyElements(lc.get(i), sc.get(i), g, context);
+        }
+    }
+
+    /**
+     * Move the elements of snapshot to the live model, the snapshot and live model are walked in parallel.
+     */
+    private void moveElement(TopicNode snapshot, TopicNode live) {
+        BaseElement element = (BaseElement) snapshot.getPayload();
+        if (element != null) {
+            element.rebind(live, graphics, mindMapContext);
+        }
+        live.setPayload(element);
+        List<TopicNode> sc = snapshot.getChildren();
+        List<TopicNode> lc = live.getChildren();
+        for (int i = 0; i < sc.size(); i++) {
+            this.moveElement(sc.get(i), lc.get(i));
+        }
+    }
+
+    private record Result(long generation, long revision, MindMap<TopicNode> snapshot, Dimension2D dimension) {
+    }
+}
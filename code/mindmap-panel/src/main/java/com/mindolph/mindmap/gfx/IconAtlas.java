@@ -0,0 +1,304 @@
+package com.mindolph.mindmap.gfx;
+
+import com.mindolph.base.graphic.Graphics;
+import com.mindolph.mfx.util.FontUtils;
+import javafx.geometry.Rectangle2D;
+import javafx.geometry.VPos;
+import javafx.scene.SnapshotParameters;
+import javafx.scene.canvas.Canvas;
+import javafx.scene.canvas.GraphicsContext;
+import javafx.scene.image.Image;
+import javafx.scene.image.WritableImage;
+import javafx.scene.paint.Color;
+import javafx.scene.text.Font;
+import javafx.scene.text.TextAlignment;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.*;
+
+/**
+ * Texture atlas for the small icons painted on topics (like emoticons and the icons of extras).
+ * Each icon is registered once (usually when the topic is laid out) and referenced by an integer id,
+ * it's rasterized at the exact size for a zoom scale and the output scale of screen (for HiDPI) on first painting
+ * and packed into pages of that scale, then painting it is only a blit of a sub-image without looking up or scaling.
+ * Pages of the most recently used scales are kept.
+ * <p>
+ * The atlas is only used for raster graphics (see {@link Graphics#isRaster()}), the icons are drawn as they are
+ * for others like SVG.
+ *
+ * @author mindolph.com@gmail.com
+ */
+public class IconAtlas {
+
+    private static final Logger log = LoggerFactory.getLogger(IconAtlas.class);
+
+    private static final IconAtlas ins = new IconAtlas();
+
+    private static final int PAGE_SIZE = 1024;
+    private static final int MAX_SCALES = 4;
+
+    private final Map<Object, Integer> ids = new HashMap<>();
+    private final List<Entry> entries = new ArrayList<>();
+
+    // access-ordered for LRU
+    private final LinkedHashMap<AtlasKey, ScaledAtlas> atlases = new LinkedHashMap<>(MAX_SCALES, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<AtlasKey, ScaledAtlas> eldest) {
+            return size() > MAX_SCALES;
+        }
+    };
+    private ScaledAtlas current;
+
+    private Canvas scratch;
+
+    public static IconAtlas getIns() {
+        return ins;
+    }
+
+    private IconAtlas() {
+    }
+
+    /**
+     * Register image icon.
+     *
+     * @param key   identifies the image, the same id is returned for the same key.
+     * @param image the icon in base size (scale 1).
+     * @return id of the icon.
+     */
+    public synchronized int registerImage(String key, Image image) {
+        return ids.computeIfAbsent(key, k -> {
+            entries.add(new ImageEntry(image));
+            return entries.size() - 1;
+        });
+    }
+
+    /**
+     * Register font icon, it's drawn with bottom baseline like {@link Graphics#drawFontIcon(Font, String, double, double, Color)}.
+     *
+     * @param font   font in any size, the size is changed by scale.
+     * @param text   unicode of the icon.
+     * @param color
+     * @param width  width in base size (scale 1).
+     * @param height height in base size (scale 1).
+     * @return id of the icon.
+     */
+    public synchronized int registerGlyph(Font font, String text, Color color, double width, double height) {
+        GlyphKey key = new GlyphKey(font.getName(), text, color, width, height);
+        return ids.computeIfAbsent(key, k -> {
+            entries.add(new GlyphEntry(font, text, color, width, height));
+            return entries.size() - 1;
+        });
+    }
+
+    /**
+     * Draw icon with its top-left at (x, y) in size of the scale, must be called in FX thread.
+     *
+     * @param g
+     * @param id    id of registered icon.
+     * @param scale
+     * @param x
+     * @param y
+     */
+    public synchronized void draw(Graphics g, int id, double scale, double x, double y) {
+        Entry entry = entries.get(id);
+        if (!g.isRaster()) {
+            entry.drawDirectly(g, scale, x, y);
+            return;
+        }
+        ScaledAtlas atlas = this.atlasFor(new AtlasKey(scale, g.getOutputScaleX(), g.getOutputScaleY()));
+        Region r = atlas.regionOf(id);
+        if (r == null) {
+            r = atlas.add(id, entry);
+        }
+        if (r == Region.NONE) {
+            entry.drawDirectly(g, scale, x, y); // too large to be in atlas
+            return;
+        }
+        // the region is in device pixels, it's drawn in the size of units.
+        g.drawImage(atlas.pages.get(r.page), r.x, r.y, r.pw, r.ph, x - r.pad, y - r.pad, r.w, r.h);
+    }
+
+    private ScaledAtlas atlasFor(AtlasKey key) {
+        if (current == null || !current.key.equals(key)) {
+            current = atlases.computeIfAbsent(key, ScaledAtlas::new);
+        }
+        return current;
+    }
+
+    /**
+     * Rasterize the entry on transparent background in device pixels.
+     */
+    private WritableImage rasterize(Entry entry, AtlasKey key, int pw, int ph, int pad) {
+        if (scratch == null || scratch.getWidth() < pw || scratch.getHeight() < ph) {
+            scratch = new Canvas(Math.max(pw, scratch == null ? 0 : scratch.getWidth()), Math.max(ph, scratch == null ? 0 : scratch.getHeight()));
+        }
+        GraphicsContext gc = scratch.getGraphicsContext2D();
+        gc.clearRect(0, 0, scratch.getWidth(), scratch.getHeight());
+        gc.save();
+        gc.scale(key.outputScaleX, key.outputScaleY);
+        entry.render(gc, key.scale, pad, pad);
+        gc.restore();
+        SnapshotParameters params = new SnapshotParameters();
+        params.setFill(Color.TRANSPARENT);
+        params.setViewport(new Rectangle2D(0, 0, pw, ph));
+        return scratch.snapshot(params, new WritableImage(pw, ph));
+    }
+
+    private class ScaledAtlas {
+        private final AtlasKey key;
+        private final double scale;
+        private final List<WritableImage> pages = new ArrayList<>();
+        private Region[] regions = new Region[0];
+        // shelf packing in the last page
+        private int shelfX;
+        private int shelfY;
+        private int shelfHeight;
+
+        ScaledAtlas(AtlasKey key) {
+            this.key = key;
+            this.scale = key.scale;
+        }
+
+        Region regionOf(int id) {
+            return id < regions.length ? regions[id] : null;
+        }
+
+        Region add(int id, Entry entry) {
+            if (id >= regions.length) {
+                regions = Arrays.copyOf(regions, Math.max(id + 1, regions.length * 2));
+            }
+            int pad = entry.padding(scale);
+            int w = (int) Math.ceil(entry.width * scale) + pad * 2;
+            int h = (int) Math.ceil(entry.height * scale) + pad * 2;
+            // size in device pixels
+            int pw = (int) Math.ceil(w * key.outputScaleX);
+            int ph = (int) Math.ceil(h * key.outputScaleY);
+            if (w <= 0 || h <= 0 || pw > PAGE_SIZE || ph > PAGE_SIZE) {
+                regions[id] = Region.NONE;
+                return Region.NONE;
+            }
+            if (!pages.isEmpty() && shelfX + pw > PAGE_SIZE) {
+                shelfX = 0;
+                shelfY += shelfHeight;
+                shelfHeight = 0;
+            }
+            if (pages.isEmpty() || shelfY + ph > PAGE_SIZE) {
+                pages.add(new WritableImage(PAGE_SIZE, PAGE_SIZE));
+                shelfX = 0;
+                shelfY = 0;
+                shelfHeight = 0;
+                if (log.isDebugEnabled()) log.debug("New atlas page %d for %s".formatted(pages.size(), key));
+            }
+            WritableImage page = pages.get(pages.size() - 1);
+            WritableImage icon = rasterize(entry, key, pw, ph, pad);
+            page.getPixelWriter().setPixels(shelfX, shelfY, pw, ph, icon.getPixelReader(), 0, 0);
+            Region r = new Region(pages.size() - 1, shelfX, shelfY, pw, ph, w, h, pad);
+            regions[id] = r;
+            shelfX += pw;
+            shelfHeight = Math.max(shelfHeight, ph);
+            return r;
+        }
+    }
+
+    /**
+     * @param page
+     * @param x    in device pixels of the page.
+     * @param y    in device pixels of the page.
+     * @param pw   width in device pixels.
+     * @param ph   height in device pixels.
+     * @param w    width to draw in.
+     * @param h    height to draw in.
+     * @param pad
+     */
+    private record Region(int page, int x, int y, int pw, int ph, int w, int h, int pad) {
+        static final Region NONE = new Region(-1, 0, 0, 0, 0, 0, 0, 0);
+    }
+
+    private record AtlasKey(double scale, double outputScaleX, double outputScaleY) {
+    }
+
+    private record GlyphKey(String fontName, String text, Color color, double width, double height) {
+    }
+
+    private abstract static class Entry {
+        protected final double width;
+        protected final double height;
+
+        Entry(double width, double height) {
+            this.width = width;
+            this.height = height;
+        }
+
+        /**
+         * Extra pixels around the icon for the parts that might be drawn out of the bounds (like glyphs).
+         */
+        int padding(double scale) {
+            return 1;
+        }
+
+        abstract void render(GraphicsContext gc, double scale, double x, double y);
+
+        abstract void drawDirectly(Graphics g, double scale, double x, double y);
+    }
+
+    private static class ImageEntry extends Entry {
+        private final Image image;
+
+        ImageEntry(Image image) {
+            super(image.getWidth(), image.getHeight());
+            this.image = image;
+        }
+
+        @Override
+        void render(GraphicsContext gc, double scale, double x, double y) {
+            gc.drawImage(image, x, y, width * scale, height * scale);
+        }
+
+        @Override
+        void drawDirectly(Graphics g, double scale, double x, double y) {
+            g.drawImage(image, x, y, width * scale, height * scale);
+        }
+    }
+
+    private static class GlyphEntry extends Entry {
+        private final Font font;
+        private final String text;
+        private final Color color;
+        private Font scaledFont;
+
+        GlyphEntry(Font font, String text, Color color, double width, double height) {
+            super(width, height);
+            this.font = font;
+            this.text = text;
+            this.color = color;
+        }
+
+        private Font fontFor(double scale) {
+            double size = width * scale;
+            if (scaledFont == null || scaledFont.getSize() != size) {
+                scaledFont = FontUtils.newFontWithSize(font, size);
+            }
+            return scaledFont;
+        }
+
+        @Override
+        int padding(double scale) {
+            return (int) Math.ceil(height * scale / 4) + 1;
+        }
+
+        @Override
+        void render(GraphicsContext gc, double scale, double x, double y) {
+            gc.setFont(fontFor(scale));
+            gc.setFill(color);
+            gc.setTextAlign(TextAlignment.LEFT);
+            gc.setTextBaseline(VPos.BOTTOM);
+            gc.fillText(text, x, y + height * scale);
+        }
+
+        @Override
+        void drawDirectly(Graphics g, double scale, double x, double y) {
+            g.drawFontIcon(fontFor(scale), text, x, y + height * scale, color);
+        }
+    }
+}
@@ -0,0 +1,46 @@
+package com.mindolph.mindmap.gfx;
+
+import com.mindolph.mindmap.MindMapConfig;
+
+/**
+ * Level of detail to draw the mind map, it's decided by the scale of mind map view.
+ *
+ * @author mindolph.com@gmail.com
+ * @see MindMapConfig#getLodBlockScale()
+ * @see MindMapConfig#getLodSummaryScale()
+ */
+public enum LevelOfDetail {
+
+    /**
+     * Everything is drawn.
+     */
+    FULL,
+    /**
+     * Topics (except root) are drawn as coloured blocks without text, icons and images, connectors as straight lines.
+     */
+    BLOCK,
+    /**
+     * Like BLOCK, and the tiny subtrees in deep levels are drawn as summary shapes.
+     */
+    SUMMARY;
+
+    /**
+     * Subtree lower than this (in pixels) is drawn as summary shape in SUMMARY level.
+     */
+    public static final double SUMMARY_MAX_HEIGHT = 24;
+
+    /**
+     * Subtree in this level or deeper can be drawn as summary shape, root is in level 0.
+     */
+    public static final int SUMMARY_MIN_LEVEL = 2;
+
+    public static LevelOfDetail forScale(double scale, MindMapConfig config) {
+        if (scale < config.getLodSummaryScale()) {
+            return SUMMARY;
+        }
+        else if (scale < config.getLodBlockScale()) {
+            return BLOCK;
+        }
+        return FULL;
+    }
+}
@@ -43,6 +43,7 @@ public class MindMapCanvas {
     private final MindMapConfig config;
     private final MindMapContext mindMapContext;
     private List<TopicNode> selectedTopics;
+    private LevelOfDetail levelOfDetail = LevelOfDetail.FULL;
 
     public MindMapCanvas(Graphics g, MindMapConfig config, MindMapContext context) {
         this.g = g;
@@ -50,36 +51,70 @@ public class MindMapCanvas {
         this.mindMapContext = context;
     }
 
-    private void setElementSizesForElementAndChildren(TopicNode topic, int level) {
+    /**
+     * Elements are only created (and measured) for visible topics, the descendants of collapsed topics have no element.
+     *
+     * @param topic
+     * @param level
+     * @param keepMeasured true to keep the measured elements (the model is not changed except folding).
+     */
+    private void setElementSizesForElementAndChildren(TopicNode topic, int level, boolean keepMeasured) {
         BaseElement element = (BaseElement) topic.getPayload();
-        if (element == null) {
-            switch (level) {
-                case 0:
-                    element = new ElementRoot(topic, g, config, mindMapContext);
-                    break;
-                case 1:
-                    element = new ElementLevelFirst(topic, g, config, mindMapContext);
-                    break;
-                default:
-                    element = new ElementLevelOther(topic, g, config, mindMapContext);
-                    break;
-            }
+        Class<? extends BaseElement> elementType = switch (level) {
+            case 0 -> ElementRoot.class;
+            case 1 -> ElementLevelFirst.class;
+            default -> ElementLevelOther.class;
+        };
+        if (element == null || element.getClass() != elementType) {
+            element = switch (level) {
+                case 0 -> new ElementRoot(topic, g, config, mindMapContext);
+                case 1 -> new ElementLevelFirst(topic, g, config, mindMapContext);
+                default -> new ElementLevelOther(topic, g, config, mindMapContext);
+            };
             topic.setPayload(element);
+            element.updateElementBounds();
         }
-
-        element.updateElementBounds();
-        for (TopicNode t : topic.getChildren()) {
-            setElementSizesForElementAndChildren(t, level + 1);
+        else if (!keepMeasured) {
+            element.updateElementBounds();
+        }
+        if (element.isCollapsed()) {
+            if (keepMeasured) {
+                topic.getChildren().forEach(this::releaseElements); // folded since last layout
+            }
+        }
+        else {
+            for (TopicNode t : topic.getChildren()) {
+                setElementSizesForElementAndChildren(t, level + 1, keepMeasured);
+            }
         }
         element.updateBlockSize();
     }
 
+    private void releaseElements(TopicNode topic) {
+        if (topic.getPayload() != null) {
+            topic.setPayload(null);
+            topic.getChildren().forEach(this::releaseElements);
+        }
+    }
+
     public boolean calculateElementSizes(MindMap<TopicNode> model) {
+        return this.calculateElementSizes(model, false);
+    }
+
+    /**
+     * @param model
+     * @param keepMeasured true to keep the elements of topics which were visible in last layout, only the newly
+     *                     unfolded topics are measured. This is only for the changes of folding.
+     * @return
+     */
+    public boolean calculateElementSizes(MindMap<TopicNode> model, boolean keepMeasured) {
         boolean result = false;
         TopicNode root = model == null ? null : model.getRoot();
         if (root != null && model != null) {
-            model.resetPayload();
-            setElementSizesForElementAndChildren(root, 0);
+            if (!keepMeasured) {
+                model.resetPayload();
+            }
+            setElementSizesForElementAndChildren(root, 0, keepMeasured);
             result = true;
         }
         return result;
@@ -102,6 +137,7 @@ public class MindMapCanvas {
 
     public void drawOnGraphicsForConfiguration(MindMap<TopicNode> map, boolean drawSelection, List<TopicNode> selectedTopics) {
         this.selectedTopics = selectedTopics;
+        this.levelOfDetail = LevelOfDetail.FULL; // always draw full details for exporting and printing.
         drawBackground();
         drawTopics(map, null, drawSelection);
     }
@@ -152,14 +188,19 @@ public class MindMapCanvas {
     }
 
     /**
+     * Draw topics with level of detail decided by current scale.
+     *
      * @param map
      * @param drawSelection
      * @param selectedTopics
      * @param collapsingTopic to determine whether to draw collapsator.
+     * @see LevelOfDetail
      */
     public void drawGraphics(MindMap<TopicNode> map,
                              boolean drawSelection, List<TopicNode> selectedTopics, TopicNode collapsingTopic) {
         this.selectedTopics = selectedTopics;
+        this.levelOfDetail = LevelOfDetail.forScale(mindMapContext.getScale(), config);
+        if (log.isTraceEnabled()) log.trace("Level of detail: " + levelOfDetail);
         drawTopics(map, collapsingTopic, drawSelection);
     }
 
@@ -172,24 +213,57 @@ public class MindMapCanvas {
 
             TopicNode root = map.getRoot();
             if (root != null) {
-                drawTopicTree(root, collapsingTopic, drawSelection);
+                drawTopicTree(root, collapsingTopic, drawSelection, 0);
             }
         }
     }
 
-    private void drawTopicTree(TopicNode topic, TopicNode collapsingTopic, boolean drawSelection) {
-        paintTopic(topic, collapsingTopic, drawSelection);
+    private void drawTopicTree(TopicNode topic, TopicNode collapsingTopic, boolean drawSelection, int level) {
         BaseElement w = (BaseElement) topic.getPayload();
+        if (w != null && level > 0 && !isBlockInClip(w)) {
+            // skip the whole subtree if it's out of the drawing area.
+            return;
+        }
+        if (levelOfDetail != LevelOfDetail.FULL && w != null && level > 0) {
+            if (drawSelection) {
+                w.setSelected(selectedTopics.contains(topic));
+            }
+            if (levelOfDetail == LevelOfDetail.SUMMARY && level >= LevelOfDetail.SUMMARY_MIN_LEVEL
+                    && w.hasChildren() && !w.isCollapsed() && w.getBlockSize().getHeight() < LevelOfDetail.SUMMARY_MAX_HEIGHT) {
+                w.doPaintAsSummary();
+                return;
+            }
+            w.doPaintAsBlock();
+        }
+        else {
+            paintTopic(topic, collapsingTopic, drawSelection);
+        }
         if (w != null) {
             if (w.isCollapsed()) {
                 return;
             }
             for (TopicNode t : topic.getChildren()) {
-                drawTopicTree(t, collapsingTopic, drawSelection);
+                drawTopicTree(t, collapsingTopic, drawSelection, level + 1);
             }
         }
     }
 
+    /**
+     * Whether the block of element (with all its descendants) intersects with the clip bounds,
+     * the block is extended a little for the parts drawn outside the bounds of element, like selection and collapsator.
+     */
+    private boolean isBlockInClip(BaseElement element) {
+        Rectangle2D clipBounds = g.getClipBounds();
+        if (clipBounds == null) {
+            return true;
+        }
+        double extra = mindMapContext.getScale() * (config.getTheme().getCollapsatorSize()
+                + config.getTheme().getSelectLineGap() * 2 + config.getTheme().getShadowOffset());
+        Rectangle2D block = element.getBlockBounds();
+        return clipBounds.intersects(block.getMinX() - extra, block.getMinY() - extra,
+                block.getWidth() + extra * 2, block.getHeight() + extra * 2);
+    }
+
     private void paintTopic(TopicNode topic, TopicNode collapsingTopic, boolean drawSelection) {
         BaseElement element = (BaseElement) topic.getPayload();
         if (element != null) {
@@ -328,24 +402,47 @@ public class MindMapCanvas {
      * @return
      */
     public Dimension2D layoutFullDiagramWithCenteringToPaper(MindMap<TopicNode> model, Bounds paperSize) {
+        return this.layoutFullDiagramWithCenteringToPaper(model, paperSize, false);
+    }
+
+    /**
+     * @param model
+     * @param paperSize
+     * @param keepMeasured see {@link #calculateElementSizes(MindMap, boolean)}
+     * @return
+     */
+    public Dimension2D layoutFullDiagramWithCenteringToPaper(MindMap<TopicNode> model, Bounds paperSize, boolean keepMeasured) {
+        Dimension2D resultSize = null;
+        if (calculateElementSizes(model, keepMeasured)) {
+            resultSize = this.layoutMeasuredDiagram(model);
+        }
+        return resultSize;
+    }
+
+    /**
+     * Layout the elements which have been measured by {@link #calculateElementSizes(MindMap, boolean)}, only the
+     * positions of elements are calculated (nothing is measured), so it can be done in background thread.
+     *
+     * @param model
+     * @return
+     */
+    public Dimension2D layoutMeasuredDiagram(MindMap<TopicNode> model) {
         Dimension2D resultSize = null;
-        if (calculateElementSizes(model)) {
-            Dimension2D rootBlockSize = layoutModelElements(model);
-            double paperMargin = config.getTheme().getPaperMargins() * mindMapContext.getScale();
+        Dimension2D rootBlockSize = layoutModelElements(model);
+        double paperMargin = config.getTheme().getPaperMargins() * mindMapContext.getScale();
 
-            if (rootBlockSize != null) {
-                ElementRoot rootElement = (ElementRoot) model.getRoot().getPayload();
+        if (rootBlockSize != null) {
+            ElementRoot rootElement = (ElementRoot) model.getRoot().getPayload();
 
-                double rootOffsetXInBlock = rootElement.getLeftBlockSize().getWidth();
-                double rootOffsetYInBlock = (rootBlockSize.getHeight() - rootElement.getBounds().getHeight()) / 2;
+            double rootOffsetXInBlock = rootElement.getLeftBlockSize().getWidth();
+            double rootOffsetYInBlock = (rootBlockSize.getHeight() - rootElement.getBounds().getHeight()) / 2;
 
-                rootOffsetXInBlock += paperMargin;
-                rootOffsetYInBlock += paperMargin;
+            rootOffsetXInBlock += paperMargin;
+            rootOffsetYInBlock += paperMargin;
 
-                // extend the map in model?
-                moveDiagram(model, rootOffsetXInBlock, rootOffsetYInBlock);
-                resultSize = new Dimension2D(Math.round(rootBlockSize.getWidth() + paperMargin * 2), Math.round(rootBlockSize.getHeight() + paperMargin * 2));
-            }
+            // extend the map in model?
+            moveDiagram(model, rootOffsetXInBlock, rootOffsetYInBlock);
+            resultSize = new Dimension2D(Math.round(rootBlockSize.getWidth() + paperMargin * 2), Math.round(rootBlockSize.getHeight() + paperMargin * 2));
         }
         return resultSize;
     }
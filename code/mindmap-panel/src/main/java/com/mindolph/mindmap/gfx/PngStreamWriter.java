@@ -0,0 +1,180 @@
+package com.mindolph.mindmap.gfx;
+
+import java.io.Closeable;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+
+/**
+ * Minimal PNG encoder which writes image rows directly to the output stream,
+ * so that the whole image never needs to be in memory.
+ * The image is encoded as 8-bit RGBA, rows are filtered with the "Sub" filter.
+ * The native memory of compressor is released when it's finished or closed, close it if the writing fails.
+ *
+ * @author mindolph.com@gmail.com
+ */
+public class PngStreamWriter implements Closeable {
+
+    private static final byte[] SIGNATURE = {(byte) 137, 80, 78, 71, 13, 10, 26, 10};
+    private static final int IDAT_CHUNK_SIZE = 64 * 1024;
+
+    private final DataOutputStream out;
+    private final int width;
+    private final int height;
+    private final byte[] rowBuffer;
+    private final Deflater deflater;
+    private final DeflaterOutputStream compressed;
+    private int writtenRows = 0;
+
+    /**
+     * @param out    target stream, it will not be closed by this writer.
+     * @param width  width of image in pixels
+     * @param height height of image in pixels
+     * @throws IOException
+     */
+    public PngStreamWriter(OutputStream out, int width, int height) throws IOException {
+        if (width <= 0 || height <= 0) {
+            throw new IllegalArgumentException("Invalid image size: %dx%d".formatted(width, height));
+        }
+        this.out = new DataOutputStream(out);
+        this.width = width;
+        this.height = height;
+        this.rowBuffer = new byte[1 + width * 4];
+        this.deflater = new Deflater(Deflater.DEFAULT_COMPRESSION);
+        this.compressed = new DeflaterOutputStream(new IdatOutputStream(), deflater, IDAT_CHUNK_SIZE);
+
+        try {
+            this.out.write(SIGNATURE);
+            byte[] header = new byte[13];
+            writeInt(header, 0, width);
+            writeInt(header, 4, height);
+            header[8] = 8; // bit depth
+            header[9] = 6; // color type: RGBA
+            header[10] = 0; // compression
+            header[11] = 0; // filter
+            header[12] = 0; // interlace
+            this.writeChunk("IHDR", header, 0, header.length);
+        } catch (IOException | RuntimeException e) {
+            deflater.end();
+            throw e;
+        }
+    }
+
+    /**
+     * Write rows of pixels in ARGB format.
+     *
+     * @param argb   pixels
+     * @param offset offset of the first pixel in the array
+     * @param stride count of pixels from one row to the next one in the array
+     * @param rows   count of rows to write
+     * @throws IOException
+     */
+    public void writeRows(int[] argb, int offset, int stride, int rows) throws IOException {
+        if (writtenRows + rows > height) {
+            throw new IllegalStateException("Too many rows, expect %d at most".formatted(height - writtenRows));
+        }
+        for (int r = 0; r < rows; r++) {
+            int base = offset + r * stride;
+            rowBuffer[0] = 1; // Sub filter
+            int prev = 0;
+            for (int x = 0; x < width; x++) {
+                int p = argb[base + x];
+                int i = 1 + x * 4;
+                rowBuffer[i] = (byte) ((p >> 16) - (prev >> 16));
+                rowBuffer[i + 1] = (byte) ((p >> 8) - (prev >> 8));
+                rowBuffer[i + 2] = (byte) (p - prev);
+                rowBuffer[i + 3] = (byte) ((p >>> 24) - (prev >>> 24));
+                prev = p;
+            }
+            compressed.write(rowBuffer);
+        }
+        writtenRows += rows;
+    }
+
+    /**
+     * Complete the image, all rows must be written before.
+     *
+     * @throws IOException
+     */
+    public void finish() throws IOException {
+        if (writtenRows != height) {
+            throw new IllegalStateException("Only %d of %d rows written".formatted(writtenRows, height));
+        }
+        try {
+            compressed.finish();
+            compressed.flush();
+        } finally {
+            deflater.end();
+        }
+        this.writeChunk("IEND", new byte[0], 0, 0);
+        out.flush();
+    }
+
+    /**
+     * Release the compressor, the target stream is not closed.
+     */
+    @Override
+    public void close() {
+        deflater.end();
+    }
+
+    private void writeChunk(String type, byte[] data, int off, int len) throws IOException {
+        byte[] typeBytes = type.getBytes(StandardCharsets.US_ASCII);
+        CRC32 crc = new CRC32();
+        crc.update(typeBytes);
+        crc.update(data, off, len);
+        out.writeInt(len);
+        out.write(typeBytes);
+        out.write(data, off, len);
+        out.writeInt((int) crc.getValue());
+    }
+
+    private static void writeInt(byte[] buf, int off, int value) {
+        buf[off] = (byte) (value >>> 24);
+        buf[off + 1] = (byte) (value >>> 16);
+        buf[off + 2] = (byte) (value >>> 8);
+        buf[off + 3] = (byte) value;
+    }
+
+    /**
+     * Collect compressed data and write it out as IDAT chunks.
+     */
+    private class IdatOutputStream extends OutputStream {
+        private final byte[] buffer = new byte[IDAT_CHUNK_SIZE];
+        private int count = 0;
+
+        @Override
+        public void write(int b) throws IOException {
+            if (count == buffer.length) {
+                flush();
+            }
+            buffer[count++] = (byte) b;
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            while (len > 0) {
+                if (count == buffer.length) {
+                    flush();
+                }
+                int n = Math.min(len, buffer.length - count);
+                System.arraycopy(b, off, buffer, count, n);
+                count += n;
+                off += n;
+                len -= n;
+            }
+        }
+
+        @Override
+        public void flush() throws IOException {
+            if (count > 0) {
+                writeChunk("IDAT", buffer, 0, count);
+                count = 0;
+            }
+        }
+    }
+}
@@ -0,0 +1,151 @@
+package com.mindolph.mindmap.gfx;
+
+import com.igormaznitsa.mindmap.model.MindMap;
+import com.mindolph.base.graphic.CanvasGraphicsWrapper;
+import com.mindolph.mindmap.MindMapConfig;
+import com.mindolph.mindmap.MindMapContext;
+import com.mindolph.mindmap.model.TopicNode;
+import javafx.geometry.Dimension2D;
+import javafx.geometry.Rectangle2D;
+import javafx.scene.SnapshotParameters;
+import javafx.scene.canvas.Canvas;
+import javafx.scene.canvas.GraphicsContext;
+import javafx.scene.image.PixelFormat;
+import javafx.scene.image.WritableImage;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Render mind map into PNG tile by tile, the mind map is laid out only once and each tile is drawn
+ * on a small canvas (only elements intersecting with the tile are painted), the rows of tiles are streamed
+ * to the PNG encoder which writes to the output stream directly.
+ * The peak memory is bounded by width of the mind map multiplied by the tile height.
+ * <p>
+ * The tiles are rasterized in FX thread (as the toolkit requires) while the previous row of tiles
+ * is being encoded in a background thread.
+ *
+ * @author mindolph.com@gmail.com
+ */
+public class TiledMindMapRenderer {
+
+    private static final Logger log = LoggerFactory.getLogger(TiledMindMapRenderer.class);
+
+    public static final int DEFAULT_TILE_WIDTH = 1024;
+    public static final int DEFAULT_TILE_HEIGHT = 256;
+
+    private final MindMapConfig config;
+    private final int tileWidth;
+    private final int tileHeight;
+
+    public TiledMindMapRenderer(MindMapConfig config) {
+        this(config, DEFAULT_TILE_WIDTH, DEFAULT_TILE_HEIGHT);
+    }
+
+    public TiledMindMapRenderer(MindMapConfig config, int tileWidth, int tileHeight) {
+        this.config = config;
+        this.tileWidth = tileWidth;
+        this.tileHeight = tileHeight;
+    }
+
+    /**
+     * Render mind map as PNG to the output stream, must be called in FX thread.
+     *
+     * @param model     mind map, it will not be changed.
+     * @param expandAll
+     * @param out       the stream will not be closed.
+     * @return size of the rendered image, null if nothing to render.
+     * @throws IOException
+     */
+    public Dimension2D renderToPng(MindMap<TopicNode> model, boolean expandAll, OutputStream out) throws IOException {
+        MindMap<TopicNode> workMap = new MindMap<>(model);
+        if (workMap.getRoot() == null) {
+            return null;
+        }
+        workMap.resetPayload();
+        if (expandAll) {
+            workMap.getRoot().removeCollapseAttr();
+        }
+
+        Canvas tileCanvas = new Canvas(tileWidth, tileHeight);
+        GraphicsContext gc = tileCanvas.getGraphicsContext2D();
+        CanvasGraphicsWrapper gfx = new CanvasGraphicsWrapper(tileCanvas, new Rectangle2D(0, 0, tileWidth, tileHeight));
+        MindMapCanvas mmCanvas = new MindMapCanvas(gfx, config, new MindMapContext());
+
+        // layout only once for all tiles
+        Dimension2D size = mmCanvas.layoutFullDiagramWithCenteringToPaper(workMap, null);
+        if (size == null) {
+            return null;
+        }
+        int width = (int) Math.ceil(size.getWidth());
+        int height = (int) Math.ceil(size.getHeight());
+        log.debug("Render mind map (%dx%d) in tiles of %dx%d".formatted(width, height, tileWidth, tileHeight));
+
+        WritableImage tileImage = new WritableImage(tileWidth, tileHeight);
+        SnapshotParameters params = new SnapshotParameters();
+        params.setViewport(new Rectangle2D(0, 0, tileWidth, tileHeight));
+
+        ExecutorService encoder = Executors.newSingleThreadExecutor(r -> {
+            Thread t = new Thread(r, "png-encoder");
+            t.setDaemon(true);
+            return t;
+        });
+        try (PngStreamWriter png = new PngStreamWriter(out, width, height)) {
+            Future<?> pending = null;
+            // two bands are used alternately, one is being rendered while the other one is being encoded.
+            int[][] bands = new int[2][];
+            int bandIndex = 0;
+            for (int ty = 0; ty < height; ty += tileHeight) {
+                int th = Math.min(tileHeight, height - ty);
+                int[] band = bands[bandIndex];
+                if (band == null) {
+                    band = new int[width * tileHeight];
+                    bands[bandIndex] = band;
+                }
+                for (int tx = 0; tx < width; tx += tileWidth) {
+                    int tw = Math.min(tileWidth, width - tx);
+                    gc.save();
+                    gc.clearRect(0, 0, tileWidth, tileHeight);
+                    gc.translate(-tx, -ty);
+                    gfx.setClipBounds(new Rectangle2D(tx, ty, tw, th));
+                    mmCanvas.drawOnGraphicsForConfiguration(workMap, false, null);
+                    gc.restore();
+                    tileCanvas.snapshot(params, tileImage);
+                    tileImage.getPixelReader().getPixels(0, 0, tw, th, PixelFormat.getIntArgbInstance(), band, tx, width);
+                }
+                waitFor(pending);
+                int[] rows = band;
+                pending = encoder.submit(() -> {
+                    png.writeRows(rows, 0, width, th);
+                    return null;
+                });
+                bandIndex = 1 - bandIndex;
+            }
+            waitFor(pending);
+            png.finish();
+        } finally {
+            encoder.shutdownNow();
+        }
+        return new Dimension2D(width, height);
+    }
+
+    private void waitFor(Future<?> future) throws IOException {
+        if (future == null) {
+            return;
+        }
+        try {
+            future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Rendering interrupted", e);
+        } catch (ExecutionException e) {
+            throw e.getCause() instanceof IOException ioe ? ioe : new IOException(e.getCause());
+        }
+    }
+}
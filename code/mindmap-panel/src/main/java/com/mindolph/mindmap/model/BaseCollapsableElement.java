@@ -177,7 +177,10 @@ public abstract class BaseCollapsableElement extends BaseElement {
     @Override
     public void doPaintConnectors(boolean isLeftDirection) {
         for (TopicNode t : this.model.getChildren()) {
-            this.drawConnector(super.bounds, ((BaseElement) t.getPayload()).getBounds(), isLeftDirection());
+            BaseElement child = (BaseElement) t.getPayload();
+            if (child != null) { // not laid out yet
+                this.drawConnector(super.bounds, child.getBounds(), isLeftDirection());
+            }
         }
     }
 
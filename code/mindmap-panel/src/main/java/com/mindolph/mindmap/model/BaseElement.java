@@ -28,9 +28,9 @@ public abstract class BaseElement {
 
     protected final MindMapTheme theme;
 
-    protected final MindMapContext mindMapContext;
+    protected MindMapContext mindMapContext;
 
-    protected final TopicNode model;
+    protected TopicNode model;
 
     protected final TextBlock textBlock;
 
@@ -144,10 +144,7 @@ public abstract class BaseElement {
             // debugging only
             if (mindMapContext.isDebugMode()){
                 g.drawRect(this.bounds, Color.RED, null);
-                g.drawRect(new Rectangle2D(isLeftDirection() ? this.bounds.getMaxX() - this.blockSize.getWidth() : this.bounds.getMinX(),
-                                this.bounds.getMinY() - (this.blockSize.getHeight() - this.bounds.getHeight()) / 2,
-                        blockSize.getWidth(), blockSize.getHeight()),
-                        Color.RED, null);
+                g.drawRect(this.getBlockBounds(), Color.RED, null);
             }
         }
     }
@@ -160,10 +157,70 @@ public abstract class BaseElement {
         g.translate(-x, -y);
     }
 
+    /**
+     * Paint the element as a coloured block without text, icons and image, and connectors to children as straight lines.
+     * This is for small scale that the details are not distinguishable.
+     */
+    public final void doPaintAsBlock() {
+        if (this.hasChildren() && !isCollapsed()) {
+            doPaintStraightConnectors(isLeftDirection());
+        }
+        this.paintBlock();
+    }
+
+    /**
+     * Paint the element as a coloured block, and all its descendants as one shape in the area of them.
+     * This is for very small scale that the descendants are hardly visible.
+     */
+    public final void doPaintAsSummary() {
+        Rectangle2D blockBounds = this.getBlockBounds();
+        double childrenWidth = blockBounds.getWidth() - this.bounds.getWidth();
+        if (childrenWidth > 0 && g.getClipBounds().intersects(blockBounds)) {
+            double childrenX = isLeftDirection() ? blockBounds.getMinX() : this.bounds.getMaxX();
+            BaseElement firstChild = (BaseElement) this.model.getChildren().get(0).getPayload();
+            Color color = firstChild == null ? theme.getConnectorColor() : firstChild.getBackgroundColor();
+            g.drawRect(childrenX, blockBounds.getMinY(), childrenWidth, blockBounds.getHeight(),
+                    null, ColorUtils.makeTransparentColor(color, 0.5f));
+        }
+        this.paintBlock();
+    }
+
+    private void paintBlock() {
+        if (g.getClipBounds().intersects(this.bounds)) {
+            if (isSelected()) {
+                g.translate(this.bounds.getMinX(), this.bounds.getMinY());
+                drawSelection();
+                g.translate(-this.bounds.getMinX(), -this.bounds.getMinY());
+            }
+            if (this.getBorderType() == BorderType.LINE) {
+                g.setStroke(mindMapContext.safeScale(theme.getConnectorWidth(), 0.1f), StrokeType.SOLID);
+                g.drawLine(this.bounds.getMinX(), this.bounds.getMaxY(), this.bounds.getMaxX(), this.bounds.getMaxY(), theme.getConnectorColor());
+            }
+            else {
+                g.drawRect(this.bounds, null, this.getBackgroundColor());
+            }
+        }
+    }
+
+    public void doPaintStraightConnectors(boolean isLeftDirection) {
+        g.setStroke(mindMapContext.safeScale(theme.getConnectorWidth(), 0.1f), StrokeType.SOLID);
+        Point2D start = sourcePoint(this.getBorderType(), this.bounds, isLeftDirection);
+        for (TopicNode t : this.model.getChildren()) {
+            BaseElement child = (BaseElement) t.getPayload();
+            if (child != null) {
+                Point2D end = child.destinationPoint(child.getBorderType(), child.getBounds(), isLeftDirection);
+                g.drawLine(start, end, theme.getConnectorColor());
+            }
+        }
+    }
+
     public void doPaintConnectors(boolean isLeftDirection) {
         Rectangle2D source = this.bounds;
         for (TopicNode t : this.model.getChildren()) {
-            drawConnector(source, ((BaseElement) t.getPayload()).getBounds(), isLeftDirection);
+            BaseElement child = (BaseElement) t.getPayload();
+            if (child != null) { // not laid out yet
+                drawConnector(source, child.getBounds(), isLeftDirection);
+            }
         }
     }
 
@@ -307,6 +364,25 @@ public abstract class BaseElement {
         return result;
     }
 
+    /**
+     * Bind this element to another topic with the same content, and draw on another graphics.
+     * This is used for the elements which are laid out on a snapshot of the model in background,
+     * they are moved to the topics of the live model after layout.
+     *
+     * @param topic the topic of live model
+     * @param g
+     */
+    public void rebind(TopicNode topic, Graphics g, MindMapContext mindMapContext) {
+        this.model = topic;
+        this.mindMapContext = mindMapContext;
+        this.textBlock.setMindMapContext(mindMapContext);
+        this.extrasIconBlock.setMindMapContext(mindMapContext);
+        this.visualAttributeImageBlock.setMindMapContext(mindMapContext);
+        this.extrasIconBlock.rebind(topic);
+        this.visualAttributeImageBlock.rebind(topic);
+        this.updateGraphics(g);
+    }
+
     // to update Graphics for this element and all it's children, this is used for drawing dragging elements.
     // this probably useless when everything drawing on one canvas.
     void updateGraphics(Graphics g) {
@@ -456,6 +532,17 @@ public abstract class BaseElement {
         return this.blockSize;
     }
 
+    /**
+     * Bounds of the area of this element including all its children elements.
+     *
+     * @return
+     */
+    public Rectangle2D getBlockBounds() {
+        return new Rectangle2D(isLeftDirection() ? this.bounds.getMaxX() - this.blockSize.getWidth() : this.bounds.getMinX(),
+                this.bounds.getMinY() - (this.blockSize.getHeight() - this.bounds.getHeight()) / 2,
+                this.blockSize.getWidth(), this.blockSize.getHeight());
+    }
+
     public boolean hasChildren() {
         return this.model.hasChildren();
     }
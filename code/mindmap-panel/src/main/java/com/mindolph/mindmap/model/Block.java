@@ -12,7 +12,7 @@ import javafx.geometry.Rectangle2D;
 public abstract class Block {
 
     protected final MindMapConfig cfg;
-    protected final MindMapContext mindMapContext;
+    protected MindMapContext mindMapContext;
     protected Graphics g;
     protected Rectangle2D bounds = RectangleUtils.newZero();
 
@@ -39,6 +39,10 @@ public abstract class Block {
         this.g = g;
     }
 
+    void setMindMapContext(MindMapContext mindMapContext) {
+        this.mindMapContext = mindMapContext;
+    }
+
     public Rectangle2D getBounds() {
         return bounds;
     }
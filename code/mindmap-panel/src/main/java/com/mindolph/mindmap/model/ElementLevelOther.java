@@ -35,7 +35,7 @@ public class ElementLevelOther extends ElementLevelFirst {
         boolean result = false;
         while (topic != null) {
             BaseElement w = (BaseElement) topic.getPayload();
-            if (w.getClass() == ElementLevelFirst.class) {
+            if (w != null && w.getClass() == ElementLevelFirst.class) {
                 result = w.isLeftDirection();
                 break;
             }
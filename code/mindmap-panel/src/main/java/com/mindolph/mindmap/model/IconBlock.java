@@ -3,11 +3,11 @@ package com.mindolph.mindmap.model;
 import com.igormaznitsa.mindmap.model.Extra;
 import com.igormaznitsa.mindmap.model.ExtraFile;
 import com.mindolph.base.graphic.Graphics;
-import com.mindolph.mfx.util.FontUtils;
 import com.mindolph.mfx.util.RectangleUtils;
 import com.mindolph.mindmap.MindMapConfig;
 import com.mindolph.mindmap.MindMapContext;
 import com.mindolph.mindmap.constant.MindMapConstants;
+import com.mindolph.mindmap.gfx.IconAtlas;
 import com.mindolph.mindmap.util.Utils;
 import de.jensd.fx.glyphs.GlyphIcons;
 import de.jensd.fx.glyphs.fontawesome.FontAwesomeIcon;
@@ -26,13 +26,15 @@ import java.util.List;
 public class IconBlock extends Block {
 
     private static final double ICON_SPACING = 4;
-    private final TopicNode model;
+    private TopicNode model;
     private final BaseElement element;
     private Color textColor;
     private boolean contentPresented;
 
     private List<Extra<?>> currentExtras = null;
     private List<Rectangle2D> boundsList = new ArrayList<>(); // bounds of icons inside
+    private int[] iconIds; // ids in IconAtlas for current extras
+    private Color iconColor; // text color which the icons are registered with
 
     private static final Font awesomeFont = Font.loadFont(IconBlock.class.getResourceAsStream("/de/jensd/fx/glyphs/fontawesome/fontawesome-webfont.ttf"), 16);
     private static final Font octFont = Font.loadFont(IconBlock.class.getResourceAsStream("/de/jensd/fx/glyphs/octicons/octicons.ttf"), 16);
@@ -54,6 +56,8 @@ public class IconBlock extends Block {
         this.boundsList = orig.boundsList;
         this.element = orig.element;
         this.textColor = orig.textColor;
+        this.iconIds = orig.iconIds;
+        this.iconColor = orig.iconColor;
     }
 
     public IconBlock(BaseElement element, TopicNode model, Graphics g, MindMapConfig cfg, MindMapContext mindMapContext) {
@@ -68,39 +72,15 @@ public class IconBlock extends Block {
 
     public void paint() {
         int numberOfIcons = this.model.getNumberOfExtras();
-        if (numberOfIcons != 0) {
+        if (numberOfIcons != 0 && this.textColor != null) {
+            double scale = this.mindMapContext.getScale();
             double offsetX = this.bounds.getMinX();
             double offsetY = this.bounds.getMinY();
-            double scaledIconWidth = MindMapConstants.BASE_ICON_WIDTH * this.mindMapContext.getScale();
-            double scaledIconHeight = MindMapConstants.BASE_ICON_HEIGHT * this.mindMapContext.getScale();
-            for (Extra<?> e : this.currentExtras) {
-                GlyphIcons icon = null;
-                Font scaledFont = null;
-                switch (e.getType()) {
-                    case FILE:
-                        icon = OctIcon.LINK_EXTERNAL;
-                        scaledFont = FontUtils.newFontWithSize(octFont, scaledIconWidth);
-                        break;
-                    case LINK:
-                        String uri = e.getAsString();
-//                        ico = uri.startsWith("mailto:") ? ScalableIcon.LINK_EMAIL : ScalableIcon.LINK;
-                        icon = MaterialDesignIcon.LINK_VARIANT;
-                        scaledFont = FontUtils.newFontWithSize(materialDesignFont, scaledIconWidth);
-                        break;
-                    case NOTE:
-                        icon = FontAwesomeIcon.STICKY_NOTE_ALT;
-                        scaledFont = FontUtils.newFontWithSize(awesomeFont, scaledIconWidth);
-                        break;
-                    case TOPIC:
-                        icon = MaterialIcon.CHAT_BUBBLE_OUTLINE;
-                        scaledFont = FontUtils.newFontWithSize(materialFont, scaledIconWidth);
-                        break;
-                    default:
-                        throw new Error("Unexpected extras");
-                }
-                if (scaledIconWidth >= 1.0d) {
-                    g.drawFontIcon(scaledFont, icon.unicode(), offsetX, offsetY + scaledIconHeight, textColor);
-                    offsetX += scaledIconWidth + ICON_SPACING * this.mindMapContext.getScale();
+            double scaledIconWidth = MindMapConstants.BASE_ICON_WIDTH * scale;
+            if (scaledIconWidth >= 1.0d) {
+                for (int id : this.getIconIds()) {
+                    IconAtlas.getIns().draw(g, id, scale, offsetX, offsetY);
+                    offsetX += scaledIconWidth + ICON_SPACING * scale;
                 }
             }
 
@@ -113,6 +93,48 @@ public class IconBlock extends Block {
         }
     }
 
+    /**
+     * Ids of icons in atlas for current extras, they are registered again only if the extras or text color changes.
+     *
+     * @return
+     */
+    private int[] getIconIds() {
+        if (this.iconIds == null || this.iconIds.length != this.currentExtras.size() || !this.textColor.equals(this.iconColor)) {
+            this.iconIds = new int[this.currentExtras.size()];
+            for (int i = 0; i < this.currentExtras.size(); i++) {
+                this.iconIds[i] = this.registerIcon(this.currentExtras.get(i).getType());
+            }
+            this.iconColor = this.textColor;
+        }
+        return this.iconIds;
+    }
+
+    private int registerIcon(Extra.ExtraType type) {
+        GlyphIcons icon;
+        Font font;
+        switch (type) {
+            case FILE -> {
+                icon = OctIcon.LINK_EXTERNAL;
+                font = octFont;
+            }
+            case LINK -> {
+                icon = MaterialDesignIcon.LINK_VARIANT;
+                font = materialDesignFont;
+            }
+            case NOTE -> {
+                icon = FontAwesomeIcon.STICKY_NOTE_ALT;
+                font = awesomeFont;
+            }
+            case TOPIC -> {
+                icon = MaterialIcon.CHAT_BUBBLE_OUTLINE;
+                font = materialFont;
+            }
+            default -> throw new Error("Unexpected extras");
+        }
+        return IconAtlas.getIns().registerGlyph(font, icon.unicode(), textColor,
+                MindMapConstants.BASE_ICON_WIDTH, MindMapConstants.BASE_ICON_HEIGHT);
+    }
+
     public void updateBounds() {
         int numberOfIcons = this.model.getNumberOfExtras();
         double scale = mindMapContext.getScale();
@@ -130,6 +152,7 @@ public class IconBlock extends Block {
             this.contentPresented = true;
             this.currentExtras = new ArrayList<>();
             this.currentExtras.addAll(this.model.getExtras().values());
+            this.iconIds = null;
 
             for (int i = 0; i < this.currentExtras.size(); i++) {
                 this.boundsList.add(new Rectangle2D((scaledIconWidth + scaledSpacing) * i, 0d, scaledIconWidth, scaledIconHeight));
@@ -137,6 +160,13 @@ public class IconBlock extends Block {
         }
     }
 
+    void rebind(TopicNode topic) {
+        this.model = topic;
+        if (this.currentExtras != null) {
+            this.currentExtras = new ArrayList<>(topic.getExtras().values());
+        }
+    }
+
     /**
      * TBD
      *
@@ -190,10 +190,7 @@ public class TopicNode extends Topic<TopicNode> {
                 }
                 if (baseSibling != null) {
                     if (baseSibling.isCollapsed()) {
-                        BaseElement eleSib = (BaseElement) baseSibling.getPayload();
-                        if (eleSib instanceof BaseCollapsableElement) {
-                            ((BaseCollapsableElement) eleSib).setCollapse(false);
-                        }
+                        baseSibling.setCollapsed(false); // the children of it have no elements until laid out.
                     }
                     this.moveToNewParent(baseSibling);
                     return true;
@@ -7,15 +7,18 @@ import com.mindolph.mindmap.MindMapContext;
 import com.mindolph.mindmap.extension.MindMapExtensionRegistry;
 import com.mindolph.mindmap.extension.api.AttributeExtension;
 import com.mindolph.mindmap.extension.api.VisualAttributeExtension;
+import com.mindolph.mindmap.gfx.IconAtlas;
+import javafx.geometry.Dimension2D;
 import javafx.geometry.Rectangle2D;
 import javafx.scene.image.Image;
 
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 import java.util.Map;
 
 public class VisualAttributeImageBlock extends Block {
-    private final TopicNode model;
+    private TopicNode model;
     private boolean contentPresented;
     private VisualItem[] items = null;
 
@@ -40,45 +43,56 @@ public class VisualAttributeImageBlock extends Block {
         this.model = model;
     }
 
+    void rebind(TopicNode topic) {
+        this.model = topic;
+    }
+
     @Override
     public void updateBounds() {
-        List<VisualAttributeExtension> extensionsFromRegistry = MindMapExtensionRegistry.getInstance().findFor(VisualAttributeExtension.class);
+        List<VisualAttribute> attributes = collectVisualAttributes(this.model, cfg);
         int x = 0;
         double maxheight = 0;
-        if (extensionsFromRegistry.isEmpty()) {
-            this.items = VisualItem.EMPTY;
+        double scale = mindMapContext.getScale();
+        this.items = attributes.isEmpty() ? VisualItem.EMPTY : new VisualItem[attributes.size()];
+        for (int i = 0; i < attributes.size(); i++) {
+            VisualItem item = new VisualItem(this, x, 0, attributes.get(i), scale);
+            this.items[i] = item;
+            x += item.getWidth();
+            maxheight = Math.max(maxheight, item.getHeight());
         }
-        else {
-            List<VisualAttributeExtension> detectedExtensions = new ArrayList<>();
-            Map<String, String> attributes = this.model.getAttributes();
-//      Map<String, String> codeSnippets = this.model.getCodeSnippets();
-            for (VisualAttributeExtension p : extensionsFromRegistry) {
-                String attributeKey = p.getAttributeKey();
-                if (!AttributeExtension.NULL_ATTRIBUTE.equals(attributeKey) && attributes.containsKey(attributeKey)) {
-                    detectedExtensions.add(p);
-                }
-            }
-            int index = 0;
-            this.items = this.items == null || this.items.length != detectedExtensions.size() ? new VisualItem[detectedExtensions.size()] : this.items;
-            for (VisualAttributeExtension extension : detectedExtensions) {
-                VisualItem item = this.items[index];
-                if (item == null || item.getExtension() == extension) {
-                    item = new VisualItem(this, cfg, x, 0, extension);
-                    this.items[index] = item;
-                }
-                else {
-                    item.updateImage(cfg);
+        for (VisualItem i : this.items) {
+            i.toHCenter(maxheight);
+        }
+        this.bounds = new Rectangle2D(0d, 0d, x, maxheight);
+    }
+
+    /**
+     * Collect the visual attributes of topic with their sizes, the extensions and images are not designed for
+     * concurrent access, so this must be called in FX thread.
+     *
+     * @param topic
+     * @param cfg
+     * @return
+     */
+    private static List<VisualAttribute> collectVisualAttributes(TopicNode topic, MindMapConfig cfg) {
+        List<VisualAttributeExtension> extensionsFromRegistry = MindMapExtensionRegistry.getInstance().findFor(VisualAttributeExtension.class);
+        Map<String, String> attributes = topic.getAttributes();
+        if (extensionsFromRegistry.isEmpty() || attributes.isEmpty()) {
+            return Collections.emptyList();
+        }
+        List<VisualAttribute> result = new ArrayList<>();
+        for (VisualAttributeExtension extension : extensionsFromRegistry) {
+            String attributeKey = extension.getAttributeKey();
+            if (!AttributeExtension.NULL_ATTRIBUTE.equals(attributeKey) && attributes.containsKey(attributeKey)) {
+                Dimension2D size = extension.getImageSize(cfg, topic);
+                if (size != null) {
+                    String atlasKey = extension.getAtlasKey(topic);
+                    int atlasId = atlasKey == null ? -1 : IconAtlas.getIns().registerImage(atlasKey, extension.getScaledImage(cfg, topic));
+                    result.add(new VisualAttribute(extension, size, atlasId));
                 }
-                x += item.getWidth();
-                maxheight = Math.max(maxheight, item.getHeight());
-                index++;
-            }
-            for (VisualItem i : this.items) {
-                i.toHCenter(maxheight);
             }
         }
-
-        this.bounds = new Rectangle2D(0d, 0d, x, maxheight);
+        return result;
     }
 
     public boolean mayHaveContent() {
@@ -126,11 +140,11 @@ public class VisualAttributeImageBlock extends Block {
         private final VisualAttributeImageBlock parent;
         private final VisualAttributeExtension extension;
         private final int relx;
-        private Image image;
         private double rely;
-        private double width;
-        private double height;
-        private double lastScale = -1.0d;
+        private final double width;
+        private final double height;
+        private final double scale;
+        private final int atlasId; // id in IconAtlas if the image is cached there
 
         VisualItem(VisualAttributeImageBlock parent, VisualItem item) {
             this.parent = parent;
@@ -139,16 +153,20 @@ public class VisualAttributeImageBlock extends Block {
             this.rely = item.rely;
             this.width = item.width;
             this.height = item.height;
-            this.lastScale = item.lastScale;
-            this.image = item.image;
+            this.scale = item.scale;
+            this.atlasId = item.atlasId;
         }
 
-        VisualItem(VisualAttributeImageBlock parent, MindMapConfig cfg, int x, int y, VisualAttributeExtension extension) {
+        VisualItem(VisualAttributeImageBlock parent, int x, int y, VisualAttribute attribute, double scale) {
             this.parent = parent;
             this.relx = x;
             this.rely = y;
-            this.extension = extension;
-            updateImage(cfg);
+            this.extension = attribute.extension();
+            this.scale = scale;
+            this.atlasId = attribute.atlasId();
+            // the size is known without loading the image, the image to draw is taken when painting.
+            this.width = attribute.size().getWidth() * scale;
+            this.height = attribute.size().getHeight() * scale;
         }
 
         VisualAttributeExtension getExtension() {
@@ -167,25 +185,8 @@ public class VisualAttributeImageBlock extends Block {
             return this.height;
         }
 
-        void updateImage(MindMapConfig config) {
-            double scale = parent.mindMapContext.getScale();
-
-            if (this.image == null || Double.compare(this.lastScale, scale) != 0) {
-                this.image = this.extension.getScaledImage(config, this.parent.model);
-                this.lastScale = scale;
-                if (this.image == null) {
-                    this.width = 0;
-                    this.height = 0;
-                }
-                else {
-                    this.width = image.getWidth() * scale;
-                    this.height = image.getHeight() * scale;
-                }
-            }
-        }
-
         boolean isVisible() {
-            return this.image != null;
+            return true;
         }
 
         boolean containsPoint(double relativeX, double relativeY) {
@@ -194,10 +195,24 @@ public class VisualAttributeImageBlock extends Block {
 
         void draw(Graphics gfx, double basex, double basey) {
             if (this.isVisible()) {
+                if (this.atlasId >= 0) {
+                    IconAtlas.getIns().draw(gfx, this.atlasId, this.scale, basex + this.relx, basey + this.rely);
+                    return;
+                }
                 // System.out.printf("draw image at: %.2f, %.2f, %.2fx%.2f%n", basex + this.relx, basey + this.rely, this.width, this.height);
-                gfx.drawImage(this.image, basex + this.relx, basey + this.rely, this.width, this.height);
+                Image image = this.extension.getImageForScale(this.parent.cfg, this.parent.model, this.parent.mindMapContext);
+                if (image != null) {
+                    gfx.drawImage(image, basex + this.relx, basey + this.rely, this.width, this.height);
+                }
             }
         }
     }
 
+    /**
+     * @param extension
+     * @param size      size of the image in base size (scale 1).
+     * @param atlasId   id in IconAtlas, -1 if it's not cached there.
+     */
+    public record VisualAttribute(VisualAttributeExtension extension, Dimension2D size, int atlasId) {
+    }
 }
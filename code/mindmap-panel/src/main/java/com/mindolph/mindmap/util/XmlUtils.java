@@ -3,6 +3,9 @@ package com.mindolph.mindmap.util;
 import org.apache.commons.io.IOUtils;
 import org.jsoup.Jsoup;
 import org.jsoup.helper.W3CDom;
+import org.jsoup.nodes.Document.OutputSettings;
+import org.jsoup.nodes.Entities;
+import org.jsoup.parser.Parser;
 import org.w3c.dom.Document;
 import org.w3c.dom.Element;
 import org.w3c.dom.Node;
@@ -10,12 +13,17 @@ import org.w3c.dom.NodeList;
 import org.xml.sax.SAXException;
 
 import javax.xml.XMLConstants;
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
 import javax.xml.parsers.DocumentBuilder;
 import javax.xml.parsers.DocumentBuilderFactory;
 import javax.xml.parsers.ParserConfigurationException;
 import java.io.ByteArrayInputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.Reader;
 import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
 import java.util.List;
@@ -93,6 +101,127 @@ public class XmlUtils {
         return document;
     }
 
+    /**
+     * Create streaming XML reader for the input stream, DTD and external entities are not supported for security,
+     * the adjacent text is coalesced.
+     *
+     * @param inStream stream to read document, it will not be closed by the reader.
+     * @return
+     * @throws XMLStreamException
+     */
+    public static XMLStreamReader createXmlStreamReader(InputStream inStream) throws XMLStreamException {
+        return createXmlInputFactory().createXMLStreamReader(inStream);
+    }
+
+    public static XMLStreamReader createXmlStreamReader(Reader reader) throws XMLStreamException {
+        return createXmlInputFactory().createXMLStreamReader(reader);
+    }
+
+    private static XMLInputFactory createXmlInputFactory() {
+        XMLInputFactory factory = XMLInputFactory.newFactory();
+        factory.setProperty(XMLInputFactory.SUPPORT_DTD, false);
+        factory.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, false);
+        factory.setProperty(XMLInputFactory.IS_COALESCING, true);
+        return factory;
+    }
+
+    /**
+     * Parse the document which might be not well-formed (like HTML fragments in XML) by lenient parser,
+     * and output it as well-formed XML.
+     *
+     * @param inStream  stream to read document, it will be closed.
+     * @param charset
+     * @return
+     * @throws IOException
+     */
+    public static String toWellFormedXml(InputStream inStream, String charset) throws IOException {
+        try {
+            org.jsoup.nodes.Document document = Jsoup.parse(IOUtils.toString(inStream, charset), "", Parser.xmlParser());
+            document.outputSettings().syntax(OutputSettings.Syntax.xml).escapeMode(Entities.EscapeMode.xhtml).prettyPrint(false);
+            // the declaration is dropped since the encoding in it is no longer correct
+            document.childNodes().stream().filter(n -> n instanceof org.jsoup.nodes.XmlDeclaration).toList().forEach(org.jsoup.nodes.Node::remove);
+            return document.outerHtml();
+        } finally {
+            IOUtils.closeQuietly(inStream);
+        }
+    }
+
+    /**
+     * Get qualified name (with prefix if exists) of current element of the reader.
+     *
+     * @param reader
+     * @return
+     */
+    public static String elementName(XMLStreamReader reader) {
+        return qualifiedName(reader.getPrefix(), reader.getLocalName());
+    }
+
+    /**
+     * Get attribute value of current element by the qualified name (like "xlink:href").
+     *
+     * @param reader
+     * @param attrName
+     * @param ignoreCase
+     * @return attribute value or empty string if not found.
+     */
+    public static String findAttribute(XMLStreamReader reader, String attrName, boolean ignoreCase) {
+        for (int i = 0; i < reader.getAttributeCount(); i++) {
+            String name = qualifiedName(reader.getAttributePrefix(i), reader.getAttributeLocalName(i));
+            if (ignoreCase ? attrName.equalsIgnoreCase(name) : attrName.equals(name)) {
+                return reader.getAttributeValue(i);
+            }
+        }
+        return "";
+    }
+
+    public static String findAttribute(XMLStreamReader reader, String attrName) {
+        return findAttribute(reader, attrName, false);
+    }
+
+    /**
+     * Read all text (including text in descendants) of current element, the reader stops at the end of the element.
+     *
+     * @param reader
+     * @return
+     * @throws XMLStreamException
+     */
+    public static String readTextContent(XMLStreamReader reader) throws XMLStreamException {
+        StringBuilder buf = new StringBuilder();
+        int depth = 1;
+        while (depth > 0 && reader.hasNext()) {
+            switch (reader.next()) {
+                case XMLStreamConstants.START_ELEMENT -> depth++;
+                case XMLStreamConstants.END_ELEMENT -> depth--;
+                case XMLStreamConstants.CHARACTERS, XMLStreamConstants.CDATA, XMLStreamConstants.SPACE ->
+                        buf.append(reader.getText());
+            }
+        }
+        return buf.toString();
+    }
+
+    /**
+     * Skip current element with all its descendants, the reader stops at the end of the element.
+     *
+     * @param reader
+     * @throws XMLStreamException
+     */
+    public static void skipElement(XMLStreamReader reader) throws XMLStreamException {
+        int depth = 1;
+        while (depth > 0 && reader.hasNext()) {
+            int event = reader.next();
+            if (event == XMLStreamConstants.START_ELEMENT) {
+                depth++;
+            }
+            else if (event == XMLStreamConstants.END_ELEMENT) {
+                depth--;
+            }
+        }
+    }
+
+    private static String qualifiedName(String prefix, String localName) {
+        return prefix == null || prefix.isEmpty() ? localName : prefix + ":" + localName;
+    }
+
     /**
      * Get first direct child for name.
      *
@@ -0,0 +1,51 @@
+package com.mindolph.mindmap.gfx;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+
+/**
+ * @author mindolph.com@gmail.com
+ */
+public class PngStreamWriterTest {
+
+    @Test
+    public void writeInBands() throws IOException {
+        int w = 300, h = 157;
+        int[] pixels = new int[w * h];
+        for (int y = 0; y < h; y++) {
+            for (int x = 0; x < w; x++) {
+                pixels[y * w + x] = ((x * 7 + y) & 0xFF) << 24 | (x & 0xFF) << 16 | (y & 0xFF) << 8 | ((x ^ y) & 0xFF);
+            }
+        }
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        PngStreamWriter writer = new PngStreamWriter(out, w, h);
+        int band = 64;
+        for (int y = 0; y < h; y += band) {
+            writer.writeRows(pixels, y * w, w, Math.min(band, h - y));
+        }
+        writer.finish();
+
+        BufferedImage image = ImageIO.read(new ByteArrayInputStream(out.toByteArray()));
+        Assert.assertEquals(w, image.getWidth());
+        Assert.assertEquals(h, image.getHeight());
+        for (int y = 0; y < h; y++) {
+            for (int x = 0; x < w; x++) {
+                Assert.assertEquals(pixels[y * w + x], image.getRGB(x, y));
+            }
+        }
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void finishWithMissingRows() throws IOException {
+        try (PngStreamWriter writer = new PngStreamWriter(new ByteArrayOutputStream(), 10, 10)) {
+            writer.writeRows(new int[100], 0, 10, 5);
+            writer.finish();
+        }
+    }
+}
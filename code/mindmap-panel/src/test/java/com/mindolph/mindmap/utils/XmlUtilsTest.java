@@ -0,0 +1,53 @@
+package com.mindolph.mindmap.utils;
+
+import com.mindolph.mindmap.util.XmlUtils;
+import org.junit.Test;
+
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamReader;
+import java.io.ByteArrayInputStream;
+import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.Assert.*;
+
+public class XmlUtilsTest {
+
+    @Test
+    public void testStreamReading() throws Exception {
+        String xml = "<root xmlns:xlink=\"http://www.w3.org/1999/xlink\"><topic ID=\"1\" xlink:href=\"a\"><title>Hello <b>World</b></title><skip><x/></skip><next/></topic></root>";
+        XMLStreamReader reader = XmlUtils.createXmlStreamReader(new ByteArrayInputStream(xml.getBytes(StandardCharsets.UTF_8)));
+        moveTo(reader, "topic");
+        assertEquals("1", XmlUtils.findAttribute(reader, "id", true));
+        assertEquals("", XmlUtils.findAttribute(reader, "id"));
+        assertEquals("a", XmlUtils.findAttribute(reader, "xlink:href"));
+        moveTo(reader, "title");
+        assertEquals("Hello World", XmlUtils.readTextContent(reader));
+        assertEquals("title", XmlUtils.elementName(reader));
+        moveTo(reader, "skip");
+        XmlUtils.skipElement(reader);
+        assertEquals(XMLStreamConstants.END_ELEMENT, reader.getEventType());
+        assertEquals("skip", XmlUtils.elementName(reader));
+        moveTo(reader, "next");
+    }
+
+    @Test
+    public void testToWellFormedXml() throws Exception {
+        String html = "<?xml version=\"1.0\" encoding=\"ISO-8859-1\"?><map><node TEXT=\"a\"><richcontent TYPE=\"NOTE\"><p>line<br>next</p></richcontent></node></map>";
+        String xml = XmlUtils.toWellFormedXml(new ByteArrayInputStream(html.getBytes(StandardCharsets.UTF_8)), "UTF-8");
+        XMLStreamReader reader = XmlUtils.createXmlStreamReader(new StringReader(xml));
+        moveTo(reader, "node");
+        assertEquals("a", XmlUtils.findAttribute(reader, "text", true));
+        moveTo(reader, "richcontent");
+        assertEquals("linenext", XmlUtils.readTextContent(reader));
+    }
+
+    private void moveTo(XMLStreamReader reader, String name) throws Exception {
+        while (reader.hasNext()) {
+            if (reader.next() == XMLStreamConstants.START_ELEMENT && name.equals(XmlUtils.elementName(reader))) {
+                return;
+            }
+        }
+        fail("Element not found: " + name);
+    }
+}
@@ -35,5 +35,6 @@ public interface ShortcutConstants {
 
     // markdown
     ShortcutKey KEY_MD_COMMENT = new ShortcutKey("md.comment", "comment line", "Markdown");
+    ShortcutKey KEY_MD_OUTLINE = new ShortcutKey("md.outline", "go to heading", "Markdown");
 
 }
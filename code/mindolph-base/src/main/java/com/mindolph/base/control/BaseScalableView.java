@@ -6,6 +6,7 @@ import com.mindolph.base.control.event.ScrollEventHandler;
 import com.mindolph.base.util.ScrollUtils;
 import com.mindolph.mfx.util.PointUtils;
 import com.mindolph.mfx.util.RectangleUtils;
+import javafx.animation.PauseTransition;
 import javafx.beans.property.DoubleProperty;
 import javafx.beans.property.ObjectProperty;
 import javafx.beans.property.SimpleDoubleProperty;
@@ -19,6 +20,7 @@ import javafx.scene.image.WritableImage;
 import javafx.scene.input.KeyEvent;
 import javafx.scene.input.MouseButton;
 import javafx.scene.input.MouseEvent;
+import javafx.util.Duration;
 import org.reactfx.EventSource;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -32,6 +34,7 @@ import static com.mindolph.mfx.util.PointUtils.pointInStr;
  * Contained in a {@link com.mindolph.base.container.ScalableScrollPane} by calling {@code ScalableScrollPane.setScalableView()}.
  * Call {@code setViewportRectangle()} to initialize the viewport rectangle when the {@link com.mindolph.base.container.ScalableScrollPane} is ready.
  * Calculate the dimension of the content of view and call {@code setOriginalDimension()} to initialize.
+ * Zooming by pinch or scrolling with CTRL is a zoom gesture, the view is only re-laid out once after the gesture settled.
  * </pre>
  *
  * @author mindolph.com@gmail.com
@@ -68,11 +71,20 @@ public abstract class BaseScalableView extends Control {
     // Position when mouse pressed for dragging whole mind map.
     private Point2D mousePressedPos = new Point2D(0, 0);
 
+    // merge the re-layout and repaint requests into at most one of each per frame.
+    protected final FrameScheduler frameScheduler = new FrameScheduler(this::doLayout, this::doPaint);
+
+    // the zoom gesture by scrolling settles if no more scroll in this time.
+    private static final int ZOOM_SETTLE_MILLIS = 200;
+    private boolean zoomGesture;
+    private final PauseTransition zoomSettleTimer = new PauseTransition(Duration.millis(ZOOM_SETTLE_MILLIS));
+
     public BaseScalableView() {
         this.registerListeners();
     }
 
     protected void registerListeners() {
+        zoomSettleTimer.setOnFinished(event -> this.endZoomGesture());
         this.layoutBoundsProperty().addListener((observableValue, oldBounds, newBounds) -> {
             // init the original dimension for calculating zoom in/out.
             if (newBounds.getWidth() > 0 && newBounds.getHeight() > 0) {
@@ -85,6 +97,7 @@ public abstract class BaseScalableView extends Control {
 
         // Scroll changes the point in content, or zoom in/out when CTRL is down.
         this.setOnScroll(event -> {
+            this.flushLayout();
             // if (log.isTraceEnabled())log.trace(String.format("onScroll: %s, %s", event.getX(), event.getY()));
             mousePosInContent = new Point2D(event.getX(), event.getY());
             lastScrollPos = new Point2D(mousePosInContent.getX() - mousePosInViewport.getX(), mousePosInContent.getY() - mousePosInViewport.getY());
@@ -94,6 +107,8 @@ public abstract class BaseScalableView extends Control {
                 }
                 else {
                     event.consume();
+                    this.zoomGesture = true;
+                    zoomSettleTimer.playFromStart();
                     double newScale = ScrollUtils.scrollToScaleGradually(event.getDeltaY(), this.getScale());
                     final double limitedScale = Math.max(this.getMinScale(), Math.min(newScale, this.getMaxScale()));
                     Dimension2D oldDim = this.getDimension();
@@ -104,7 +119,9 @@ public abstract class BaseScalableView extends Control {
             }
         });
 
+        // the pending layout is performed before handling inputs, to make sure that the inputs hit the laid-out elements.
         this.setOnMousePressed(mouseEvent -> {
+            this.flushLayout();
             if (mouseEvent.getButton() == MouseButton.PRIMARY) {
                 mousePressedPos = new Point2D(mouseEvent.getX(), mouseEvent.getY());
                 this.requestFocus();
@@ -114,12 +131,14 @@ public abstract class BaseScalableView extends Control {
 
         // Mouse movement changes the points.
         this.setOnMouseMoved(event -> {
+            this.flushLayout();
             mousePosInContent = new Point2D(event.getX(), event.getY());
             mousePosInViewport = new Point2D(mousePosInContent.getX() - lastScrollPos.getX(), mousePosInContent.getY() - lastScrollPos.getY());
             this.onMouseMoved(event);
         });
 
         this.setOnMouseDragged(mouseEvent -> {
+            this.flushLayout();
             log.trace("%s".formatted(PointUtils.pointInStr(mousePressedPos)));
             if (sm.isMouseWithModifier(mouseEvent, ShortcutConstants.KEY_MODIFIER_DRAGGING)) {
                 if (this.mousePressedPos != null) {
@@ -137,6 +156,7 @@ public abstract class BaseScalableView extends Control {
             this.setCursor(Cursor.DEFAULT);
         });
         this.setOnMouseReleased(mouseEvent -> {
+            this.flushLayout();
             if (mouseEvent.getButton() == MouseButton.PRIMARY) {
                 mousePressedPos = null;
             }
@@ -145,7 +165,10 @@ public abstract class BaseScalableView extends Control {
         });
 
         // Zoom by pinch.
-        this.setOnZoomStarted(event -> log.debug("Start zoom"));
+        this.setOnZoomStarted(event -> {
+            log.debug("Start zoom");
+            this.zoomGesture = true;
+        });
         this.setOnZoom(event -> {
             double zoomFactor = event.getZoomFactor();
             Dimension2D oldDim = getDimension();
@@ -154,9 +177,13 @@ public abstract class BaseScalableView extends Control {
                 scrollInPoint(oldDim, newDim);
             }
         });
-        this.setOnZoomFinished(event -> log.debug("Zoom finished"));
+        this.setOnZoomFinished(event -> {
+            log.debug("Zoom finished");
+            this.endZoomGesture();
+        });
         // Zoom by shortcut(20% each press)
         this.setOnKeyPressed(event -> {
+            this.flushLayout();
             double newScale = 1.0f;
             if (sm.isKeyEventMatch(event, ShortcutConstants.KEY_ZOOM_IN)) {
                 event.consume();
@@ -203,12 +230,67 @@ public abstract class BaseScalableView extends Control {
     }
 
     /**
-     * force to refresh the view.
+     * force to refresh the view, the re-layout and repaint are performed in next frame.
      */
     public void forceRefresh() {
-        BaseScalableViewSkin<?> skin = (BaseScalableViewSkin<?>) getSkin();
-        skin.reLayout(getScale());
-        skin.redraw();
+        frameScheduler.requestLayout();
+    }
+
+    /**
+     * Request re-layout in next frame.
+     */
+    public void requestRelayout() {
+        frameScheduler.requestLayout();
+    }
+
+    /**
+     * Perform the pending re-layout right now, call this before reading anything from the layout.
+     */
+    public void flushLayout() {
+        frameScheduler.flushLayout();
+    }
+
+    /**
+     * Perform the pending re-layout and repaint right now.
+     */
+    public void flushFrame() {
+        frameScheduler.flush();
+    }
+
+    private void endZoomGesture() {
+        zoomSettleTimer.stop();
+        if (zoomGesture) {
+            zoomGesture = false;
+            if (getSkin() instanceof BaseScalableViewSkin<?> skin) {
+                skin.settleZoom();
+            }
+        }
+    }
+
+    /**
+     * Whether zooming by gesture (pinch or scrolling with CTRL) is in progress.
+     *
+     * @return
+     */
+    public boolean isZoomGesture() {
+        return zoomGesture;
+    }
+
+    private void doLayout() {
+        if (getSkin() instanceof BaseScalableViewSkin<?> skin) {
+            skin.reLayout(getScale());
+        }
+    }
+
+    private void doPaint(Rectangle2D dirtyRegion) {
+        if (getSkin() instanceof BaseScalableViewSkin<?> skin) {
+            if (dirtyRegion == null || skin.isZoomPreviewing()) {
+                skin.redraw();
+            }
+            else {
+                skin.redraw(dirtyRegion);
+            }
+        }
     }
 
     /**
@@ -232,9 +314,20 @@ public abstract class BaseScalableView extends Control {
         }
     }
 
+    /**
+     * Request repaint of whole view in next frame.
+     */
     public void repaint() {
-        BaseScalableViewSkin<?> skin = (BaseScalableViewSkin<?>) getSkin();
-        if (skin != null) skin.redraw();
+        frameScheduler.requestPaint();
+    }
+
+    /**
+     * Request repaint of a region in next frame.
+     *
+     * @param dirtyRegion in coordinates of the view.
+     */
+    public void repaint(Rectangle2D dirtyRegion) {
+        frameScheduler.requestPaint(dirtyRegion);
     }
 
     /**
@@ -410,6 +503,10 @@ public abstract class BaseScalableView extends Control {
 
     public abstract WritableImage takeSnapshot();
 
+    public FrameScheduler getFrameScheduler() {
+        return frameScheduler;
+    }
+
     public Rectangle2D getViewportRectangle() {
         return viewportRectangle.get();
     }
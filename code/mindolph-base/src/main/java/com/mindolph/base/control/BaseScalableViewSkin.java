@@ -5,9 +5,14 @@ import javafx.beans.value.ChangeListener;
 import javafx.geometry.Dimension2D;
 import javafx.geometry.Point2D;
 import javafx.geometry.Rectangle2D;
+import javafx.scene.SnapshotParameters;
 import javafx.scene.canvas.Canvas;
 import javafx.scene.canvas.GraphicsContext;
 import javafx.scene.control.SkinBase;
+import javafx.scene.image.WritableImage;
+import javafx.scene.paint.Color;
+import javafx.scene.transform.Transform;
+import javafx.stage.Window;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -19,6 +24,11 @@ import static com.mindolph.mfx.util.RectangleUtils.sizeInStr;
  * Only content in viewport of container be drawn, if the (scaled) content width/height is less than viewport,
  * the background fill in the whole viewport. The viewport changes or scale changes may cause re-layout and redraw.
  * Sub-classes should implement {@code drawContent()} with calling {@code translateGraphicsContext()}.
+ * <p>
+ * During a zoom gesture (see {@link BaseScalableView#isZoomGesture()}), the content is not laid out for each step,
+ * instead, the bitmap of the view when the gesture started is scaled and drawn (interpolated by GPU), only the
+ * dimension of the view is estimated by the scale. The content is laid out and redrawn once in the final scale after
+ * the gesture settled.
  *
  * @author mindolph.com@gmail.com
  * @see BaseScalableView
@@ -32,6 +42,9 @@ public abstract class BaseScalableViewSkin<T extends BaseScalableView> extends S
     // Listeners
     protected ChangeListener<Number> scaleListener;
 
+    // bitmap drawn instead of the content during zoom gesture.
+    private ZoomPreview zoomPreview;
+
     int GRID_SIZE = 100;
 
     public BaseScalableViewSkin(T control) {
@@ -60,13 +73,26 @@ public abstract class BaseScalableViewSkin<T extends BaseScalableView> extends S
                 log.debug("Size of viewport was changed from %s to %s".formatted(sizeInStr(oldRect), sizeInStr(newRect)));
                 canvas.setWidth(newRect.getWidth());
                 canvas.setHeight(newRect.getHeight());
-                reLayout(this.control.getScale());
+                this.control.requestRelayout();
+            }
+            else {
+                this.control.repaint();
             }
-            redraw();
+            // the canvas is moved with the viewport, so the content must be drawn in the same frame (together with other pending work).
+            this.control.flushFrame();
         });
-        //
+        // the dimension after scaling is required immediately for scrolling, the repaint is still merged.
         scaleListener = (observableValue, oldScale, newScale) -> {
-            this.reLayout(newScale.doubleValue());
+            if (this.control.isZoomGesture()) {
+                this.previewZoom(oldScale.doubleValue(), newScale.doubleValue());
+            }
+            else {
+                this.control.requestRelayout();
+                this.control.flushLayout();
+                if (!this.isLayoutInProgress()) {
+                    this.endZoomPreview();
+                }
+            }
         };
         this.control.scaleProperty().addListener(scaleListener);
     }
@@ -92,7 +118,103 @@ public abstract class BaseScalableViewSkin<T extends BaseScalableView> extends S
 
     public void redraw() {
         this.drawBackground();
-        this.drawContent();
+        if (zoomPreview != null) {
+            this.drawZoomPreview();
+        }
+        else {
+            this.drawContent();
+        }
+    }
+
+    /**
+     * Estimate the dimension for the new scale without re-layout, and draw the scaled bitmap instead of the content.
+     *
+     * @param oldScale
+     * @param newScale
+     */
+    private void previewZoom(double oldScale, double newScale) {
+        if (zoomPreview == null) {
+            // the canvas still holds the content drawn in the old scale.
+            zoomPreview = new ZoomPreview(this.snapshotCanvas(), this.control.getViewportRectangle(), oldScale);
+            if (log.isDebugEnabled()) log.debug("Start zoom preview from scale %.4f".formatted(oldScale));
+        }
+        Dimension2D dim = control.getDimension();
+        double w = dim.getWidth() * newScale / oldScale;
+        double h = dim.getHeight() * newScale / oldScale;
+        control.setPrefSize(w, h);
+        control.getParent().layout();
+        control.setDimension(new Dimension2D(w, h));
+        control.fitViewport();
+        control.repaint();
+    }
+
+    /**
+     * Lay out and redraw the content in the final scale when the zoom gesture settled.
+     */
+    public void settleZoom() {
+        if (zoomPreview == null) {
+            return;
+        }
+        if (log.isDebugEnabled()) log.debug("Zoom settled at scale %.4f".formatted(control.getScale()));
+        this.control.requestRelayout();
+        this.control.flushLayout();
+        if (!this.isLayoutInProgress()) {
+            this.endZoomPreview();
+        }
+    }
+
+    /**
+     * Stop drawing the zoom preview, sub-classes call this when the layout in background is done.
+     */
+    protected void endZoomPreview() {
+        if (zoomPreview != null) {
+            zoomPreview = null;
+            control.repaint();
+        }
+    }
+
+    /**
+     * Override me if the layout can be done in background, the zoom preview is kept until the layout is done.
+     *
+     * @return true if the result of layout is not ready yet.
+     */
+    protected boolean isLayoutInProgress() {
+        return false;
+    }
+
+    public boolean isZoomPreviewing() {
+        return zoomPreview != null;
+    }
+
+    private void drawZoomPreview() {
+        // map the bitmap from the viewport (and scale) it was drawn in to current ones.
+        Rectangle2D vr = this.control.getViewportRectangle();
+        double ratio = control.getScale() / zoomPreview.scale;
+        double x = zoomPreview.viewport.getMinX() * ratio - vr.getMinX();
+        double y = zoomPreview.viewport.getMinY() * ratio - vr.getMinY();
+        gc = this.canvas.getGraphicsContext2D();
+        gc.setImageSmoothing(true);
+        gc.drawImage(zoomPreview.image, x, y, zoomPreview.viewport.getWidth() * ratio, zoomPreview.viewport.getHeight() * ratio);
+    }
+
+    private WritableImage snapshotCanvas() {
+        // snapshot in the output scale of the screen to keep it as sharp as the canvas.
+        Window window = canvas.getScene() == null ? null : canvas.getScene().getWindow();
+        double outputScaleX = window == null ? 1 : window.getOutputScaleX();
+        double outputScaleY = window == null ? 1 : window.getOutputScaleY();
+        SnapshotParameters params = new SnapshotParameters();
+        params.setFill(Color.TRANSPARENT);
+        params.setTransform(Transform.scale(outputScaleX, outputScaleY));
+        return canvas.snapshot(params, null);
+    }
+
+    /**
+     * Redraw only the dirty region, override me if the partial redrawing is supported.
+     *
+     * @param dirtyRegion in coordinates of the view.
+     */
+    public void redraw(Rectangle2D dirtyRegion) {
+        this.redraw();
     }
 
     protected void drawBackground() {
@@ -177,9 +299,19 @@ public abstract class BaseScalableViewSkin<T extends BaseScalableView> extends S
         return new Point2D(limitIn(p.getX(), vr.getMinX(), vr.getMaxX()), limitIn(p.getY(), vr.getMinY(), vr.getMaxY()));
     }
 
+    /**
+     * @param image    snapshot of the canvas.
+     * @param viewport viewport when the snapshot was taken.
+     * @param scale    scale of the content in the snapshot.
+     */
+    private record ZoomPreview(WritableImage image, Rectangle2D viewport, double scale) {
+    }
+
     @Override
     public void dispose() {
         super.dispose();
         this.control.scaleProperty().removeListener(scaleListener);
+        this.zoomPreview = null;
+        this.control.getFrameScheduler().stop();
     }
 }
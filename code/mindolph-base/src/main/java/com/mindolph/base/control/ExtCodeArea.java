@@ -24,16 +24,21 @@ import org.apache.commons.lang3.SystemUtils;
 import org.fxmisc.richtext.CaretSelectionBind;
 import org.fxmisc.richtext.CodeArea;
 import org.fxmisc.richtext.model.Paragraph;
+import org.fxmisc.richtext.model.PlainTextChange;
+import org.fxmisc.richtext.model.TwoDimensional;
 import org.fxmisc.wellbehaved.event.EventPattern;
 import org.fxmisc.wellbehaved.event.InputMap;
 import org.fxmisc.wellbehaved.event.Nodes;
 import org.reactfx.EventSource;
+import org.reactfx.Subscription;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.swiftboot.util.pref.PreferenceManager;
 
 import java.time.Duration;
 import java.util.*;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 import java.util.function.Function;
 
 import static com.mindolph.base.constant.ShortcutConstants.*;
@@ -46,7 +51,6 @@ import static org.apache.commons.lang3.StringUtils.EMPTY;
 public class ExtCodeArea extends CodeArea {
 
     public static final int HISTORY_MERGE_DELAY_IN_MILLIS = 200;
-    public static final int INPUT_HELP_DELAY_IN_MILLIS = 3000;
 
     static final int DIRECTION_UP = -1;
     static final int DIRECTION_DOWN = 1;
@@ -63,13 +67,26 @@ public class ExtCodeArea extends CodeArea {
     // used to control the merging of editing history.
     private final EventSource<String> historySource = new EventSource<>();
 
-    private final EventSource<String> inputHelpSource = new EventSource<>();
+    // context words of all code areas are updated one by one in order.
+    private static final ExecutorService inputHelperExecutor = Executors.newSingleThreadExecutor(r -> {
+        Thread t = new Thread(r, "input-helper");
+        t.setDaemon(true);
+        return t;
+    });
 
     private final InputHelperManager inputHelperManager;
 
     // Indicate that whether the input method is using, if true, the input helper is paused until it becomes false.
     private boolean isInputMethod = false;
 
+    private Subscription contextTextSubscription;
+
+    // the context words need to be rebuilt from the whole text, like at the beginning or the input helper was disabled.
+    private boolean contextWordsStale = true;
+
+    // the text is too large to be processed as a whole.
+    private boolean largeTextMode = false;
+
 
     public ExtCodeArea() {
         this.inputHelperManager = new InputHelperManager(this.hashCode(), getFileType());
@@ -92,6 +109,28 @@ public class ExtCodeArea extends CodeArea {
         // DO NOTHING
     }
 
+    /**
+     * Large text mode is read-only, the features that process the whole text (like the context words of input helper
+     * and highlighting) are stopped.
+     */
+    public void enableLargeTextMode() {
+        this.largeTextMode = true;
+        this.contextTextSubscription.unsubscribe();
+        inputHelperExecutor.execute(inputHelperManager::dispose); // after the pending updates
+        this.setEditable(false);
+    }
+
+    public boolean isLargeTextMode() {
+        return largeTextMode;
+    }
+
+    @Override
+    public void dispose() {
+        this.contextTextSubscription.unsubscribe();
+        inputHelperExecutor.execute(inputHelperManager::dispose); // after the pending updates
+        super.dispose();
+    }
+
     public void doHistory() {
         historySource.push(null);
     }
@@ -143,26 +182,47 @@ public class ExtCodeArea extends CodeArea {
 
     // @since 1.6
     private void bindInputHelper() {
-        // delay update context text to reduce redundant calculating.
-        // TODO better way is to do updating when new word completed and any other actions that makes text change completed.
-        inputHelpSource.reduceSuccessions((s, s2) -> s2, Duration.ofMillis(INPUT_HELP_DELAY_IN_MILLIS))
-                .subscribe(s -> {
-                    // non-blocking
-                    new Thread(() -> {
-                        Collection<Plugin> plugins = PluginManager.getIns().findPlugin(getFileType());
-                        for (Plugin plugin : plugins) {
-                            plugin.getInputHelper().updateContextText(this.hashCode(), s);
-                        }
-                    }
-                    ).start();
-                });
-
-        // prepare the context words
-        this.textProperty().addListener((observable, oldValue, newValue) -> {
+        // update the context words of only the changed paragraphs, in background to be non-blocking.
+        // the changes of a multi-change (like replacing all) are emitted after all of them are applied, so they
+        // are handled as a whole.
+        contextTextSubscription = this.multiPlainChanges().subscribe(changes -> {
+            Collection<Plugin> plugins = PluginManager.getIns().findPlugin(getFileType());
+            if (CollectionUtils.isEmpty(plugins)) {
+                return;
+            }
             if (!isInputHelperEnabled()) {
+                if (!contextWordsStale) {
+                    contextWordsStale = true;
+                    inputHelperExecutor.execute(() -> plugins.forEach(plugin -> plugin.getInputHelper().release(this.hashCode())));
+                }
+                return;
+            }
+            if (contextWordsStale) {
+                // (re)build from the whole text
+                contextWordsStale = false;
+                String text = this.getText();
+                inputHelperExecutor.execute(() -> plugins.forEach(plugin -> plugin.getInputHelper().updateContextText(this.hashCode(), text)));
                 return;
             }
-            if (!StringUtils.equals(oldValue, newValue)) inputHelpSource.push(newValue);
+            String oldText;
+            String newText;
+            if (changes.size() == 1) {
+                // the paragraphs around the change, the text outside the inserted range is the same as before changing.
+                PlainTextChange change = changes.get(0);
+                int insertedEnd = change.getPosition() + change.getInserted().length();
+                TwoDimensional.Position start = this.offsetToPosition(change.getPosition(), TwoDimensional.Bias.Forward);
+                TwoDimensional.Position end = this.offsetToPosition(insertedEnd, TwoDimensional.Bias.Forward);
+                String prefix = this.getParagraph(start.getMajor()).getText().substring(0, start.getMinor());
+                String suffix = this.getParagraph(end.getMajor()).getText().substring(end.getMinor());
+                oldText = prefix + change.getRemoved() + suffix;
+                newText = prefix + change.getInserted() + suffix;
+            }
+            else {
+                String[] texts = toContextChange(this.getText(), changes);
+                oldText = texts[0];
+                newText = texts[1];
+            }
+            inputHelperExecutor.execute(() -> plugins.forEach(plugin -> plugin.getInputHelper().updateContextText(this.hashCode(), oldText, newText)));
         });
 
         // stop helping when paragraph is changed by like mouse click.
@@ -185,6 +245,39 @@ public class ExtCodeArea extends CodeArea {
         });
     }
 
+    /**
+     * Convert the changes which are applied one after another to one change of the paragraphs around all of them,
+     * the position of each change is in the text that the previous changes have been applied to.
+     *
+     * @param text    text with all changes applied.
+     * @param changes
+     * @return text of the paragraphs before and after changing.
+     */
+    static String[] toContextChange(String text, List<PlainTextChange> changes) {
+        // the range covers all changes in the text that changes have been applied to.
+        int start = Integer.MAX_VALUE;
+        int end = -1;
+        for (PlainTextChange change : changes) {
+            int pos = change.getPosition();
+            int removedEnd = pos + change.getRemoved().length();
+            end = end >= 0 && removedEnd <= end ? end + change.getNetLength() : pos + change.getInserted().length();
+            start = Math.min(start, pos);
+        }
+        String newRange = text.substring(start, end);
+        // undo the changes from the last one to restore the range before changing.
+        StringBuilder oldRange = new StringBuilder(newRange);
+        for (int i = changes.size() - 1; i >= 0; i--) {
+            PlainTextChange change = changes.get(i);
+            int from = change.getPosition() - start;
+            oldRange.replace(from, from + change.getInserted().length(), change.getRemoved());
+        }
+        int paragraphStart = text.lastIndexOf('\n', start - 1) + 1;
+        int paragraphEnd = text.indexOf('\n', end);
+        String prefix = text.substring(paragraphStart, start);
+        String suffix = text.substring(end, paragraphEnd < 0 ? text.length() : paragraphEnd);
+        return new String[]{prefix + oldRange + suffix, prefix + newRange + suffix};
+    }
+
     @Override
     protected void handleInputMethodEvent(InputMethodEvent event) {
         super.handleInputMethodEvent(event);
@@ -0,0 +1,191 @@
+package com.mindolph.base.control;
+
+import javafx.animation.AnimationTimer;
+import javafx.application.Platform;
+import javafx.geometry.Rectangle2D;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.function.Consumer;
+
+/**
+ * Merge the re-layout and repaint requests into at most one layout and one paint per frame (pulse).
+ * Requests only mark the work as dirty, the work is executed by an {@link AnimationTimer} in the next pulse,
+ * the timer stops itself when nothing is dirty.
+ * A repaint can be limited to a dirty region, the regions requested in one frame are merged, and any
+ * request for full repaint (or a re-layout) makes the whole view repainted.
+ * <p>
+ * The code that reads the result of layout (like bounds of elements) should call {@link #flushLayout()} first.
+ * Counters of requested and executed work are provided to find out redundant requests.
+ *
+ * @author mindolph.com@gmail.com
+ * @see BaseScalableView
+ */
+public class FrameScheduler {
+
+    private static final Logger log = LoggerFactory.getLogger(FrameScheduler.class);
+
+    private final Runnable layoutTask;
+    private final Consumer<Rectangle2D> paintTask;
+
+    private boolean layoutDirty;
+    private boolean paintDirty;
+    // null means the whole view
+    private Rectangle2D dirtyRegion;
+    private boolean painting;
+
+    private long layoutRequested;
+    private long layoutExecuted;
+    private long paintRequested;
+    private long paintExecuted;
+
+    private boolean running;
+    private final AnimationTimer timer = new AnimationTimer() {
+        @Override
+        public void handle(long now) {
+            flush();
+            if (!layoutDirty && !paintDirty) {
+                this.stop();
+                running = false;
+            }
+        }
+    };
+
+    /**
+     * @param layoutTask re-layout the view.
+     * @param paintTask  repaint the dirty region of view, null region for the whole view.
+     */
+    public FrameScheduler(Runnable layoutTask, Consumer<Rectangle2D> paintTask) {
+        this.layoutTask = layoutTask;
+        this.paintTask = paintTask;
+    }
+
+    /**
+     * Request re-layout, the whole view will be repainted after that.
+     */
+    public void requestLayout() {
+        if (!Platform.isFxApplicationThread()) {
+            Platform.runLater(this::requestLayout);
+            return;
+        }
+        layoutRequested++;
+        layoutDirty = true;
+        markPaint(null);
+    }
+
+    /**
+     * Request repaint of the whole view.
+     */
+    public void requestPaint() {
+        this.requestPaint(null);
+    }
+
+    /**
+     * Request repaint of a region.
+     *
+     * @param region in the coordinates of the view, null for the whole view.
+     */
+    public void requestPaint(Rectangle2D region) {
+        if (!Platform.isFxApplicationThread()) {
+            Platform.runLater(() -> this.requestPaint(region));
+            return;
+        }
+        paintRequested++;
+        markPaint(region);
+    }
+
+    private void markPaint(Rectangle2D region) {
+        if (!paintDirty) {
+            dirtyRegion = region;
+        }
+        else if (dirtyRegion != null) {
+            dirtyRegion = region == null ? null : union(dirtyRegion, region);
+        }
+        paintDirty = true;
+        if (!running) {
+            running = true;
+            timer.start();
+        }
+    }
+
+    /**
+     * Execute the pending re-layout immediately, the repaint is still pending to the next frame.
+     */
+    public void flushLayout() {
+        if (layoutDirty) {
+            layoutDirty = false;
+            layoutExecuted++;
+            layoutTask.run();
+        }
+    }
+
+    /**
+     * Execute all the pending work immediately.
+     */
+    public void flush() {
+        this.flushLayout();
+        if (paintDirty && !painting) {
+            Rectangle2D region = dirtyRegion;
+            paintDirty = false;
+            dirtyRegion = null;
+            paintExecuted++;
+            painting = true;
+            try {
+                paintTask.accept(region);
+            } finally {
+                painting = false;
+            }
+        }
+    }
+
+    /**
+     * Discard pending work and stop the timer, call it when the view is disposed.
+     */
+    public void stop() {
+        layoutDirty = false;
+        paintDirty = false;
+        dirtyRegion = null;
+        timer.stop();
+        running = false;
+        if (log.isDebugEnabled()) log.debug(this.toString());
+    }
+
+    private static Rectangle2D union(Rectangle2D r1, Rectangle2D r2) {
+        double minX = Math.min(r1.getMinX(), r2.getMinX());
+        double minY = Math.min(r1.getMinY(), r2.getMinY());
+        return new Rectangle2D(minX, minY,
+                Math.max(r1.getMaxX(), r2.getMaxX()) - minX, Math.max(r1.getMaxY(), r2.getMaxY()) - minY);
+    }
+
+    public boolean isDirty() {
+        return layoutDirty || paintDirty;
+    }
+
+    public long getLayoutRequested() {
+        return layoutRequested;
+    }
+
+    public long getLayoutExecuted() {
+        return layoutExecuted;
+    }
+
+    public long getPaintRequested() {
+        return paintRequested;
+    }
+
+    public long getPaintExecuted() {
+        return paintExecuted;
+    }
+
+    public void resetCounters() {
+        layoutRequested = 0;
+        layoutExecuted = 0;
+        paintRequested = 0;
+        paintExecuted = 0;
+    }
+
+    @Override
+    public String toString() {
+        return "FrameScheduler{layout: %d/%d, paint: %d/%d}".formatted(layoutExecuted, layoutRequested, paintExecuted, paintRequested);
+    }
+}
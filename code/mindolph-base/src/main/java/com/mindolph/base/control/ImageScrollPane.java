@@ -45,6 +45,22 @@ public class ImageScrollPane extends ScalableScrollPane {
         }
     }
 
+    /**
+     * Set large image as tiled source, the preview is displayed until the tiles are decoded.
+     *
+     * @param source
+     */
+    public void setImageSource(TiledImageSource source) {
+        log.debug("Set tiled image: %dx%d".formatted(source.getWidth(), source.getHeight()));
+        this.scalableImageView.setOriginalDimension(new Dimension2D(source.getWidth(), source.getHeight()));
+        this.scalableImageView.setImageSource(source);
+        super.calculateAndUpdateViewportRectangle();
+    }
+
+    public TiledImageSource getImageSource() {
+        return this.scalableImageView.getImageSource();
+    }
+
     public Image getImage() {
         return this.scalableImageView.getImage();
     }
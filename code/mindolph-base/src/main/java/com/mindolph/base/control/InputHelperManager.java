@@ -52,6 +52,8 @@ public class InputHelperManager {
 
     private static final double DEFAULT_ITEM_HEIGHT = 24;
 
+    private static final int MAX_SUGGESTIONS = 100;
+
     private Pane parentPane; // parent pane that holds the helper and target node.
     private Node targetNode; // the node that helper displays on.
     private final Object editorId;
@@ -239,7 +241,8 @@ public class InputHelperManager {
         this.hideHelper();
         lvSuggestion.getItems().clear();
 
-        Map<String, Object> duplicateKiller = new HashMap<>();
+        // words provided by previous plugins are excluded.
+        Set<String> candidates = new LinkedHashSet<>();
 //        if (Env.isDevelopment) {
 //            MenuItem inputItem = new MenuItem(input);
 //            inputItem.setDisable(true);
@@ -248,32 +251,15 @@ public class InputHelperManager {
 
         lvSuggestion.setUserData(input); // used for selection handling.
         for (Plugin plugin : supportedPlugins) {
-            List<String> allHelpWords = plugin.getInputHelper().getHelpWords(this.editorId);
-            if (CollectionUtils.isEmpty(allHelpWords)) {
-                continue;
-            }
-            Collections.sort(allHelpWords);
-
-            // get rid of blank, duplicates and the one equals what user input.
-            List<String> helpWords = allHelpWords.stream()
-                    .filter(StringUtils::isNotBlank)
-//                    .filter(s -> !StringUtils.equals(s, input)) // no need to prompt if it equals what you just inputted.
-                    .filter(s -> !duplicateKiller.containsKey(s)) // excludes those provided in previous plugin.
-                    .distinct().toList();
-
             // use user input to filter the help words.
-            List<String> filtered = helpWords.stream().filter(s -> StringUtils.startsWithIgnoreCase(s, input)).toList();
-
+            List<String> filtered = plugin.getInputHelper().getHelpWords(this.editorId, input, MAX_SUGGESTIONS);
             if (CollectionUtils.isEmpty(filtered)) {
                 continue;
             }
-
             log.debug("%d words are selected to be candidates from plugin %s".formatted(filtered.size(), plugin.getClass().getSimpleName()));
-            for (String candidate : filtered) {
-                lvSuggestion.getItems().add(candidate);
-                duplicateKiller.put(candidate, candidate); // only key is needed for now.
-            }
+            candidates.addAll(filtered);
         }
+        candidates.stream().limit(MAX_SUGGESTIONS).forEach(lvSuggestion.getItems()::add);
         ObservableList<String> items = lvSuggestion.getItems();
         if (!items.isEmpty()) {
             Point2D pos = targetNode.screenToLocal(caretX, caretY);
@@ -316,6 +302,17 @@ public class InputHelperManager {
         selectEvent.subscribe(consumer);
     }
 
+    /**
+     * Release the help words for the editor from all plugins.
+     */
+    public void dispose() {
+        if (supportedPlugins != null) {
+            for (Plugin plugin : supportedPlugins) {
+                plugin.getInputHelper().release(this.editorId);
+            }
+        }
+    }
+
     public void setParentPane(Pane parentPane) {
         this.parentPane = parentPane;
     }
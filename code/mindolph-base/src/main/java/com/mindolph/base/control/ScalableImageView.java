@@ -21,6 +21,9 @@ public class ScalableImageView extends BaseScalableView {
 
     private final ObjectProperty<Image> image = new SimpleObjectProperty<>();
 
+    // for large image, the image above is only a preview and the tiles are drawn from this source.
+    private TiledImageSource imageSource;
+
     public ScalableImageView() {
         log.info("ScalableImageView constructed.");
     }
@@ -39,8 +42,8 @@ public class ScalableImageView extends BaseScalableView {
         ScalableImageViewSkin skin = new ScalableImageViewSkin(this);
         this.image.addListener((observableValue, oldImage, newImage) -> {
             if (newImage != null) {
-                double w = newImage.getWidth() * getScale();
-                double h = newImage.getHeight() * getScale();
+                double w = getImageWidth() * getScale();
+                double h = getImageHeight() * getScale();
                 log.debug("Set prefSize from (%.2f x %.2f) to (%.2f x %.2f)".formatted(getPrefWidth(), getPrefHeight(), w, h));
                 setPrefSize(w, h);
             }
@@ -51,6 +54,44 @@ public class ScalableImageView extends BaseScalableView {
         return skin;
     }
 
+    /**
+     * Width of the image in full resolution.
+     *
+     * @return
+     */
+    public double getImageWidth() {
+        return imageSource != null ? imageSource.getWidth() : (getImage() == null ? 0 : getImage().getWidth());
+    }
+
+    /**
+     * Height of the image in full resolution.
+     *
+     * @return
+     */
+    public double getImageHeight() {
+        return imageSource != null ? imageSource.getHeight() : (getImage() == null ? 0 : getImage().getHeight());
+    }
+
+    public TiledImageSource getImageSource() {
+        return imageSource;
+    }
+
+    /**
+     * Set tiled source for large image, the preview of the source is set as image.
+     *
+     * @param imageSource
+     */
+    public void setImageSource(TiledImageSource imageSource) {
+        if (this.imageSource != null && this.imageSource != imageSource) {
+            this.imageSource.close();
+        }
+        this.imageSource = imageSource;
+        if (imageSource != null) {
+            imageSource.setOnTileLoaded(this::repaint);
+            this.setImage(imageSource.getPreview());
+        }
+    }
+
     public Image getImage() {
         return image.get();
     }
@@ -1,10 +1,15 @@
 package com.mindolph.base.control;
 
 import javafx.geometry.Dimension2D;
+import javafx.geometry.Rectangle2D;
 import javafx.scene.image.Image;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.awt.Rectangle;
+import java.util.ArrayList;
+import java.util.List;
+
 /**
  * @author mindolph.com@gmail.com
  * @see ScalableImageView
@@ -22,8 +27,8 @@ public class ScalableImageViewSkin extends BaseScalableViewSkin<ScalableImageVie
     public void reLayout(double newScale) {
         Image image = this.control.getImage();
         if (image != null) {
-            double w = control.getScale() * image.getWidth();
-            double h = control.getScale() * image.getHeight();
+            double w = control.getScale() * control.getImageWidth();
+            double h = control.getScale() * control.getImageHeight();
             this.control.setPrefSize(w, h);
             this.control.getParent().layout(); // this is important, may cause parent container aware that the bounds is changed.
             this.control.setDimension(new Dimension2D(w, h)); // listeners will act by the dimension changes.
@@ -36,12 +41,43 @@ public class ScalableImageViewSkin extends BaseScalableViewSkin<ScalableImageVie
         if (log.isTraceEnabled()) log.trace("Draw image");
         Image image = this.control.getImage();
         if (image != null && !image.isError()) {
+            double scale = this.control.getScale();
             super.translateGraphicsContext(false);
-            gc.drawImage(image, 0, 0, this.control.getScale() * image.getWidth(), this.control.getScale() * image.getHeight());
+            // for tiled image, the preview is drawn first and then covered by the tiles that are ready.
+            gc.drawImage(image, 0, 0, scale * this.control.getImageWidth(), scale * this.control.getImageHeight());
+            TiledImageSource source = this.control.getImageSource();
+            if (source != null) {
+                this.drawTiles(source, scale);
+            }
             super.translateGraphicsContext(true);
         }
         else {
             if (log.isDebugEnabled()) log.debug("No image specified to draw");
         }
     }
+
+    /**
+     * Draw tiles in viewport which are decoded, request decoding for those are not.
+     *
+     * @param source
+     * @param scale
+     */
+    private void drawTiles(TiledImageSource source, double scale) {
+        Rectangle2D vr = this.control.getViewportRectangle();
+        int level = source.levelForScale(scale);
+        List<TiledImageSource.TileKey> keys = source.tilesIn(level,
+                vr.getMinX() / scale, vr.getMinY() / scale, vr.getMaxX() / scale, vr.getMaxY() / scale);
+        List<TiledImageSource.TileKey> missing = new ArrayList<>();
+        for (TiledImageSource.TileKey key : keys) {
+            Image tile = source.getTile(key);
+            if (tile == null) {
+                missing.add(key);
+                continue;
+            }
+            Rectangle b = source.tileBounds(key);
+            gc.drawImage(tile, b.x * scale, b.y * scale, b.width * scale, b.height * scale);
+        }
+        if (log.isTraceEnabled()) log.trace("Draw %d tiles of level %d, %d missing".formatted(keys.size() - missing.size(), level, missing.size()));
+        source.request(missing);
+    }
 }
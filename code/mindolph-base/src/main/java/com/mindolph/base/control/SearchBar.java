@@ -13,6 +13,7 @@ import javafx.event.ActionEvent;
 import javafx.fxml.FXML;
 import javafx.scene.Node;
 import javafx.scene.control.Button;
+import javafx.scene.control.Label;
 import javafx.scene.control.TextField;
 import javafx.scene.control.ToggleButton;
 import javafx.scene.control.Tooltip;
@@ -61,6 +62,8 @@ public class SearchBar extends VBox {
     private HBox leftPane;
     @FXML
     private AnchorPane rightPane;
+    @FXML
+    private Label lbMatches;
     private final Glyph btnClose;
     private final ObjectProperty<Map<String, ExtraOption>> extraOptions = new SimpleObjectProperty<>();
 
@@ -93,7 +96,10 @@ public class SearchBar extends VBox {
 
         replacePane.setVisible(false);
         replacePane.setManaged(false);
-        tfKeywords.textProperty().addListener((observableValue, s, t1) -> searchParams.setKeywords(t1));
+        tfKeywords.textProperty().addListener((observableValue, s, t1) -> {
+            searchParams.setKeywords(t1);
+            lbMatches.setText(null); // the count is outdated
+        });
         tfKeywords.setOnKeyPressed(event -> {
             if (event.getCode() == KeyCode.ESCAPE) {
                 this.exitEvent.push(null);
@@ -220,6 +226,24 @@ public class SearchBar extends VBox {
         this.exitEvent.subscribe(consumer);
     }
 
+    /**
+     * Show the position of current matched item in all matched items, like "3 of 10".
+     *
+     * @param index index of current matched item (starts from 0), negative if nothing matched.
+     * @param total count of all matched items, negative to clear the status.
+     */
+    public void setMatchStatus(int index, int total) {
+        if (total < 0) {
+            lbMatches.setText(null);
+        }
+        else if (total == 0 || index < 0) {
+            lbMatches.setText("No results");
+        }
+        else {
+            lbMatches.setText("%d of %d".formatted(index + 1, total));
+        }
+    }
+
     public void setExtraOptions(Map<String, ExtraOption> extraOptions) {
         this.extraOptions.set(extraOptions);
     }
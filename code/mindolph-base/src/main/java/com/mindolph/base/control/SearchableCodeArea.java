@@ -1,20 +1,35 @@
 package com.mindolph.base.control;
 
+import com.mindolph.core.search.LineIndexedFile;
 import com.mindolph.core.search.TextLocation;
 import com.mindolph.core.search.TextNavigator;
 import com.mindolph.core.search.TextSearchOptions;
+import javafx.application.Platform;
+import javafx.scene.Node;
 import javafx.scene.control.IndexRange;
+import javafx.scene.control.Label;
 import javafx.scene.paint.Color;
 import org.apache.commons.lang3.StringUtils;
+import org.fxmisc.richtext.LineNumberFactory;
+import org.fxmisc.richtext.MultiChangeBuilder;
 import org.fxmisc.richtext.Selection;
 import org.fxmisc.richtext.SelectionImpl;
+import org.reactfx.Subscription;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.util.ArrayList;
 import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.IntFunction;
 
 /**
  * Code area with text locating functionality.
+ * Large text can be loaded from a {@link LineIndexedFile} (read-only), only a window of lines of the file is kept in
+ * this code area, the window pages forward or backward from the file when the viewport gets close to its edges.
+ * The search is performed on the file instead of the text in this case, and the rows of file are translated to
+ * the paragraphs of the window.
  *
  * @author mindolph.com@gmail.com
  */
@@ -22,6 +37,14 @@ public class SearchableCodeArea extends ExtCodeArea {
 
     private static final Logger log = LoggerFactory.getLogger(SearchableCodeArea.class);
 
+    // lines of large text shown at first, and appended (or prepended) in each batch after that.
+    private static final int LARGE_TEXT_FIRST_LINES = 1000;
+    private static final int LARGE_TEXT_BATCH_LINES = 5000;
+    // max lines of large text kept in this code area.
+    private static final int LARGE_TEXT_WINDOW_LINES = 20000;
+    // page the window when the viewport is within these lines to the edge of window.
+    private static final int LARGE_TEXT_PAGING_MARGIN = 500;
+
     /**
      * Used to show search highlighting.
      */
@@ -36,13 +59,186 @@ public class SearchableCodeArea extends ExtCodeArea {
             }
     );
 
+    // patches the line index of navigator with the edits.
+    private final Subscription navigatorTextSubscription;
+
+    private LineIndexedFile largeText;
+    // rows of large text in this code area, from windowStart (inclusive) to windowEnd (exclusive).
+    private int windowStart;
+    private int windowEnd;
+    private boolean pagingScheduled;
+    // creates line numbers for the paragraphs, null if line numbers are not shown.
+    private IntFunction<Node> lineNumberFactory;
+
     public SearchableCodeArea() {
         super();
-        this.textProperty().addListener((observable, oldValue, newValue) -> {
-            textNavigator.setText(newValue, false);
+        this.navigatorTextSubscription = this.plainTextChanges().subscribe(change -> {
+            textNavigator.update(change.getPosition(), change.getRemoved().length(), change.getInserted());
+        });
+    }
+
+    /**
+     * Load large text in read-only mode, the first lines are shown immediately and the rest lines of the window are
+     * appended in batches later.
+     *
+     * @param largeText
+     */
+    public void loadLargeText(LineIndexedFile largeText) {
+        this.navigatorTextSubscription.unsubscribe();
+        super.enableLargeTextMode();
+        this.largeText = largeText;
+        this.lineNumberFactory = getParagraphGraphicFactory() == null ? null : LineNumberFactory.get(this);
+        this.loadWindow(0, Math.min(LARGE_TEXT_FIRST_LINES, largeText.getLineCount()));
+        this.estimatedScrollYProperty().addListener((observable, oldValue, newValue) -> this.schedulePaging());
+        this.loadNextBatch();
+    }
+
+    // fill the window in background until it's full.
+    private void loadNextBatch() {
+        if (largeText == null || windowEnd >= largeText.getLineCount() || windowEnd - windowStart >= LARGE_TEXT_WINDOW_LINES) {
+            return;
+        }
+        LineIndexedFile lif = largeText;
+        int from = windowEnd;
+        int to = Math.min(from + LARGE_TEXT_BATCH_LINES, lif.getLineCount());
+        CompletableFuture.supplyAsync(() -> lif.getLines(from, to)).thenAcceptAsync(lines -> {
+            if (largeText != lif) {
+                return; // disposed
+            }
+            if (windowEnd == from) {
+                this.appendLines(lines, to);
+            }
+            this.loadNextBatch();
+        }, Platform::runLater).exceptionally(e -> {
+            if (!lif.isClosed()) log.error("Failed to load lines from " + lif.getFile(), e);
+            return null;
+        });
+    }
+
+    private void loadWindow(int from, int to) {
+        this.windowStart = from;
+        this.windowEnd = to;
+        this.setText(largeText.getLines(from, to));
+        this.updateLineNumbers();
+    }
+
+    // the text is changed after the viewport is scrolled, so it's deferred.
+    private void schedulePaging() {
+        if (largeText != null && !pagingScheduled) {
+            pagingScheduled = true;
+            Platform.runLater(() -> {
+                pagingScheduled = false;
+                this.pageIfNeeded();
+            });
+        }
+    }
+
+    private void pageIfNeeded() {
+        if (largeText == null || getVisibleParagraphs().isEmpty()) {
+            return;
+        }
+        int firstVisible = this.firstVisibleParToAllParIndex();
+        int lastVisible = this.lastVisibleParToAllParIndex();
+        if (lastVisible >= getParagraphs().size() - LARGE_TEXT_PAGING_MARGIN && windowEnd < largeText.getLineCount()) {
+            int to = Math.min(windowEnd + LARGE_TEXT_BATCH_LINES, largeText.getLineCount());
+            int removed = this.appendLines(largeText.getLines(windowEnd, to), to);
+            if (removed > 0) {
+                this.showParagraphAtTop(Math.max(0, firstVisible - removed));
+            }
+        }
+        else if (firstVisible < LARGE_TEXT_PAGING_MARGIN && windowStart > 0) {
+            int from = Math.max(0, windowStart - LARGE_TEXT_BATCH_LINES);
+            int added = this.prependLines(largeText.getLines(from, windowStart), from);
+            this.showParagraphAtTop(firstVisible + added);
+        }
+    }
+
+    /**
+     * Append lines to the window, the lines at the start of window are removed if the window is full.
+     *
+     * @return count of lines removed from the start.
+     */
+    private int appendLines(String lines, int to) {
+        int anchor = this.getAnchor();
+        int caret = this.getCaretPosition();
+        this.appendText("\n" + lines);
+        this.windowEnd = to;
+        int removed = Math.max(0, windowEnd - windowStart - LARGE_TEXT_WINDOW_LINES);
+        if (removed > 0) {
+            int removedLength = this.getAbsolutePosition(removed, 0);
+            this.deleteText(0, removedLength);
+            this.windowStart += removed;
+            this.selectRange(Math.max(0, anchor - removedLength), Math.max(0, caret - removedLength));
+            this.updateLineNumbers();
+        }
+        this.getUndoManager().forgetHistory(); // read-only, nothing to undo.
+        this.getUndoManager().mark();
+        return removed;
+    }
+
+    /**
+     * Prepend lines to the window, the lines at the end of window are removed if the window is full.
+     *
+     * @return count of lines added to the start.
+     */
+    private int prependLines(String lines, int from) {
+        int anchor = this.getAnchor();
+        int caret = this.getCaretPosition();
+        int added = windowStart - from;
+        this.insertText(0, lines + "\n");
+        this.windowStart = from;
+        int removed = Math.max(0, windowEnd - windowStart - LARGE_TEXT_WINDOW_LINES);
+        if (removed > 0) {
+            // from the end of the last kept paragraph to the end of text.
+            this.deleteText(this.getAbsolutePosition(getParagraphs().size() - removed, 0) - 1, this.getLength());
+            this.windowEnd -= removed;
+        }
+        int shift = lines.length() + 1;
+        this.selectRange(Math.min(anchor + shift, getLength()), Math.min(caret + shift, getLength()));
+        this.updateLineNumbers();
+        this.getUndoManager().forgetHistory();
+        this.getUndoManager().mark();
+        return added;
+    }
+
+    /**
+     * Make sure the rows of large text are in the window, the window is moved around the rows if they are not.
+     *
+     * @param fromRow
+     * @param toRow   inclusive
+     */
+    private void showRows(int fromRow, int toRow) {
+        if (largeText != null && (fromRow < windowStart || toRow >= windowEnd)) {
+            int count = largeText.getLineCount();
+            int from = Math.max(0, Math.min(fromRow - LARGE_TEXT_WINDOW_LINES / 2, count - LARGE_TEXT_WINDOW_LINES));
+            int to = Math.min(count, Math.max(from + LARGE_TEXT_WINDOW_LINES, toRow + 1));
+            log.debug("Move window of large text to rows %d-%d".formatted(from, to));
+            this.loadWindow(from, to);
+        }
+    }
+
+    // line numbers of the rows in file instead of the paragraphs in window.
+    private void updateLineNumbers() {
+        if (lineNumberFactory == null) {
+            return;
+        }
+        IntFunction<Node> factory = lineNumberFactory;
+        int first = windowStart + 1;
+        int digits = String.valueOf(largeText.getLineCount()).length();
+        this.setParagraphGraphicFactory(idx -> {
+            Node node = factory.apply(idx);
+            if (node instanceof Label label) {
+                label.textProperty().unbind();
+                label.setText(StringUtils.leftPad(String.valueOf(first + idx), digits));
+            }
+            return node;
         });
     }
 
+    public boolean isLargeText() {
+        return largeText != null;
+    }
+
     public void setText(String text) {
         this.replaceText(text);
         this.displaceCaret(0);
@@ -55,6 +251,17 @@ public class SearchableCodeArea extends ExtCodeArea {
      * @param options
      */
     public void searchNext(String keyword, TextSearchOptions options) {
+        if (largeText != null) {
+            TextLocation tloc = largeText.locateNext(keyword, windowStart + this.getCurrentParagraph(), this.getCaretColumn(), options.isCaseSensitive());
+            if (tloc != null) {
+                this.selectLocation(tloc);
+            }
+            else {
+                this.showRows(0, 0);
+                this.moveTo(0);
+            }
+            return;
+        }
         textNavigator.setText(this.getText(), !options.isForReplacement());
         int curRow = this.getCurrentParagraph();
         int curCol = this.getCaretColumn();
@@ -63,9 +270,7 @@ public class SearchableCodeArea extends ExtCodeArea {
         TextLocation tloc = textNavigator.locateNext(keyword, options.isCaseSensitive());
         if (tloc != null) {
             log.debug("found next at: %s,%s -> %s,%s".formatted(tloc.getStartRow(), tloc.getStartCol(), tloc.getEndRow(), tloc.getEndCol()));
-            this.selectRange(tloc.getStartRow(), tloc.getStartCol(), tloc.getEndRow(), tloc.getEndCol() + 1);
-            this.scrollXToPixel(0);
-            this.requestFollowCaret();
+            this.selectLocation(tloc);
         }
         else {
             this.moveTo(0); // move to the start of doc
@@ -73,10 +278,21 @@ public class SearchableCodeArea extends ExtCodeArea {
     }
 
     public void searchPrev(String keyword, TextSearchOptions options) {
-        textNavigator.setText(this.getText(), !options.isForReplacement());
         IndexRange selection = this.getSelection();
         int row = this.getCurrentParagraph();
         int col = this.getCaretColumn() - selection.getLength() - 1; // -1 for the caret column is exclusive
+        if (largeText != null) {
+            TextLocation tloc = largeText.locatePrev(keyword, windowStart + row, col, options.isCaseSensitive());
+            if (tloc != null) {
+                this.selectLocation(tloc);
+            }
+            else {
+                this.showRows(largeText.getLineCount() - 1, largeText.getLineCount() - 1);
+                this.moveTo(getLength());
+            }
+            return;
+        }
+        textNavigator.setText(this.getText(), !options.isForReplacement());
         if (this.getParagraph(row).length() == 0) {
             row--; // last empty line is special
         }
@@ -85,17 +301,35 @@ public class SearchableCodeArea extends ExtCodeArea {
         TextLocation tloc = textNavigator.locatePrev(keyword, options.isCaseSensitive());
         if (tloc != null) {
             log.debug("found previous at: %s,%s -> %s,%s".formatted(tloc.getStartRow(), tloc.getStartCol(), tloc.getEndRow(), tloc.getEndCol()));
-            this.selectRange(tloc.getStartRow(), tloc.getStartCol(), tloc.getEndRow(), tloc.getEndCol() + 1);
-            this.scrollXToPixel(0);
-            this.requestFollowCaret();
+            this.selectLocation(tloc);
         }
         else {
             this.moveTo(getText().length()); // move to the end of doc
         }
     }
 
+    private void selectLocation(TextLocation tloc) {
+        this.selectLocation(tloc.getStartRow(), tloc.getStartCol(), tloc.getEndRow(), tloc.getEndCol() + 1);
+    }
+
+    /**
+     * Select the text between the locations and scroll to it, the rows are in the whole text (for large text,
+     * the rows are moved into the window if they are not).
+     *
+     * @param startRow
+     * @param startCol
+     * @param endRow
+     * @param endCol   exclusive
+     */
+    public void selectLocation(int startRow, int startCol, int endRow, int endCol) {
+        this.showRows(startRow, endRow);
+        this.selectRange(startRow - windowStart, startCol, endRow - windowStart, endCol);
+        this.scrollXToPixel(0);
+        this.requestFollowCaret();
+    }
+
     public boolean replaceSelection(String keywords, boolean isCaseSensitivity, String replacement) {
-        if (StringUtils.isBlank(keywords)) {
+        if (StringUtils.isBlank(keywords) || isLargeTextMode()) {
             return false;
         }
         boolean match = isCaseSensitivity ? keywords.equals(getSelectedText()) : keywords.equalsIgnoreCase(getSelectedText());
@@ -116,18 +350,43 @@ public class SearchableCodeArea extends ExtCodeArea {
         }
     }
 
+    /**
+     * Replace all matches in one undoable change, only the paragraphs that contain matches are changed.
+     *
+     * @param keywords
+     * @param searchOptions
+     * @param replacement
+     */
     public void replaceAllMatch(String keywords, TextSearchOptions searchOptions, String replacement) {
-        super.moveTo(0);// starts from head of content
-        if (StringUtils.isBlank(keywords)) {
+        if (StringUtils.isBlank(keywords) || isLargeTextMode()) {
             return;
         }
-        String replacedText;
-        if (searchOptions.isCaseSensitive()) {
-            replacedText = StringUtils.replace(this.getText(), keywords, replacement == null ? "" : replacement);
+        String text = this.getText();
+        List<Integer> matches = new ArrayList<>();
+        int pos = 0;
+        while ((pos = searchOptions.isCaseSensitive() ? StringUtils.indexOf(text, keywords, pos) : StringUtils.indexOfIgnoreCase(text, keywords, pos)) >= 0) {
+            matches.add(pos);
+            pos += keywords.length();
         }
-        else {
-            replacedText = StringUtils.replaceIgnoreCase(this.getText(), keywords, replacement == null ? "" : replacement);
+        if (matches.isEmpty()) {
+            return;
+        }
+        log.debug("Replace %d matches".formatted(matches.size()));
+        MultiChangeBuilder<Collection<String>, String, Collection<String>> changes = this.createMultiChange(matches.size());
+        // from last to first, so that the positions of the rest matches are not affected.
+        for (int i = matches.size() - 1; i >= 0; i--) {
+            int start = matches.get(i);
+            changes.replaceText(start, start + keywords.length(), replacement == null ? "" : replacement);
+        }
+        changes.commit();
+    }
+
+    @Override
+    public void dispose() {
+        if (largeText != null) {
+            largeText.close(); // release the mapped file
+            this.largeText = null; // stop loading
         }
-        super.replaceText(replacedText);
+        super.dispose();
     }
 }
@@ -0,0 +1,313 @@
+package com.mindolph.base.control;
+
+import javafx.application.Platform;
+import javafx.embed.swing.SwingFXUtils;
+import javafx.scene.image.Image;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReadParam;
+import javax.imageio.ImageReader;
+import javax.imageio.stream.ImageInputStream;
+import java.awt.Rectangle;
+import java.awt.image.BufferedImage;
+import java.io.File;
+import java.io.IOException;
+import java.util.*;
+import java.util.concurrent.LinkedBlockingDeque;
+
+/**
+ * Decode a large image file as a pyramid of tiles on demand, instead of decoding the whole image at full resolution.
+ * Level 0 is the full resolution, each next level is subsampled by 2 more, tiles of each level are read by
+ * region (and subsampling) with ImageIO and kept in a LRU cache.
+ * A low resolution preview of the whole image is decoded when opening, it can be drawn before the tiles are ready.
+ * <p>
+ * Tiles are decoded one by one in a background thread, only the latest requested tiles are decoded,
+ * the requests which are out of viewport are dropped.
+ *
+ * @author mindolph.com@gmail.com
+ * @see ScalableImageViewSkin
+ */
+public class TiledImageSource {
+
+    private static final Logger log = LoggerFactory.getLogger(TiledImageSource.class);
+
+    public static final int TILE_SIZE = 512;
+
+    // images smaller than this (in pixels) are not worth tiling.
+    public static final long MIN_TILED_PIXELS = 4096L * 4096L;
+
+    private static final int PREVIEW_SIZE = 1024;
+
+    // about 64MB for tiles in ARGB.
+    private static final int MAX_CACHED_TILES = 64;
+
+    private final File file;
+    private final ImageInputStream input;
+    private final ImageReader reader;
+    private final int width;
+    private final int height;
+    private final int maxLevel;
+    private Image preview;
+
+    private final Map<TileKey, Image> tiles = new LinkedHashMap<>(MAX_CACHED_TILES, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<TileKey, Image> eldest) {
+            return size() > MAX_CACHED_TILES;
+        }
+    };
+    private final LinkedBlockingDeque<TileKey> requests = new LinkedBlockingDeque<>();
+    private final Set<TileKey> requested = new HashSet<>();
+    private Thread worker;
+    private Runnable onTileLoaded;
+    private volatile boolean closed;
+
+    /**
+     * Open image file as tiled source if it's supported by ImageIO and large enough.
+     *
+     * @param file
+     * @return null if the image should be loaded as a whole.
+     * @throws IOException
+     */
+    public static TiledImageSource open(File file) throws IOException {
+        ImageInputStream input = ImageIO.createImageInputStream(file);
+        if (input == null) {
+            return null;
+        }
+        Iterator<ImageReader> readers = ImageIO.getImageReaders(input);
+        if (!readers.hasNext()) {
+            input.close();
+            return null;
+        }
+        ImageReader reader = readers.next();
+        reader.setInput(input, false, true);
+        try {
+            int w = reader.getWidth(0);
+            int h = reader.getHeight(0);
+            if ((long) w * h < MIN_TILED_PIXELS) {
+                log.debug("Image %dx%d is small enough to be loaded as a whole".formatted(w, h));
+                reader.dispose();
+                input.close();
+                return null;
+            }
+            TiledImageSource source = new TiledImageSource(file, input, reader, w, h);
+            source.loadPreview();
+            return source;
+        } catch (IOException | RuntimeException e) {
+            reader.dispose();
+            input.close();
+            throw e;
+        }
+    }
+
+    private TiledImageSource(File file, ImageInputStream input, ImageReader reader, int width, int height) {
+        this.file = file;
+        this.input = input;
+        this.reader = reader;
+        this.width = width;
+        this.height = height;
+        int level = 0;
+        while (Math.max(width, height) >> (level + 1) >= TILE_SIZE) {
+            level++;
+        }
+        this.maxLevel = level;
+        log.debug("Open tiled image %s (%dx%d) with %d levels".formatted(file.getName(), width, height, maxLevel + 1));
+    }
+
+    private void loadPreview() throws IOException {
+        this.preview = this.readWhole(PREVIEW_SIZE);
+    }
+
+    /**
+     * Decode the whole image subsampled to fit the size, like for printing.
+     *
+     * @param maxSize max width and height of decoded image.
+     * @return
+     * @throws IOException
+     */
+    public Image readWhole(int maxSize) throws IOException {
+        int subsampling = Math.max(1, (int) Math.ceil(Math.max(width, height) / (double) maxSize));
+        ImageReadParam param = reader.getDefaultReadParam();
+        param.setSourceSubsampling(subsampling, subsampling, 0, 0);
+        BufferedImage bi;
+        synchronized (reader) {
+            bi = reader.read(0, param);
+        }
+        return SwingFXUtils.toFXImage(bi, null);
+    }
+
+    /**
+     * The level of tiles to be drawn for the scale, the tiles of that level is not smaller than they are displayed.
+     *
+     * @param scale
+     * @return
+     */
+    public int levelForScale(double scale) {
+        int level = 0;
+        while (level < maxLevel && scale * (1 << (level + 1)) <= 1) {
+            level++;
+        }
+        return level;
+    }
+
+    /**
+     * Bounds of tile in the coordinates of the full resolution image.
+     *
+     * @param key
+     * @return
+     */
+    public Rectangle tileBounds(TileKey key) {
+        int span = TILE_SIZE << key.level();
+        int x = key.col() * span;
+        int y = key.row() * span;
+        return new Rectangle(x, y, Math.min(span, width - x), Math.min(span, height - y));
+    }
+
+    /**
+     * Keys of tiles that intersect with the region (in coordinates of the full resolution image).
+     *
+     * @param level
+     * @param minX
+     * @param minY
+     * @param maxX
+     * @param maxY
+     * @return
+     */
+    public List<TileKey> tilesIn(int level, double minX, double minY, double maxX, double maxY) {
+        int span = TILE_SIZE << level;
+        int fromCol = Math.max(0, (int) Math.floor(minX / span));
+        int fromRow = Math.max(0, (int) Math.floor(minY / span));
+        int toCol = Math.min((width - 1) / span, (int) Math.floor(maxX / span));
+        int toRow = Math.min((height - 1) / span, (int) Math.floor(maxY / span));
+        List<TileKey> keys = new ArrayList<>();
+        for (int row = fromRow; row <= toRow; row++) {
+            for (int col = fromCol; col <= toCol; col++) {
+                keys.add(new TileKey(level, col, row));
+            }
+        }
+        return keys;
+    }
+
+    /**
+     * @param key
+     * @return decoded tile or null if it's not decoded yet.
+     */
+    public synchronized Image getTile(TileKey key) {
+        return tiles.get(key);
+    }
+
+    /**
+     * Request tiles to be decoded, the previous requests which are not started yet are replaced.
+     * The callback {@code onTileLoaded} is called in FX thread for each tile decoded.
+     *
+     * @param keys
+     */
+    public synchronized void request(List<TileKey> keys) {
+        if (closed) {
+            return;
+        }
+        requests.clear();
+        requested.clear();
+        for (TileKey key : keys) {
+            if (!tiles.containsKey(key) && requested.add(key)) {
+                requests.add(key);
+            }
+        }
+        if (worker == null && !requests.isEmpty()) {
+            worker = new Thread(this::decodeTiles, "tile-decoder");
+            worker.setDaemon(true);
+            worker.start();
+        }
+    }
+
+    private void decodeTiles() {
+        while (!closed) {
+            TileKey key;
+            try {
+                key = requests.take();
+            } catch (InterruptedException e) {
+                break;
+            }
+            synchronized (this) {
+                if (!requested.remove(key) || tiles.containsKey(key)) {
+                    continue;
+                }
+            }
+            try {
+                Image tile = this.decodeTile(key);
+                synchronized (this) {
+                    if (closed) {
+                        break;
+                    }
+                    tiles.put(key, tile);
+                }
+                if (onTileLoaded != null) {
+                    Platform.runLater(onTileLoaded);
+                }
+            } catch (Exception e) {
+                if (!closed) log.warn("Failed to decode tile %s of %s".formatted(key, file.getName()), e);
+            }
+        }
+        log.debug("Tile decoder of %s stopped".formatted(file.getName()));
+    }
+
+    private Image decodeTile(TileKey key) throws IOException {
+        int subsampling = 1 << key.level();
+        ImageReadParam param = reader.getDefaultReadParam();
+        param.setSourceRegion(tileBounds(key));
+        param.setSourceSubsampling(subsampling, subsampling, 0, 0);
+        BufferedImage bi;
+        synchronized (reader) {
+            bi = reader.read(0, param);
+        }
+        if (log.isTraceEnabled()) log.trace("Tile %s decoded as %dx%d".formatted(key, bi.getWidth(), bi.getHeight()));
+        return SwingFXUtils.toFXImage(bi, null);
+    }
+
+    /**
+     * Stop decoding and release the resources.
+     */
+    public void close() {
+        closed = true;
+        synchronized (this) {
+            requests.clear();
+            requested.clear();
+            tiles.clear();
+            if (worker != null) {
+                worker.interrupt();
+            }
+        }
+        synchronized (reader) {
+            reader.dispose();
+            try {
+                input.close();
+            } catch (IOException e) {
+                log.warn("Failed to close image input", e);
+            }
+        }
+    }
+
+    public void setOnTileLoaded(Runnable onTileLoaded) {
+        this.onTileLoaded = onTileLoaded;
+    }
+
+    public File getFile() {
+        return file;
+    }
+
+    public int getWidth() {
+        return width;
+    }
+
+    public int getHeight() {
+        return height;
+    }
+
+    public Image getPreview() {
+        return preview;
+    }
+
+    public record TileKey(int level, int col, int row) {
+    }
+}
@@ -1,10 +1,14 @@
 package com.mindolph.base.control.snippet;
 
+import com.mindolph.core.search.SubstringIndex;
+
 import java.util.ArrayList;
 import java.util.List;
 
 /**
  * Use '⨁' to define the position that caret will be after inserting code snippet.
+ * The snippets are loaded by {@link #init()} lazily when they are requested at the first time,
+ * which might be in a background thread.
  *
  * @author mindolph.com@gmail.com
  */
@@ -16,10 +20,18 @@ public abstract class BaseSnippetGroup {
 
     protected List<Snippet> snippets = new ArrayList<>();
 
+    // index of snippets by title, description and code, it's set once the snippets are loaded.
+    private volatile SubstringIndex<Snippet> index;
+
+    // error of loading snippets, the group is loaded with no snippets if failed.
+    private volatile RuntimeException loadError;
+
     public BaseSnippetGroup() {
-        init();
     }
 
+    /**
+     * Load snippets to {@code snippets}.
+     */
     public abstract void init();
 
     public String getTitle() {
@@ -31,9 +43,67 @@ public abstract class BaseSnippetGroup {
     }
 
     public List<Snippet> getSnippets() {
+        this.load();
         return snippets;
     }
 
+    /**
+     * Filter snippets by keyword (case-insensitive), the snippets with title starts with keyword come first.
+     *
+     * @param keyword
+     * @return all snippets if keyword is blank.
+     */
+    public List<Snippet> filter(String keyword) {
+        this.load();
+        return index.search(keyword);
+    }
+
+    /**
+     * Load snippets and index them if not yet, it's not retried if failed, the group has no snippets then.
+     *
+     * @throws RuntimeException the error of {@link #init()} at the first time.
+     */
+    public void load() {
+        if (index != null) {
+            return;
+        }
+        synchronized (this) {
+            if (index == null) {
+                try {
+                    this.init();
+                } catch (RuntimeException e) {
+                    snippets = new ArrayList<>();
+                    loadError = e;
+                    index = new SubstringIndex<>();
+                    throw e;
+                }
+                SubstringIndex<Snippet> idx = new SubstringIndex<>();
+                for (Snippet snippet : snippets) {
+                    idx.add(snippet, snippet.getTitle(), snippet.getDescription(), snippet.getCode());
+                }
+                index = idx;
+            }
+        }
+    }
+
+    /**
+     * @return whether the snippets are loaded, it doesn't wait for the loading in progress.
+     */
+    public boolean isLoaded() {
+        return index != null;
+    }
+
+    /**
+     * @return whether the snippets failed to be loaded.
+     */
+    public boolean isFailed() {
+        return loadError != null;
+    }
+
+    public RuntimeException getLoadError() {
+        return loadError;
+    }
+
     public boolean isAlwaysShow() {
         return alwaysShow;
     }
@@ -10,30 +10,56 @@ import javafx.scene.Node;
 import javafx.scene.control.Label;
 import javafx.scene.control.ListCell;
 import javafx.scene.control.Tooltip;
+import javafx.scene.image.Image;
 import javafx.scene.image.ImageView;
 import javafx.scene.layout.AnchorPane;
 import javafx.scene.layout.Background;
 import javafx.scene.layout.BackgroundFill;
 import javafx.scene.layout.CornerRadii;
 import javafx.scene.paint.Color;
+import javafx.scene.paint.Paint;
 import org.apache.commons.lang3.StringUtils;
 
 import java.net.URL;
 import java.util.ResourceBundle;
 
 /**
+ * The item view is loaded once for each cell and reused for the snippets shown in the cell.
+ *
  * @author mindolph.com@gmail.com
  * @see SnippetView
  */
 public class SnippetCell extends ListCell<Snippet> {
 
+    private final SnippetView snippetView;
+
+    private ItemController itemController;
+    private Node itemRoot;
+
+    public SnippetCell(SnippetView snippetView) {
+        this.snippetView = snippetView;
+    }
+
     @Override
     protected void updateItem(Snippet item, boolean empty) {
         super.updateItem(item, empty);
-        if (item != null) {
-            FXMLLoader fxmlLoader = FxmlUtils.loadUri("/control/snippet_item.fxml", new SnippetCell.ItemController(item));
-            Node root = fxmlLoader.getRoot();
-            setGraphic(root);
+        if (item != null && !empty) {
+            if (itemController == null) {
+                itemController = new ItemController();
+                FXMLLoader fxmlLoader = FxmlUtils.loadUri("/control/snippet_item.fxml", itemController);
+                itemRoot = fxmlLoader.getRoot();
+            }
+            itemController.update(item);
+            Image image = item.getImage();
+            if (image == null && item.isGenerateImage()) {
+                image = snippetView.getPreview(item, rendered -> {
+                    if (getItem() == item) {
+                        itemController.setPreview(rendered);
+                    }
+                });
+            }
+            itemController.setPreview(image);
+            setGraphic(itemRoot);
         }
         else {
             setText(null);
@@ -41,25 +67,30 @@ public class SnippetCell extends ListCell<Snippet> {
         }
     }
 
-    private class ItemController extends AnchorPane implements Initializable {
+    private static class ItemController extends AnchorPane implements Initializable {
         @FXML
         private Label title;
         @FXML
         private ImageView icon;
-        private Snippet snippet;
-
-        public ItemController(Snippet snippet) {
-            this.snippet = snippet;
-        }
+        private final Tooltip tooltip = new Tooltip();
+        private Paint defaultTextFill;
 
         @Override
         public void initialize(URL url, ResourceBundle resourceBundle) {
+            defaultTextFill = title.getTextFill();
+        }
+
+        private void update(Snippet snippet) {
             title.setText(snippet.getTitle());
             if (StringUtils.isNotBlank(snippet.getDescription())) {
-                Tooltip tooltip = new Tooltip();
                 tooltip.setText(snippet.getDescription());
                 Tooltip.install(this, tooltip);
             }
+            else {
+                Tooltip.uninstall(this, tooltip);
+            }
+            this.setBackground(null);
+            title.setTextFill(defaultTextFill);
             if (snippet.isColor()) {
                 String colorName = StringUtils.remove(snippet.getTitle(), '#');
                 Color color = Color.valueOf(colorName);
@@ -71,5 +102,11 @@ public class SnippetCell extends ListCell<Snippet> {
                 }
             }
         }
+
+        private void setPreview(Image image) {
+            icon.setImage(image);
+            icon.setVisible(image != null);
+            icon.setManaged(image != null);
+        }
     }
 }
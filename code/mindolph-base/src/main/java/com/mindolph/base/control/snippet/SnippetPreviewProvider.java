@@ -0,0 +1,22 @@
+package com.mindolph.base.control.snippet;
+
+import javafx.scene.image.Image;
+
+/**
+ * Provides preview images for the snippets which need the image to be generated from code.
+ *
+ * @author mindolph.com@gmail.com
+ * @see Snippet#isGenerateImage()
+ */
+@FunctionalInterface
+public interface SnippetPreviewProvider {
+
+    /**
+     * Render the preview image of snippet, it's called in background thread and the result is cached by the code
+     * of snippet.
+     *
+     * @param snippet
+     * @return null if no preview for the snippet.
+     */
+    Image render(Snippet snippet);
+}
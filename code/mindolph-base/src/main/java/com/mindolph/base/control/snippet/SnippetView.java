@@ -4,24 +4,74 @@ import com.mindolph.base.BaseView;
 import javafx.application.Platform;
 import javafx.fxml.FXML;
 import javafx.scene.control.Accordion;
+import javafx.scene.control.Label;
 import javafx.scene.control.ListView;
 import javafx.scene.control.TextField;
 import javafx.scene.control.TitledPane;
+import javafx.scene.image.Image;
 import javafx.scene.layout.VBox;
-import org.apache.commons.lang3.StringUtils;
 import org.controlsfx.control.textfield.TextFields;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
-import java.util.stream.Collectors;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Consumer;
 
 /**
+ * The snippets of each group are loaded in background when the group is loaded to the view, and the preview
+ * images are rendered in background when the snippets are shown in list, the rendered previews are cached by code
+ * of snippets.
+ *
  * @author mindolph.com@gmail.com
  * @see SnippetCell
  * @see Snippet
  */
 public class SnippetView extends BaseView {
 
-    private List<BaseSnippetGroup> snippetGroups;
+    private static final Logger log = LoggerFactory.getLogger(SnippetView.class);
+
+    private static final int MAX_CACHED_PREVIEWS = 256;
+
+    // snippets loading for all views.
+    private static final ExecutorService loadExecutor = Executors.newSingleThreadExecutor(r -> {
+        Thread t = new Thread(r, "snippet-loader");
+        t.setDaemon(true);
+        return t;
+    });
+
+    // preview rendering for all views, it's separated from loading since the rendering might wait for other threads
+    // (like the Swing thread for PlantUML), which shouldn't hold the loading of snippet groups.
+    private static final ExecutorService previewExecutor = Executors.newSingleThreadExecutor(r -> {
+        Thread t = new Thread(r, "snippet-preview");
+        t.setDaemon(true);
+        return t;
+    });
+
+    // rendered previews by code of snippet, empty if the snippet has no preview.
+    private static final Map<String, Optional<Image>> previewCache = Collections.synchronizedMap(new LinkedHashMap<>(64, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, Optional<Image>> eldest) {
+            return size() > MAX_CACHED_PREVIEWS;
+        }
+    });
+
+    // callbacks by code of snippets whose previews are being rendered.
+    private static final Map<String, List<Consumer<Image>>> rendering = new HashMap<>();
+
+    private List<BaseSnippetGroup> snippetGroups = new ArrayList<>();
+
+    private final Map<BaseSnippetGroup, TitledPane> groupPanes = new LinkedHashMap<>();
+    private final Map<BaseSnippetGroup, ListView<Snippet>> groupListViews = new HashMap<>();
+
+    private String keyword;
 
     @FXML
     private Accordion accordion;
@@ -33,12 +83,13 @@ public class SnippetView extends BaseView {
 
     private SnippetEventHandler snippetEventHandler;
 
+    private SnippetPreviewProvider previewProvider;
+
     public SnippetView() {
         super("/control/snippet_view.fxml");
         tfKeyword = TextFields.createClearableTextField();
         vBox.getChildren().add(0, tfKeyword);
         tfKeyword.textProperty().addListener((observableValue, s, newKeyword) -> {
-            accordion.getPanes().clear();
             this.filter(newKeyword);
         });
         Platform.runLater(() -> {
@@ -46,43 +97,75 @@ public class SnippetView extends BaseView {
         });
     }
 
+    /**
+     * Load snippet groups, the snippets are loaded in background and shown once they are ready.
+     *
+     * @param snippetGroups
+     */
     public void load(List<BaseSnippetGroup> snippetGroups) {
         this.snippetGroups = snippetGroups;
-        this.filter(null);
+        groupPanes.clear();
+        groupListViews.clear();
+        for (BaseSnippetGroup snippetGroup : snippetGroups) {
+            ListView<Snippet> listView = new ListView<>();
+            listView.setCellFactory(param -> new SnippetCell(this));
+            listView.setPlaceholder(new Label(snippetGroup.isLoaded() ? "No snippets" : "Loading..."));
+            listView.setOnMouseClicked(mouseEvent -> {
+                if (mouseEvent.getClickCount() == 2) {
+                    Snippet selectedSnippet = listView.getSelectionModel().getSelectedItem();
+                    if (selectedSnippet != null) {
+                        snippetEventHandler.onSnippet(selectedSnippet);
+                    }
+                }
+            });
+            groupPanes.put(snippetGroup, new TitledPane(snippetGroup.getTitle(), listView));
+            groupListViews.put(snippetGroup, listView);
+            loadExecutor.execute(() -> {
+                try {
+                    snippetGroup.load();
+                } catch (Exception e) {
+                    log.error("Failed to load snippets of group: " + snippetGroup.getTitle(), e);
+                }
+                Platform.runLater(() -> {
+                    listView.setPlaceholder(new Label(snippetGroup.isFailed() ? "Failed to load snippets" : "No snippets"));
+                    this.filter(keyword);
+                });
+            });
+        }
+        this.filter(keyword);
     }
 
     /**
      * Filter snippets by keyword, if the no match for a group, the group will not show.
-     * Before filter starts, the Accordion must be cleared.
+     * The groups that are not loaded yet are always shown, the groups failed to load are shown (with the error) only
+     * if they are always shown.
      *
      * @param keyword
      */
     public void filter(String keyword) {
+        this.keyword = keyword;
+        List<TitledPane> visiblePanes = new ArrayList<>();
         for (BaseSnippetGroup snippetGroup : snippetGroups) {
-            List<Snippet> filteredSnippets = snippetGroup.getSnippets();
-            if (StringUtils.isNotBlank(keyword)) {
-                filteredSnippets = filteredSnippets.stream().filter(snippet -> snippet.getTitle().contains(keyword)
-                                || (snippet.getDescription() != null && snippet.getDescription().contains(keyword))
-                                || (snippet.getCode() != null && snippet.getCode().contains(keyword)))
-                        .collect(Collectors.toList());
+            TitledPane pane = groupPanes.get(snippetGroup);
+            if (pane == null) {
+                continue;
+            }
+            if (!snippetGroup.isLoaded()) {
+                visiblePanes.add(pane);
+                continue;
             }
+            List<Snippet> filteredSnippets = snippetGroup.filter(keyword);
+            groupListViews.get(snippetGroup).getItems().setAll(filteredSnippets);
             if (!filteredSnippets.isEmpty() || snippetGroup.isAlwaysShow()) {
-                ListView<Snippet> listView = new ListView<>();
-                listView.setCellFactory(param -> new SnippetCell());
-                listView.getItems().addAll(filteredSnippets);
-                listView.setOnMouseClicked(mouseEvent -> {
-                    if (mouseEvent.getClickCount() == 2) {
-                        Snippet selectedSnippet = listView.getSelectionModel().getSelectedItem();
-                        snippetEventHandler.onSnippet(selectedSnippet);
-                    }
-                });
-                TitledPane pane = new TitledPane(snippetGroup.getTitle(), listView);
-                accordion.getPanes().add(pane);
+                visiblePanes.add(pane);
             }
         }
-        // Expand first panel in accordion.
-        Platform.runLater(()->{
-            if (!accordion.getPanes().isEmpty()) {
+        if (!accordion.getPanes().equals(visiblePanes)) {
+            accordion.getPanes().setAll(visiblePanes);
+        }
+        // Expand first panel in accordion if none is expanded.
+        Platform.runLater(() -> {
+            if (!accordion.getPanes().isEmpty() && !accordion.getPanes().contains(accordion.getExpandedPane())) {
                 TitledPane first = accordion.getPanes().get(0);
                 if (first != null) {
                     first.setExpanded(true);
@@ -91,7 +174,55 @@ public class SnippetView extends BaseView {
         });
     }
 
+    /**
+     * Get preview of snippet from cache, or render it in background if not rendered yet.
+     *
+     * @param snippet
+     * @param onRendered called in FX thread once the preview is rendered.
+     * @return cached preview, or null if the preview is not available now.
+     */
+    Image getPreview(Snippet snippet, Consumer<Image> onRendered) {
+        if (previewProvider == null || snippet.getCode() == null) {
+            return null;
+        }
+        String code = snippet.getCode();
+        Optional<Image> cached = previewCache.get(code);
+        if (cached != null) {
+            return cached.orElse(null);
+        }
+        synchronized (rendering) {
+            List<Consumer<Image>> callbacks = rendering.get(code);
+            if (callbacks != null) {
+                callbacks.add(onRendered); // being rendered
+                return null;
+            }
+            rendering.put(code, new ArrayList<>(List.of(onRendered)));
+        }
+        previewExecutor.execute(() -> {
+            Image rendered = null;
+            try {
+                rendered = previewProvider.render(snippet);
+            } catch (Exception e) {
+                log.warn("Failed to render preview of snippet: " + snippet.getTitle(), e);
+            }
+            previewCache.put(code, Optional.ofNullable(rendered));
+            List<Consumer<Image>> callbacks;
+            synchronized (rendering) {
+                callbacks = rendering.remove(code);
+            }
+            if (rendered != null) {
+                Image image = rendered;
+                Platform.runLater(() -> callbacks.forEach(callback -> callback.accept(image)));
+            }
+        });
+        return null;
+    }
+
     public void setSnippetEventHandler(SnippetEventHandler snippetEventHandler) {
         this.snippetEventHandler = snippetEventHandler;
     }
+
+    public void setPreviewProvider(SnippetPreviewProvider previewProvider) {
+        this.previewProvider = previewProvider;
+    }
 }
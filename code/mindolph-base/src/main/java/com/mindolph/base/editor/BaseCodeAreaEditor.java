@@ -5,10 +5,15 @@ import com.mindolph.base.constant.FontConstants;
 import com.mindolph.base.control.SearchableCodeArea;
 import com.mindolph.base.event.EventBus;
 import com.mindolph.base.event.NotificationType;
+import com.mindolph.base.event.StatusMsg;
+import com.mindolph.core.journal.EditJournal;
 import com.mindolph.core.search.Anchor;
+import com.mindolph.core.search.LineIndexedFile;
 import com.mindolph.core.search.TextAnchor;
 import com.mindolph.core.search.TextLocation;
 import com.mindolph.core.search.TextSearchOptions;
+import com.mindolph.core.util.AtomicFileUtils;
+import com.mindolph.mfx.dialog.DialogFactory;
 import com.mindolph.mfx.util.FontUtils;
 import com.mindolph.mfx.util.TextUtils;
 import javafx.application.Platform;
@@ -29,6 +34,13 @@ import java.io.IOException;
 import java.nio.charset.StandardCharsets;
 import java.util.Collection;
 import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 
 import static com.mindolph.base.control.ExtCodeArea.FEATURE.*;
 
@@ -42,6 +54,23 @@ public abstract class BaseCodeAreaEditor extends BaseEditor {
 
     private static final Logger log = LoggerFactory.getLogger(BaseCodeAreaEditor.class);
 
+    // files larger than this are opened in large file mode (read-only).
+    public static final long LARGE_FILE_SIZE = 16 * 1024 * 1024;
+
+    // files are saved one by one in background, the thread is daemon since the application exits with System.exit(),
+    // call awaitSaving() before exiting to let the saving complete.
+    private static final ExecutorService saveExecutor = Executors.newSingleThreadExecutor(r -> {
+        Thread t = new Thread(r, "file-saving");
+        t.setDaemon(true);
+        return t;
+    });
+
+    // records the unsaved edits for recovering from crash, null if the file is not in workspace.
+    private EditJournal journal;
+
+    // increases on each change of text, to tell whether the text is changed while saving.
+    private long editVersion;
+
     @FXML
     protected SearchableCodeArea codeArea;
 
@@ -119,7 +148,23 @@ public abstract class BaseCodeAreaEditor extends BaseEditor {
 
     @Override
     public void loadFile(Runnable afterLoading) throws IOException {
+        File file = editorContext.getFileData().getFile();
+        if (file.length() >= LARGE_FILE_SIZE) {
+            this.loadLargeFile(file, afterLoading);
+            return;
+        }
         String text = TextUtils.convertFromWindows(FileUtils.readFileToString(editorContext.getFileData().getFile(), StandardCharsets.UTF_8));
+        File journalFile = editorContext.getWorkspaceData() == null ? null
+                : EditJournal.journalFileOf(editorContext.getWorkspaceData().getFile(), file);
+        String recovered = null;
+        if (journalFile != null) {
+            try {
+                recovered = EditJournal.recover(journalFile, text);
+            } catch (IOException e) {
+                log.warn("Failed to recover from journal " + journalFile, e);
+            }
+        }
+        String recoveredText = recovered;
         Platform.runLater(() -> {
             this.codeArea.replaceText(text);
             this.codeArea.displaceCaret(0); // caret starts at head of the file.
@@ -132,6 +177,7 @@ public abstract class BaseCodeAreaEditor extends BaseEditor {
             // add text change listener should after CodeArea init content.
             this.codeArea.textProperty().addListener((observable, oldValue, newValue) -> {
                 if (!StringUtils.equals(oldValue, newValue)) {
+                    editVersion++;
                     this.codeArea.doHistory();
                     refresh(newValue);
                     isChanged = true;
@@ -139,24 +185,73 @@ public abstract class BaseCodeAreaEditor extends BaseEditor {
                     EventBus.getIns().notifyMenuStateChange(EventBus.MenuTag.UNDO, this.codeArea.getUndoManager().isUndoAvailable());
                 }
             });
-            this.codeArea.selectionProperty().addListener((observable, oldValue, newValue) -> {
-                log.trace("%s-%s within %d".formatted(newValue.getStart(), newValue.getEnd(), codeArea.getText().length()));
-                if (newValue.getEnd() > codeArea.getText().length()) {
-                    return; // there is a bug in RichTextFx, which is, when selection to the end of text, this listener will be called twice, and the first one is wrong.
+            this.listenSelection();
+            if (log.isTraceEnabled()) {
+                int i = 0;
+                for (Paragraph<Collection<String>, String, Collection<String>> paragraph : codeArea.getParagraphs()) {
+                    i++;
+                    log.trace("%d: %s".formatted(i, paragraph.getText()));
                 }
-                EventBus.getIns().notifyMenuStateChange(EventBus.MenuTag.CUT, newValue.getLength() > 0);
-                EventBus.getIns().notifyMenuStateChange(EventBus.MenuTag.COPY, newValue.getLength() > 0);
-            });
-            int i = 0;
-            for (Paragraph<Collection<String>, String, Collection<String>> paragraph : codeArea.getParagraphs()) {
-                i++;
-                if (log.isTraceEnabled()) log.trace("%d: %s".formatted(i, paragraph.getText()));
             }
+            if (journalFile != null) {
+                this.journal = EditJournal.open(journalFile, text);
+                this.codeArea.plainTextChanges().subscribe(ch -> {
+                    journal.record(ch.getPosition(), ch.getRemoved().length(), ch.getInserted());
+                });
+            }
+            afterLoading.run();
+            this.editorReadyEventHandler.onEditorReady();
+            if (recoveredText != null && !recoveredText.equals(text)
+                    && DialogFactory.yesNoConfirmDialog("Found unsaved changes of file %s, do you want to recover them?".formatted(file.getName()))) {
+                this.codeArea.replaceText(recoveredText); // the editor turns to changed state
+            }
+        });
+    }
+
+    /**
+     * Large file is opened from a memory-mapped and line-indexed file in read-only mode, the lines are loaded
+     * progressively. The features that process the whole text (like preview) are not available.
+     *
+     * @param file
+     * @param afterLoading
+     * @throws IOException
+     */
+    private void loadLargeFile(File file, Runnable afterLoading) throws IOException {
+        LineIndexedFile largeFile = new LineIndexedFile(file);
+        log.info("Open large file %s (%d bytes, %d lines) in read-only mode".formatted(file, largeFile.getSize(), largeFile.getLineCount()));
+        Platform.runLater(() -> {
+            this.onLargeFileLoading();
+            this.codeArea.loadLargeText(largeFile);
+            EventBus.getIns().notify(NotificationType.FILE_LOADED);
+            this.listenSelection();
+            EventBus.getIns().notifyStatusMsg(file, new StatusMsg("Large file is opened in read-only mode"));
             afterLoading.run();
             this.editorReadyEventHandler.onEditorReady();
         });
     }
 
+    /**
+     * Called before the large file is loaded, override me to turn off the features that can't work with large file.
+     */
+    protected void onLargeFileLoading() {
+        // INHERIT ME
+    }
+
+    protected boolean isLargeFile() {
+        return codeArea.isLargeText();
+    }
+
+    private void listenSelection() {
+        this.codeArea.selectionProperty().addListener((observable, oldValue, newValue) -> {
+            log.trace("%s-%s within %d".formatted(newValue.getStart(), newValue.getEnd(), codeArea.getLength()));
+            if (newValue.getEnd() > codeArea.getLength()) {
+                return; // there is a bug in RichTextFx, which is, when selection to the end of text, this listener will be called twice, and the first one is wrong.
+            }
+            EventBus.getIns().notifyMenuStateChange(EventBus.MenuTag.CUT, newValue.getLength() > 0);
+            EventBus.getIns().notifyMenuStateChange(EventBus.MenuTag.COPY, newValue.getLength() > 0);
+        });
+    }
+
     /**
      * Refresh anything from text if needed.
      *
@@ -182,9 +277,7 @@ public abstract class BaseCodeAreaEditor extends BaseEditor {
         if (anchor instanceof TextAnchor ta) {
             TextLocation tl = ta.getTextLocation();
             log.debug("Select range:  " + tl);
-            codeArea.selectRange(tl.getStartRow(), tl.getStartCol(), tl.getEndRow(), tl.getEndCol());
-            codeArea.scrollXToPixel(0);
-            codeArea.requestFollowCaret();
+            codeArea.selectLocation(tl.getStartRow(), tl.getStartCol(), tl.getEndRow(), tl.getEndCol());
         }
         else {
             log.warn("No anchor to locate");
@@ -268,13 +361,102 @@ public abstract class BaseCodeAreaEditor extends BaseEditor {
 
     @Override
     public void save() throws IOException {
-        log.info("Save file: " + editorContext.getFileData().getFile());
-        FileUtils.write(editorContext.getFileData().getFile(),
-                TextUtils.convertToWindows(codeArea.getText()), StandardCharsets.UTF_8);
+        CompletableFuture<Snapshot> saving = this.writeInBackground();
+        if (saving == null) {
+            return;
+        }
+        File file = editorContext.getFileData().getFile();
+        saving.whenComplete((snapshot, e) -> Platform.runLater(() -> {
+            if (e == null) {
+                this.onSaved(snapshot);
+            }
+            else {
+                DialogFactory.errDialog("Saving file %s failed: %s".formatted(file.getName(), e.getCause() == null ? e.getMessage() : e.getCause().getMessage()));
+            }
+        }));
+    }
+
+    @Override
+    public void saveAndWait() throws IOException {
+        CompletableFuture<Snapshot> saving = this.writeInBackground();
+        if (saving == null) {
+            return;
+        }
+        try {
+            this.onSaved(saving.get());
+        } catch (ExecutionException e) {
+            throw e.getCause() instanceof IOException ioe ? ioe : new IOException(e.getCause());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while saving file", e);
+        }
+    }
+
+    /**
+     * Wait until the files that are being saved in background are written, it should be called before the application exits.
+     *
+     * @param timeoutMillis
+     * @return false if the saving is not completed in time.
+     */
+    public static boolean awaitSaving(long timeoutMillis) {
+        try {
+            // the files are saved in order, so the files submitted before are written once this one is done.
+            saveExecutor.submit(() -> {
+            }).get(timeoutMillis, TimeUnit.MILLISECONDS);
+            return true;
+        } catch (TimeoutException e) {
+            log.warn("Saving files is not completed in %d ms".formatted(timeoutMillis));
+            return false;
+        } catch (ExecutionException e) {
+            return true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    /**
+     * Take the snapshot of text and write it in background, the file is replaced atomically.
+     *
+     * @return null if nothing to save.
+     */
+    private CompletableFuture<Snapshot> writeInBackground() {
+        if (isLargeFile()) {
+            log.debug("Large file is read-only, nothing to save");
+            return null;
+        }
+        File file = editorContext.getFileData().getFile();
+        log.info("Save file: " + file);
+        Snapshot snapshot = new Snapshot(codeArea.getText(), editVersion);
+        return CompletableFuture.supplyAsync(() -> {
+            try {
+                AtomicFileUtils.write(file, TextUtils.convertToWindows(snapshot.text), StandardCharsets.UTF_8);
+                return snapshot;
+            } catch (IOException e) {
+                log.error("Failed to save file " + file, e);
+                throw new CompletionException(e);
+            }
+        }, saveExecutor);
+    }
+
+    private void onSaved(Snapshot snapshot) {
+        if (journal != null) {
+            // the edits after the snapshot are kept in journal against the saved text.
+            journal.rebase(snapshot.text, codeArea.getText());
+        }
+        if (editVersion != snapshot.version) {
+            log.debug("Text is changed during saving");
+            return; // keep changed state
+        }
         super.isChanged = false;
         fileSavedEventHandler.onFileSaved(this.editorContext.getFileData());
     }
 
+    @Override
+    public void discardChanges() {
+        super.isChanged = false; // the journal is deleted on disposing
+    }
+
     @Override
     public void requestFocus() {
         Platform.runLater(() -> codeArea.requestFocus());
@@ -283,6 +465,10 @@ public abstract class BaseCodeAreaEditor extends BaseEditor {
     @Override
     public void dispose() {
         log.info("Dispose editor: %s".formatted(this.getClass().getName()));
+        if (journal != null) {
+            journal.close(!isChanged);
+            journal = null; // ignore the saving that completes after disposed
+        }
         codeArea.dispose();
     }
 
@@ -290,4 +476,11 @@ public abstract class BaseCodeAreaEditor extends BaseEditor {
     public String getSelectionText() {
         return codeArea.getSelectedText();
     }
+
+    /**
+     * @param text    text to save.
+     * @param version edit version of the text.
+     */
+    private record Snapshot(String text, long version) {
+    }
 }
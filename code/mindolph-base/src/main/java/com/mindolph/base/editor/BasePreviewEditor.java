@@ -124,7 +124,15 @@ public abstract class BasePreviewEditor extends BaseCodeAreaEditor implements Ed
 
     public void toggleOrientation() {
         fixedSplitPane.toggleOrientation();
-        this.refresh(codeArea.getText()); // ensure the preview fit
+        if (!isLargeFile()) {
+            this.refresh(codeArea.getText()); // ensure the preview fit
+        }
+    }
+
+    @Override
+    protected void onLargeFileLoading() {
+        // no preview for large file.
+        this.changeViewMode(ViewMode.TEXT_ONLY);
     }
 
 
@@ -152,7 +160,7 @@ public abstract class BasePreviewEditor extends BaseCodeAreaEditor implements Ed
 
     @Override
     protected void refresh(String text) {
-        if (viewMode != ViewMode.TEXT_ONLY) {
+        if (viewMode != ViewMode.TEXT_ONLY && !isLargeFile()) {
             refreshPreview(text, renderContent -> {
                 Platform.runLater(() -> {
                     render(renderContent);
@@ -67,6 +67,22 @@ public interface Editable {
 
     void save() throws IOException;
 
+    /**
+     * Save and wait until the file is written, for the cases that the file must be saved before next step,
+     * like closing the editor.
+     *
+     * @throws IOException
+     */
+    default void saveAndWait() throws IOException {
+        this.save();
+    }
+
+    /**
+     * Abandon the unsaved changes, like when user chooses not to save them on closing.
+     */
+    default void discardChanges() {
+    }
+
     void export();
 
     void dispose();
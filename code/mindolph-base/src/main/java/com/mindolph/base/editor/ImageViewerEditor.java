@@ -2,13 +2,19 @@ package com.mindolph.base.editor;
 
 import com.mindolph.base.EditorContext;
 import com.mindolph.base.control.ImageScrollPane;
+import com.mindolph.base.control.ScalableImageView;
+import com.mindolph.base.control.TiledImageSource;
 import com.mindolph.base.event.EventBus;
 import com.mindolph.base.event.StatusMsg;
 import com.mindolph.core.search.Anchor;
 import javafx.application.Platform;
 import javafx.fxml.FXML;
+import javafx.geometry.Dimension2D;
 import javafx.scene.image.Image;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
+import java.io.File;
 import java.io.FileInputStream;
 import java.io.IOException;
 
@@ -17,6 +23,11 @@ import java.io.IOException;
  */
 public class ImageViewerEditor extends BaseViewerEditor {
 
+    private static final Logger log = LoggerFactory.getLogger(ImageViewerEditor.class);
+
+    // max width and height of large image for printing, it's enough for a page at 300 DPI.
+    private static final int PRINT_SIZE = 4096;
+
     @FXML
     private ImageScrollPane scrollableImageView;
 
@@ -26,22 +37,42 @@ public class ImageViewerEditor extends BaseViewerEditor {
 
     @Override
     public void loadFile(Runnable afterLoading) throws IOException {
-        FileInputStream fileInputStream = new FileInputStream(editorContext.getFileData().getFile());
-        Image image = new Image(fileInputStream);
-        Platform.runLater(() -> {
-            scrollableImageView.setImage(image);
-            afterLoading.run();
-            showImageInfo(1.0f);
-        });
+        File file = editorContext.getFileData().getFile();
+        // large image is decoded as tiles on demand, only the low resolution preview is decoded here.
+        TiledImageSource source = null;
+        try {
+            source = TiledImageSource.open(file);
+        } catch (IOException e) {
+            log.warn("Failed to open image as tiles, load it as a whole", e);
+        }
+        if (source != null) {
+            TiledImageSource tiledSource = source;
+            Platform.runLater(() -> {
+                scrollableImageView.setImageSource(tiledSource);
+                afterLoading.run();
+                showImageInfo(1.0f);
+            });
+        }
+        else {
+            Image image;
+            try (FileInputStream fileInputStream = new FileInputStream(file)) {
+                image = new Image(fileInputStream);
+            }
+            Platform.runLater(() -> {
+                scrollableImageView.setImage(image);
+                afterLoading.run();
+                showImageInfo(1.0f);
+            });
+        }
         this.scrollableImageView.getScalableView().scaleProperty().addListener((observable, oldValue, newValue) -> {
             showImageInfo(newValue.doubleValue());
         });
     }
 
     private void showImageInfo(double scale) {
-        Image image = scrollableImageView.getImage();
-        double width = image.getWidth();
-        double height = image.getHeight();
+        ScalableImageView view = (ScalableImageView) scrollableImageView.getScalableView();
+        double width = view.getImageWidth();
+        double height = view.getImageHeight();
         String info = "%.0fx%.0f  %.0f%%".formatted(width, height, scale * 100);
         EventBus.getIns().notifyStatusMsg(editorContext.getFileData().getFile(), new StatusMsg(info));
     }
@@ -51,12 +82,37 @@ public class ImageViewerEditor extends BaseViewerEditor {
         // DO NOTHING.
     }
 
-    public Image getImage() {
+    /**
+     * @return image for printing, large image is decoded from the file in print resolution, which might be smaller
+     * than {@link #getImageSize()}.
+     * @throws IOException
+     */
+    public Image getImage() throws IOException {
+        TiledImageSource source = scrollableImageView.getImageSource();
+        if (source != null) {
+            return source.readWhole(PRINT_SIZE);
+        }
         return scrollableImageView.getImage();
     }
 
+    /**
+     * @return size of image in full resolution.
+     */
+    public Dimension2D getImageSize() {
+        ScalableImageView view = (ScalableImageView) scrollableImageView.getScalableView();
+        return new Dimension2D(view.getImageWidth(), view.getImageHeight());
+    }
+
     @Override
     public String getSelectionText() {
         return null;
     }
+
+    @Override
+    public void dispose() {
+        TiledImageSource source = scrollableImageView.getImageSource();
+        if (source != null) {
+            source.close();
+        }
+    }
 }
@@ -49,6 +49,9 @@ public class MarkdownCodeArea extends HighlightCodeArea {
 
     @Override
     public void refresh() {
+        if (isLargeTextMode()) {
+            return;
+        }
         this.setStyleSpans(0, computeHighlighting(this.getText()));
     }
 
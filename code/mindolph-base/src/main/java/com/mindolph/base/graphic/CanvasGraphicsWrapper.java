@@ -2,19 +2,17 @@ package com.mindolph.base.graphic;
 
 import com.mindolph.base.util.GeometryConvertUtils;
 import com.mindolph.base.constant.StrokeType;
-import javafx.geometry.Bounds;
 import javafx.geometry.Point2D;
 import javafx.geometry.Rectangle2D;
 import javafx.geometry.VPos;
 import javafx.scene.canvas.Canvas;
 import javafx.scene.canvas.GraphicsContext;
 import javafx.scene.image.Image;
-import javafx.scene.layout.StackPane;
 import javafx.scene.paint.Color;
 import javafx.scene.shape.*;
 import javafx.scene.text.Font;
-import javafx.scene.text.Text;
 import javafx.scene.text.TextAlignment;
+import javafx.stage.Window;
 
 /**
  *
@@ -213,6 +211,30 @@ public class CanvasGraphicsWrapper implements Graphics {
         }
     }
 
+    @Override
+    public void drawImage(Image image, double sx, double sy, double sw, double sh, double dx, double dy, double dw, double dh) {
+        if (image != null) {
+            gc.drawImage(image, sx, sy, sw, sh, dx, dy, dw, dh);
+        }
+    }
+
+    @Override
+    public boolean isRaster() {
+        return true;
+    }
+
+    @Override
+    public double getOutputScaleX() {
+        Window window = canvas.getScene() == null ? null : canvas.getScene().getWindow();
+        return window == null ? 1 : window.getOutputScaleX();
+    }
+
+    @Override
+    public double getOutputScaleY() {
+        Window window = canvas.getScene() == null ? null : canvas.getScene().getWindow();
+        return window == null ? 1 : window.getOutputScaleY();
+    }
+
     @Override
     public double getFontMaxAscent() {
         // use font size as max ascent for now.(as workaround for topic text bias in the exported PNG file) TODO
@@ -221,12 +243,7 @@ public class CanvasGraphicsWrapper implements Graphics {
 
     @Override
     public Rectangle2D getStringBounds(String s) {
-        Text text = new Text(s);
-        text.setFont(this.gc.getFont());
-        StackPane stackPane = new StackPane(text);
-        stackPane.layout();
-        Bounds layoutBounds = text.getLayoutBounds();
-        return new Rectangle2D(layoutBounds.getMinX(), layoutBounds.getMinY(), layoutBounds.getWidth(), layoutBounds.getHeight());
+        return TextMeasurer.getIns().measure(this.gc.getFont(), s);
     }
 
     @Override
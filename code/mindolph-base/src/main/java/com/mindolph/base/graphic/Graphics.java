@@ -4,6 +4,7 @@ import com.mindolph.base.constant.StrokeType;
 import javafx.geometry.Point2D;
 import javafx.geometry.Rectangle2D;
 import javafx.scene.image.Image;
+import javafx.scene.image.WritableImage;
 import javafx.scene.paint.Color;
 import javafx.scene.shape.Shape;
 import javafx.scene.text.Font;
@@ -46,6 +47,44 @@ public interface Graphics {
 
     void drawImage(Image image, double x, double y, double width, double height);
 
+    /**
+     * Draw part of the image (like an icon in atlas) to the destination rectangle.
+     *
+     * @param image
+     * @param sx    x of the source rectangle in the image
+     * @param sy    y of the source rectangle in the image
+     * @param sw
+     * @param sh
+     * @param dx
+     * @param dy
+     * @param dw
+     * @param dh
+     */
+    default void drawImage(Image image, double sx, double sy, double sw, double sh, double dx, double dy, double dw, double dh) {
+        this.drawImage(new WritableImage(image.getPixelReader(), (int) sx, (int) sy, (int) sw, (int) sh), dx, dy, dw, dh);
+    }
+
+    /**
+     * @return true if everything is drawn to pixels directly, pre-rendered bitmaps can be used instead of vector shapes or texts.
+     */
+    default boolean isRaster() {
+        return false;
+    }
+
+    /**
+     * @return how many device pixels a unit is drawn in horizontally (like 2 on HiDPI screens), 1 if unknown.
+     */
+    default double getOutputScaleX() {
+        return 1;
+    }
+
+    /**
+     * @return how many device pixels a unit is drawn in vertically (like 2 on HiDPI screens), 1 if unknown.
+     */
+    default double getOutputScaleY() {
+        return 1;
+    }
+
     void setFont(Font font);
 
     double getFontMaxAscent();
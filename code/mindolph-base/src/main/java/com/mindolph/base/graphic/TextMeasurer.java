@@ -0,0 +1,70 @@
+package com.mindolph.base.graphic;
+
+import javafx.geometry.Bounds;
+import javafx.geometry.Rectangle2D;
+import javafx.scene.text.Font;
+import javafx.scene.text.Text;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Measure the bounds of a single line of text with a font, without adding anything to the scene graph.
+ * The text is measured by a detached {@link Text} node, which (like any node) must be used in FX thread only,
+ * so the layout in background measures the elements in FX thread before calculating their positions.
+ * Measured results are cached by font and text, the texts of topics are measured again and again in each
+ * re-layout, but they seldom change.
+ *
+ * @author mindolph.com@gmail.com
+ * @see CanvasGraphicsWrapper#getStringBounds(String)
+ */
+public class TextMeasurer {
+
+    private static final TextMeasurer ins = new TextMeasurer();
+
+    private static final int MAX_CACHED = 20000;
+
+    private final Text measuringText = new Text();
+
+    // access-ordered for LRU
+    private final Map<Key, Rectangle2D> cache = new LinkedHashMap<>(1024, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Key, Rectangle2D> eldest) {
+            return size() > MAX_CACHED;
+        }
+    };
+
+    public static TextMeasurer getIns() {
+        return ins;
+    }
+
+    private TextMeasurer() {
+    }
+
+    /**
+     * Layout bounds of the text with the font, must be called in FX thread.
+     *
+     * @param font
+     * @param s    single line text.
+     * @return
+     */
+    public Rectangle2D measure(Font font, String s) {
+        Key key = new Key(font, s);
+        Rectangle2D bounds = cache.get(key);
+        if (bounds == null) {
+            measuringText.setFont(font);
+            measuringText.setText(s);
+            Bounds lb = measuringText.getLayoutBounds();
+            bounds = new Rectangle2D(lb.getMinX(), lb.getMinY(), lb.getWidth(), lb.getHeight());
+            cache.put(key, bounds);
+        }
+        return bounds;
+    }
+
+    public void clear() {
+        cache.clear();
+    }
+
+    private record Key(Font font, String text) {
+    }
+}
@@ -1,5 +1,6 @@
 package com.mindolph.base.plugin;
 
+import com.mindolph.core.collection.WordTrie;
 import org.apache.commons.lang3.RegExUtils;
 import org.apache.commons.lang3.StringUtils;
 import org.apache.commons.text.StringTokenizer;
@@ -7,6 +8,7 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
 
 import static com.mindolph.core.constant.SupportFileTypes.*;
 
@@ -36,21 +38,50 @@ public class ContextHelperPlugin implements Plugin {
     }
 
     /**
-     * Default context helper.
+     * Default context helper, the words of each editor are indexed in a trie with their frequencies.
      */
     public static class ContextHelper implements InputHelper {
-        private final Map<Object, List<String>> contextWordsMap = new HashMap<>();
+        private final Map<Object, WordTrie> contextWordsMap = new ConcurrentHashMap<>();
 
         @Override
         public List<String> getHelpWords(Object editorId) {
-            return contextWordsMap.get(editorId);
+            WordTrie trie = contextWordsMap.get(editorId);
+            return trie == null ? null : trie.complete(StringUtils.EMPTY, Integer.MAX_VALUE);
+        }
+
+        @Override
+        public List<String> getHelpWords(Object editorId, String prefix, int limit) {
+            WordTrie trie = contextWordsMap.get(editorId);
+            return trie == null ? new ArrayList<>() : trie.complete(prefix, limit);
         }
 
         @Override
         public void updateContextText(Object editorId, String text) {
+            WordTrie trie = new WordTrie();
+            trie.addAll(extractWords(text));
+            contextWordsMap.put(editorId, trie);
+            log.debug("%d context words updated.".formatted(trie.size()));
+        }
+
+        @Override
+        public void updateContextText(Object editorId, String oldText, String newText) {
+            WordTrie trie = contextWordsMap.computeIfAbsent(editorId, k -> new WordTrie());
+            trie.removeAll(extractWords(oldText));
+            trie.addAll(extractWords(newText));
+            log.trace("%d context words after updated.".formatted(trie.size()));
+        }
+
+        @Override
+        public void release(Object editorId) {
+            contextWordsMap.remove(editorId);
+        }
+
+        public static List<String> extractWords(String text) {
+            List<String> words = new ArrayList<>();
+            if (StringUtils.isEmpty(text)) {
+                return words;
+            }
             StringTokenizer st = new StringTokenizer(extractOnlyLetters(text));
-            List<String> words = contextWordsMap.computeIfAbsent(editorId, k -> new ArrayList<>());
-            words.clear();
             while (st.hasNext()) {
                 String token = st.nextToken();
                 if (StringUtils.isBlank(token) || token.length() < 2) {
@@ -58,7 +89,7 @@ public class ContextHelperPlugin implements Plugin {
                 }
                 words.add(token);
             }
-            log.debug("%d context words updated.".formatted(words.size()));
+            return words;
         }
 
         public static String extractOnlyLetters(String text) {
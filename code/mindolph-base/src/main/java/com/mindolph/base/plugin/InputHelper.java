@@ -1,5 +1,8 @@
 package com.mindolph.base.plugin;
 
+import org.apache.commons.lang3.StringUtils;
+
+import java.util.ArrayList;
 import java.util.List;
 
 /**
@@ -24,4 +27,43 @@ public interface InputHelper {
      * @param text
      */
     void updateContextText(Object editorId, String text);
+
+    /**
+     * Get help words that start with the prefix (case-insensitive) for the editor identified by editorId,
+     * the more relevant words come first.
+     *
+     * @param editorId
+     * @param prefix
+     * @param limit max number of words.
+     * @return
+     */
+    default List<String> getHelpWords(Object editorId, String prefix, int limit) {
+        List<String> allHelpWords = getHelpWords(editorId);
+        if (allHelpWords == null) {
+            return new ArrayList<>();
+        }
+        return allHelpWords.stream().filter(StringUtils::isNotBlank)
+                .filter(s -> StringUtils.startsWithIgnoreCase(s, prefix))
+                .sorted().distinct().limit(limit).toList();
+    }
+
+    /**
+     * Call this method when part of the context text has been changed, to update only the help words in the changed paragraphs.
+     *
+     * @param editorId
+     * @param oldText  the changed paragraphs before changing.
+     * @param newText  the changed paragraphs after changing.
+     */
+    default void updateContextText(Object editorId, String oldText, String newText) {
+        // DO NOTHING
+    }
+
+    /**
+     * Call this method when the editor identified by editorId is disposed, to release the help words for it.
+     *
+     * @param editorId
+     */
+    default void release(Object editorId) {
+        // DO NOTHING
+    }
 }
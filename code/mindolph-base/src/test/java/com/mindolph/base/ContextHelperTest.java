@@ -38,4 +38,20 @@ public class ContextHelperTest {
         Assertions.assertEquals(1, words.size());
         Assertions.assertEquals("hello_world", words.get(0));
     }
+
+    @Test
+    public void updateChangedContextText() {
+        ContextHelper ch = new ContextHelper();
+        ch.updateContextText("editorId", "hello world\nhello mindolph");
+        Assertions.assertEquals(List.of("hello"), ch.getHelpWords("editorId", "he", 10));
+        // paragraph "hello world" is changed to "help world"
+        ch.updateContextText("editorId", "hello world", "help world");
+        Assertions.assertEquals(List.of("hello", "help"), ch.getHelpWords("editorId", "HE", 10));
+        ch.updateContextText("editorId", "hello mindolph", "mindolph");
+        Assertions.assertEquals(List.of("help"), ch.getHelpWords("editorId", "he", 10));
+        Assertions.assertEquals(List.of("help", "mindolph", "world"), ch.getHelpWords("editorId", "", 10));
+
+        ch.release("editorId");
+        Assertions.assertNull(ch.getHelpWords("editorId"));
+    }
 }
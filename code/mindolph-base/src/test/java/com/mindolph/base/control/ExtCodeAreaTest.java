@@ -1,8 +1,11 @@
 package com.mindolph.base.control;
 
+import org.fxmisc.richtext.model.PlainTextChange;
 import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.Test;
 
+import java.util.List;
+
 /**
  * @author mindolph
  */
@@ -17,4 +20,21 @@ public class ExtCodeAreaTest {
         Assertions.assertEquals("world", ExtCodeArea.extractLastWord("hello\tworld"));
         Assertions.assertEquals("world", ExtCodeArea.extractLastWord("world"));
     }
+
+    @Test
+    public void toContextChange() {
+        // replacing all "foo" with "x" from the last one, like the replace-all does.
+        List<PlainTextChange> changes = List.of(new PlainTextChange(8, "foo", "x"),
+                new PlainTextChange(4, "foo", "x"), new PlainTextChange(0, "foo", "x"));
+        Assertions.assertArrayEquals(new String[]{"foo foo foo", "x x x"}, ExtCodeArea.toContextChange("x x x", changes));
+
+        // only the paragraphs around the changes.
+        changes = List.of(new PlainTextChange(13, "foo", "x"), new PlainTextChange(7, "foo", "x"));
+        Assertions.assertArrayEquals(new String[]{"a foo\nb foo", "a x\nb x"},
+                ExtCodeArea.toContextChange("head\na x\nb x\ntail", changes));
+
+        // changes in the order of positions, with the later ones shifted by the previous ones.
+        changes = List.of(new PlainTextChange(0, "foo", "x"), new PlainTextChange(2, "foo", "longer"));
+        Assertions.assertArrayEquals(new String[]{"foo foo", "x longer"}, ExtCodeArea.toContextChange("x longer", changes));
+    }
 }
@@ -0,0 +1,188 @@
+package com.mindolph.core.collection;
+
+import org.apache.commons.lang3.StringUtils;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.function.ObjIntConsumer;
+
+/**
+ * Trie of words with their frequencies, for completing words by prefix (case-insensitive).
+ * The words are stored as they are (case-sensitive), a word is removed once its frequency decreases to 0.
+ * It's thread-safe.
+ *
+ * @author mindolph.com@gmail.com
+ */
+public class WordTrie {
+
+    // more frequent first, then in alphabetical order.
+    private static final Comparator<Map.Entry<String, Integer>> RANKING =
+            Map.Entry.<String, Integer>comparingByValue().reversed().thenComparing(Map.Entry.comparingByKey());
+
+    private final Node root = new Node();
+
+    private int size;
+
+    /**
+     * Add an occurrence of word.
+     *
+     * @param word
+     */
+    public synchronized void add(String word) {
+        if (StringUtils.isEmpty(word)) {
+            return;
+        }
+        Node node = root;
+        for (int i = 0; i < word.length(); i++) {
+            node = node.children.computeIfAbsent(word.charAt(i), c -> new Node());
+        }
+        if (node.count++ == 0) {
+            size++;
+        }
+    }
+
+    public void addAll(Iterable<String> words) {
+        for (String word : words) {
+            this.add(word);
+        }
+    }
+
+    /**
+     * Remove an occurrence of word, the nodes that are not used any more are pruned.
+     *
+     * @param word
+     * @return false if the word doesn't exist.
+     */
+    public synchronized boolean remove(String word) {
+        if (StringUtils.isEmpty(word)) {
+            return false;
+        }
+        Node[] path = new Node[word.length() + 1];
+        path[0] = root;
+        for (int i = 0; i < word.length(); i++) {
+            path[i + 1] = path[i].children.get(word.charAt(i));
+            if (path[i + 1] == null) {
+                return false;
+            }
+        }
+        Node node = path[word.length()];
+        if (node.count == 0) {
+            return false;
+        }
+        if (--node.count == 0) {
+            size--;
+            for (int i = word.length(); i > 0 && path[i].count == 0 && path[i].children.isEmpty(); i--) {
+                path[i - 1].children.remove(word.charAt(i - 1));
+            }
+        }
+        return true;
+    }
+
+    public void removeAll(Iterable<String> words) {
+        for (String word : words) {
+            this.remove(word);
+        }
+    }
+
+    /**
+     * @param word
+     * @return frequency of the word.
+     */
+    public synchronized int count(String word) {
+        Node node = root;
+        for (int i = 0; node != null && i < word.length(); i++) {
+            node = node.children.get(word.charAt(i));
+        }
+        return node == null ? 0 : node.count;
+    }
+
+    /**
+     * Words start with the prefix (case-insensitive), the more frequent words come first.
+     *
+     * @param prefix
+     * @param limit  max number of words to return.
+     * @return
+     */
+    public List<String> complete(String prefix, int limit) {
+        if (limit <= 0) {
+            return new ArrayList<>();
+        }
+        // keep the top ranked words only, the head is the lowest ranked one.
+        PriorityQueue<Map.Entry<String, Integer>> top = new PriorityQueue<>(RANKING.reversed());
+        this.visit(prefix, (word, count) -> {
+            top.offer(Map.entry(word, count));
+            if (top.size() > limit) {
+                top.poll();
+            }
+        });
+        List<String> ret = new ArrayList<>(top.size());
+        while (!top.isEmpty()) {
+            ret.add(top.poll().getKey());
+        }
+        Collections.reverse(ret);
+        return ret;
+    }
+
+    /**
+     * Visit all the words start with the prefix (case-insensitive) with their frequencies.
+     *
+     * @param prefix
+     * @param visitor
+     */
+    public synchronized void visit(String prefix, ObjIntConsumer<String> visitor) {
+        StringBuilder buf = new StringBuilder();
+        this.visitPrefix(root, prefix == null ? "" : prefix, 0, buf, visitor);
+    }
+
+    private void visitPrefix(Node node, String prefix, int i, StringBuilder buf, ObjIntConsumer<String> visitor) {
+        if (i == prefix.length()) {
+            visitAll(node, buf, visitor);
+            return;
+        }
+        char c = prefix.charAt(i);
+        char lower = Character.toLowerCase(c);
+        char upper = Character.toUpperCase(c);
+        for (char candidate : lower == upper ? new char[]{c} : new char[]{lower, upper}) {
+            Node child = node.children.get(candidate);
+            if (child != null) {
+                buf.append(candidate);
+                visitPrefix(child, prefix, i + 1, buf, visitor);
+                buf.setLength(buf.length() - 1);
+            }
+        }
+    }
+
+    private void visitAll(Node node, StringBuilder buf, ObjIntConsumer<String> visitor) {
+        if (node.count > 0) {
+            visitor.accept(buf.toString(), node.count);
+        }
+        for (Map.Entry<Character, Node> entry : node.children.entrySet()) {
+            buf.append(entry.getKey().charValue());
+            visitAll(entry.getValue(), buf, visitor);
+            buf.setLength(buf.length() - 1);
+        }
+    }
+
+    /**
+     * @return number of distinct words.
+     */
+    public synchronized int size() {
+        return size;
+    }
+
+    public synchronized void clear() {
+        root.children.clear();
+        root.count = 0;
+        size = 0;
+    }
+
+    private static class Node {
+        private final Map<Character, Node> children = new HashMap<>(4);
+        private int count;
+    }
+}
@@ -11,7 +11,7 @@ public interface FolderConstants {
     /**
      * Exclude folders and all theirs sub folders.
      */
-    List<String> EXCLUDE_DIRS = Arrays.asList(".git", ".svn");
+    List<String> EXCLUDE_DIRS = Arrays.asList(".git", ".svn", ".mindolph");
 
     static void main(String[] args) {
         System.out.println(EXCLUDE_DIRS.contains(".git"));
@@ -0,0 +1,261 @@
+package com.mindolph.core.journal;
+
+import org.apache.commons.lang3.StringUtils;
+import org.apache.commons.lang3.math.NumberUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardOpenOption;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Journal of the unsaved edits of a text file, to recover the unsaved work after a crash.
+ * The edits are recorded as deltas (position, removed length and inserted text) against a base text,
+ * which is the text of the file when it was loaded or saved last time. The recorded deltas are appended to
+ * the journal file periodically in background, the journal is discarded once the file is saved.
+ * <pre>
+ * Format:
+ * MINDOLPH-JOURNAL 1 {length of base} {hash of base}
+ * {position} {removed length} {inserted length}
+ * {inserted text}
+ * ...
+ * </pre>
+ * The journal files are kept in the meta folder of workspace.
+ *
+ * @author mindolph.com@gmail.com
+ */
+public class EditJournal {
+
+    private static final Logger log = LoggerFactory.getLogger(EditJournal.class);
+
+    public static final String META_DIR = ".mindolph";
+    private static final String HEADER = "MINDOLPH-JOURNAL 1";
+    private static final int FLUSH_INTERVAL_IN_SECONDS = 2;
+
+    private static final Set<EditJournal> opened = ConcurrentHashMap.newKeySet();
+    private static final ScheduledExecutorService flusher = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread t = new Thread(r, "edit-journal");
+        t.setDaemon(true);
+        return t;
+    });
+
+    static {
+        flusher.scheduleWithFixedDelay(EditJournal::flushAll, FLUSH_INTERVAL_IN_SECONDS, FLUSH_INTERVAL_IN_SECONDS, TimeUnit.SECONDS);
+    }
+
+    private final File journalFile;
+    // guarded by this
+    private StringBuilder pending = new StringBuilder();
+    private String header;
+    // the journal file is written with the header of current base.
+    private boolean headerWritten;
+    // the journal file (if exists) is based on an old text.
+    private boolean outdated;
+
+    private EditJournal(File journalFile) {
+        this.journalFile = journalFile;
+    }
+
+    /**
+     * Open journal for recording, the existing journal file is replaced when the first edit is flushed.
+     *
+     * @param journalFile
+     * @param baseText
+     * @return
+     */
+    public static EditJournal open(File journalFile, String baseText) {
+        EditJournal journal = new EditJournal(journalFile);
+        journal.rebase(baseText);
+        opened.add(journal);
+        return journal;
+    }
+
+    /**
+     * Journal file of a file in workspace.
+     *
+     * @param workspaceDir
+     * @param file
+     * @return
+     */
+    public static File journalFileOf(File workspaceDir, File file) {
+        String relativePath = workspaceDir.toPath().relativize(file.toPath()).toString();
+        String name = "%s.%08x.journal".formatted(file.getName(), relativePath.hashCode());
+        return new File(new File(workspaceDir, META_DIR), "journal" + File.separator + name);
+    }
+
+    /**
+     * Record an edit of text.
+     *
+     * @param position
+     * @param removedLength
+     * @param inserted
+     */
+    public synchronized void record(int position, int removedLength, String inserted) {
+        pending.append(position).append(' ').append(removedLength).append(' ').append(inserted.length()).append('\n')
+                .append(inserted).append('\n');
+    }
+
+    /**
+     * Start over with a new base text, like after the file is saved. The unflushed edits are discarded.
+     *
+     * @param baseText
+     */
+    public synchronized void rebase(String baseText) {
+        this.header = "%s %d %d\n".formatted(HEADER, baseText.length(), baseText.hashCode());
+        this.pending = new StringBuilder();
+        this.headerWritten = false;
+        this.outdated = true;
+    }
+
+    /**
+     * Start over with a new base text and keep the difference to current text as an edit, like after the file is
+     * saved while it's still being edited.
+     *
+     * @param baseText
+     * @param currentText
+     */
+    public synchronized void rebase(String baseText, String currentText) {
+        this.rebase(baseText);
+        if (!baseText.equals(currentText)) {
+            int prefix = 0;
+            int max = Math.min(baseText.length(), currentText.length());
+            while (prefix < max && baseText.charAt(prefix) == currentText.charAt(prefix)) {
+                prefix++;
+            }
+            int suffix = 0;
+            while (suffix < max - prefix
+                    && baseText.charAt(baseText.length() - 1 - suffix) == currentText.charAt(currentText.length() - 1 - suffix)) {
+                suffix++;
+            }
+            this.record(prefix, baseText.length() - prefix - suffix, currentText.substring(prefix, currentText.length() - suffix));
+        }
+    }
+
+    /**
+     * Append the recorded edits to the journal file.
+     *
+     * @throws IOException
+     */
+    public void flush() throws IOException {
+        String toWrite;
+        boolean truncate;
+        synchronized (this) {
+            if (pending.isEmpty()) {
+                if (outdated) {
+                    outdated = false;
+                    synchronized (journalFile) {
+                        Files.deleteIfExists(journalFile.toPath()); // nothing edited since base
+                    }
+                }
+                return;
+            }
+            truncate = !headerWritten;
+            toWrite = truncate ? header + pending : pending.toString();
+            pending = new StringBuilder();
+            headerWritten = true;
+            outdated = false;
+        }
+        synchronized (journalFile) {
+            journalFile.getParentFile().mkdirs();
+            StandardOpenOption mode = truncate ? StandardOpenOption.TRUNCATE_EXISTING : StandardOpenOption.APPEND;
+            try (FileChannel channel = FileChannel.open(journalFile.toPath(), StandardOpenOption.CREATE, StandardOpenOption.WRITE, mode)) {
+                ByteBuffer buf = StandardCharsets.UTF_8.encode(toWrite);
+                while (buf.hasRemaining()) {
+                    channel.write(buf);
+                }
+                channel.force(false);
+            }
+        }
+    }
+
+    /**
+     * Stop recording.
+     *
+     * @param discard true to delete the journal file, like when the file is saved or the changes are abandoned.
+     */
+    public void close(boolean discard) {
+        opened.remove(this);
+        try {
+            if (discard) {
+                synchronized (journalFile) {
+                    Files.deleteIfExists(journalFile.toPath());
+                }
+            }
+            else {
+                this.flush();
+            }
+        } catch (IOException e) {
+            log.warn("Failed to close journal " + journalFile, e);
+        }
+    }
+
+    private static void flushAll() {
+        for (EditJournal journal : opened) {
+            try {
+                journal.flush();
+            } catch (Exception e) {
+                log.warn("Failed to flush journal " + journal.journalFile, e);
+            }
+        }
+    }
+
+    /**
+     * Recover the text by replaying the journal on the base text, the incomplete edit at the end (if crashed during
+     * writing) is ignored.
+     *
+     * @param journalFile
+     * @param baseText    current text of the file.
+     * @return null if no journal, or the journal is not based on the text.
+     * @throws IOException
+     */
+    public static String recover(File journalFile, String baseText) throws IOException {
+        if (!journalFile.exists()) {
+            return null;
+        }
+        // not Files.readString() which fails on the bytes of a character that is partly written.
+        String journal = new String(Files.readAllBytes(journalFile.toPath()), StandardCharsets.UTF_8);
+        String header = "%s %d %d\n".formatted(HEADER, baseText.length(), baseText.hashCode());
+        if (!journal.startsWith(header)) {
+            log.debug("Journal %s is not based on current file".formatted(journalFile));
+            return null;
+        }
+        StringBuilder text = new StringBuilder(baseText);
+        int i = header.length();
+        while (i < journal.length()) {
+            int lineEnd = journal.indexOf('\n', i);
+            if (lineEnd < 0) {
+                break;
+            }
+            String[] nums = StringUtils.split(journal.substring(i, lineEnd), ' ');
+            if (nums.length != 3) {
+                break;
+            }
+            int position = NumberUtils.toInt(nums[0], -1);
+            int removedLength = NumberUtils.toInt(nums[1], -1);
+            int insertedLength = NumberUtils.toInt(nums[2], -1);
+            int insertedStart = lineEnd + 1;
+            int insertedEnd = insertedStart + insertedLength;
+            if (position < 0 || removedLength < 0 || insertedLength < 0 || insertedEnd >= journal.length() || journal.charAt(insertedEnd) != '\n'
+                    || position + removedLength > text.length()) {
+                break; // incomplete or broken
+            }
+            text.replace(position, position + removedLength, journal.substring(insertedStart, insertedEnd));
+            i = insertedEnd + 1;
+        }
+        return text.toString();
+    }
+
+    public File getJournalFile() {
+        return journalFile;
+    }
+}
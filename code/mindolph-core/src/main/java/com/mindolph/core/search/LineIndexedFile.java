@@ -0,0 +1,209 @@
+package com.mindolph.core.search;
+
+import org.apache.commons.lang3.StringUtils;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+/**
+ * Read-only UTF-8 text file which is memory-mapped and indexed by lines, for the files that are too large
+ * to be loaded as a whole string.
+ * The lines are read (and searched) from the mapped file on demand, the line breaks of Windows are treated as "\n".
+ * Close it once it's no longer used, the mapped buffers are released (and the file is unlocked on Windows) when they
+ * are garbage collected, which can't happen while they are referenced.
+ *
+ * @author mindolph.com@gmail.com
+ */
+public class LineIndexedFile implements Closeable {
+
+    // a mapped buffer is limited to 2GB, large files are mapped in chunks.
+    private static final long CHUNK_SIZE = 1L << 30;
+
+    private final File file;
+    private final long size;
+    // null after closed.
+    private volatile MappedByteBuffer[] chunks;
+    // offsets of the start of each line.
+    private long[] lineStarts = new long[1024];
+    private int lineCount;
+
+    public LineIndexedFile(File file) throws IOException {
+        this.file = file;
+        // the mapping remains valid after the channel is closed.
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            this.size = channel.size();
+            MappedByteBuffer[] mapped = new MappedByteBuffer[(int) ((size + CHUNK_SIZE - 1) / CHUNK_SIZE)];
+            for (int i = 0; i < mapped.length; i++) {
+                long start = i * CHUNK_SIZE;
+                mapped[i] = channel.map(FileChannel.MapMode.READ_ONLY, start, Math.min(CHUNK_SIZE, size - start));
+            }
+            this.chunks = mapped;
+        }
+        this.index();
+    }
+
+    private void index() {
+        this.addLineStart(0);
+        long pos = 0;
+        for (MappedByteBuffer chunk : chunks) {
+            int limit = chunk.limit();
+            for (int i = 0; i < limit; i++) {
+                if (chunk.get(i) == '\n') {
+                    this.addLineStart(pos + i + 1);
+                }
+            }
+            pos += limit;
+        }
+    }
+
+    private void addLineStart(long offset) {
+        if (lineCount == lineStarts.length) {
+            lineStarts = Arrays.copyOf(lineStarts, lineStarts.length * 2);
+        }
+        lineStarts[lineCount++] = offset;
+    }
+
+    /**
+     * Text of a line without the line break.
+     *
+     * @param row
+     * @return
+     */
+    public String getLine(int row) {
+        long start = lineStarts[row];
+        long end = row + 1 < lineCount ? lineStarts[row + 1] - 1 : size;
+        if (end > start && byteAt(end - 1) == '\r') {
+            end--;
+        }
+        return new String(read(start, (int) (end - start)), StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Text of lines joined with "\n".
+     *
+     * @param fromRow inclusive
+     * @param toRow   exclusive
+     * @return
+     */
+    public String getLines(int fromRow, int toRow) {
+        StringBuilder sb = new StringBuilder();
+        for (int i = fromRow; i < Math.min(toRow, lineCount); i++) {
+            if (i > fromRow) {
+                sb.append('\n');
+            }
+            sb.append(this.getLine(i));
+        }
+        return sb.toString();
+    }
+
+    /**
+     * Locate next matching keyword from the position (inclusive), the keyword can't cross lines.
+     *
+     * @param keyword
+     * @param row
+     * @param col
+     * @param caseSensitive
+     * @return null if not found.
+     */
+    public TextLocation locateNext(String keyword, int row, int col, boolean caseSensitive) {
+        if (StringUtils.isEmpty(keyword)) {
+            return null;
+        }
+        for (int i = Math.max(0, row); i < lineCount; i++) {
+            String line = this.getLine(i);
+            int from = i == row ? col : 0;
+            int idx = caseSensitive ? StringUtils.indexOf(line, keyword, from) : StringUtils.indexOfIgnoreCase(line, keyword, from);
+            if (idx >= 0) {
+                return new TextLocation(i, idx, i, idx + keyword.length() - 1);
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Locate previous matching keyword which starts before or at the position, the keyword can't cross lines.
+     *
+     * @param keyword
+     * @param row
+     * @param col     negative to search from the end of previous line.
+     * @param caseSensitive
+     * @return null if not found.
+     */
+    public TextLocation locatePrev(String keyword, int row, int col, boolean caseSensitive) {
+        if (StringUtils.isEmpty(keyword)) {
+            return null;
+        }
+        for (int i = Math.min(row, lineCount - 1); i >= 0; i--) {
+            String line = this.getLine(i);
+            int from = i == row ? col : line.length();
+            if (from < 0) {
+                continue;
+            }
+            int idx = caseSensitive ? StringUtils.lastIndexOf(line, keyword, from) : StringUtils.lastIndexOfIgnoreCase(line, keyword, from);
+            if (idx >= 0) {
+                return new TextLocation(i, idx, i, idx + keyword.length() - 1);
+            }
+        }
+        return null;
+    }
+
+    private byte byteAt(long pos) {
+        return this.getChunks()[(int) (pos / CHUNK_SIZE)].get((int) (pos % CHUNK_SIZE));
+    }
+
+    private byte[] read(long start, int len) {
+        MappedByteBuffer[] chunks = this.getChunks();
+        byte[] bytes = new byte[len];
+        int copied = 0;
+        while (copied < len) {
+            long pos = start + copied;
+            MappedByteBuffer chunk = chunks[(int) (pos / CHUNK_SIZE)];
+            int offset = (int) (pos % CHUNK_SIZE);
+            int n = Math.min(len - copied, chunk.limit() - offset);
+            chunk.get(offset, bytes, copied, n);
+            copied += n;
+        }
+        return bytes;
+    }
+
+    private MappedByteBuffer[] getChunks() {
+        MappedByteBuffer[] mapped = this.chunks;
+        if (mapped == null) {
+            throw new IllegalStateException("File is closed: " + file);
+        }
+        return mapped;
+    }
+
+    /**
+     * Drop the references to the mapped buffers, the lines can't be read after closed.
+     */
+    @Override
+    public void close() {
+        this.chunks = null;
+    }
+
+    public boolean isClosed() {
+        return chunks == null;
+    }
+
+    public File getFile() {
+        return file;
+    }
+
+    /**
+     * @return size of file in bytes.
+     */
+    public long getSize() {
+        return size;
+    }
+
+    public int getLineCount() {
+        return lineCount;
+    }
+}
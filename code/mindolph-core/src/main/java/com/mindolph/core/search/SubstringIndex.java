@@ -0,0 +1,92 @@
+package com.mindolph.core.search;
+
+import org.apache.commons.lang3.StringUtils;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Index of items by their texts for case-insensitive substring search. Every trigram of the texts is mapped to
+ * the items that contain it, so that only the items containing all the trigrams of keyword are checked.
+ * The first text of an item is the title, items with title starts with keyword come first in search results.
+ * Items can only be added, rebuild the index if the items change.
+ *
+ * @param <T> type of item.
+ * @author mindolph.com@gmail.com
+ */
+public class SubstringIndex<T> {
+
+    private static final int GRAM = 3;
+
+    private final List<T> items = new ArrayList<>();
+    // lower-cased texts of items, the first one is the title.
+    private final List<String[]> texts = new ArrayList<>();
+    private final Map<String, BitSet> postings = new HashMap<>();
+
+    /**
+     * @param item
+     * @param texts the first text is the title, null is ignored.
+     */
+    public synchronized void add(T item, String... texts) {
+        int id = items.size();
+        String[] lowers = new String[texts.length];
+        for (int i = 0; i < texts.length; i++) {
+            lowers[i] = texts[i] == null ? StringUtils.EMPTY : texts[i].toLowerCase(Locale.ROOT);
+            for (int j = 0; j + GRAM <= lowers[i].length(); j++) {
+                postings.computeIfAbsent(lowers[i].substring(j, j + GRAM), k -> new BitSet()).set(id);
+            }
+        }
+        items.add(item);
+        this.texts.add(lowers);
+    }
+
+    /**
+     * @param keyword
+     * @return items that contain the keyword in any of their texts, all items if keyword is blank.
+     */
+    public synchronized List<T> search(String keyword) {
+        if (StringUtils.isBlank(keyword)) {
+            return new ArrayList<>(items);
+        }
+        String lower = keyword.toLowerCase(Locale.ROOT);
+        BitSet candidates = new BitSet();
+        candidates.set(0, items.size());
+        for (int j = 0; j + GRAM <= lower.length() && !candidates.isEmpty(); j++) {
+            BitSet posting = postings.get(lower.substring(j, j + GRAM));
+            if (posting == null) {
+                return new ArrayList<>();
+            }
+            candidates.and(posting);
+        }
+        List<T> titleMatched = new ArrayList<>();
+        List<T> others = new ArrayList<>();
+        for (int id = candidates.nextSetBit(0); id >= 0; id = candidates.nextSetBit(id + 1)) {
+            String[] lowers = texts.get(id);
+            if (lowers.length > 0 && lowers[0].startsWith(lower)) {
+                titleMatched.add(items.get(id));
+            }
+            else if (this.contains(lowers, lower)) {
+                others.add(items.get(id));
+            }
+        }
+        titleMatched.addAll(others);
+        return titleMatched;
+    }
+
+    public synchronized int size() {
+        return items.size();
+    }
+
+    private boolean contains(String[] lowers, String keyword) {
+        for (String text : lowers) {
+            if (text.contains(keyword)) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
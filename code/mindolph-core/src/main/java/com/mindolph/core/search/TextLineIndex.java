@@ -0,0 +1,138 @@
+package com.mindolph.core.search;
+
+import java.util.Arrays;
+
+/**
+ * Index of the start offsets of lines in text, which can be patched with the edits of text instead of rebuilding.
+ * The start offsets are kept in a gap buffer: offsets before the gap are absolute, offsets after the gap are
+ * relative to the end of text, so that an edit only changes the lines in the edited range (and the gap is moved to
+ * there, which is cheap since the edits are usually close to each other).
+ * Converting between offset and line is done by binary search.
+ *
+ * @author mindolph.com@gmail.com
+ */
+public class TextLineIndex {
+
+    private int[] starts = new int[16];
+    private int gapStart;
+    private int gapEnd;
+    private int length;
+
+    public TextLineIndex() {
+        this.reset("");
+    }
+
+    /**
+     * Rebuild the index for the text.
+     *
+     * @param text
+     */
+    public void reset(CharSequence text) {
+        gapStart = 0;
+        gapEnd = starts.length;
+        length = 0;
+        this.insertLineStart(0);
+        this.length = text.length();
+        for (int i = 0; i < text.length(); i++) {
+            if (text.charAt(i) == '\n') {
+                this.insertLineStart(i + 1);
+            }
+        }
+    }
+
+    /**
+     * Patch the index with an edit of text.
+     *
+     * @param position      where the edit happens.
+     * @param removedLength length of the removed text.
+     * @param inserted      inserted text.
+     */
+    public void update(int position, int removedLength, CharSequence inserted) {
+        if (position < 0 || position + removedLength > length) {
+            throw new IndexOutOfBoundsException("Edit %d-%d is out of text length %d".formatted(position, position + removedLength, length));
+        }
+        // the lines start after the position are after the gap.
+        this.moveGap(this.lineOf(position) + 1);
+        // drop the lines that start in removed text.
+        int removedEnd = position + removedLength;
+        while (gapEnd < starts.length && length - starts[gapEnd] <= removedEnd) {
+            gapEnd++;
+        }
+        length += inserted.length() - removedLength;
+        for (int i = 0; i < inserted.length(); i++) {
+            if (inserted.charAt(i) == '\n') {
+                this.insertLineStart(position + i + 1);
+            }
+        }
+    }
+
+    /**
+     * @return number of lines, at least 1.
+     */
+    public int getLineCount() {
+        return starts.length - (gapEnd - gapStart);
+    }
+
+    /**
+     * @return length of the indexed text.
+     */
+    public int getLength() {
+        return length;
+    }
+
+    /**
+     * @param line
+     * @return offset of the first character of the line.
+     */
+    public int getLineStart(int line) {
+        return line < gapStart ? starts[line] : length - starts[line + gapEnd - gapStart];
+    }
+
+    /**
+     * @param line
+     * @return offset of the line break of the line, or length of text for the last line.
+     */
+    public int getLineEnd(int line) {
+        return line + 1 < getLineCount() ? getLineStart(line + 1) - 1 : length;
+    }
+
+    /**
+     * @param offset
+     * @return index of line that contains the offset (the line break belongs to the line before it).
+     */
+    public int lineOf(int offset) {
+        int low = 0;
+        int high = getLineCount() - 1;
+        while (low < high) {
+            int mid = (low + high + 1) >>> 1;
+            if (getLineStart(mid) <= offset) {
+                low = mid;
+            }
+            else {
+                high = mid - 1;
+            }
+        }
+        return low;
+    }
+
+    private void moveGap(int index) {
+        // the relative offsets are based on current length.
+        while (gapStart > index) {
+            starts[--gapEnd] = length - starts[--gapStart];
+        }
+        while (gapStart < index) {
+            starts[gapStart++] = length - starts[gapEnd++];
+        }
+    }
+
+    private void insertLineStart(int offset) {
+        if (gapStart == gapEnd) {
+            int tail = starts.length - gapEnd;
+            int[] grown = Arrays.copyOf(starts, Math.max(16, starts.length * 2));
+            System.arraycopy(starts, gapEnd, grown, grown.length - tail, tail);
+            gapEnd = grown.length - tail;
+            starts = grown;
+        }
+        starts[gapStart++] = offset;
+    }
+}
@@ -1,16 +1,10 @@
 package com.mindolph.core.search;
 
-import org.apache.commons.lang3.Range;
 import org.apache.commons.lang3.StringUtils;
 import org.apache.commons.lang3.function.TriFunction;
 import org.apache.commons.lang3.tuple.Pair;
 import org.swiftboot.util.TextUtils;
 
-import java.util.ArrayList;
-import java.util.List;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
-
 /**
  * Navigation in text forward and backward.
  *
@@ -19,9 +13,10 @@ import java.util.regex.Pattern;
 public class TextNavigator {
 
     private String text;
-    protected List<String> lines;
-    protected final List<Range<Integer>> ranges = new ArrayList<>();
+    protected final TextLineIndex lineIndex = new TextLineIndex();
     private Integer cursor;
+    // true if the line index has been patched by update() for the text that is not set yet.
+    private boolean indexPatched;
 
     /**
      * Set text for navigating, if totally new text, set resetCursor to be true
@@ -30,21 +25,34 @@ public class TextNavigator {
      * @param resetCursor false if not reset cursor for some cases like text replacement.
      */
     public void setText(String text, boolean resetCursor) {
-        if (!StringUtils.equals(this.text, text)) {
+        if (indexPatched) {
+            indexPatched = false;
             this.text = text;
-            Pattern linePattern = Pattern.compile("\n");
-            Matcher matcher = linePattern.matcher(text);
-            int last = 0;
-            ranges.clear();
-            while (matcher.find()) {
-                ranges.add(Range.between(last, matcher.start()));
-                last = matcher.end();
+            if (lineIndex.getLength() != text.length()) {
+                lineIndex.reset(text); // not the text that the edits were applied to
             }
-            ranges.add(Range.between(last, text.length()));
+        }
+        else if (!StringUtils.equals(this.text, text)) {
+            this.text = text;
+            lineIndex.reset(text);
         }
         if (resetCursor) cursor = null; // reset the cursor
     }
 
+    /**
+     * Update with an edit of text, only the line index is patched, the text after the edits must be set by
+     * {@link #setText(String, boolean)} before locating, and the patched line index is kept for it.
+     *
+     * @param position
+     * @param removedLength
+     * @param inserted
+     */
+    public void update(int position, int removedLength, String inserted) {
+        this.text = null;
+        indexPatched = true;
+        lineIndex.update(position, removedLength, inserted);
+    }
+
     /**
      * move cursor forward (offset > 0) or backward (offset < 0).
      *
@@ -71,14 +79,8 @@ public class TextNavigator {
      */
     public void moveCursor(int row, int col) {
         // the requested row and col must be in the range, otherwise exception
-        if (row < ranges.size()) {
-            Range<Integer> range = ranges.get(row);
-            if (col < range.getMaximum()) {
-                cursor = range.getMinimum() + col;
-            }
-            else {
-                cursor = range.getMaximum();
-            }
+        if (row < lineIndex.getLineCount()) {
+            cursor = Math.min(lineIndex.getLineStart(row) + col, lineIndex.getLineEnd(row));
         }
     }
 
@@ -144,13 +146,10 @@ public class TextNavigator {
      * @return
      */
     private Pair<Integer, Integer> convert(int position) {
-        for (Range<Integer> range : ranges) {
-            if (range.contains(position)) {
-                return Pair.of(ranges.indexOf(range), position - range.getMinimum());
-            }
+        if (position < 0 || position > lineIndex.getLength()) {
+            return null;
         }
-        return null;
+        int row = lineIndex.lineOf(position);
+        return Pair.of(row, position - lineIndex.getLineStart(row));
     }
-
-
 }
@@ -14,9 +14,12 @@ import org.swiftboot.util.PathUtils;
 
 import java.io.File;
 import java.util.HashSet;
+import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 
 import static com.mindolph.core.template.ResourcePathType.ABSOLUTE;
+import static com.mindolph.core.template.ResourcePathType.CACHED;
 import static com.mindolph.core.template.ResourcePathType.RELATIVE;
 
 /**
@@ -40,11 +43,24 @@ public final class HtmlBuilder {
             function setScrollPos(xPos, yPos) {
                 window.scrollTo(xPos, yPos);
             }
+            function getHeadingTop(index) {
+                var headings = document.querySelectorAll('h1,h2,h3,h4,h5,h6');
+                return index >= 0 && index < headings.length ? headings[index].getBoundingClientRect().top + window.scrollY : -1;
+            }
+            function scrollToHeading(index) {
+                var headings = document.querySelectorAll('h1,h2,h3,h4,h5,h6');
+                if (index >= 0 && index < headings.length) {
+                    headings[index].scrollIntoView();
+                }
+            }
             console.log("scripts are ready");
             """;
 
     private static final Logger log = LoggerFactory.getLogger(HtmlBuilder.class);
 
+    // CSS content by resource uri, the resources don't change at runtime.
+    private static final Map<String, String> cssCache = new ConcurrentHashMap<>();
+
     private final String content;
 
     private String title;
@@ -61,6 +77,8 @@ public final class HtmlBuilder {
 
     private File pdfFontFile;
 
+    private String pdfFontFamily;
+
     private Set<File> images;
 
     /**
@@ -90,7 +108,7 @@ public final class HtmlBuilder {
      * @return
      */
     public HtmlBuilder css(String cssResourceUri) {
-        this.css = ClasspathResourceUtils.readResourceToString(cssResourceUri);
+        this.css = cssCache.computeIfAbsent(cssResourceUri, ClasspathResourceUtils::readResourceToString);
         return this;
     }
 
@@ -131,6 +149,24 @@ public final class HtmlBuilder {
         return this;
     }
 
+    /**
+     * Convert all local image's path to the URL served by {@link PreviewResourceHandler} (to display only),
+     * which doesn't change until the image file is modified.
+     * Only the images under the base dir or the workspace dir are served by the handler, the others (and all images
+     * if the handler is not available) fall back to absolute path.
+     *
+     * @param baseDir
+     * @param workspaceDir the workspace that the document belongs to, null if unknown.
+     * @return
+     */
+    public HtmlBuilder cachedUri(File baseDir, File workspaceDir) {
+        this.resourceBaseDir = baseDir;
+        PreviewResourceHandler.allow(baseDir);
+        PreviewResourceHandler.allow(workspaceDir);
+        this.resourcePathType = PreviewResourceHandler.isInstalled() ? CACHED : ABSOLUTE;
+        return this;
+    }
+
     /**
      * Class name for rendering markdown.
      *
@@ -153,6 +189,18 @@ public final class HtmlBuilder {
         return this;
     }
 
+    /**
+     * Font family for exporting PDF, the font must be registered to the PDF renderer with this family name,
+     * which avoids loading font file from html for every exporting.
+     *
+     * @param fontFamily
+     * @return
+     */
+    public HtmlBuilder pdfFontFamily(String fontFamily) {
+        this.pdfFontFamily = fontFamily;
+        return this;
+    }
+
     public Set<File> getImages() {
         return images;
     }
@@ -176,6 +224,14 @@ public final class HtmlBuilder {
             Elements imgs = doc.select("img");
             for (Element img : imgs) {
                 String src = img.attr("src");
+                if (resourcePathType == CACHED) {
+                    if (!StringUtils.contains(src, "://") && !StringUtils.startsWith(src, "data:")) {
+                        File imgFile = PreviewResourceCache.getIns().resolve(resourceBaseDir, src);
+                        img.attr("src", imgFile.exists() && PreviewResourceHandler.isAllowed(imgFile)
+                                ? PreviewResourceHandler.toUrl(imgFile) : "file://%s".formatted(imgFile.getPath()));
+                    }
+                    continue;
+                }
                 if (!PathUtils.isAbsolutePath(src)) {
                     // is relative path
                     src = StringUtils.startsWith(src, "./") ? StringUtils.substring(src, 2) : src;
@@ -242,6 +298,16 @@ public final class HtmlBuilder {
                     </style>
                     """.formatted(styles, fontFileUri);
         }
+        else if (StringUtils.isNotBlank(pdfFontFamily)) {
+            styles = """
+                    %s
+                    <style>
+                    * {
+                      font-family: '%s', sans-serif;
+                    }
+                    </style>
+                    """.formatted(styles, pdfFontFamily);
+        }
 
         String scripts = StringUtils.EMPTY;
         if (StringUtils.isNotBlank(onLoadFunction)) {
@@ -0,0 +1,188 @@
+package com.mindolph.core.template;
+
+import org.apache.commons.io.FileUtils;
+import org.apache.commons.io.FilenameUtils;
+import org.apache.commons.lang3.StringUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.swiftboot.util.PathUtils;
+
+import javax.imageio.ImageIO;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.Transparency;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+
+/**
+ * Cache of the local resources (mostly images) referenced by previewed documents, the resources are read (and
+ * downscaled if they are too large to display) only once until the files are modified.
+ * The cache is limited by the total size of cached data, the least recently used ones are evicted first.
+ *
+ * @author mindolph.com@gmail.com
+ * @see PreviewResourceHandler
+ */
+public class PreviewResourceCache {
+
+    private static final Logger log = LoggerFactory.getLogger(PreviewResourceCache.class);
+
+    // images larger than this (in either dimension) are downscaled for preview.
+    public static final int MAX_IMAGE_DIMENSION = 2048;
+
+    private static final long MAX_CACHE_SIZE = 64 * 1024 * 1024;
+
+    private static final PreviewResourceCache ins = new PreviewResourceCache();
+
+    private final LinkedHashMap<String, Resource> resources = new LinkedHashMap<>(64, 0.75f, true);
+
+    private long cacheSize;
+
+    public static PreviewResourceCache getIns() {
+        return ins;
+    }
+
+    /**
+     * Resolve the path of resource in document against the base dir.
+     *
+     * @param baseDir
+     * @param path    absolute path or relative path to the base dir.
+     * @return
+     */
+    public File resolve(File baseDir, String path) {
+        if (PathUtils.isAbsolutePath(path)) {
+            return new File(path);
+        }
+        String p = StringUtils.startsWith(path, "./") ? StringUtils.substring(path, 2) : path;
+        return new File(baseDir, p);
+    }
+
+    /**
+     * Get the resource data of file, it's loaded again only if the file is modified.
+     *
+     * @param file
+     * @return null if the file doesn't exist.
+     * @throws IOException
+     */
+    public Resource get(File file) throws IOException {
+        if (!file.isFile()) {
+            return null;
+        }
+        String key = file.getAbsolutePath();
+        long lastModified = file.lastModified();
+        long length = file.length();
+        synchronized (this) {
+            Resource resource = resources.get(key);
+            if (resource != null && resource.lastModified == lastModified && resource.fileLength == length) {
+                return resource;
+            }
+        }
+        // load without lock, the same file might be loaded twice concurrently which is harmless.
+        Resource resource = this.load(file, lastModified, length);
+        synchronized (this) {
+            Resource old = resources.put(key, resource);
+            if (old != null) {
+                cacheSize -= old.data.length;
+            }
+            cacheSize += resource.data.length;
+            this.evict();
+        }
+        return resource;
+    }
+
+    public synchronized void clear() {
+        resources.clear();
+        cacheSize = 0;
+    }
+
+    /**
+     * @return total size of cached data.
+     */
+    public synchronized long getCacheSize() {
+        return cacheSize;
+    }
+
+    private void evict() {
+        Iterator<Resource> it = resources.values().iterator();
+        // keep the latest one at least
+        while (cacheSize > MAX_CACHE_SIZE && resources.size() > 1 && it.hasNext()) {
+            cacheSize -= it.next().data.length;
+            it.remove();
+        }
+    }
+
+    private Resource load(File file, long lastModified, long length) throws IOException {
+        byte[] data = FileUtils.readFileToByteArray(file);
+        String contentType = contentTypeOf(file);
+        if (StringUtils.startsWith(contentType, "image/") && !"image/svg+xml".equals(contentType)) {
+            byte[] scaled = downscale(data, FilenameUtils.getExtension(file.getName()));
+            if (scaled != null) {
+                log.debug("Downscaled image %s from %d to %d bytes".formatted(file, data.length, scaled.length));
+                data = scaled;
+            }
+        }
+        log.trace("Loaded preview resource: " + file);
+        return new Resource(data, contentType, lastModified, length);
+    }
+
+    /**
+     * @param data
+     * @param format
+     * @return scaled image in the same format, or null if no need to downscale or the image can't be decoded or encoded.
+     */
+    private byte[] downscale(byte[] data, String format) {
+        try {
+            BufferedImage image = ImageIO.read(new ByteArrayInputStream(data));
+            if (image == null || "gif".equalsIgnoreCase(format)
+                    || (image.getWidth() <= MAX_IMAGE_DIMENSION && image.getHeight() <= MAX_IMAGE_DIMENSION)) {
+                return null; // animated gif is not downscaled to keep the animation.
+            }
+            double scale = (double) MAX_IMAGE_DIMENSION / Math.max(image.getWidth(), image.getHeight());
+            int w = Math.max(1, (int) (image.getWidth() * scale));
+            int h = Math.max(1, (int) (image.getHeight() * scale));
+            // formats like JPEG can't be written with alpha channel.
+            boolean opaque = image.getColorModel().getTransparency() == Transparency.OPAQUE;
+            BufferedImage scaled = new BufferedImage(w, h, opaque ? BufferedImage.TYPE_INT_RGB : BufferedImage.TYPE_INT_ARGB);
+            Graphics2D g = scaled.createGraphics();
+            g.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+            g.drawImage(image, 0, 0, w, h, null);
+            g.dispose();
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            if (!ImageIO.write(scaled, format, out)) {
+                log.debug("No writer for image format: " + format);
+                return null;
+            }
+            return out.toByteArray();
+        } catch (IOException e) {
+            log.warn("Failed to downscale image", e);
+            return null;
+        }
+    }
+
+    private static String contentTypeOf(File file) {
+        return switch (FilenameUtils.getExtension(file.getName()).toLowerCase()) {
+            case "png" -> "image/png";
+            case "jpg", "jpeg" -> "image/jpeg";
+            case "gif" -> "image/gif";
+            case "bmp" -> "image/bmp";
+            case "webp" -> "image/webp";
+            case "svg" -> "image/svg+xml";
+            case "css" -> "text/css";
+            case "js" -> "text/javascript";
+            default -> "application/octet-stream";
+        };
+    }
+
+    /**
+     * @param data         data to serve.
+     * @param contentType
+     * @param lastModified last modified time of file when loaded.
+     * @param fileLength   length of file when loaded.
+     */
+    public record Resource(byte[] data, String contentType, long lastModified, long fileLength) {
+    }
+}
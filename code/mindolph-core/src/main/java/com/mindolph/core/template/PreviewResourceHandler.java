@@ -0,0 +1,226 @@
+package com.mindolph.core.template;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.HttpURLConnection;
+import java.net.URI;
+import java.net.URL;
+import java.net.URLConnection;
+import java.net.URLStreamHandler;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Serves the local resources of previewed documents from {@link PreviewResourceCache} with URL like
+ * {@code mdres:/path/to/image.png?<last modified>-<length>}, the URL of a resource doesn't change until the file is
+ * modified, so that the web view can keep using what it has loaded (and decoded) when the page is reloaded.
+ * The connection is an HTTP one with validators ({@code ETag} and {@code Last-Modified}) derived from the modified
+ * time and size of file in headers, because the web view only takes the response headers from HTTP connections.
+ * <p>
+ * Only the files under the allowed directories (the directory of previewed document or the workspace, see
+ * {@link #allow(File)}) are served. The handler is registered by {@link PreviewResourceHandlerProvider}.
+ *
+ * @author mindolph.com@gmail.com
+ */
+public class PreviewResourceHandler extends URLStreamHandler {
+
+    private static final Logger log = LoggerFactory.getLogger(PreviewResourceHandler.class);
+
+    public static final String PROTOCOL = "mdres";
+
+    // the web view must revalidate the resource with the validators before using what it has loaded.
+    private static final String CACHE_CONTROL = "no-cache";
+
+    private static final Set<Path> allowedDirs = ConcurrentHashMap.newKeySet();
+
+    /**
+     * @return whether URL with the protocol can be opened.
+     */
+    public static boolean isInstalled() {
+        try {
+            new URL(PROTOCOL + ":/");
+            return true;
+        } catch (IOException e) {
+            return false;
+        }
+    }
+
+    /**
+     * Allow the files under the directory to be served, like the directory of previewed document or the workspace.
+     *
+     * @param dir
+     */
+    public static void allow(File dir) {
+        if (dir == null) {
+            return;
+        }
+        try {
+            allowedDirs.add(dir.getCanonicalFile().toPath());
+        } catch (IOException e) {
+            log.warn("Failed to allow directory: " + dir, e);
+        }
+    }
+
+    /**
+     * @param file
+     * @return whether the file is under any of the allowed directories.
+     */
+    public static boolean isAllowed(File file) {
+        try {
+            Path path = file.getCanonicalFile().toPath();
+            return allowedDirs.stream().anyMatch(path::startsWith);
+        } catch (IOException e) {
+            return false;
+        }
+    }
+
+    /**
+     * @param file
+     * @return URL to the file which changes only if the file is modified.
+     */
+    public static String toUrl(File file) {
+        return "%s:%s?%s".formatted(PROTOCOL, file.getAbsoluteFile().toURI().getRawPath(), versionOf(file.lastModified(), file.length()));
+    }
+
+    /**
+     * @param url
+     * @return the file that the URL points to.
+     */
+    public static File toFile(URL url) {
+        return new File(URI.create("file:" + url.getPath()));
+    }
+
+    private static String versionOf(long lastModified, long length) {
+        return "%d-%d".formatted(lastModified, length);
+    }
+
+    @Override
+    protected URLConnection openConnection(URL u) {
+        return new ResourceConnection(u);
+    }
+
+    private static class ResourceConnection extends HttpURLConnection {
+
+        private PreviewResourceCache.Resource resource;
+
+        private boolean notModified;
+
+        private ResourceConnection(URL url) {
+            super(url);
+        }
+
+        @Override
+        public void connect() throws IOException {
+            if (connected) {
+                return;
+            }
+            File file = toFile(url);
+            if (!isAllowed(file)) {
+                throw new FileNotFoundException("Not allowed to access: " + file.getPath());
+            }
+            resource = PreviewResourceCache.getIns().get(file);
+            if (resource == null) {
+                throw new FileNotFoundException(file.getPath());
+            }
+            // the web view revalidates what it has loaded with the validator.
+            String ifNoneMatch = super.getRequestProperty("If-None-Match");
+            notModified = ifNoneMatch != null && ifNoneMatch.contains(this.getETag());
+            connected = true;
+        }
+
+        @Override
+        public void disconnect() {
+            resource = null;
+            connected = false;
+        }
+
+        @Override
+        public boolean usingProxy() {
+            return false;
+        }
+
+        @Override
+        public int getResponseCode() throws IOException {
+            this.connect();
+            return notModified ? HTTP_NOT_MODIFIED : HTTP_OK;
+        }
+
+        @Override
+        public String getResponseMessage() throws IOException {
+            this.connect();
+            return notModified ? "Not Modified" : "OK";
+        }
+
+        @Override
+        public InputStream getInputStream() throws IOException {
+            this.connect();
+            return new ByteArrayInputStream(notModified ? new byte[0] : resource.data());
+        }
+
+        @Override
+        public String getContentType() {
+            return this.connectQuietly() ? resource.contentType() : null;
+        }
+
+        @Override
+        public long getContentLengthLong() {
+            return this.connectQuietly() ? (notModified ? 0 : resource.data().length) : -1;
+        }
+
+        @Override
+        public long getLastModified() {
+            return this.connectQuietly() ? resource.lastModified() : 0;
+        }
+
+        @Override
+        public Map<String, List<String>> getHeaderFields() {
+            Map<String, List<String>> headers = new LinkedHashMap<>();
+            if (this.connectQuietly()) {
+                headers.put("Content-Type", List.of(resource.contentType()));
+                headers.put("Content-Length", List.of(String.valueOf(this.getContentLengthLong())));
+                headers.put("Cache-Control", List.of(CACHE_CONTROL));
+                headers.put("ETag", List.of(this.getETag()));
+                headers.put("Last-Modified", List.of(DateTimeFormatter.RFC_1123_DATE_TIME
+                        .format(Instant.ofEpochMilli(resource.lastModified()).atZone(ZoneOffset.UTC))));
+            }
+            return headers;
+        }
+
+        @Override
+        public String getHeaderField(String name) {
+            for (Map.Entry<String, List<String>> entry : this.getHeaderFields().entrySet()) {
+                if (entry.getKey().equalsIgnoreCase(name)) {
+                    return entry.getValue().get(0);
+                }
+            }
+            return null;
+        }
+
+        // validator of the loaded resource, it changes if the modified time or the size of file changes.
+        private String getETag() {
+            return "\"%s\"".formatted(versionOf(resource.lastModified(), resource.fileLength()));
+        }
+
+        private boolean connectQuietly() {
+            try {
+                this.connect();
+                return true;
+            } catch (IOException e) {
+                return false;
+            }
+        }
+    }
+}
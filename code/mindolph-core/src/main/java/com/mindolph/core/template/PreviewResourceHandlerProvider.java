@@ -0,0 +1,19 @@
+package com.mindolph.core.template;
+
+import java.net.URLStreamHandler;
+import java.net.spi.URLStreamHandlerProvider;
+
+/**
+ * Provides {@link PreviewResourceHandler} for its protocol, it's registered as a service in
+ * {@code META-INF/services/java.net.spi.URLStreamHandlerProvider} and loaded by JVM on demand, so that no global
+ * {@code URLStreamHandlerFactory} is occupied.
+ *
+ * @author mindolph.com@gmail.com
+ */
+public class PreviewResourceHandlerProvider extends URLStreamHandlerProvider {
+
+    @Override
+    public URLStreamHandler createURLStreamHandler(String protocol) {
+        return PreviewResourceHandler.PROTOCOL.equals(protocol) ? new PreviewResourceHandler() : null;
+    }
+}
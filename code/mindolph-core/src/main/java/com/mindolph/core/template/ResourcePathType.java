@@ -2,5 +2,5 @@ package com.mindolph.core.template;
 
 public enum ResourcePathType {
 
-    ABSOLUTE, RELATIVE
+    ABSOLUTE, RELATIVE, CACHED
 }
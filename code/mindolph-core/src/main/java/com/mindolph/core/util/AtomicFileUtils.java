@@ -0,0 +1,82 @@
+package com.mindolph.core.util;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.AclFileAttributeView;
+import java.nio.file.attribute.PosixFileAttributeView;
+
+/**
+ * Write files safely: the content is written to a temp file in the same folder and forced to the disk,
+ * then the target file is replaced by an atomic move, so that the target file is never left truncated
+ * if the writing fails (like crash or full disk).
+ * If the target file is a symbolic link, the file it links to is replaced. The permissions (POSIX permissions or ACL)
+ * of the target file are copied to the temp file before replacing, so they are kept.
+ *
+ * @author mindolph.com@gmail.com
+ */
+public class AtomicFileUtils {
+
+    /**
+     * @param file
+     * @param text
+     * @param charset
+     * @throws IOException the target file is not changed if any exception.
+     */
+    public static void write(File file, String text, Charset charset) throws IOException {
+        write(file, charset.encode(text));
+    }
+
+    public static void write(File file, ByteBuffer content) throws IOException {
+        Path target = file.toPath().toAbsolutePath();
+        boolean created = false;
+        if (Files.exists(target)) {
+            target = target.toRealPath(); // write through the symbolic link.
+        }
+        else {
+            // create the file with default permissions for the temp file to copy.
+            Files.createFile(target);
+            created = true;
+        }
+        Path temp = Files.createTempFile(target.getParent(), "." + target.getFileName() + ".", ".tmp");
+        boolean succeed = false;
+        try {
+            copyPermissions(target, temp);
+            try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+                while (content.hasRemaining()) {
+                    channel.write(content);
+                }
+                channel.force(true);
+            }
+            try {
+                Files.move(temp, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING);
+            }
+            succeed = true;
+        } finally {
+            Files.deleteIfExists(temp);
+            if (created && !succeed) {
+                Files.deleteIfExists(target);
+            }
+        }
+    }
+
+    private static void copyPermissions(Path from, Path to) throws IOException {
+        PosixFileAttributeView posix = Files.getFileAttributeView(from, PosixFileAttributeView.class);
+        if (posix != null) {
+            Files.setPosixFilePermissions(to, posix.readAttributes().permissions());
+        }
+        AclFileAttributeView acl = Files.getFileAttributeView(from, AclFileAttributeView.class);
+        if (acl != null) {
+            Files.getFileAttributeView(to, AclFileAttributeView.class).setAcl(acl.getAcl());
+        }
+    }
+}
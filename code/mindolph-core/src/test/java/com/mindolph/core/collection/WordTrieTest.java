@@ -0,0 +1,41 @@
+package com.mindolph.core.collection;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+/**
+ * @author mindolph.com@gmail.com
+ */
+class WordTrieTest {
+
+    @Test
+    void complete() {
+        WordTrie trie = new WordTrie();
+        trie.addAll(List.of("hello", "help", "Hello", "help", "world", "he"));
+        Assertions.assertEquals(5, trie.size());
+        Assertions.assertEquals(List.of("help", "Hello", "he", "hello"), trie.complete("he", 10));
+        Assertions.assertEquals(List.of("help", "Hello"), trie.complete("HE", 2));
+        Assertions.assertEquals(List.of("Hello", "hello"), trie.complete("hell", 10));
+        Assertions.assertTrue(trie.complete("x", 10).isEmpty());
+        Assertions.assertEquals(5, trie.complete("", 10).size());
+    }
+
+    @Test
+    void remove() {
+        WordTrie trie = new WordTrie();
+        trie.addAll(List.of("hello", "help", "help"));
+        Assertions.assertTrue(trie.remove("help"));
+        Assertions.assertEquals(1, trie.count("help"));
+        Assertions.assertTrue(trie.remove("help"));
+        Assertions.assertEquals(0, trie.count("help"));
+        Assertions.assertFalse(trie.remove("help"));
+        Assertions.assertFalse(trie.remove("hel"));
+        Assertions.assertEquals(List.of("hello"), trie.complete("he", 10));
+        Assertions.assertEquals(1, trie.size());
+        trie.remove("hello");
+        Assertions.assertEquals(0, trie.size());
+        Assertions.assertTrue(trie.complete("", 10).isEmpty());
+    }
+}
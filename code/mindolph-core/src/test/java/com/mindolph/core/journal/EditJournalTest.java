@@ -0,0 +1,87 @@
+package com.mindolph.core.journal;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * @author mindolph.com@gmail.com
+ */
+class EditJournalTest {
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void recover() throws IOException {
+        File journalFile = tempDir.resolve("test.journal").toFile();
+        EditJournal journal = EditJournal.open(journalFile, "hello world");
+        journal.record(5, 6, "");
+        journal.flush();
+        journal.record(5, 0, ", mindolph\n");
+        journal.flush();
+        Assertions.assertEquals("hello, mindolph\n", EditJournal.recover(journalFile, "hello world"));
+        // not based on the text
+        Assertions.assertNull(EditJournal.recover(journalFile, "hello"));
+        journal.close(false);
+        Assertions.assertTrue(journalFile.exists());
+    }
+
+    @Test
+    void rebase() throws IOException {
+        File journalFile = tempDir.resolve("test.journal").toFile();
+        EditJournal journal = EditJournal.open(journalFile, "abc");
+        journal.record(3, 0, "d");
+        journal.flush();
+        journal.rebase("abcd");
+        journal.flush();
+        Assertions.assertFalse(journalFile.exists()); // nothing edited since saved
+        journal.record(0, 1, "");
+        journal.flush();
+        Assertions.assertEquals("bcd", EditJournal.recover(journalFile, "abcd"));
+        journal.close(true);
+        Assertions.assertFalse(journalFile.exists());
+    }
+
+    @Test
+    void rebaseWithCurrentText() throws IOException {
+        File journalFile = tempDir.resolve("test.journal").toFile();
+        EditJournal journal = EditJournal.open(journalFile, "abc");
+        // saved "abcd" but the text has been changed to "xabcde" during saving.
+        journal.rebase("abcd", "xabcde");
+        journal.flush();
+        Assertions.assertEquals("xabcde", EditJournal.recover(journalFile, "abcd"));
+        journal.rebase("xabcde", "xabcde");
+        journal.flush();
+        Assertions.assertFalse(journalFile.exists());
+        journal.close(true);
+    }
+
+    @Test
+    void recoverIncomplete() throws IOException {
+        File journalFile = tempDir.resolve("test.journal").toFile();
+        EditJournal journal = EditJournal.open(journalFile, "abc");
+        journal.record(3, 0, "d");
+        journal.flush();
+        journal.close(false);
+        // crashed in the middle of writing an edit.
+        Files.writeString(journalFile.toPath(), "0 0 10\nxyz", StandardCharsets.UTF_8, StandardOpenOption.APPEND);
+        Assertions.assertEquals("abcd", EditJournal.recover(journalFile, "abc"));
+    }
+
+    @Test
+    void journalFileOf() {
+        File ws = tempDir.toFile();
+        File f1 = EditJournal.journalFileOf(ws, new File(ws, "a/note.md"));
+        File f2 = EditJournal.journalFileOf(ws, new File(ws, "b/note.md"));
+        Assertions.assertNotEquals(f1, f2);
+        Assertions.assertTrue(f1.getPath().startsWith(new File(ws, EditJournal.META_DIR).getPath()));
+    }
+}
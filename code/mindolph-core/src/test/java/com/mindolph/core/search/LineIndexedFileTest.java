@@ -0,0 +1,73 @@
+package com.mindolph.core.search;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * @author mindolph.com@gmail.com
+ */
+class LineIndexedFileTest {
+
+    @TempDir
+    Path tempDir;
+
+    private LineIndexedFile create(String text) throws IOException {
+        File file = tempDir.resolve("large.txt").toFile();
+        Files.writeString(file.toPath(), text, StandardCharsets.UTF_8);
+        return new LineIndexedFile(file);
+    }
+
+    @Test
+    void lines() throws IOException {
+        LineIndexedFile lif = create("0123456789\r\n中文abc\n\nlast");
+        Assertions.assertEquals(4, lif.getLineCount());
+        Assertions.assertEquals("0123456789", lif.getLine(0));
+        Assertions.assertEquals("中文abc", lif.getLine(1));
+        Assertions.assertEquals("", lif.getLine(2));
+        Assertions.assertEquals("last", lif.getLine(3));
+        Assertions.assertEquals("中文abc\n\nlast", lif.getLines(1, 10));
+    }
+
+    @Test
+    void endsWithLineBreak() throws IOException {
+        LineIndexedFile lif = create("a\nb\n");
+        Assertions.assertEquals(3, lif.getLineCount());
+        Assertions.assertEquals("", lif.getLine(2));
+        Assertions.assertEquals("a\nb\n", lif.getLines(0, 3));
+    }
+
+    @Test
+    void locateNext() throws IOException {
+        LineIndexedFile lif = create("0123456789\nabcdefghij\n0123456789");
+        Assertions.assertEquals("0 8 0 9", lif.locateNext("89", 0, 0, true).toString());
+        Assertions.assertEquals("2 8 2 9", lif.locateNext("89", 0, 9, true).toString());
+        Assertions.assertEquals("1 5 1 7", lif.locateNext("FGH", 0, 0, false).toString());
+        Assertions.assertNull(lif.locateNext("FGH", 0, 0, true));
+        Assertions.assertNull(lif.locateNext("89", 2, 9, true));
+    }
+
+    @Test
+    void locatePrev() throws IOException {
+        LineIndexedFile lif = create("0123456789\nabcdefghij\n0123456789");
+        Assertions.assertEquals("2 8 2 9", lif.locatePrev("89", 2, 9, true).toString());
+        Assertions.assertEquals("0 8 0 9", lif.locatePrev("89", 2, 7, true).toString());
+        Assertions.assertEquals("1 5 1 7", lif.locatePrev("FGH", 2, -1, false).toString());
+        Assertions.assertNull(lif.locatePrev("01", 0, -1, true));
+    }
+
+    @Test
+    void close() throws IOException {
+        LineIndexedFile lif = create("a\nb\n");
+        lif.close();
+        Assertions.assertTrue(lif.isClosed());
+        Assertions.assertEquals(3, lif.getLineCount());
+        Assertions.assertThrows(IllegalStateException.class, () -> lif.getLine(0));
+    }
+}
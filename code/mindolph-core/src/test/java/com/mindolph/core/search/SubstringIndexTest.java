@@ -0,0 +1,29 @@
+package com.mindolph.core.search;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+/**
+ * @author mindolph.com@gmail.com
+ */
+public class SubstringIndexTest {
+
+    @Test
+    public void search() {
+        SubstringIndex<String> index = new SubstringIndex<>();
+        index.add("alt", "alt", "alternative", "alt successful case\nelse failure\nend");
+        index.add("loop", "loop", null, "loop 1000 times\nend");
+        index.add("if", "if", "if else", "if (x) then (Y)\nelse (n)\nendif");
+        index.add("else", "Else", null, "else");
+        Assertions.assertEquals(4, index.size());
+        Assertions.assertEquals(List.of("alt", "loop", "if", "else"), index.search(""));
+        Assertions.assertEquals(List.of("else", "alt", "if"), index.search("ELSE"));
+        Assertions.assertEquals(List.of("loop"), index.search("1000 times"));
+        Assertions.assertEquals(List.of("alt", "loop", "if"), index.search("en"));
+        Assertions.assertEquals(List.of("loop", "alt", "if", "else"), index.search("l"));
+        Assertions.assertTrue(index.search("not exist").isEmpty());
+        Assertions.assertTrue(index.search("thenx").isEmpty());
+    }
+}
@@ -0,0 +1,68 @@
+package com.mindolph.core.search;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+
+/**
+ * @author mindolph.com@gmail.com
+ */
+class TextLineIndexTest {
+
+    @Test
+    void reset() {
+        TextLineIndex index = new TextLineIndex();
+        Assertions.assertEquals(1, index.getLineCount());
+        index.reset("0123\n\nabc\n");
+        Assertions.assertEquals(4, index.getLineCount());
+        Assertions.assertEquals(5, index.getLineStart(1));
+        Assertions.assertEquals(6, index.getLineStart(2));
+        Assertions.assertEquals(9, index.getLineEnd(2));
+        Assertions.assertEquals(10, index.getLineStart(3));
+        Assertions.assertEquals(10, index.getLineEnd(3));
+        Assertions.assertEquals(0, index.lineOf(4)); // line break belongs to the line
+        Assertions.assertEquals(1, index.lineOf(5));
+        Assertions.assertEquals(3, index.lineOf(10));
+    }
+
+    @Test
+    void update() {
+        TextLineIndex index = new TextLineIndex();
+        index.reset("0123\nabc\nxyz");
+        index.update(2, 5, "A\nB\nC");
+        assertSameAsReset("01A\nB\nCc\nxyz", index);
+        index.update(0, 0, "\n");
+        assertSameAsReset("\n01A\nB\nCc\nxyz", index);
+        index.update(5, 4, "");
+        assertSameAsReset("\n01A\n\nxyz", index);
+    }
+
+    @Test
+    void updateRandomly() {
+        Random random = new Random(42);
+        StringBuilder text = new StringBuilder();
+        TextLineIndex index = new TextLineIndex();
+        for (int i = 0; i < 2000; i++) {
+            int pos = random.nextInt(text.length() + 1);
+            int removed = random.nextInt(Math.min(8, text.length() - pos) + 1);
+            StringBuilder inserted = new StringBuilder();
+            for (int j = random.nextInt(6); j > 0; j--) {
+                inserted.append(random.nextInt(3) == 0 ? '\n' : 'a');
+            }
+            text.replace(pos, pos + removed, inserted.toString());
+            index.update(pos, removed, inserted);
+            assertSameAsReset(text.toString(), index);
+        }
+    }
+
+    private void assertSameAsReset(String text, TextLineIndex index) {
+        TextLineIndex expected = new TextLineIndex();
+        expected.reset(text);
+        Assertions.assertEquals(expected.getLength(), index.getLength());
+        Assertions.assertEquals(expected.getLineCount(), index.getLineCount());
+        for (int i = 0; i < expected.getLineCount(); i++) {
+            Assertions.assertEquals(expected.getLineStart(i), index.getLineStart(i));
+        }
+    }
+}
@@ -108,6 +108,29 @@ class TextNavigatorTest {
         Assertions.assertEquals("0 0 0 1", loc.toString());
     }
 
+    @Test
+    void update() {
+        TextNavigator textNavigator = new TextNavigator();
+        textNavigator.setText(text1, true);
+        // "0123456789\nabcdefghij\n0123456789" -> "0123\n456789\nabcdefghij\n0123456789"
+        textNavigator.update(4, 0, "\n");
+        // the line index is patched without the text
+        Assertions.assertEquals(4, textNavigator.lineIndex.getLineCount());
+        Assertions.assertEquals(text1.length() + 1, textNavigator.lineIndex.getLength());
+        Assertions.assertEquals(5, textNavigator.lineIndex.getLineStart(1));
+        Assertions.assertEquals(11, textNavigator.lineIndex.getLineEnd(1));
+        Assertions.assertEquals(2, textNavigator.lineIndex.lineOf(14));
+        // last line "0123456789" -> "01234", and back
+        textNavigator.update(28, 5, "");
+        Assertions.assertEquals(text1.length() - 4, textNavigator.lineIndex.getLength());
+        Assertions.assertEquals(23, textNavigator.lineIndex.getLineStart(3));
+        textNavigator.update(28, 0, "56789");
+        textNavigator.setText("0123\n456789\nabcdefghij\n0123456789", true);
+        Assertions.assertEquals("1 4 1 5", textNavigator.locateNext("89", false).toString());
+        Assertions.assertEquals("2 5 2 7", textNavigator.locateNext("fgh", false).toString());
+        textNavigator.moveCursor(1, 0);
+        Assertions.assertEquals("3 0 3 1", textNavigator.locateNext("01", false).toString());
+    }
 
     @Test
     public void convert() {
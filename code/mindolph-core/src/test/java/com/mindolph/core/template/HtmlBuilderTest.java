@@ -2,6 +2,7 @@ package com.mindolph.core.template;
 
 import org.apache.commons.io.FileUtils;
 import org.apache.commons.lang3.SystemUtils;
+import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.Test;
 
 import java.io.File;
@@ -31,4 +32,15 @@ public class HtmlBuilderTest {
             throw new RuntimeException(e);
         }
     }
+
+    @Test
+    public void testPdfFontFamily() {
+        String html = new HtmlBuilder("<body><p>hello</p></body>")
+                .title("pdf")
+                .css("style/markdown_preview_github.css")
+                .pdfFontFamily("pdf-font")
+                .build("0");
+        Assertions.assertTrue(html.contains("font-family: 'pdf-font', sans-serif;"));
+        Assertions.assertFalse(html.contains("@font-face"));
+    }
 }
@@ -0,0 +1,125 @@
+package com.mindolph.core.template;
+
+import org.apache.commons.io.FileUtils;
+import org.apache.commons.io.IOUtils;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.HttpURLConnection;
+import java.net.URL;
+
+/**
+ * @author mindolph.com@gmail.com
+ */
+public class PreviewResourceCacheTest {
+
+    @TempDir
+    private File tempDir;
+
+    @Test
+    public void get() throws IOException {
+        File file = new File(tempDir, "small.png");
+        ImageIO.write(new BufferedImage(10, 20, BufferedImage.TYPE_INT_RGB), "png", file);
+        PreviewResourceCache cache = PreviewResourceCache.getIns();
+        PreviewResourceCache.Resource resource = cache.get(file);
+        Assertions.assertEquals("image/png", resource.contentType());
+        Assertions.assertArrayEquals(FileUtils.readFileToByteArray(file), resource.data());
+        Assertions.assertSame(resource, cache.get(file));
+
+        // reloaded after modified
+        ImageIO.write(new BufferedImage(30, 20, BufferedImage.TYPE_INT_RGB), "png", file);
+        file.setLastModified(resource.lastModified() + 2000);
+        PreviewResourceCache.Resource modified = cache.get(file);
+        Assertions.assertNotSame(resource, modified);
+        Assertions.assertEquals(30, ImageIO.read(new ByteArrayInputStream(modified.data())).getWidth());
+
+        Assertions.assertNull(cache.get(new File(tempDir, "not_exist.png")));
+    }
+
+    @Test
+    public void downscale() throws IOException {
+        File file = new File(tempDir, "large.png");
+        ImageIO.write(new BufferedImage(PreviewResourceCache.MAX_IMAGE_DIMENSION * 2, 100, BufferedImage.TYPE_INT_RGB), "png", file);
+        BufferedImage scaled = ImageIO.read(new ByteArrayInputStream(PreviewResourceCache.getIns().get(file).data()));
+        Assertions.assertEquals(PreviewResourceCache.MAX_IMAGE_DIMENSION, scaled.getWidth());
+        Assertions.assertEquals(50, scaled.getHeight());
+
+        // keep the format of image
+        File jpgFile = new File(tempDir, "large.jpg");
+        ImageIO.write(new BufferedImage(100, PreviewResourceCache.MAX_IMAGE_DIMENSION * 2, BufferedImage.TYPE_INT_RGB), "jpg", jpgFile);
+        PreviewResourceCache.Resource resource = PreviewResourceCache.getIns().get(jpgFile);
+        Assertions.assertEquals("image/jpeg", resource.contentType());
+        Assertions.assertEquals("JPEG", ImageIO.getImageReaders(ImageIO.createImageInputStream(new ByteArrayInputStream(resource.data())))
+                .next().getFormatName().toUpperCase());
+        Assertions.assertEquals(PreviewResourceCache.MAX_IMAGE_DIMENSION, ImageIO.read(new ByteArrayInputStream(resource.data())).getHeight());
+    }
+
+    @Test
+    public void resolve() {
+        File baseDir = new File(tempDir, "doc");
+        Assertions.assertEquals(new File(baseDir, "images/a.png"), PreviewResourceCache.getIns().resolve(baseDir, "./images/a.png"));
+        Assertions.assertEquals(new File(baseDir, "a.png"), PreviewResourceCache.getIns().resolve(baseDir, "a.png"));
+        Assertions.assertEquals(new File("/tmp/a.png"), PreviewResourceCache.getIns().resolve(baseDir, "/tmp/a.png"));
+    }
+
+    @Test
+    public void handler() throws IOException {
+        File file = new File(tempDir, "image with space.png");
+        ImageIO.write(new BufferedImage(10, 10, BufferedImage.TYPE_INT_RGB), "png", file);
+        Assertions.assertTrue(PreviewResourceHandler.isInstalled());
+        String url = PreviewResourceHandler.toUrl(file);
+        Assertions.assertTrue(url.endsWith("?%d-%d".formatted(file.lastModified(), file.length())));
+        Assertions.assertEquals(file.getAbsoluteFile(), PreviewResourceHandler.toFile(new URL(url)));
+        // not allowed before the document dir is previewed
+        Assertions.assertThrows(FileNotFoundException.class, () -> new URL(url).openStream());
+
+        String html = new HtmlBuilder("<body><img src=\"./image with space.png\"/><img src=\"http://mindolph.com/a.png\"/></body>")
+                .cachedUri(tempDir, null).build("0");
+        Assertions.assertTrue(html.contains(url), html);
+        Assertions.assertTrue(html.contains("http://mindolph.com/a.png"), html);
+        try (InputStream in = new URL(url).openStream()) {
+            Assertions.assertArrayEquals(FileUtils.readFileToByteArray(file), IOUtils.toByteArray(in));
+        }
+        HttpURLConnection conn = (HttpURLConnection) new URL(url).openConnection();
+        Assertions.assertEquals(HttpURLConnection.HTTP_OK, conn.getResponseCode());
+        Assertions.assertEquals("image/png", conn.getContentType());
+        Assertions.assertEquals("image/png", conn.getHeaderFields().get("Content-Type").get(0));
+        Assertions.assertEquals("no-cache", conn.getHeaderField("Cache-Control"));
+        String etag = conn.getHeaderField("ETag");
+        Assertions.assertNotNull(conn.getHeaderField("Last-Modified"));
+
+        // revalidated with the validator
+        HttpURLConnection revalidate = (HttpURLConnection) new URL(url).openConnection();
+        revalidate.setRequestProperty("If-None-Match", etag);
+        Assertions.assertEquals(HttpURLConnection.HTTP_NOT_MODIFIED, revalidate.getResponseCode());
+        ImageIO.write(new BufferedImage(20, 10, BufferedImage.TYPE_INT_RGB), "png", file);
+        file.setLastModified(file.lastModified() + 2000);
+        HttpURLConnection modified = (HttpURLConnection) new URL(url).openConnection();
+        modified.setRequestProperty("If-None-Match", etag);
+        Assertions.assertEquals(HttpURLConnection.HTTP_OK, modified.getResponseCode());
+        Assertions.assertNotEquals(etag, modified.getHeaderField("ETag"));
+    }
+
+    @Test
+    public void outOfAllowedDirs() throws IOException {
+        File docDir = new File(tempDir, "doc");
+        File outside = new File(tempDir, "outside.png");
+        ImageIO.write(new BufferedImage(10, 10, BufferedImage.TYPE_INT_RGB), "png", outside);
+        String html = new HtmlBuilder("<body><img src=\"../outside.png\"/></body>")
+                .cachedUri(docDir, null).build("0");
+        Assertions.assertFalse(html.contains(PreviewResourceHandler.PROTOCOL + ":"), html);
+        Assertions.assertFalse(PreviewResourceHandler.isAllowed(outside));
+        Assertions.assertThrows(FileNotFoundException.class, () -> new URL(PreviewResourceHandler.toUrl(outside)).openStream());
+        // allowed in workspace
+        new HtmlBuilder("<body></body>").cachedUri(docDir, tempDir).build("0");
+        Assertions.assertTrue(PreviewResourceHandler.isAllowed(outside));
+    }
+}
@@ -0,0 +1,64 @@
+package com.mindolph.core.util;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.DisabledOnOs;
+import org.junit.jupiter.api.condition.OS;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.PosixFilePermission;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.util.Set;
+
+/**
+ * @author mindolph.com@gmail.com
+ */
+class AtomicFileUtilsTest {
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void write() throws IOException {
+        File file = tempDir.resolve("test.txt").toFile();
+        Files.writeString(file.toPath(), "old content which is longer", StandardCharsets.UTF_8);
+        AtomicFileUtils.write(file, "new content", StandardCharsets.UTF_8);
+        Assertions.assertEquals("new content", Files.readString(file.toPath(), StandardCharsets.UTF_8));
+        // no temp file left
+        Assertions.assertEquals(1, tempDir.toFile().list().length);
+    }
+
+    @Test
+    void writeNewFile() throws IOException {
+        File file = tempDir.resolve("new.txt").toFile();
+        AtomicFileUtils.write(file, "content", StandardCharsets.UTF_8);
+        Assertions.assertEquals("content", Files.readString(file.toPath(), StandardCharsets.UTF_8));
+    }
+
+    @Test
+    @DisabledOnOs(OS.WINDOWS)
+    void keepPermissions() throws IOException {
+        File file = tempDir.resolve("script.sh").toFile();
+        Files.writeString(file.toPath(), "echo", StandardCharsets.UTF_8);
+        Set<PosixFilePermission> permissions = PosixFilePermissions.fromString("rwxr-x---");
+        Files.setPosixFilePermissions(file.toPath(), permissions);
+        AtomicFileUtils.write(file, "echo hello", StandardCharsets.UTF_8);
+        Assertions.assertEquals(permissions, Files.getPosixFilePermissions(file.toPath()));
+    }
+
+    @Test
+    @DisabledOnOs(OS.WINDOWS)
+    void writeThroughSymbolicLink() throws IOException {
+        Path target = tempDir.resolve("target.txt");
+        Files.writeString(target, "old", StandardCharsets.UTF_8);
+        Path link = Files.createSymbolicLink(tempDir.resolve("link.txt"), target);
+        AtomicFileUtils.write(link.toFile(), "new", StandardCharsets.UTF_8);
+        Assertions.assertTrue(Files.isSymbolicLink(link));
+        Assertions.assertEquals("new", Files.readString(target, StandardCharsets.UTF_8));
+    }
+}
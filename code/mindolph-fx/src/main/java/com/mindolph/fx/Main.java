@@ -35,9 +35,12 @@ import java.net.URL;
 import java.util.Objects;
 
 import static com.mindolph.base.constant.ShortcutConstants.KEY_MD_COMMENT;
+import static com.mindolph.base.constant.ShortcutConstants.KEY_MD_OUTLINE;
 import static com.mindolph.plantuml.constant.ShortcutConstants.KEY_PUML_COMMENT;
 import static javafx.scene.input.KeyCombination.ALT_DOWN;
+import static javafx.scene.input.KeyCombination.CONTROL_DOWN;
 import static javafx.scene.input.KeyCombination.META_DOWN;
+import static javafx.scene.input.KeyCombination.SHIFT_DOWN;
 
 public class Main extends Application implements WindowRestoreListener {
 
@@ -76,14 +79,17 @@ public class Main extends Application implements WindowRestoreListener {
         if (SystemUtils.IS_OS_MAC) {
             sm.addShortCut(KEY_PUML_COMMENT, new KeyCodeCombination(KeyCode.SLASH, META_DOWN));
             sm.addShortCut(KEY_MD_COMMENT, new KeyCodeCombination(KeyCode.SLASH, META_DOWN));
+            sm.addShortCut(KEY_MD_OUTLINE, new KeyCodeCombination(KeyCode.O, META_DOWN, SHIFT_DOWN));
         }
         else if (SystemUtils.IS_OS_LINUX) {
             sm.addShortCut(KEY_PUML_COMMENT, new KeyCodeCombination(KeyCode.SLASH, ALT_DOWN));
             sm.addShortCut(KEY_MD_COMMENT, new KeyCodeCombination(KeyCode.SLASH, ALT_DOWN));
+            sm.addShortCut(KEY_MD_OUTLINE, new KeyCodeCombination(KeyCode.O, CONTROL_DOWN, SHIFT_DOWN));
         }
         else if (SystemUtils.IS_OS_WINDOWS) {
             sm.addShortCut(KEY_PUML_COMMENT, new KeyCodeCombination(KeyCode.SLASH, ALT_DOWN));
             sm.addShortCut(KEY_MD_COMMENT, new KeyCodeCombination(KeyCode.SLASH, ALT_DOWN));
+            sm.addShortCut(KEY_MD_OUTLINE, new KeyCodeCombination(KeyCode.O, CONTROL_DOWN, SHIFT_DOWN));
         }
 
         if (sm.hasConflict()) {
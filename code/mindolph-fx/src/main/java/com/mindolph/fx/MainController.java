@@ -6,6 +6,7 @@ import com.mindolph.base.FontIconManager;
 import com.mindolph.base.constant.IconKey;
 import com.mindolph.base.constant.PrefConstants;
 import com.mindolph.base.container.FixedSplitPane;
+import com.mindolph.base.editor.BaseCodeAreaEditor;
 import com.mindolph.base.editor.Editable;
 import com.mindolph.base.editor.ImageViewerEditor;
 import com.mindolph.base.editor.PlainTextEditor;
@@ -30,6 +31,7 @@ import com.mindolph.fx.print.PrintPreviewDialog;
 import com.mindolph.fx.print.Printable;
 import com.mindolph.fx.view.*;
 import com.mindolph.markdown.MarkdownEditor;
+import com.mindolph.markdown.export.PdfExportService;
 import com.mindolph.mfx.BaseController;
 import com.mindolph.mfx.dialog.ConfirmDialogBuilder;
 import com.mindolph.mfx.dialog.DialogFactory;
@@ -52,6 +54,7 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.io.File;
+import java.io.IOException;
 import java.net.URL;
 import java.util.LinkedList;
 import java.util.List;
@@ -73,6 +76,9 @@ public class MainController extends BaseController implements Initializable,
 
     private static final Logger log = LoggerFactory.getLogger(MainController.class);
 
+    // max time to wait for the background work (like saving files) to complete before exit.
+    private static final long EXIT_TIMEOUT_IN_MILLIS = 10000;
+
     private final FxPreferences fxPreferences = FxPreferences.getInstance();
 
     @FXML
@@ -466,9 +472,16 @@ public class MainController extends BaseController implements Initializable,
             ((MarkdownEditor) editor).print();
             return;
         }
-        else if (editor instanceof ImageViewerEditor) {
-            Image image = ((ImageViewerEditor) editor).getImage();
-            printable = new ImagePrintable(image, PrinterManager.getInstance().getFirstPrinter().getDefaultPageLayout());
+        else if (editor instanceof ImageViewerEditor imageViewerEditor) {
+            Image image;
+            try {
+                image = imageViewerEditor.getImage();
+            } catch (IOException e) {
+                log.error("Failed to load image for printing", e);
+                DialogFactory.errDialog("Failed to load image for printing: " + e.getMessage());
+                return;
+            }
+            printable = new ImagePrintable(image, imageViewerEditor.getImageSize(), PrinterManager.getInstance().getFirstPrinter().getDefaultPageLayout());
         }
         else if (editor instanceof PlainTextEditor) {
             Image image = ((PlainTextEditor) editor).getImage();
@@ -500,6 +513,8 @@ public class MainController extends BaseController implements Initializable,
         SceneRestore.getInstance().stop(); // stop store state to avoid clean all the opened files state.
         if (fileTabView.closeAllTabs()) {
             this.dispose();
+            BaseCodeAreaEditor.awaitSaving(EXIT_TIMEOUT_IN_MILLIS);
+            PdfExportService.getIns().shutdown(EXIT_TIMEOUT_IN_MILLIS);
             System.exit(0);
         }
     }
@@ -18,10 +18,16 @@ public class ImagePrintable extends BasePrintable implements Printable {
     private static final Logger log = LoggerFactory.getLogger(ImagePrintable.class);
 
     private final Image image;
-
+    // size of the image to print in, the image might be in lower resolution.
+    private final Dimension2D size;
 
     public ImagePrintable(Image image, PageLayout pageLayout) {
+        this(image, new Dimension2D(image.getWidth(), image.getHeight()), pageLayout);
+    }
+
+    public ImagePrintable(Image image, Dimension2D size, PageLayout pageLayout) {
         this.image = image;
+        this.size = size;
         super.pageLayout = pageLayout;
         update(pageLayout, new PrintOptions());
     }
@@ -64,19 +70,21 @@ public class ImagePrintable extends BasePrintable implements Printable {
                         double fromY = finalj * clipHeight;
                         double drawWidth = printableWidth;
                         double drawHeight = printableHeight;
-                        if ((fromX + clipWidth) > image.getWidth()) {
-                            fromWidth = image.getWidth() - fromX;
+                        if ((fromX + clipWidth) > getWidth()) {
+                            fromWidth = getWidth() - fromX;
                             drawWidth = fromWidth * actualScale;
                         }
-                        if ((fromY + clipHeight) > image.getHeight()) {
-                            fromHeight = image.getHeight() - fromY;
+                        if ((fromY + clipHeight) > getHeight()) {
+                            fromHeight = getHeight() - fromY;
                             drawHeight = fromHeight * actualScale;
                         }
+                        // map to the pixels of image which might be in lower resolution.
+                        double ratio = image.getWidth() / getWidth();
                         // log.debug(image.getWidth() + "x" + image.getHeight());
                         // log.debug("Clip image: %.2f, %.2f, %.2f, %.2f, ".formatted(fromX, fromY, fromWidth, fromHeight));
                         // log.debug("Draw in: %.2fx%.2f".formatted(drawWidth, drawHeight));
                         gc.drawImage(ImagePrintable.this.image,
-                                fromX, fromY, fromWidth, fromHeight,
+                                fromX * ratio, fromY * ratio, fromWidth * ratio, fromHeight * ratio,
                                 0, 0, drawWidth, drawHeight);
                     }
                 };
@@ -86,12 +94,12 @@ public class ImagePrintable extends BasePrintable implements Printable {
 
     @Override
     protected double getWidth() {
-        return image.getWidth();
+        return size.getWidth();
     }
 
     @Override
     protected double getHeight() {
-        return image.getHeight();
+        return size.getHeight();
     }
 
     @Override
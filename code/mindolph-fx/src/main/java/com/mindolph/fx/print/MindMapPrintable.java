@@ -1,12 +1,11 @@
 package com.mindolph.fx.print;
 
 import com.igormaznitsa.mindmap.model.MindMap;
-import com.mindolph.base.util.GeometryConvertUtils;
-import com.mindolph.mindmap.MindMapContext;
-import com.mindolph.mindmap.gfx.MindMapCanvas;
-import com.mindolph.mindmap.MindMapConfig;
 import com.mindolph.base.graphic.CanvasGraphicsWrapper;
 import com.mindolph.mfx.util.DimensionUtils;
+import com.mindolph.mindmap.MindMapConfig;
+import com.mindolph.mindmap.MindMapContext;
+import com.mindolph.mindmap.gfx.MindMapCanvas;
 import com.mindolph.mindmap.model.TopicNode;
 import com.mindolph.mindmap.theme.MindMapTheme;
 import javafx.geometry.Dimension2D;
@@ -16,13 +15,16 @@ import javafx.scene.Node;
 import javafx.scene.SnapshotParameters;
 import javafx.scene.canvas.Canvas;
 import javafx.scene.canvas.GraphicsContext;
+import javafx.scene.image.ImageView;
 import javafx.scene.image.WritableImage;
 import javafx.scene.paint.Color;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 /**
- *
+ * The mind map is laid out only once for each update of page layout or print options,
+ * each page is rendered on one shared page canvas with clip bounds of the page, so that only the topics
+ * intersecting with the page are painted.
  *
  * @author mindolph.com@gmail.com
  */
@@ -30,15 +32,19 @@ public class MindMapPrintable extends BasePrintable {
 
     private static final Logger log = LoggerFactory.getLogger(MindMapPrintable.class);
 
-    private final MindMap<TopicNode> model;
+    // a copy of the model to be laid out for printing, the model of editor is not affected.
+    private final MindMap<TopicNode> workMap;
     private final MindMapConfig cfg;
     private Dimension2D diagramDimension;
-    private final MindMapCanvas mmCanvas ;
+    private final Canvas pageCanvas;
+    private final CanvasGraphicsWrapper pageGraphics;
+    private final MindMapCanvas mmCanvas;
     private final MindMapContext mindMapContext;
 
     public MindMapPrintable(MindMap<TopicNode> model, PageLayout pageLayout) {
         super.pageLayout = pageLayout;
-        this.model = model;
+        this.workMap = new MindMap<>(model);
+        this.workMap.resetPayload();
         this.mindMapContext = new MindMapContext();
 
         cfg = new MindMapConfig();
@@ -62,7 +68,9 @@ public class MindMapPrintable extends BasePrintable {
         theme.setConnectorWidth(2.0f);
         theme.setPaperMargins(2);
 
-        mmCanvas = new MindMapCanvas(new CanvasGraphicsWrapper(new Canvas()), cfg, mindMapContext);
+        pageCanvas = new Canvas();
+        pageGraphics = new CanvasGraphicsWrapper(pageCanvas);
+        mmCanvas = new MindMapCanvas(pageGraphics, cfg, mindMapContext);
 
         this.update(pageLayout, new PrintOptions());
     }
@@ -71,7 +79,10 @@ public class MindMapPrintable extends BasePrintable {
     public void update(PageLayout pageLayout, PrintOptions printOptions) {
         super.update(pageLayout, printOptions);
         mindMapContext.setScale(super.actualScale);
-        diagramDimension = mmCanvas.layoutFullDiagramWithCenteringToPaper(model, null);
+        pageCanvas.setWidth(Math.ceil(printableWidth));
+        pageCanvas.setHeight(Math.ceil(printableHeight));
+        // layout only once, all pages are rendered with it.
+        diagramDimension = mmCanvas.layoutFullDiagramWithCenteringToPaper(workMap, null);
         log.debug("mind map dimension: %s".formatted(DimensionUtils.dimensionInStr(diagramDimension)));
         pagesH = (int) (this.diagramDimension.getWidth() / printableWidth + 1);
         pagesV = (int) (this.diagramDimension.getHeight() / printableHeight + 1);
@@ -85,38 +96,51 @@ public class MindMapPrintable extends BasePrintable {
                 int h = i;
                 int v = j;
                 pages[i][j] = new PrintPage() {
-                    private Canvas pageCanvas;
-
                     @Override
                     public void print(GraphicsContext gc) {
-                        double drawX = h * printableWidth;
-                        double drawY = v * printableHeight;
-                        double drawWidth = (drawX + printableWidth) < diagramDimension.getWidth() ? printableWidth : diagramDimension.getWidth() - drawX;
-                        double drawHeight = (drawY + printableHeight) < diagramDimension.getHeight() ? printableHeight : diagramDimension.getHeight() - drawY;
-                        // Draw page area in new canvas(dimension limited) TODO should be optimized for performance.
-                        pageCanvas = new Canvas(drawWidth, drawHeight);
-                        CanvasGraphicsWrapper pageGc = new CanvasGraphicsWrapper(pageCanvas);
-                        pageGc.translate(-drawX, -drawY); // translate to current page
-                        pageGc.setClipBounds(new Rectangle2D(drawX, drawY, drawWidth, drawHeight)); // set drawing area in mind map
-                        MindMapCanvas mmc = new MindMapCanvas(pageGc, cfg, mindMapContext);
-                        mmc.layoutFullDiagramWithCenteringToPaper(model, GeometryConvertUtils.rectangle2Bounds(pageGc.getClipBounds()));
-                        mmc.drawOnGraphicsForConfiguration(model,false, null);
-                        SnapshotParameters params = new SnapshotParameters();
-                        WritableImage snapshot = pageGc.getCanvas().snapshot(params, null);
-                        // Draw the content from the page canvas to the main canvas.
-                        gc.drawImage(snapshot, 0, 0, drawWidth, drawHeight,
-                                0, 0, drawWidth, drawHeight);
+                        WritableImage pageImage = renderPage(h, v);
+                        if (pageImage != null) {
+                            gc.drawImage(pageImage, 0, 0);
+                        }
                     }
 
                     @Override
                     public Node getPageCanvas() {
-                        return pageCanvas;
+                        return new ImageView(renderPage(h, v));
                     }
                 };
             }
         }
     }
 
+    /**
+     * Render a page with the existing layout, must be called in FX thread.
+     *
+     * @param h column of the page
+     * @param v row of the page
+     * @return null if nothing in the page
+     */
+    private WritableImage renderPage(int h, int v) {
+        double drawX = h * printableWidth;
+        double drawY = v * printableHeight;
+        double drawWidth = (drawX + printableWidth) < diagramDimension.getWidth() ? printableWidth : diagramDimension.getWidth() - drawX;
+        double drawHeight = (drawY + printableHeight) < diagramDimension.getHeight() ? printableHeight : diagramDimension.getHeight() - drawY;
+        if (drawWidth <= 0 || drawHeight <= 0) {
+            return null;
+        }
+        if (log.isTraceEnabled()) log.trace("Render page (%d, %d)".formatted(h, v));
+        GraphicsContext gc = pageCanvas.getGraphicsContext2D();
+        gc.clearRect(0, 0, pageCanvas.getWidth(), pageCanvas.getHeight());
+        gc.save();
+        pageGraphics.translate(-drawX, -drawY); // translate to current page
+        pageGraphics.setClipBounds(new Rectangle2D(drawX, drawY, drawWidth, drawHeight)); // set drawing area in mind map
+        mmCanvas.drawOnGraphicsForConfiguration(workMap, false, null);
+        gc.restore();
+        SnapshotParameters params = new SnapshotParameters();
+        params.setViewport(new Rectangle2D(0, 0, drawWidth, drawHeight));
+        return pageCanvas.snapshot(params, null);
+    }
+
     @Override
     protected double getWidth() {
         return diagramDimension.getWidth();
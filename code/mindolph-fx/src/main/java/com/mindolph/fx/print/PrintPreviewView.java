@@ -3,6 +3,7 @@ package com.mindolph.fx.print;
 import com.mindolph.base.control.BaseScalableView;
 import com.mindolph.base.print.PrinterManager;
 import com.mindolph.mfx.util.DimensionUtils;
+import javafx.application.Platform;
 import javafx.beans.property.BooleanProperty;
 import javafx.beans.property.DoubleProperty;
 import javafx.beans.property.SimpleBooleanProperty;
@@ -11,15 +12,24 @@ import javafx.geometry.Dimension2D;
 import javafx.print.PageLayout;
 import javafx.print.Printer;
 import javafx.print.PrinterJob;
+import javafx.scene.SnapshotParameters;
+import javafx.scene.canvas.Canvas;
+import javafx.scene.canvas.GraphicsContext;
 import javafx.scene.control.Skin;
 import javafx.scene.image.WritableImage;
+import javafx.scene.paint.Color;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.util.*;
+
 import static com.mindolph.fx.print.PrintConstants.INTERVAL_X;
 import static com.mindolph.fx.print.PrintConstants.INTERVAL_Y;
 
 /**
+ * The content of pages are rendered as thumbnails in current scale and cached (the least recently used ones are evicted),
+ * the thumbnails of pages next to the visible ones are prepared ahead in idle time, so that paging through is instant.
+ *
  * @author mindolph.com@gmail.com
  * @see PrintPreviewViewSkin
  * @see Printable
@@ -28,6 +38,8 @@ public class PrintPreviewView extends BaseScalableView {
 
     private static final Logger log = LoggerFactory.getLogger(PrintPreviewView.class);
 
+    private static final int MAX_THUMBNAILS = 32;
+
     private final BooleanProperty isDrawBorder = new SimpleBooleanProperty(true);
     private final BooleanProperty printAsImage = new SimpleBooleanProperty(false);
     private final DoubleProperty pageWidth = new SimpleDoubleProperty(0f);
@@ -37,6 +49,17 @@ public class PrintPreviewView extends BaseScalableView {
     private PageLayout pageLayout;
     private PrintOptions printOptions = new PrintOptions();
 
+    // page -> rendered thumbnail in thumbnailScale, in access order.
+    private final Map<PrintPage, WritableImage> thumbnails = new LinkedHashMap<>(MAX_THUMBNAILS, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<PrintPage, WritableImage> eldest) {
+            return size() > MAX_THUMBNAILS;
+        }
+    };
+    private double thumbnailScale = 0;
+    private final Deque<PrintPage> pagesToPrepare = new ArrayDeque<>();
+    private boolean preparing = false;
+
     public PrintPreviewView(Printable printable) {
         this.printable = printable;
         this.pageLayout = printable.getPageLayout();
@@ -46,6 +69,7 @@ public class PrintPreviewView extends BaseScalableView {
     public void updateOptions(PrintOptions printOptions) {
         this.printOptions = printOptions;
         this.printable.update(pageLayout, printOptions);
+        this.clearThumbnails();
         this.calculateDimension();
         this.forceRefresh();
     }
@@ -62,6 +86,7 @@ public class PrintPreviewView extends BaseScalableView {
             pageLayout = printerJob.getJobSettings().getPageLayout();
             log.debug("Page layout changed to: " + pageLayout);
             this.printable.update(pageLayout, printOptions);
+            this.clearThumbnails();
             this.calculateDimension();
             this.forceRefresh();
         }
@@ -77,6 +102,7 @@ public class PrintPreviewView extends BaseScalableView {
             PageLayout newPageLayout = job.getJobSettings().getPageLayout();
             log.debug("New page layout: " + newPageLayout);
             printable.update(newPageLayout, printOptions);
+            this.clearThumbnails();
             this.forceRefresh();
             log.debug("Cols: " + printable.getPages().length);
             for (PrintPage[] pages : printable.getPages()) {
@@ -90,6 +116,73 @@ public class PrintPreviewView extends BaseScalableView {
         }
     }
 
+    /**
+     * Get thumbnail of the page in current scale, it's rendered if not cached.
+     *
+     * @param page
+     * @return
+     */
+    public WritableImage getThumbnail(PrintPage page) {
+        if (thumbnailScale != getScale()) {
+            // all thumbnails are outdated.
+            thumbnails.clear();
+            thumbnailScale = getScale();
+        }
+        return thumbnails.computeIfAbsent(page, this::renderThumbnail);
+    }
+
+    /**
+     * Render thumbnails of the pages ahead, one page each time in FX thread to keep the UI responsive.
+     * The previous pages waiting to be prepared are discarded.
+     *
+     * @param pages
+     */
+    public void prepareThumbnails(List<PrintPage> pages) {
+        pagesToPrepare.clear();
+        for (PrintPage page : pages) {
+            // not more than the cache can hold, otherwise the visible ones would be evicted.
+            if (pagesToPrepare.size() >= MAX_THUMBNAILS / 2) {
+                break;
+            }
+            if (!thumbnails.containsKey(page)) {
+                pagesToPrepare.add(page);
+            }
+        }
+        if (!preparing && !pagesToPrepare.isEmpty()) {
+            preparing = true;
+            Platform.runLater(this::prepareNextThumbnail);
+        }
+    }
+
+    private void prepareNextThumbnail() {
+        PrintPage page = pagesToPrepare.poll();
+        if (page == null) {
+            preparing = false;
+            return;
+        }
+        if (!thumbnails.containsKey(page)) {
+            this.getThumbnail(page);
+        }
+        Platform.runLater(this::prepareNextThumbnail);
+    }
+
+    private WritableImage renderThumbnail(PrintPage page) {
+        double scale = getScale();
+        PageLayout layout = printable.getPageLayout();
+        Canvas canvas = new Canvas(Math.ceil(layout.getPrintableWidth() * scale), Math.ceil(layout.getPrintableHeight() * scale));
+        GraphicsContext gc = canvas.getGraphicsContext2D();
+        gc.scale(scale, scale);
+        page.print(gc);
+        SnapshotParameters params = new SnapshotParameters();
+        params.setFill(Color.TRANSPARENT);
+        return canvas.snapshot(params, null);
+    }
+
+    private void clearThumbnails() {
+        thumbnails.clear();
+        pagesToPrepare.clear();
+    }
+
     private void calculateDimension() {
         this.setPageWidth(pageLayout.getPrintableWidth() + pageLayout.getLeftMargin() + pageLayout.getRightMargin());
         this.setPageHeight(pageLayout.getPrintableHeight() + pageLayout.getTopMargin() + pageLayout.getBottomMargin());
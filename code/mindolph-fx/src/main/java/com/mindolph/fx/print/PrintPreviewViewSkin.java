@@ -2,6 +2,7 @@ package com.mindolph.fx.print;
 
 import com.mindolph.base.control.BaseScalableViewSkin;
 import javafx.geometry.Dimension2D;
+import javafx.geometry.Rectangle2D;
 import javafx.print.PageLayout;
 import javafx.scene.paint.Color;
 import javafx.scene.paint.Paint;
@@ -10,6 +11,9 @@ import javafx.scene.shape.StrokeLineJoin;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.util.ArrayList;
+import java.util.List;
+
 import static com.mindolph.fx.print.PrintConstants.*;
 
 /**
@@ -40,16 +44,31 @@ public class PrintPreviewViewSkin extends BaseScalableViewSkin<PrintPreviewView>
         boolean drawBorder = this.control.isIsDrawBorder();
 
         if (log.isTraceEnabled()) log.trace("Draw content with: " + pageLayout);
+        Rectangle2D vr = this.control.getViewportRectangle();
+        // pages in this area (in content coordinates) are prepared ahead: one viewport around the visible area.
+        Rectangle2D aheadArea = new Rectangle2D(vr.getMinX() - vr.getWidth(), vr.getMinY() - vr.getHeight(),
+                vr.getWidth() * 3, vr.getHeight() * 3);
+        List<PrintPage> pagesAhead = new ArrayList<>();
         super.translateGraphicsContext(false);
         // Draw whole background
         gc.setFill(Color.LIGHTGRAY);
         gc.fillRect(0, 0, originalDimension.getWidth(), originalDimension.getHeight());
+        gc.save();
         gc.scale(scale, scale);
 
         int x = INTERVAL_X;
         for (PrintPage[] pages : allPages) {
             int y = INTERVAL_Y;  // return to new line
             for (PrintPage p : pages) {
+                Rectangle2D pageBounds = new Rectangle2D(x * scale, y * scale,
+                        (pageWidth + SHADOW_X) * scale, (pageHeight + SHADOW_Y) * scale);
+                if (!pageBounds.intersects(vr)) {
+                    if (pageBounds.intersects(aheadArea)) {
+                        pagesAhead.add(p);
+                    }
+                    y += INTERVAL_Y + pageHeight;
+                    continue; // invisible
+                }
                 // translate to a page start position
                 gc.translate(x, y);
 
@@ -62,7 +81,7 @@ public class PrintPreviewViewSkin extends BaseScalableViewSkin<PrintPreviewView>
 
                 // Draw page content
                 gc.translate(areaX, areaY);
-                p.print(gc);
+                gc.drawImage(this.control.getThumbnail(p), 0, 0, areaWidth, areaHeight);
 
                 // Draw border
                 if (drawBorder) {
@@ -84,8 +103,9 @@ public class PrintPreviewViewSkin extends BaseScalableViewSkin<PrintPreviewView>
             }
             x += INTERVAL_X + pageWidth;
         }
-        gc.scale(1.0d, 1.0d);
+        gc.restore();
         super.translateGraphicsContext(true);
+        this.control.prepareThumbnails(pagesAhead);
     }
 
 }
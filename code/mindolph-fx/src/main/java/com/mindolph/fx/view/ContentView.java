@@ -191,8 +191,14 @@ public class ContentView extends BaseView {
     private void initSearchReplaceBar(BaseEditor editor) {
         searchReplaceBar = new SearchBar(editor.createSearchOptions(null));
         searchReplaceBar.setShowReplace(false);
-        searchReplaceBar.setSearchNextEventHandler(searchParams -> editor.searchNext(searchParams.getKeywords(), createTextSearchOptions(searchParams)));
-        searchReplaceBar.setSearchPrevEventHandler(searchParams -> editor.searchPrev(searchParams.getKeywords(), createTextSearchOptions(searchParams)));
+        searchReplaceBar.setSearchNextEventHandler(searchParams -> {
+            editor.searchNext(searchParams.getKeywords(), createTextSearchOptions(searchParams));
+            this.updateMatchStatus();
+        });
+        searchReplaceBar.setSearchPrevEventHandler(searchParams -> {
+            editor.searchPrev(searchParams.getKeywords(), createTextSearchOptions(searchParams));
+            this.updateMatchStatus();
+        });
         searchReplaceBar.subscribeReplace(searchParams -> {
             TextSearchOptions searchOptions = createTextSearchOptions(searchParams);
             log.debug("replace selected text with '%s'".formatted(searchParams.getReplacement()));
@@ -202,6 +208,7 @@ public class ContentView extends BaseView {
         searchReplaceBar.subscribeReplaceAll(searchParams -> {
             log.debug("replace all matched text with '%s'".formatted(searchParams.getReplacement()));
             editor.replaceAll(searchParams.getKeywords(), createTextSearchOptions(searchParams), searchParams.getReplacement());
+            searchReplaceBar.setMatchStatus(-1, -1);
         });
         searchReplaceBar.subscribeExit(v -> {
             if (!searchBarState.isStateIn(STATE_HIDDEN)) searchBarState.post(STATE_HIDDEN);
@@ -248,6 +255,12 @@ public class ContentView extends BaseView {
         searchBarState.start();
     }
 
+    private void updateMatchStatus() {
+        if (this.editor instanceof MindMapEditor mindMapEditor) {
+            searchReplaceBar.setMatchStatus(mindMapEditor.getFoundIndex(), mindMapEditor.getFoundCount());
+        }
+    }
+
     public BaseEditor getEditor() {
         return editor;
     }
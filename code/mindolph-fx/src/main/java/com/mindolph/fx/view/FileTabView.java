@@ -205,10 +205,15 @@ public class FileTabView extends BaseView {
                     });
                     editor.setFileSavedEventHandler(savedFileData -> {
                         log.info("File %s saved.".formatted(savedFileData.getFile()));
-                        Tab curTab = getCurrentTab();
-                        curTab.setText(fileData.getName());
-                        // curTab.setStyle("-fx-font-size: 14"); seams not work for default font
-                        EventBus.getIns().notifyMenuStateChange(SAVE, false);
+                        // the file is saved in background, the saved tab is not always the current one.
+                        Tab savedTab = openedFileMap.get(savedFileData);
+                        if (savedTab != null) {
+                            savedTab.setText(savedFileData.getName());
+                            // savedTab.setStyle("-fx-font-size: 14"); seams not work for default font
+                            if (savedTab == getCurrentTab()) {
+                                EventBus.getIns().notifyMenuStateChange(SAVE, false);
+                            }
+                        }
                     });
 
                     if (editor instanceof BasePreviewEditor) {
@@ -373,7 +378,7 @@ public class FileTabView extends BaseView {
      * @param fileData
      */
     public void saveAsFrom(NodeData fileData) {
-        if (!saveEditorFile(fileData)) {
+        if (!saveEditorFile(fileData, false)) {
             return;
         }
         File origFile = fileData.getFile();
@@ -507,13 +512,11 @@ public class FileTabView extends BaseView {
                 NodeData nodeData = ((NodeData) userData);
                 if (nodeData.isFile()) {
                     try {
-                        tabEditorMap.get(tab).save();
+                        tabEditorMap.get(tab).save(); // the tab title is reset once it's saved.
                     } catch (IOException e) {
                         e.printStackTrace();
                         DialogFactory.errDialog("Saving file %s failed.".formatted(nodeData.getFile()));
                     }
-                    tab.setText(nodeData.getName());
-                    tab.setStyle("-fx-font-size: 14");
                 }
             }
         }
@@ -551,7 +554,7 @@ public class FileTabView extends BaseView {
      */
     public boolean closeFileTabSafely(NodeData fileData) {
         Tab tab = openedFileMap.get(fileData);
-        if (tab != null && this.saveEditorFile(fileData)) {
+        if (tab != null && this.saveEditorFile(fileData, true)) {
             Editable editor = tabEditorMap.get(tab);
             if (editor != null) editor.dispose();// editor may not be loaded
             Tab nextTab = TabManager.getIns().previousTabFrom(tab);
@@ -624,10 +627,13 @@ public class FileTabView extends BaseView {
     }
 
     /**
+     * Save the file before following action and wait until it's saved.
+     *
      * @param fileData
+     * @param closing  true if the editor is going to be closed, the changes are discarded if user chooses not to save.
      * @return False means error occurred or user canceled closing. Following action should be aborted.
      */
-    private boolean saveEditorFile(NodeData fileData) {
+    private boolean saveEditorFile(NodeData fileData, boolean closing) {
         Tab tab = openedFileMap.get(fileData);
         Editable editor = tabEditorMap.get(tab);
         if (editor == null) {
@@ -640,13 +646,16 @@ public class FileTabView extends BaseView {
             }
             if (needSave) {
                 try {
-                    editor.save();
+                    editor.saveAndWait();
                 } catch (IOException e) {
                     e.printStackTrace();
-                    DialogFactory.errDialog("File save failed");
+                    DialogFactory.errDialog("File save failed: " + e.getMessage());
                     return false;
                 }
             }
+            else if (closing) {
+                editor.discardChanges();
+            }
             return true;
         }
         else {
@@ -4,8 +4,10 @@ package com.mindolph.markdown;
 import com.mindolph.base.EditorContext;
 import com.mindolph.base.Env;
 import com.mindolph.base.FontIconManager;
+import com.mindolph.base.ShortcutManager;
 import com.mindolph.base.constant.FontConstants;
 import com.mindolph.base.constant.IconKey;
+import com.mindolph.base.constant.ShortcutConstants;
 import com.mindolph.base.control.SearchableCodeArea;
 import com.mindolph.base.editor.BasePreviewEditor;
 import com.mindolph.base.editor.MarkdownCodeArea;
@@ -20,11 +22,17 @@ import com.mindolph.base.util.GeometryConvertUtils;
 import com.mindolph.core.constant.SupportFileTypes;
 import com.mindolph.core.template.HtmlBuilder;
 import com.mindolph.core.util.FileNameUtils;
+import com.mindolph.markdown.export.ExportListener;
+import com.mindolph.markdown.export.PdfExportService;
+import com.mindolph.markdown.export.PdfExportTask;
+import com.mindolph.markdown.outline.MarkdownOutline;
+import com.mindolph.markdown.outline.MarkdownOutlineIndex;
+import com.mindolph.markdown.outline.OutlineItem;
+import com.mindolph.markdown.render.MarkdownRenderCache;
 import com.mindolph.mfx.dialog.DialogFactory;
 import com.mindolph.mfx.dialog.impl.TextBlockDialog;
 import com.mindolph.mfx.util.BoundsUtils;
 import com.mindolph.mfx.util.DesktopUtils;
-import com.openhtmltopdf.pdfboxout.PdfRendererBuilder;
 import com.sun.javafx.webkit.WebConsoleListener;
 import com.vladsch.flexmark.ext.anchorlink.AnchorLinkExtension;
 import com.vladsch.flexmark.ext.autolink.AutolinkExtension;
@@ -32,7 +40,6 @@ import com.vladsch.flexmark.ext.tables.TablesExtension;
 import com.vladsch.flexmark.html.HtmlRenderer;
 import com.vladsch.flexmark.parser.Parser;
 import com.vladsch.flexmark.util.ast.KeepType;
-import com.vladsch.flexmark.util.ast.Node;
 import com.vladsch.flexmark.util.data.MutableDataSet;
 import javafx.application.Platform;
 import javafx.fxml.FXML;
@@ -44,6 +51,7 @@ import javafx.scene.control.ContextMenu;
 import javafx.scene.control.MenuItem;
 import javafx.scene.image.Image;
 import javafx.scene.image.WritableImage;
+import javafx.scene.input.KeyEvent;
 import javafx.scene.input.MouseButton;
 import javafx.scene.layout.AnchorPane;
 import javafx.scene.layout.VBox;
@@ -57,9 +65,11 @@ import org.apache.commons.io.FilenameUtils;
 import org.apache.commons.lang3.ArrayUtils;
 import org.apache.commons.lang3.RegExUtils;
 import org.apache.commons.lang3.StringUtils;
-import org.apache.commons.lang3.SystemUtils;
 import org.fxmisc.flowless.VirtualizedScrollPane;
 import org.fxmisc.richtext.CharacterHit;
+import org.fxmisc.richtext.model.TwoDimensional;
+import org.reactfx.EventSource;
+import org.reactfx.Subscription;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.swiftboot.util.ClasspathResourceUtils;
@@ -72,16 +82,19 @@ import org.w3c.dom.events.EventTarget;
 import org.w3c.dom.html.HTMLAnchorElement;
 
 import java.io.File;
-import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.math.BigDecimal;
 import java.math.RoundingMode;
 import java.net.URL;
-import java.nio.charset.Charset;
 import java.nio.charset.StandardCharsets;
+import java.time.Duration;
 import java.util.Arrays;
+import java.util.List;
 import java.util.ResourceBundle;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.stream.Collectors;
 
 import static com.mindolph.base.constant.PrefConstants.PREF_KEY_MD_FONT_FILE_PDF;
 
@@ -95,6 +108,15 @@ public class MarkdownEditor extends BasePreviewEditor implements Initializable {
     public static final String URL_MARKUP = "[%s](%s)";
     public static final String IMG_MARKUP = "![%s](%s)";
 
+    private static final int OUTLINE_UPDATE_DELAY_IN_MILLIS = 300;
+
+    // outlines of all editors are updated one by one in background.
+    private static final ExecutorService outlineExecutor = Executors.newSingleThreadExecutor(r -> {
+        Thread t = new Thread(r, "markdown-outline");
+        t.setDaemon(true);
+        return t;
+    });
+
 
     private static final String initScrollScript = """
             function initScrollPos(){
@@ -122,10 +144,26 @@ public class MarkdownEditor extends BasePreviewEditor implements Initializable {
     // markdown parser and renderer
     private final Parser parser;
     private final HtmlRenderer renderer;
+    // rendered html fragments of document, persisted in workspace.
+    private final MarkdownRenderCache renderCache;
+    private final File renderCacheFile;
+    // the last PDF export task of this editor.
+    private PdfExportTask pdfExportTask;
 
     // used to force refresh resource in page like images.
     private String timestamp;
 
+    // outline of the document, it's updated from the edited range only.
+    private final MarkdownOutlineIndex outlineIndex;
+    private MarkdownOutline outline = MarkdownOutline.EMPTY;
+    private final EventSource<Object> outlineSource = new EventSource<>();
+    private Subscription outlineSubscription;
+    // the range edited since the outline was updated last time, dirtyStart is -1 if nothing edited.
+    private int dirtyStart = -1;
+    private int dirtyEnd;
+    private int dirtyDelta;
+    private String breadcrumbs;
+
 
     public MarkdownEditor(EditorContext editorContext) {
         super("/editor/markdown_editor.fxml", editorContext, true);
@@ -193,6 +231,25 @@ public class MarkdownEditor extends BasePreviewEditor implements Initializable {
 
         parser = Parser.builder(options).build();
         renderer = HtmlRenderer.builder(options).build();
+        renderCache = new MarkdownRenderCache(parser, renderer);
+        renderCacheFile = editorContext.getWorkspaceData() == null ? null
+                : MarkdownRenderCache.cacheFileOf(editorContext.getWorkspaceData().getFile(), editorContext.getFileData().getFile());
+        renderCache.load(renderCacheFile);
+
+        outlineIndex = new MarkdownOutlineIndex(parser);
+        // both subscriptions are disposed together, the debouncing one holds a timer.
+        outlineSubscription = codeArea.plainTextChanges().subscribe(change -> {
+            this.markDirty(change.getPosition(), change.getRemoved().length(), change.getInserted().length());
+            outlineSource.push(change);
+        }).and(outlineSource.reduceSuccessions((o, o2) -> o2, Duration.ofMillis(OUTLINE_UPDATE_DELAY_IN_MILLIS))
+                .subscribe(o -> this.updateOutline()));
+        codeArea.currentParagraphProperty().addListener((observable, oldValue, newValue) -> this.showBreadcrumbs());
+        codeArea.addEventFilter(KeyEvent.KEY_PRESSED, event -> {
+            if (ShortcutManager.getIns().isKeyEventMatch(event, ShortcutConstants.KEY_MD_OUTLINE)) {
+                this.showOutlineMenu();
+                event.consume();
+            }
+        });
         this.refresh();// to set up the font
     }
 
@@ -208,7 +265,9 @@ public class MarkdownEditor extends BasePreviewEditor implements Initializable {
                     Integer previewVpHeight = (Integer) webView.getEngine().executeScript("getViewportHeight();");
                     Integer previewTotalHeight = (Integer) webView.getEngine().executeScript("getTotalHeight();");
                     if (previewVpHeight != null && previewTotalHeight != null) {
-                        currentScrollV = convertScrollPosition(newY, codeArea.getViewportHeight(), codeArea.getTotalHeightEstimate(), previewVpHeight, previewTotalHeight);
+                        Double synced = this.previewScrollBySection(previewTotalHeight);
+                        currentScrollV = synced != null ? synced
+                                : convertScrollPosition(newY, codeArea.getViewportHeight(), codeArea.getTotalHeightEstimate(), previewVpHeight, previewTotalHeight);
                         if (log.isTraceEnabled()) log.trace("auto scroll preview to: %s".formatted(currentScrollV));
                         webView.getEngine().executeScript("setScrollPos(%s, %s);".formatted(currentScrollH, currentScrollV));
                     }
@@ -237,6 +296,132 @@ public class MarkdownEditor extends BasePreviewEditor implements Initializable {
         }
     }
 
+    /**
+     * Merge the edit into the dirty range.
+     *
+     * @param pos
+     * @param removedLength
+     * @param insertedLength
+     */
+    private void markDirty(int pos, int removedLength, int insertedLength) {
+        int delta = insertedLength - removedLength;
+        if (dirtyStart < 0) {
+            dirtyStart = pos;
+            dirtyEnd = pos + insertedLength;
+            dirtyDelta = delta;
+            return;
+        }
+        // the end of dirty range after this edit.
+        int end = dirtyEnd < pos ? dirtyEnd : (dirtyEnd >= pos + removedLength ? dirtyEnd + delta : pos + insertedLength);
+        dirtyStart = Math.min(dirtyStart, pos);
+        dirtyEnd = Math.max(end, pos + insertedLength);
+        dirtyDelta += delta;
+    }
+
+    private void updateOutline() {
+        if (dirtyStart < 0 || isLargeFile()) {
+            return;
+        }
+        String text = codeArea.getText();
+        int start = dirtyStart;
+        int endOld = dirtyEnd - dirtyDelta;
+        int endNew = dirtyEnd;
+        dirtyStart = -1;
+        outlineExecutor.execute(() -> {
+            try {
+                MarkdownOutline updated = outlineIndex.update(text, start, endOld, endNew);
+                Platform.runLater(() -> {
+                    this.outline = updated;
+                    this.showBreadcrumbs();
+                });
+            } catch (Exception e) {
+                log.warn("Failed to update outline", e);
+            }
+        });
+    }
+
+    /**
+     * Show the headings of the section where the caret is in status bar.
+     */
+    private void showBreadcrumbs() {
+        String crumbs = outline.breadcrumbs(codeArea.getCaretPosition()).stream().map(OutlineItem::text).collect(Collectors.joining(" > "));
+        if (!StringUtils.equals(crumbs, breadcrumbs)) {
+            breadcrumbs = crumbs;
+            EventBus.getIns().notifyStatusMsg(editorContext.getFileData().getFile(), new StatusMsg(crumbs));
+        }
+    }
+
+    private void showOutlineMenu() {
+        List<OutlineItem> headings = outline.getHeadings();
+        if (headings.isEmpty()) {
+            EventBus.getIns().notifyStatusMsg(editorContext.getFileData().getFile(), new StatusMsg("No headings in document"));
+            return;
+        }
+        ContextMenu menu = new ContextMenu();
+        int current = outline.headingIndexAt(codeArea.getCaretPosition());
+        for (int i = 0; i < headings.size(); i++) {
+            OutlineItem heading = headings.get(i);
+            MenuItem mi = new MenuItem(StringUtils.repeat("    ", heading.level() - 1) + heading.text());
+            if (i == current) {
+                mi.setStyle("-fx-font-weight: bold");
+            }
+            int index = i;
+            mi.setOnAction(event -> this.goToHeading(index));
+            menu.getItems().add(mi);
+        }
+        Bounds bounds = codeArea.getCaretBounds().orElse(codeArea.localToScreen(codeArea.getBoundsInLocal()));
+        menu.show(codeArea, bounds.getMinX(), bounds.getMaxY());
+    }
+
+    /**
+     * Move caret to the heading and scroll the preview to it.
+     *
+     * @param index index of heading in outline.
+     */
+    public void goToHeading(int index) {
+        OutlineItem heading = outline.getHeadings().get(index);
+        codeArea.moveTo(Math.min(heading.start(), codeArea.getLength()));
+        codeArea.requestFollowCaret();
+        codeArea.requestFocus();
+        if (viewMode != ViewMode.TEXT_ONLY && webEngine != null) {
+            webEngine.executeScript("scrollToHeading(%d);".formatted(index));
+        }
+    }
+
+    /**
+     * Calculate the scroll position of preview by the section of the first visible line in editor: the position is
+     * interpolated between the heading of the section and the next heading in preview.
+     *
+     * @param previewTotalHeight
+     * @return null if it can't be calculated.
+     */
+    private Double previewScrollBySection(int previewTotalHeight) {
+        List<OutlineItem> headings = outline.getHeadings();
+        if (headings.isEmpty()) {
+            return null;
+        }
+        int firstPar = codeArea.firstVisibleParToAllParIndex();
+        int i = outline.headingIndexAt(codeArea.getAbsolutePosition(firstPar, 0));
+        double topStart = i < 0 ? 0 : this.getPreviewHeadingTop(i);
+        double topEnd = i + 1 < headings.size() ? this.getPreviewHeadingTop(i + 1) : previewTotalHeight;
+        if (topStart < 0 || topEnd < 0) {
+            return null; // the headings in preview don't match the outline
+        }
+        int parStart = i < 0 ? 0 : this.paragraphOf(headings.get(i).start());
+        int parEnd = i + 1 < headings.size() ? this.paragraphOf(headings.get(i + 1).start()) : codeArea.getParagraphs().size();
+        double fraction = (double) (firstPar - parStart) / Math.max(1, parEnd - parStart);
+        return topStart + Math.max(0, Math.min(1, fraction)) * (topEnd - topStart);
+    }
+
+    private int paragraphOf(int offset) {
+        return codeArea.offsetToPosition(Math.min(offset, codeArea.getLength()), TwoDimensional.Bias.Forward).getMajor();
+    }
+
+    private double getPreviewHeadingTop(int index) {
+        Object top = webEngine.executeScript("getHeadingTop(%d);".formatted(index));
+        return top instanceof Number n ? n.doubleValue() : -1;
+    }
+
     // this method will be called from javascript inside the webview.
     public void onWebviewScroll(double x, double y) {
 //        System.out.printf("B: %d-%s%n", Thread.currentThread().getId(), Thread.currentThread().getName());
@@ -345,8 +530,7 @@ public class MarkdownEditor extends BasePreviewEditor implements Initializable {
         // uncomment to convert soft-breaks to hard breaks
         // options.set(HtmlRenderer.SOFT_BREAK, "<br />\n");
 
-        Node document = parser.parse(codeArea.getText());
-        String html = renderer.render(document);
+        String html = renderCache.render(codeArea.getText());
         callback.call(html);
 //        });
     }
@@ -358,11 +542,11 @@ public class MarkdownEditor extends BasePreviewEditor implements Initializable {
         MenuItem miExportHtml = new MenuItem("Export to HTML file", FontIconManager.getIns().getIcon(IconKey.BROWSE));
         MenuItem miExportImage = new MenuItem("Export to Image file", FontIconManager.getIns().getIcon(IconKey.IMAGE));
         MenuItem miExportPdf = new MenuItem("Export to PDF file", FontIconManager.getIns().getIcon(IconKey.PDF));
+        MenuItem miCancelExport = new MenuItem("Cancel PDF Export");
 
 
         miViewSource.setOnAction(e -> {
-            Node document = parser.parse(codeArea.getText());
-            String html = renderer.render(document);
+            String html = renderCache.render(codeArea.getText());
             String finalHtml = new HtmlBuilder(html)
                     .title(editorContext.getFileData().getName())
                     .css("style/markdown_preview_github.css")
@@ -378,8 +562,7 @@ public class MarkdownEditor extends BasePreviewEditor implements Initializable {
             refresh(codeArea.getText());
         });
         miExportHtml.setOnAction(e -> {
-            Node document = parser.parse(codeArea.getText());
-            String html = renderer.render(document);
+            String html = renderCache.render(codeArea.getText());
 
             HtmlBuilder builder = new HtmlBuilder(html)
                     .title(editorContext.getFileData().getName())
@@ -428,51 +611,53 @@ public class MarkdownEditor extends BasePreviewEditor implements Initializable {
                     new FileChooser.ExtensionFilter("PDF file", "*.pdf"));
             if (pdfFile != null && pdfFile.getParentFile().exists()) {
                 log.info("Export to pdf file: " + pdfFile);
-                new Thread(() -> {
-                    try {
-                        String fontFilePath = fxPreferences.getPreference(PREF_KEY_MD_FONT_FILE_PDF, String.class);
-                        String finalHtml = new HtmlBuilder(html)
-                                .title(editorContext.getFileData().getName())
-                                .absoluteUri(editorContext.getFileData().getFile().getParentFile())
-                                .css("style/markdown_preview_github.css")
-                                .markdown("markdown-body")
-                                .pdf(new File(fontFilePath))
-                                .build(timestamp);
-
-                        PdfRendererBuilder builder = new PdfRendererBuilder();
-                        builder.useFastMode();
-                        builder.withHtmlContent(finalHtml, editorContext.getFileData().getFile().toString());
-                        builder.toStream(new FileOutputStream(pdfFile));
-                        builder.run();
-//                        DataHolder OPTIONS = PegdownOptionsAdapter.flexmarkOptions(
-//                                        Extensions.ALL & ~(Extensions.ANCHORLINKS | Extensions.EXTANCHORLINKS_WRAP)
-//                                        , TocExtension.create()).toMutable()
-//                                .set(TocExtension.LIST_CLASS, PdfConverterExtension.DEFAULT_TOC_LIST_CLASS)
-//                                .toImmutable();
-//                        PdfConverterExtension.exportToPdf(pdfFile.getPath(), finalHtml, "", OPTIONS);
-                        File debugFile = new File(SystemUtils.getJavaIoTmpDir(), pdfFile.getName() + ".html");
-                        log.debug("write to file: " + debugFile);
-                        try {
-                            FileUtils.writeStringToFile(debugFile, finalHtml, Charset.defaultCharset());
-                        } catch (IOException e) {
-                            throw new RuntimeException(e);
-                        }
-                    } catch (Throwable e) {
-                        e.printStackTrace();
-                        log.error("Failed to export to PDF", e);
+                String fontFilePath = fxPreferences.getPreference(PREF_KEY_MD_FONT_FILE_PDF, String.class);
+                File fontFile = StringUtils.isBlank(fontFilePath) ? null : new File(fontFilePath);
+                String finalHtml = new HtmlBuilder(html)
+                        .title(editorContext.getFileData().getName())
+                        .absoluteUri(editorContext.getFileData().getFile().getParentFile())
+                        .css("style/markdown_preview_github.css")
+                        .markdown("markdown-body")
+                        .pdfFontFamily(fontFile != null && fontFile.exists() ? PdfExportService.PDF_FONT_FAMILY : null)
+                        .build(timestamp);
+                pdfExportTask = PdfExportService.getIns().export(finalHtml, file.toString(), pdfFile, fontFile, new ExportListener() {
+                    @Override
+                    public void onProgress(double progress, String message) {
+                        EventBus.getIns().notifyStatusMsg(file, new StatusMsg("Exporting PDF (%d%%): %s".formatted((int) (progress * 100), message)));
+                    }
+
+                    @Override
+                    public void onCompleted(File exported) {
+                        String success = "PDF file exported to: %s".formatted(exported.getPath());
+                        log.info(success);
+                        EventBus.getIns().notifyStatusMsg(file, new StatusMsg(success));
+                    }
+
+                    @Override
+                    public void onFailed(Exception e) {
                         EventBus.getIns().notifyStatusMsg(file, new StatusMsg("Failed to export to PDF: " + e.getLocalizedMessage()));
                     }
-                    String success = "PDF file exported to: %s".formatted(pdfFile.getPath());
-                    log.info(success);
-                    EventBus.getIns().notifyStatusMsg(file, new StatusMsg(success));
-                }, "Markdown Export Thread").start();
+
+                    @Override
+                    public void onCancelled() {
+                        EventBus.getIns().notifyStatusMsg(file, new StatusMsg("PDF export cancelled"));
+                    }
+                });
             }
         });
+        miCancelExport.setOnAction(event -> {
+            if (pdfExportTask != null) {
+                pdfExportTask.cancel();
+            }
+        });
+        contextMenu.setOnShowing(event -> {
+            miCancelExport.setVisible(pdfExportTask != null && !pdfExportTask.isFinished());
+        });
         if (Env.isDevelopment) {
-            contextMenu.getItems().addAll(miRefresh, miViewSource, miExportHtml, miExportPdf);
+            contextMenu.getItems().addAll(miRefresh, miViewSource, miExportHtml, miExportPdf, miCancelExport);
         }
         else {
-            contextMenu.getItems().addAll(miRefresh, miExportHtml, miExportPdf);
+            contextMenu.getItems().addAll(miRefresh, miExportHtml, miExportPdf, miCancelExport);
         }
         return contextMenu;
     }
@@ -488,7 +673,8 @@ public class MarkdownEditor extends BasePreviewEditor implements Initializable {
 
         String finalHtml = new HtmlBuilder(html)
                 .title(editorContext.getFileData().getName())
-                .absoluteUri(editorContext.getFileData().getFile().getParentFile())
+                .cachedUri(editorContext.getFileData().getFile().getParentFile(),
+                        editorContext.getWorkspaceData() == null ? null : editorContext.getWorkspaceData().getFile())
                 .css("style/markdown_preview_github.css")
                 .script(finalScript, "initScrollPos")
                 .markdown("markdown-body")
@@ -532,8 +718,18 @@ public class MarkdownEditor extends BasePreviewEditor implements Initializable {
         }
     }
 
+    @Override
+    protected void onLargeFileLoading() {
+        super.onLargeFileLoading();
+        outlineSubscription.unsubscribe(); // no outline for large file
+    }
+
     @Override
     public void dispose() {
+        outlineSubscription.unsubscribe();
+        if (renderCacheFile != null && !isLargeFile()) {
+            renderCache.persist(renderCacheFile);
+        }
         super.dispose();
         webEngine.load(null);
         webEngine = null;
@@ -0,0 +1,25 @@
+package com.mindolph.markdown.export;
+
+import java.io.File;
+
+/**
+ * Listener of an export task, it's called in the exporting thread.
+ *
+ * @author mindolph.com@gmail.com
+ */
+public interface ExportListener {
+
+    /**
+     * @param progress from 0 to 1.
+     * @param message  what is going on.
+     */
+    default void onProgress(double progress, String message) {
+    }
+
+    void onCompleted(File file);
+
+    void onFailed(Exception e);
+
+    default void onCancelled() {
+    }
+}
@@ -0,0 +1,174 @@
+package com.mindolph.markdown.export;
+
+import com.openhtmltopdf.extend.FSCacheEx;
+import com.openhtmltopdf.extend.FSCacheValue;
+import com.openhtmltopdf.extend.impl.FSDefaultCacheStore;
+import com.openhtmltopdf.outputdevice.helper.BaseRendererBuilder;
+import com.openhtmltopdf.pdfboxout.PdfRendererBuilder;
+import org.apache.commons.io.FileUtils;
+import org.apache.commons.lang3.SystemUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Export HTML to PDF files one by one in a background worker, the font data and font metrics are loaded once
+ * and shared by all exports.
+ * The HTML is exported to a temporary file first and moved to the target file once it's done, so a failed or
+ * cancelled export doesn't leave a broken PDF file.
+ *
+ * @author mindolph.com@gmail.com
+ */
+public class PdfExportService {
+
+    private static final Logger log = LoggerFactory.getLogger(PdfExportService.class);
+
+    // font family name of the font registered for exporting, use it in CSS.
+    public static final String PDF_FONT_FAMILY = "pdf-font";
+
+    private static final int MAX_QUEUED_EXPORTS = 8;
+
+    private static final PdfExportService ins = new PdfExportService();
+
+    // daemon since the application exits with System.exit(), call shutdown() before exiting to let the exports finish.
+    // the thread exits after being idle for a while.
+    private final ThreadPoolExecutor executor = new ThreadPoolExecutor(1, 1, 30, TimeUnit.SECONDS,
+            new ArrayBlockingQueue<>(MAX_QUEUED_EXPORTS), r -> {
+        Thread t = new Thread(r, "pdf-export");
+        t.setDaemon(true);
+        return t;
+    });
+
+    // font data by path of font file.
+    private final Map<String, FontData> fonts = new ConcurrentHashMap<>();
+
+    private PdfExportService() {
+        executor.allowCoreThreadTimeOut(true);
+    }
+
+    public static PdfExportService getIns() {
+        return ins;
+    }
+
+    /**
+     * Submit an export task.
+     *
+     * @param html     full HTML to export, use {@link #PDF_FONT_FAMILY} as font family if font file is provided.
+     * @param baseUri  base URI to resolve the resources in HTML.
+     * @param pdfFile  target file.
+     * @param fontFile font file to register, null if no font needed.
+     * @param listener
+     * @return
+     */
+    public PdfExportTask export(String html, String baseUri, File pdfFile, File fontFile, ExportListener listener) {
+        PdfExportTask task = new PdfExportTask(pdfFile, listener);
+        try {
+            task.future = executor.submit(() -> this.run(task, html, baseUri, fontFile));
+        } catch (RejectedExecutionException e) {
+            task.failed(new IllegalStateException("Too many PDF exports are waiting, try again later"));
+        }
+        return task;
+    }
+
+    /**
+     * Stop accepting exports and wait until the submitted ones are completed, it should be called before the
+     * application exits.
+     *
+     * @param timeoutMillis
+     * @return false if the exports are not completed in time.
+     */
+    public boolean shutdown(long timeoutMillis) {
+        executor.shutdown();
+        try {
+            if (executor.awaitTermination(timeoutMillis, TimeUnit.MILLISECONDS)) {
+                return true;
+            }
+            log.warn("PDF exports are not completed in %d ms".formatted(timeoutMillis));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        return false;
+    }
+
+    private void run(PdfExportTask task, String html, String baseUri, File fontFile) {
+        if (task.checkCancelled()) {
+            return;
+        }
+        File pdfFile = task.getPdfFile();
+        File tempFile = new File(pdfFile.getParentFile(), pdfFile.getName() + ".exporting");
+        try {
+            task.progress(0.1, "Loading fonts");
+            PdfRendererBuilder builder = new PdfRendererBuilder();
+            builder.useFastMode();
+            if (fontFile != null && fontFile.isFile()) {
+                FontData font = this.loadFont(fontFile);
+                builder.useCacheStore(BaseRendererBuilder.CacheStore.PDF_FONT_METRICS, font.metricsCache);
+                builder.useFont(() -> new ByteArrayInputStream(font.data), PDF_FONT_FAMILY, 400, BaseRendererBuilder.FontStyle.NORMAL, true);
+            }
+            builder.withHtmlContent(html, baseUri);
+            if (task.checkCancelled()) {
+                return;
+            }
+            task.progress(0.3, "Rendering");
+            try (OutputStream out = new FileOutputStream(tempFile)) {
+                builder.toStream(out);
+                builder.run();
+            }
+            if (task.checkCancelled()) {
+                FileUtils.deleteQuietly(tempFile);
+                return;
+            }
+            task.progress(0.9, "Writing file");
+            Files.move(tempFile.toPath(), pdfFile.toPath(), StandardCopyOption.REPLACE_EXISTING);
+            if (log.isTraceEnabled()) {
+                File debugFile = new File(SystemUtils.getJavaIoTmpDir(), pdfFile.getName() + ".html");
+                log.trace("write exported html to file: " + debugFile);
+                FileUtils.writeStringToFile(debugFile, html, StandardCharsets.UTF_8);
+            }
+            task.completed();
+        } catch (Exception e) {
+            log.error("Failed to export to PDF", e);
+            FileUtils.deleteQuietly(tempFile);
+            task.failed(e);
+        }
+    }
+
+    /**
+     * Load font data, it's loaded again only if the font file is modified.
+     *
+     * @param fontFile
+     * @return
+     * @throws IOException
+     */
+    private FontData loadFont(File fontFile) throws IOException {
+        FontData font = fonts.get(fontFile.getPath());
+        if (font == null || font.lastModified != fontFile.lastModified()) {
+            log.debug("Load font file: " + fontFile);
+            font = new FontData(fontFile.lastModified(), FileUtils.readFileToByteArray(fontFile), new FSDefaultCacheStore());
+            fonts.put(fontFile.getPath(), font);
+        }
+        return font;
+    }
+
+    /**
+     * @param lastModified
+     * @param data
+     * @param metricsCache metrics of the font, which is reused by exports with the same font.
+     */
+    private record FontData(long lastModified, byte[] data, FSCacheEx<String, FSCacheValue> metricsCache) {
+    }
+}
@@ -0,0 +1,83 @@
+package com.mindolph.markdown.export;
+
+import java.io.File;
+import java.util.concurrent.Future;
+
+/**
+ * A PDF export task submitted to {@link PdfExportService}.
+ *
+ * @author mindolph.com@gmail.com
+ */
+public class PdfExportTask {
+
+    private final File pdfFile;
+    private final ExportListener listener;
+    private volatile boolean cancelled;
+    private volatile boolean finished;
+    Future<?> future;
+
+    PdfExportTask(File pdfFile, ExportListener listener) {
+        this.pdfFile = pdfFile;
+        this.listener = listener;
+    }
+
+    /**
+     * Cancel the task, the task that is rendering stops before the PDF file is written.
+     */
+    public void cancel() {
+        if (finished || cancelled) {
+            return;
+        }
+        cancelled = true;
+        if (future != null && future.cancel(false)) {
+            // not started yet
+            this.finish();
+            listener.onCancelled();
+        }
+    }
+
+    public boolean isCancelled() {
+        return cancelled;
+    }
+
+    /**
+     * @return true if the task is completed, failed or cancelled.
+     */
+    public boolean isFinished() {
+        return finished;
+    }
+
+    public File getPdfFile() {
+        return pdfFile;
+    }
+
+    void progress(double progress, String message) {
+        listener.onProgress(progress, message);
+    }
+
+    /**
+     * @return true if the task is cancelled, the listener is notified.
+     */
+    boolean checkCancelled() {
+        if (cancelled) {
+            this.finish();
+            listener.onCancelled();
+        }
+        return cancelled;
+    }
+
+    void completed() {
+        this.finish();
+        listener.onProgress(1, "Done");
+        listener.onCompleted(pdfFile);
+    }
+
+    void failed(Exception e) {
+        this.finish();
+        listener.onFailed(e);
+    }
+
+    private void finish() {
+        finished = true;
+    }
+}
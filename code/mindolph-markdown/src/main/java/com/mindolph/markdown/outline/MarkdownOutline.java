@@ -0,0 +1,72 @@
+package com.mindolph.markdown.outline;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Immutable outline of a markdown document, the items are in order of their positions in source text.
+ * Looking up the section of a position is by binary search.
+ *
+ * @author mindolph.com@gmail.com
+ * @see MarkdownOutlineIndex
+ */
+public class MarkdownOutline {
+
+    public static final MarkdownOutline EMPTY = new MarkdownOutline(Collections.emptyList());
+
+    private final List<OutlineItem> items;
+    private final List<OutlineItem> headings;
+    private final int[] headingStarts;
+
+    public MarkdownOutline(List<OutlineItem> items) {
+        this.items = Collections.unmodifiableList(items);
+        this.headings = items.stream().filter(item -> item.type() == OutlineItem.Type.HEADING).toList();
+        this.headingStarts = headings.stream().mapToInt(OutlineItem::start).toArray();
+    }
+
+    /**
+     * @param offset
+     * @return index of heading of the section that contains the offset, -1 if the offset is before any heading.
+     */
+    public int headingIndexAt(int offset) {
+        int i = Arrays.binarySearch(headingStarts, offset);
+        return i >= 0 ? i : -i - 2;
+    }
+
+    /**
+     * @param offset
+     * @return heading of the section that contains the offset, null if the offset is before any heading.
+     */
+    public OutlineItem headingAt(int offset) {
+        int i = headingIndexAt(offset);
+        return i < 0 ? null : headings.get(i);
+    }
+
+    /**
+     * @param offset
+     * @return headings from top level down to the section that contains the offset.
+     */
+    public List<OutlineItem> breadcrumbs(int offset) {
+        List<OutlineItem> ret = new ArrayList<>();
+        int level = Integer.MAX_VALUE;
+        for (int i = headingIndexAt(offset); i >= 0 && level > 1; i--) {
+            OutlineItem heading = headings.get(i);
+            if (heading.level() < level) {
+                ret.add(heading);
+                level = heading.level();
+            }
+        }
+        Collections.reverse(ret);
+        return ret;
+    }
+
+    public List<OutlineItem> getItems() {
+        return items;
+    }
+
+    public List<OutlineItem> getHeadings() {
+        return headings;
+    }
+}
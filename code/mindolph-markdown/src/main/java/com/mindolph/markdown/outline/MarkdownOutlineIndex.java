@@ -0,0 +1,190 @@
+package com.mindolph.markdown.outline;
+
+import com.vladsch.flexmark.ast.FencedCodeBlock;
+import com.vladsch.flexmark.ast.Heading;
+import com.vladsch.flexmark.ast.Image;
+import com.vladsch.flexmark.ast.IndentedCodeBlock;
+import com.vladsch.flexmark.ast.Link;
+import com.vladsch.flexmark.ext.tables.TableBlock;
+import com.vladsch.flexmark.parser.Parser;
+import com.vladsch.flexmark.util.ast.Node;
+import org.apache.commons.lang3.StringUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Maintains the outline of a markdown document from the flexmark AST of its top-level blocks.
+ * When the text is edited, only the blocks around the edited range are parsed again, the blocks after it are
+ * just moved. It falls back to parse the whole text if the edit may change the structure of the document
+ * out of the range, like a fenced code block is opened or closed.
+ * <p>
+ * Not thread-safe, it's supposed to be updated in one background thread, the outline snapshots are immutable.
+ *
+ * @author mindolph.com@gmail.com
+ */
+public class MarkdownOutlineIndex {
+
+    private static final Logger log = LoggerFactory.getLogger(MarkdownOutlineIndex.class);
+
+    private final Parser parser;
+
+    // top-level blocks in order.
+    private final List<Block> blocks = new ArrayList<>();
+
+    private int length;
+
+    private MarkdownOutline outline = MarkdownOutline.EMPTY;
+
+    public MarkdownOutlineIndex(Parser parser) {
+        this.parser = parser;
+    }
+
+    /**
+     * Parse the whole text.
+     *
+     * @param text
+     * @return
+     */
+    public MarkdownOutline rebuild(String text) {
+        blocks.clear();
+        blocks.addAll(this.parseBlocks(text, 0, text.length()));
+        length = text.length();
+        return this.snapshot();
+    }
+
+    /**
+     * Update with the text after edits, all the edits must be in the dirty range.
+     *
+     * @param text       text after edits.
+     * @param dirtyStart start of the edited range.
+     * @param dirtyEndOld end of the edited range before edits.
+     * @param dirtyEndNew end of the edited range after edits.
+     * @return
+     */
+    public MarkdownOutline update(String text, int dirtyStart, int dirtyEndOld, int dirtyEndNew) {
+        int delta = dirtyEndNew - dirtyEndOld;
+        if (blocks.isEmpty() || length + delta != text.length()) {
+            return this.rebuild(text);
+        }
+        // the blocks in the dirty range and their neighbours, which might be merged with (or split from) the edited ones.
+        int first = 0;
+        while (first < blocks.size() && blocks.get(first).end < dirtyStart) {
+            first++;
+        }
+        first = Math.max(0, first - 1);
+        int last = blocks.size() - 1;
+        while (last >= 0 && blocks.get(last).start > dirtyEndOld) {
+            last--;
+        }
+        last = Math.min(blocks.size() - 1, last + 1);
+        for (int i = first; i <= last; i++) {
+            if (blocks.get(i).fenced) {
+                return this.rebuild(text);
+            }
+        }
+        int regionStart = Math.min(blocks.get(first).start, dirtyStart);
+        int regionEnd = Math.max(blocks.get(last).end, dirtyEndOld) + delta;
+        // extends to whole lines (with the line break), the text out of dirty range is the same as before.
+        while (regionStart > 0 && text.charAt(regionStart - 1) != '\n') {
+            regionStart--;
+        }
+        int lineEnd = text.indexOf('\n', Math.max(regionStart, regionEnd - 1));
+        regionEnd = lineEnd < 0 ? text.length() : lineEnd + 1;
+        String region = text.substring(regionStart, regionEnd);
+        if (StringUtils.containsAny(region, "```", "~~~")) {
+            return this.rebuild(text); // a fence might be opened or closed
+        }
+
+        List<Block> parsed = this.parseBlocks(region, regionStart, regionStart + region.length());
+        // replace the blocks in region with the parsed ones, and move the blocks after it.
+        List<Block> tail = new ArrayList<>(blocks.subList(last + 1, blocks.size()));
+        blocks.subList(first, blocks.size()).clear();
+        blocks.addAll(parsed);
+        for (Block block : tail) {
+            if (block.start < regionEnd - delta) {
+                continue; // re-parsed as part of region
+            }
+            block.start += delta;
+            block.end += delta;
+            blocks.add(block);
+        }
+        length = text.length();
+        log.trace("Re-parsed %d blocks in %d-%d".formatted(parsed.size(), regionStart, regionEnd));
+        return this.snapshot();
+    }
+
+    public MarkdownOutline getOutline() {
+        return outline;
+    }
+
+    private MarkdownOutline snapshot() {
+        List<OutlineItem> items = new ArrayList<>();
+        for (Block block : blocks) {
+            for (OutlineItem item : block.items) {
+                items.add(item.shift(block.start));
+            }
+        }
+        outline = new MarkdownOutline(items);
+        return outline;
+    }
+
+    /**
+     * @param text   text to parse.
+     * @param offset offset of the text in whole document.
+     * @param end    end of the text in whole document.
+     * @return
+     */
+    private List<Block> parseBlocks(String text, int offset, int end) {
+        List<Block> ret = new ArrayList<>();
+        Node document = parser.parse(text);
+        for (Node node = document.getFirstChild(); node != null; node = node.getNext()) {
+            Block block = new Block();
+            block.start = offset + node.getStartOffset();
+            block.end = Math.min(end, offset + node.getEndOffset());
+            this.collectItems(node, node.getStartOffset(), block);
+            ret.add(block);
+        }
+        return ret;
+    }
+
+    private void collectItems(Node node, int blockStart, Block block) {
+        int start = node.getStartOffset() - blockStart;
+        int end = node.getEndOffset() - blockStart;
+        if (node instanceof Heading heading) {
+            block.items.add(new OutlineItem(OutlineItem.Type.HEADING, heading.getLevel(), heading.getText().toString().trim(), null, start, end));
+        }
+        else if (node instanceof FencedCodeBlock codeBlock) {
+            block.fenced = true;
+            block.items.add(new OutlineItem(OutlineItem.Type.CODE_BLOCK, 0, codeBlock.getInfo().toString(), null, start, end));
+        }
+        else if (node instanceof IndentedCodeBlock) {
+            block.items.add(new OutlineItem(OutlineItem.Type.CODE_BLOCK, 0, StringUtils.EMPTY, null, start, end));
+        }
+        else if (node instanceof TableBlock) {
+            String header = StringUtils.substringBefore(node.getChars().toString(), "\n").trim();
+            block.items.add(new OutlineItem(OutlineItem.Type.TABLE, 0, header, null, start, end));
+        }
+        else if (node instanceof Image image) {
+            block.items.add(new OutlineItem(OutlineItem.Type.IMAGE, 0, image.getText().toString(), image.getUrl().toString(), start, end));
+        }
+        else if (node instanceof Link link) {
+            block.items.add(new OutlineItem(OutlineItem.Type.LINK, 0, link.getText().toString(), link.getUrl().toString(), start, end));
+        }
+        for (Node child = node.getFirstChild(); child != null; child = child.getNext()) {
+            this.collectItems(child, blockStart, block);
+        }
+    }
+
+    private static class Block {
+        // in whole document
+        private int start;
+        private int end;
+        // items with offsets relative to the start of block.
+        private final List<OutlineItem> items = new ArrayList<>();
+        // contains fenced code block, which is sensitive to edits out of it.
+        private boolean fenced;
+    }
+}
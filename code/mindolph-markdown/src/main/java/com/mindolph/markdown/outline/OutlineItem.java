@@ -0,0 +1,27 @@
+package com.mindolph.markdown.outline;
+
+/**
+ * An element of markdown document in outline.
+ *
+ * @param type
+ * @param level level of heading, 0 for others.
+ * @param text  text of heading, language of code block, header of table or text of link and image.
+ * @param url   url of link and image, null for others.
+ * @param start start offset in source text.
+ * @param end   end offset (exclusive) in source text.
+ * @author mindolph.com@gmail.com
+ */
+public record OutlineItem(Type type, int level, String text, String url, int start, int end) {
+
+    /**
+     * @param offset
+     * @return item moved by offset.
+     */
+    public OutlineItem shift(int offset) {
+        return offset == 0 ? this : new OutlineItem(type, level, text, url, start + offset, end + offset);
+    }
+
+    public enum Type {
+        HEADING, CODE_BLOCK, TABLE, LINK, IMAGE
+    }
+}
@@ -0,0 +1,326 @@
+package com.mindolph.markdown.render;
+
+import com.mindolph.core.journal.EditJournal;
+import com.mindolph.core.util.AtomicFileUtils;
+import com.vladsch.flexmark.ast.Heading;
+import com.vladsch.flexmark.html.HtmlRenderer;
+import com.vladsch.flexmark.html.renderer.HeaderIdGenerator;
+import com.vladsch.flexmark.parser.Parser;
+import com.vladsch.flexmark.util.ast.Document;
+import com.vladsch.flexmark.util.ast.Node;
+import org.apache.commons.io.FileUtils;
+import org.apache.commons.lang3.StringUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.HexFormat;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Cache of rendered HTML of markdown documents, the document is split into top-level blocks and each block is
+ * rendered separately with its HTML fragment cached by the hash of its content, so only the changed blocks
+ * are rendered again.
+ * Documents that have link reference definitions or duplicate headings are rendered as a whole since their blocks
+ * depend on each other, they are still cached as one fragment.
+ * <p>
+ * The fragments of the last rendered document can be persisted to a cache file (in the meta folder of workspace)
+ * and loaded when the document is opened again.
+ *
+ * @author mindolph.com@gmail.com
+ */
+public class MarkdownRenderCache {
+
+    private static final Logger log = LoggerFactory.getLogger(MarkdownRenderCache.class);
+
+    private static final String HEADER = "MINDOLPH-RENDER 1";
+
+    // total length of cached fragments.
+    private static final int MAX_CACHE_SIZE = 4 * 1024 * 1024;
+
+    private static final Pattern REFERENCE_DEFINITION = Pattern.compile("^ {0,3}\\[[^\\]]+\\]:", Pattern.MULTILINE);
+    private static final Pattern ATX_HEADING = Pattern.compile("^ {0,3}#{1,6}[ \\t]+(.*?)[ \\t#]*$", Pattern.MULTILINE);
+    private static final Pattern SETEXT_HEADING = Pattern.compile("^ {0,3}(\\S.*)\\n {0,3}(=+|-+)[ \\t]*$", Pattern.MULTILINE);
+    private static final Pattern FENCE = Pattern.compile("^ {0,3}(`{3,}|~{3,})");
+    private static final Pattern LIST_ITEM = Pattern.compile("^ {0,3}([-+*]|\\d{1,9}[.)])([ \\t]|$)");
+    private static final Pattern HTML_BLOCK = Pattern.compile("^ {0,3}<(script|pre|style|textarea|!--|\\?|!\\[CDATA\\[)", Pattern.CASE_INSENSITIVE);
+
+    private final Parser parser;
+    private final HtmlRenderer renderer;
+
+    // fragments by hash of block.
+    private final LinkedHashMap<String, String> fragments = new LinkedHashMap<>(256, 0.75f, true);
+    private int cacheSize;
+
+    // hashes of the blocks of the last rendered document.
+    private List<String> lastBlocks = new ArrayList<>();
+
+    private int renderedCount;
+
+    public MarkdownRenderCache(Parser parser, HtmlRenderer renderer) {
+        this.parser = parser;
+        this.renderer = renderer;
+    }
+
+    /**
+     * Render the markdown text to HTML with the cached fragments.
+     *
+     * @param text
+     * @return
+     */
+    public synchronized String render(String text) {
+        List<String> blocks = this.isSplittable(text) ? splitBlocks(text) : List.of(text);
+        List<String> hashes = new ArrayList<>(blocks.size());
+        StringBuilder html = new StringBuilder();
+        for (String block : blocks) {
+            String hash = hashOf(block);
+            String fragment = fragments.get(hash);
+            if (fragment == null) {
+                fragment = renderer.render(parser.parse(block));
+                renderedCount++;
+                this.putFragment(hash, fragment);
+            }
+            hashes.add(hash);
+            html.append(fragment);
+        }
+        lastBlocks = hashes;
+        this.evict();
+        if (log.isTraceEnabled()) {
+            log.trace("Rendered %d blocks, %d fragments cached".formatted(blocks.size(), fragments.size()));
+        }
+        return html.toString();
+    }
+
+    /**
+     * Load the fragments from cache file.
+     *
+     * @param cacheFile
+     */
+    public synchronized void load(File cacheFile) {
+        if (cacheFile == null || !cacheFile.exists()) {
+            return;
+        }
+        try {
+            String content = FileUtils.readFileToString(cacheFile, StandardCharsets.UTF_8);
+            if (!StringUtils.startsWith(content, HEADER + "\n")) {
+                log.warn("Unknown render cache file: " + cacheFile);
+                return;
+            }
+            int pos = HEADER.length() + 1;
+            while (pos < content.length()) {
+                int lineEnd = content.indexOf('\n', pos);
+                String[] meta = StringUtils.split(content.substring(pos, lineEnd), ' ');
+                int length = Integer.parseInt(meta[1]);
+                int start = lineEnd + 1;
+                this.putFragment(meta[0], content.substring(start, start + length));
+                pos = start + length + 1;
+            }
+            this.evict();
+            log.debug("Loaded %d fragments from render cache file: %s".formatted(fragments.size(), cacheFile));
+        } catch (IOException | RuntimeException e) {
+            log.warn("Failed to load render cache file: " + cacheFile, e);
+        }
+    }
+
+    /**
+     * Persist the fragments of the last rendered document to cache file.
+     *
+     * @param cacheFile
+     */
+    public void persist(File cacheFile) {
+        StringBuilder buf = new StringBuilder(HEADER).append('\n');
+        synchronized (this) {
+            if (lastBlocks.isEmpty()) {
+                return;
+            }
+            for (String hash : new HashSet<>(lastBlocks)) {
+                String fragment = fragments.get(hash);
+                if (fragment != null) {
+                    buf.append(hash).append(' ').append(fragment.length()).append('\n').append(fragment).append('\n');
+                }
+            }
+        }
+        try {
+            AtomicFileUtils.write(cacheFile, buf.toString(), StandardCharsets.UTF_8);
+        } catch (IOException e) {
+            log.warn("Failed to persist render cache file: " + cacheFile, e);
+        }
+    }
+
+    /**
+     * @return how many times of blocks are rendered (not from cache).
+     */
+    public synchronized int getRenderedCount() {
+        return renderedCount;
+    }
+
+    /**
+     * @param workspaceDir
+     * @param file         markdown file in workspace.
+     * @return
+     */
+    public static File cacheFileOf(File workspaceDir, File file) {
+        String relativePath = workspaceDir.toPath().relativize(file.toPath()).toString();
+        String name = "%s.%08x.render".formatted(file.getName(), relativePath.hashCode());
+        return new File(new File(workspaceDir, EditJournal.META_DIR), "render" + File.separator + name);
+    }
+
+    /**
+     * Split markdown text into top-level blocks which are separated by blank lines. The blank lines in fenced code
+     * blocks and some html blocks don't split, and the blocks that might continue the previous one (like indented
+     * lines and list items) are merged to the previous one, so each block can be rendered independently.
+     *
+     * @param text
+     * @return blocks, the concatenation of them is the text.
+     */
+    static List<String> splitBlocks(String text) {
+        List<String> blocks = new ArrayList<>();
+        StringBuilder block = new StringBuilder();
+        boolean blockIsList = false;
+        boolean afterBlank = false;
+        String fence = null; // opening fence of current fenced code block
+        String htmlEnd = null; // end condition of current html block
+        int pos = 0;
+        while (pos < text.length()) {
+            int lineEnd = text.indexOf('\n', pos);
+            lineEnd = lineEnd < 0 ? text.length() : lineEnd + 1;
+            String line = text.substring(pos, lineEnd);
+            pos = lineEnd;
+            if (fence != null || htmlEnd != null) {
+                if (fence != null) {
+                    Matcher m = FENCE.matcher(line);
+                    if (m.find() && m.group(1).charAt(0) == fence.charAt(0) && m.group(1).length() >= fence.length()
+                            && StringUtils.isBlank(line.substring(m.end()))) {
+                        fence = null;
+                    }
+                }
+                else if (StringUtils.contains(line, htmlEnd)) {
+                    htmlEnd = null;
+                }
+                block.append(line);
+                continue;
+            }
+            if (StringUtils.isBlank(line)) {
+                afterBlank = true;
+                block.append(line);
+                continue;
+            }
+            boolean isListItem = LIST_ITEM.matcher(line).find();
+            boolean continues = line.charAt(0) == ' ' || line.charAt(0) == '\t' || (blockIsList && isListItem);
+            if (afterBlank && !continues && !block.isEmpty()) {
+                blocks.add(block.toString());
+                block.setLength(0);
+            }
+            if (block.isEmpty() || (afterBlank && !continues)) {
+                blockIsList = isListItem;
+            }
+            afterBlank = false;
+            Matcher fm = FENCE.matcher(line);
+            if (fm.find()) {
+                fence = fm.group(1);
+            }
+            else {
+                htmlEnd = htmlEndOf(line);
+            }
+            block.append(line);
+        }
+        if (!block.isEmpty()) {
+            blocks.add(block.toString());
+        }
+        return blocks;
+    }
+
+    private static String htmlEndOf(String line) {
+        Matcher m = HTML_BLOCK.matcher(line);
+        if (!m.find()) {
+            return null;
+        }
+        String start = m.group(1).toLowerCase(Locale.ROOT);
+        String end = switch (start) {
+            case "!--" -> "-->";
+            case "?" -> "?>";
+            case "![cdata[" -> "]]>";
+            default -> "</" + start + ">";
+        };
+        // the html block might end in the same line.
+        return StringUtils.containsIgnoreCase(line.substring(m.end()), end) ? null : end;
+    }
+
+    /**
+     * The blocks can't be rendered separately if some of them are referred by others, e.g. the reference links
+     * and the ids of duplicate headings (headings with the same id are given different ids in the whole document).
+     *
+     * @param text
+     * @return
+     */
+    private boolean isSplittable(String text) {
+        if (REFERENCE_DEFINITION.matcher(text).find()) {
+            return false;
+        }
+        // only the headings are parsed to generate their ids, different headings might have the same id.
+        StringBuilder headings = new StringBuilder();
+        for (Pattern pattern : new Pattern[]{ATX_HEADING, SETEXT_HEADING}) {
+            Matcher m = pattern.matcher(text);
+            while (m.find()) {
+                headings.append(m.group()).append("\n\n");
+            }
+        }
+        if (headings.isEmpty()) {
+            return true;
+        }
+        Document document = parser.parse(headings.toString());
+        Set<String> ids = new HashSet<>();
+        for (Node node : document.getDescendants()) {
+            if (node instanceof Heading heading) {
+                String id = HeaderIdGenerator.generateId(heading.getAnchorRefText(),
+                        HtmlRenderer.HEADER_ID_GENERATOR_TO_DASH_CHARS.get(document),
+                        HtmlRenderer.HEADER_ID_GENERATOR_NON_DASH_CHARS.get(document),
+                        HtmlRenderer.HEADER_ID_GENERATOR_NO_DUPED_DASHES.get(document),
+                        HtmlRenderer.HEADER_ID_GENERATOR_NON_ASCII_TO_LOWERCASE.get(document));
+                if (!ids.add(id)) {
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+
+    private void putFragment(String hash, String fragment) {
+        String old = fragments.put(hash, fragment);
+        cacheSize += fragment.length() - (old == null ? 0 : old.length());
+    }
+
+    private void evict() {
+        Set<String> inUse = new HashSet<>(lastBlocks);
+        Iterator<Map.Entry<String, String>> it = fragments.entrySet().iterator();
+        while (cacheSize > MAX_CACHE_SIZE && it.hasNext()) {
+            Map.Entry<String, String> entry = it.next();
+            if (!inUse.contains(entry.getKey())) {
+                cacheSize -= entry.getValue().length();
+                it.remove();
+            }
+        }
+    }
+
+    private static String hashOf(String block) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-1");
+            return HexFormat.of().formatHex(digest.digest(block.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new RuntimeException(e);
+        }
+    }
+}
@@ -0,0 +1,89 @@
+package com.mindolph.markdown.outline;
+
+import com.vladsch.flexmark.ext.tables.TablesExtension;
+import com.vladsch.flexmark.parser.Parser;
+import com.vladsch.flexmark.util.data.MutableDataSet;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+/**
+ * @author mindolph.com@gmail.com
+ */
+public class MarkdownOutlineIndexTest {
+
+    private final Parser parser = Parser.builder(new MutableDataSet()
+            .set(Parser.EXTENSIONS, List.of(TablesExtension.create()))).build();
+
+    private final String text = """
+            # Title
+
+            intro with [link](http://mindolph.com)
+
+            ## Section 1
+
+            text of section 1
+
+            ### Sub section
+
+            ```java
+            code
+            ```
+
+            ## Section 2
+
+            | a | b |
+            |---|---|
+            | 1 | 2 |
+            """;
+
+    @Test
+    public void rebuild() {
+        MarkdownOutline outline = new MarkdownOutlineIndex(parser).rebuild(text);
+        Assertions.assertEquals(4, outline.getHeadings().size());
+        Assertions.assertEquals("Sub section", outline.getHeadings().get(2).text());
+        Assertions.assertEquals(3, outline.getHeadings().get(2).level());
+        List<OutlineItem.Type> types = outline.getItems().stream().map(OutlineItem::type).toList();
+        Assertions.assertTrue(types.contains(OutlineItem.Type.LINK));
+        Assertions.assertTrue(types.contains(OutlineItem.Type.CODE_BLOCK));
+        Assertions.assertTrue(types.contains(OutlineItem.Type.TABLE));
+    }
+
+    @Test
+    public void headingAt() {
+        MarkdownOutline outline = new MarkdownOutlineIndex(parser).rebuild(text);
+        Assertions.assertEquals("Section 1", outline.headingAt(text.indexOf("text of section 1")).text());
+        Assertions.assertEquals("Title", outline.headingAt(0).text());
+        List<String> crumbs = outline.breadcrumbs(text.indexOf("code")).stream().map(OutlineItem::text).toList();
+        Assertions.assertEquals(List.of("Title", "Section 1", "Sub section"), crumbs);
+        crumbs = outline.breadcrumbs(text.indexOf("| 1 |")).stream().map(OutlineItem::text).toList();
+        Assertions.assertEquals(List.of("Title", "Section 2"), crumbs);
+    }
+
+    @Test
+    public void update() {
+        MarkdownOutlineIndex index = new MarkdownOutlineIndex(parser);
+        index.rebuild(text);
+        String edited = text;
+        // rename a heading
+        edited = this.edit(index, edited, edited.indexOf("Section 1"), "Section 1".length(), "First section");
+        // add a heading
+        edited = this.edit(index, edited, edited.indexOf("text of section 1"), 0, "#### Deep\n\n");
+        // turn a paragraph into a heading by removing the blank line before "---"
+        edited = this.edit(index, edited, edited.indexOf("intro"), 0, "Setext\n---\n\n");
+        // remove a section
+        int start = edited.indexOf("## Section 2");
+        edited = this.edit(index, edited, start, edited.length() - start, "");
+        // break the code block
+        edited = this.edit(index, edited, edited.indexOf("```java"), 3, "");
+    }
+
+    private String edit(MarkdownOutlineIndex index, String text, int pos, int removed, String inserted) {
+        String edited = text.substring(0, pos) + inserted + text.substring(pos + removed);
+        MarkdownOutline outline = index.update(edited, pos, pos + removed, pos + inserted.length());
+        MarkdownOutline expected = new MarkdownOutlineIndex(parser).rebuild(edited);
+        Assertions.assertEquals(expected.getItems(), outline.getItems());
+        return edited;
+    }
+}
@@ -0,0 +1,107 @@
+package com.mindolph.markdown.render;
+
+import com.vladsch.flexmark.ext.anchorlink.AnchorLinkExtension;
+import com.vladsch.flexmark.ext.tables.TablesExtension;
+import com.vladsch.flexmark.html.HtmlRenderer;
+import com.vladsch.flexmark.parser.Parser;
+import com.vladsch.flexmark.util.data.MutableDataSet;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.File;
+import java.util.List;
+
+/**
+ * @author mindolph.com@gmail.com
+ */
+public class MarkdownRenderCacheTest {
+
+    private final MutableDataSet options = new MutableDataSet()
+            .set(Parser.EXTENSIONS, List.of(TablesExtension.create(), AnchorLinkExtension.create()));
+    private final Parser parser = Parser.builder(options).build();
+    private final HtmlRenderer renderer = HtmlRenderer.builder(options).build();
+
+    private final String text = """
+            # Title
+
+            intro with [link](http://mindolph.com)
+
+            - item 1
+
+            - item 2
+
+              continued
+
+            ```java
+            code
+
+            more code
+            ```
+
+            | a | b |
+            |---|---|
+            | 1 | 2 |
+
+                indented code
+
+            ## End
+            """;
+
+    @TempDir
+    private File tempDir;
+
+    @Test
+    public void splitBlocks() {
+        List<String> blocks = MarkdownRenderCache.splitBlocks(text);
+        Assertions.assertEquals(text, String.join("", blocks));
+        Assertions.assertEquals(6, blocks.size());
+        Assertions.assertTrue(blocks.get(2).contains("continued"));
+        Assertions.assertTrue(blocks.get(3).contains("more code"));
+        Assertions.assertTrue(blocks.get(4).contains("indented code"));
+    }
+
+    @Test
+    public void render() {
+        MarkdownRenderCache cache = new MarkdownRenderCache(parser, renderer);
+        Assertions.assertEquals(this.renderAll(text), cache.render(text));
+        Assertions.assertEquals(6, cache.getRenderedCount());
+        Assertions.assertEquals(this.renderAll(text), cache.render(text));
+        Assertions.assertEquals(6, cache.getRenderedCount());
+        // only the changed block is rendered
+        String edited = text.replace("item 2", "item two");
+        Assertions.assertEquals(this.renderAll(edited), cache.render(edited));
+        Assertions.assertEquals(7, cache.getRenderedCount());
+    }
+
+    @Test
+    public void renderDependentBlocks() {
+        MarkdownRenderCache cache = new MarkdownRenderCache(parser, renderer);
+        String withReference = text + "\n[ref link][ref]\n\n[ref]: http://mindolph.com\n";
+        Assertions.assertEquals(this.renderAll(withReference), cache.render(withReference));
+        String duplicateHeading = text + "\n# Title\n";
+        Assertions.assertEquals(this.renderAll(duplicateHeading), cache.render(duplicateHeading));
+        Assertions.assertEquals(2, cache.getRenderedCount());
+        // different headings with the same id
+        String sameId = text + "\n# Title!\n\n# *Title?*\n";
+        Assertions.assertEquals(this.renderAll(sameId), cache.render(sameId));
+        Assertions.assertEquals(3, cache.getRenderedCount());
+    }
+
+    @Test
+    public void persist() {
+        File cacheFile = new File(tempDir, "test.md.render");
+        MarkdownRenderCache cache = new MarkdownRenderCache(parser, renderer);
+        cache.render(text);
+        cache.persist(cacheFile);
+
+        MarkdownRenderCache loaded = new MarkdownRenderCache(parser, renderer);
+        loaded.load(cacheFile);
+        Assertions.assertEquals(this.renderAll(text), loaded.render(text));
+        Assertions.assertEquals(0, loaded.getRenderedCount());
+    }
+
+    private String renderAll(String text) {
+        return renderer.render(parser.parse(text));
+    }
+}
@@ -130,8 +130,8 @@ public class ExtraMindMapView extends MindMapView implements ExtensionContext {
                 TopicNode topic = getFirstSelectedTopic();
                 Point2D posElement = new Point2D(0, 0);
                 BaseElement element = null;
-                if (topic != null) {
-                    element = (BaseElement) topic.getPayload();
+                if (topic != null && topic.getPayload() instanceof BaseElement e) {
+                    element = e;
                     Rectangle2D bounds = element.getBounds();
                     posElement = withoutViewportPadding(RectangleUtils.centerX(bounds), RectangleUtils.centerY(bounds));
                 }
@@ -249,6 +249,14 @@ public class MindMapEditor extends BaseEditor {
         mindMapView.replaceAll(keywords, searchOptions, replacement);
     }
 
+    public int getFoundIndex() {
+        return mindMapView.getFoundIndex();
+    }
+
+    public int getFoundCount() {
+        return mindMapView.getFoundCount();
+    }
+
     @Override
     public boolean isSelected() {
         return !CollectionUtils.isEmpty(mindMapView.getSelection());
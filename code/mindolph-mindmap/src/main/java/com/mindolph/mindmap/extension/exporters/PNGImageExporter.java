@@ -22,12 +22,12 @@ import com.mindolph.mindmap.MindMapConfig;
 import com.mindolph.mindmap.extension.api.BaseExportExtension;
 import com.mindolph.mindmap.extension.api.ExtensionContext;
 import com.mindolph.mindmap.gfx.MindMapCanvas;
+import com.mindolph.mindmap.gfx.TiledMindMapRenderer;
 import com.mindolph.mindmap.icon.IconID;
 import com.mindolph.mindmap.icon.ImageIconServiceProvider;
 import com.mindolph.mindmap.model.TopicNode;
 import com.mindolph.mindmap.util.DialogUtils;
 import com.mindolph.mindmap.util.MindMapUtils;
-import javafx.embed.swing.SwingFXUtils;
 import javafx.scene.image.Image;
 import javafx.scene.input.Clipboard;
 import javafx.scene.input.ClipboardContent;
@@ -35,7 +35,6 @@ import org.apache.commons.io.IOUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import javax.imageio.ImageIO;
 import java.io.*;
 import java.nio.file.Files;
 import java.nio.file.attribute.FileTime;
@@ -87,9 +86,7 @@ public final class PNGImageExporter extends BaseExportExtension {
             this.flagExpandAllNodes = options.get(0);
             this.flagDrawBackground = options.get(1);
         }
-        Image image = makeImage(context, options);
-
-        if (image == null) {
+        if (context.getModel().getRoot() == null) {
             if (out == null) {
                 log.error("Can't render map as image");
                 DialogFactory.errDialog(I18n.getIns().getString("PNGImageExporter.msgErrorDuringRendering"));
@@ -100,11 +97,6 @@ public final class PNGImageExporter extends BaseExportExtension {
             }
         }
 
-        ByteArrayOutputStream buff = new ByteArrayOutputStream(128000);
-        ImageIO.write(SwingFXUtils.fromFXImage(image, null), "png", buff);
-
-        byte[] imageData = buff.toByteArray();
-
         File fileToSave = null;
         if (out == null) {
             fileToSave = DialogUtils.selectFileToSaveForFileFilter(
@@ -119,8 +111,13 @@ public final class PNGImageExporter extends BaseExportExtension {
         }
         if (out != null) {
             try {
-                IOUtils.write(imageData, out);
-                Files.setLastModifiedTime(fileToSave.toPath(), FileTime.fromMillis(System.currentTimeMillis()));
+                MindMapConfig newConfig = new MindMapConfig(context.getMindMapConfig());
+                newConfig.getTheme().setDrawBackground(this.flagDrawBackground);
+                // render tile by tile and stream to the file directly, so that huge mind map can be exported.
+                new TiledMindMapRenderer(newConfig).renderToPng(context.getModel(), flagExpandAllNodes, out);
+                if (fileToSave != null) {
+                    Files.setLastModifiedTime(fileToSave.toPath(), FileTime.fromMillis(System.currentTimeMillis()));
+                }
             } finally {
                 if (fileToSave != null) {
                     IOUtils.closeQuietly(out);
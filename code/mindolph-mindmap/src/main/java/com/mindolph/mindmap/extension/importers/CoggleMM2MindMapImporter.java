@@ -26,7 +26,7 @@ import com.mindolph.mindmap.I18n;
 import com.mindolph.mindmap.constant.StandardTopicAttribute;
 import com.mindolph.mindmap.extension.api.BaseImportExtension;
 import com.mindolph.mindmap.extension.api.ExtensionContext;
-import com.mindolph.mindmap.extension.attributes.images.ImageVisualAttributeExtension;
+import com.mindolph.mindmap.extension.api.ImportProgress;
 import com.mindolph.mindmap.icon.IconID;
 import com.mindolph.mindmap.icon.ImageIconServiceProvider;
 import com.mindolph.mindmap.model.TopicNode;
@@ -36,14 +36,15 @@ import javafx.scene.image.Image;
 import javafx.scene.paint.Color;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
-import org.w3c.dom.Document;
-import org.w3c.dom.Element;
 
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamReader;
+import java.io.BufferedInputStream;
 import java.io.File;
 import java.io.FileInputStream;
+import java.io.InputStream;
 import java.net.URL;
-import java.util.ArrayList;
-import java.util.List;
+import java.util.*;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
@@ -76,18 +77,6 @@ public class CoggleMM2MindMapImporter extends BaseImportExtension {
     }
 
 
-    private static String loadFirstSuccessfulImage(List<String> urls) {
-        String result = null;
-        for (String url : urls) {
-            result = loadImageForURLAndEncode(url);
-            if (result != null) {
-                break;
-            }
-        }
-        return result;
-    }
-
-
     private static MMapURI getFirstSuccessfulURL(List<String> urls) {
         MMapURI result = null;
         for (String url : urls) {
@@ -111,25 +100,66 @@ public class CoggleMM2MindMapImporter extends BaseImportExtension {
             return null;
         }
 
-        Document document = XmlUtils.loadXmlDocument(new FileInputStream(file), "UTF-8", true);
+        return this.importInBackground(this.getName(context), progress -> this.parseFile(file, progress));
+    }
 
+    MindMap<TopicNode> parseFile(File file, ImportProgress progress) throws Exception {
         MindMap<TopicNode> result = MindMapUtils.createModelWithRoot();
         result.getRoot().setText("Empty");
 
-        Element root = document.getDocumentElement();
-        if ("map".equals(root.getTagName())) {
-            List<Element> nodes = XmlUtils.findDirectChildrenForName(root, "node");
-            if (!nodes.isEmpty()) {
-                parseTopic(result, null, result.getRoot(), nodes.get(0));
+        ImageAttachments images = new ImageAttachments();
+        Map<TopicNode, PendingNote> notes = new LinkedHashMap<>();
+
+        try (InputStream in = progress.track(new BufferedInputStream(new FileInputStream(file)), file.length())) {
+            XMLStreamReader reader = XmlUtils.createXmlStreamReader(in);
+            try {
+                reader.nextTag();
+                if (!"map".equals(reader.getLocalName())) {
+                    throw new IllegalArgumentException("File is not Coggle mind map");
+                }
+                // topics being parsed, from the current one to the root
+                Deque<TopicNode> stack = new ArrayDeque<>();
+                boolean rootFound = false;
+                while (reader.hasNext()) {
+                    int event = reader.next();
+                    if (event == XMLStreamConstants.START_ELEMENT) {
+                        String name = reader.getLocalName();
+                        if ("node".equals(name)) {
+                            if (stack.isEmpty()) {
+                                if (rootFound) {
+                                    XmlUtils.skipElement(reader);
+                                    continue;
+                                }
+                                rootFound = true;
+                                stack.push(this.startTopic(reader, null, result.getRoot(), images, notes));
+                            }
+                            else {
+                                stack.push(this.startTopic(reader, stack.peek(), null, images, notes));
+                            }
+                        }
+                        else if ("edge".equals(name) && !stack.isEmpty()) {
+                            this.processEdge(reader, stack.peek());
+                        }
+                    }
+                    else if (event == XMLStreamConstants.END_ELEMENT && "node".equals(reader.getLocalName()) && !stack.isEmpty()) {
+                        stack.pop();
+                    }
+                }
+            } finally {
+                reader.close();
             }
-        } else {
-            throw new IllegalArgumentException("File is not Coggle mind map");
         }
 
+        Set<TopicNode> failed = images.attach(progress, CoggleMM2MindMapImporter::loadImageForURLAndEncode);
+        for (Map.Entry<TopicNode, PendingNote> entry : notes.entrySet()) {
+            String note = entry.getValue().toNote(failed.contains(entry.getKey()));
+            if (!note.isEmpty()) {
+                entry.getKey().setExtra(new ExtraNote(note));
+            }
+        }
         return result;
     }
 
-
     private List<String> extractImageURLs(String mdText, StringBuilder resultText) {
         List<String> result = new ArrayList<>();
         Matcher matcher = MD_IMAGE_LINK.matcher(mdText);
@@ -167,7 +197,8 @@ public class CoggleMM2MindMapImporter extends BaseImportExtension {
         return result;
     }
 
-    private void parseTopic(MindMap<TopicNode> map, TopicNode parent, TopicNode preGeneratedOne, Element element) {
+    private TopicNode startTopic(XMLStreamReader reader, TopicNode parent, TopicNode preGeneratedOne,
+                                 ImageAttachments images, Map<TopicNode, PendingNote> notes) {
         TopicNode topicToProcess;
         if (preGeneratedOne == null) {
             topicToProcess = parent.makeChild("", null);
@@ -176,7 +207,7 @@ public class CoggleMM2MindMapImporter extends BaseImportExtension {
         }
 
         StringBuilder resultTextBuffer = new StringBuilder();
-        List<String> foundImageURLs = extractImageURLs(element.getAttribute("TEXT"), resultTextBuffer);
+        List<String> foundImageURLs = extractImageURLs(XmlUtils.findAttribute(reader, "TEXT"), resultTextBuffer);
         String nodeText = resultTextBuffer.toString();
         resultTextBuffer.setLength(0);
 
@@ -185,49 +216,20 @@ public class CoggleMM2MindMapImporter extends BaseImportExtension {
 
         nodeText = resultTextBuffer.toString();
 
-        String encodedImage = loadFirstSuccessfulImage(foundImageURLs);
-        if (encodedImage != null) {
-            topicToProcess.setAttribute(ImageVisualAttributeExtension.ATTR_KEY, encodedImage);
-        }
+        // images are loaded after parsing
+        images.request(topicToProcess, foundImageURLs);
 
         if (succesfullDecodedUrl != null) {
             topicToProcess.setExtra(new ExtraLink(succesfullDecodedUrl));
         }
 
-        StringBuilder note = new StringBuilder();
-
-        if (!foundLinkURLs.isEmpty() && (succesfullDecodedUrl == null || foundLinkURLs.size() > 1)) {
-            if (note.length() > 0) {
-                note.append("\n\n");
-            }
-            note.append("Detected URLs\n---------------");
-            for (String u : foundLinkURLs) {
-                note.append('\n').append(u);
-            }
-        }
-
-        if (!foundImageURLs.isEmpty() && (encodedImage == null || foundImageURLs.size() > 1)) {
-            if (note.length() > 0) {
-                note.append("\n\n");
-            }
-            note.append("Detected image links\n---------------");
-            for (String u : foundImageURLs) {
-                note.append('\n').append(u);
-            }
+        if (!foundImageURLs.isEmpty() || (!foundLinkURLs.isEmpty() && (succesfullDecodedUrl == null || foundLinkURLs.size() > 1))) {
+            notes.put(topicToProcess, new PendingNote(foundLinkURLs, succesfullDecodedUrl != null, foundImageURLs));
         }
 
         String text = nodeText.replace("\r", "");
-        String position = element.getAttribute("POSITION");
-        String folded = element.getAttribute("FOLDED");
-
-        Color edgeColor = null;
-        for (Element e : XmlUtils.findDirectChildrenForName(element, "edge")) {
-            try {
-                edgeColor = ColorUtils.html2color(e.getAttribute("COLOR"), false);
-            } catch (Exception ex) {
-                LOG.error("Can't parse color value", ex);
-            }
-        }
+        String position = XmlUtils.findAttribute(reader, "POSITION");
+        String folded = XmlUtils.findAttribute(reader, "FOLDED");
 
         topicToProcess.setText(text);
 
@@ -238,18 +240,19 @@ public class CoggleMM2MindMapImporter extends BaseImportExtension {
         if ("true".equalsIgnoreCase(folded)) {
             topicToProcess.setCollapsed(true);
         }
+        return topicToProcess;
+    }
 
-        if (edgeColor != null) {
-            topicToProcess.setAttribute(StandardTopicAttribute.ATTR_FILL_COLOR.getText(), ColorUtils.color2html(edgeColor, false));
-            topicToProcess.setAttribute(StandardTopicAttribute.ATTR_TEXT_COLOR.getText(), ColorUtils.color2html(ColorUtils.makeContrastColor(edgeColor), false));
-        }
-
-        if (note.length() > 0) {
-            topicToProcess.setExtra(new ExtraNote(note.toString()));
+    private void processEdge(XMLStreamReader reader, TopicNode topic) {
+        Color edgeColor = null;
+        try {
+            edgeColor = ColorUtils.html2color(XmlUtils.findAttribute(reader, "COLOR"), false);
+        } catch (Exception ex) {
+            LOG.error("Can't parse color value", ex);
         }
-
-        for (Element c : XmlUtils.findDirectChildrenForName(element, "node")) {
-            parseTopic(map, topicToProcess, null, c);
+        if (edgeColor != null) {
+            topic.setAttribute(StandardTopicAttribute.ATTR_FILL_COLOR.getText(), ColorUtils.color2html(edgeColor, false));
+            topic.setAttribute(StandardTopicAttribute.ATTR_TEXT_COLOR.getText(), ColorUtils.color2html(ColorUtils.makeContrastColor(edgeColor), false));
         }
     }
 
@@ -277,4 +280,42 @@ public class CoggleMM2MindMapImporter extends BaseImportExtension {
     public boolean isCompatibleWithFullScreenMode() {
         return false;
     }
+
+    /**
+     * Note of detected links, it can be made only after the images are loaded.
+     */
+    private static final class PendingNote {
+
+        private final List<String> linkURLs;
+        private final boolean linkDecoded;
+        private final List<String> imageURLs;
+
+        private PendingNote(List<String> linkURLs, boolean linkDecoded, List<String> imageURLs) {
+            this.linkURLs = linkURLs;
+            this.linkDecoded = linkDecoded;
+            this.imageURLs = imageURLs;
+        }
+
+        private String toNote(boolean imageFailed) {
+            StringBuilder note = new StringBuilder();
+
+            if (!linkURLs.isEmpty() && (!linkDecoded || linkURLs.size() > 1)) {
+                note.append("Detected URLs\n---------------");
+                for (String u : linkURLs) {
+                    note.append('\n').append(u);
+                }
+            }
+
+            if (!imageURLs.isEmpty() && (imageFailed || imageURLs.size() > 1)) {
+                if (note.length() > 0) {
+                    note.append("\n\n");
+                }
+                note.append("Detected image links\n---------------");
+                for (String u : imageURLs) {
+                    note.append('\n').append(u);
+                }
+            }
+            return note.toString();
+        }
+    }
 }
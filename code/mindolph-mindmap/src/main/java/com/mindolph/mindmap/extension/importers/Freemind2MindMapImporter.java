@@ -16,7 +16,6 @@
 
 package com.mindolph.mindmap.extension.importers;
 
-import com.igormaznitsa.meta.annotation.ReturnsOriginal;
 import com.igormaznitsa.mindmap.model.ExtraLink;
 import com.igormaznitsa.mindmap.model.ExtraNote;
 import com.igormaznitsa.mindmap.model.ExtraTopic;
@@ -27,7 +26,7 @@ import com.mindolph.mindmap.I18n;
 import com.mindolph.mindmap.constant.MindMapConstants;
 import com.mindolph.mindmap.extension.api.BaseImportExtension;
 import com.mindolph.mindmap.extension.api.ExtensionContext;
-import com.mindolph.mindmap.extension.attributes.images.ImageVisualAttributeExtension;
+import com.mindolph.mindmap.extension.api.ImportProgress;
 import com.mindolph.mindmap.icon.IconID;
 import com.mindolph.mindmap.icon.ImageIconServiceProvider;
 import com.mindolph.mindmap.model.TopicNode;
@@ -37,15 +36,13 @@ import javafx.scene.image.Image;
 import javafx.scene.paint.Color;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
-import org.w3c.dom.*;
 
 import javax.imageio.ImageIO;
-import javax.xml.xpath.XPath;
-import javax.xml.xpath.XPathConstants;
-import javax.xml.xpath.XPathFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
 import java.awt.image.BufferedImage;
-import java.io.File;
-import java.io.FileInputStream;
+import java.io.*;
 import java.net.URI;
 import java.net.URISyntaxException;
 import java.util.*;
@@ -60,108 +57,26 @@ public class Freemind2MindMapImporter extends BaseImportExtension {
 
     private static final Set<String> TOKEN_NEEDS_NEXT_LINE = new HashSet<>(Arrays.asList("br", "div", "p", "li"));
 
+    private static String loadImageAsBase64(File rootFolder, String imageUrl) {
+        try {
+            URI imageUri = URI.create(imageUrl);
 
-    private static String findArrowlinkDestination(Element element) {
-        List<Element> arrows = XmlUtils.findDirectChildrenForName(element, "arrowlink");
-        return arrows.isEmpty() ? "" : findAttribute(arrows.get(0), "destination");
-    }
-
-    private static void processImageLinkForTopic(File rootFolder, TopicNode topic, String[] imageUrls) {
-        for (String s : imageUrls) {
-            try {
-                URI imageUri = URI.create(s);
-
-                File file;
-                if (imageUri.isAbsolute()) {
-                    file = new File(imageUri);
-                }
-                else {
-                    file = new File(rootFolder.toURI().resolve(imageUri));
-                }
-
-                if (file.isFile()) {
-                    BufferedImage bufferedImage = ImageIO.read(file);
-                    String result = AwtImageUtils.imageToBase64(bufferedImage);
-                    topic.setAttribute(ImageVisualAttributeExtension.ATTR_KEY, result);
-                    break;
-                }
-            } catch (Exception ex) {
-                log.warn("Can't decode or load image for URI : " + s);
-            }
-        }
-    }
-
-
-    private static void processHtmlElement(NodeList list, StringBuilder builder, List<String> imageURLs) {
-        for (int i = 0; i < list.getLength(); i++) {
-            Node n = list.item(i);
-            switch (n.getNodeType()) {
-                case Node.TEXT_NODE: {
-                    builder.append(n.getTextContent());
-                }
-                break;
-                case Node.ELEMENT_NODE: {
-                    String tag = n.getNodeName();
-                    if ("img".equals(tag)) {
-                        String source = findAttribute((Element) n, "src");
-                        if (!source.isEmpty()) {
-                            imageURLs.add(source);
-                        }
-                    }
-
-                    if (TOKEN_NEEDS_NEXT_LINE.contains(tag)) {
-                        builder.append('\n');
-                    }
-                    processHtmlElement(n.getChildNodes(), builder, imageURLs);
-                }
-                break;
-                default: {
-                    // just ignoring  other elements
-                }
-                break;
+            File file;
+            if (imageUri.isAbsolute()) {
+                file = new File(imageUri);
             }
-        }
-    }
-
-    @ReturnsOriginal
-    private static StringBuilder extractTextFromHtmlElement(Element element, StringBuilder buffer, List<String> imageURLs) {
-        processHtmlElement(element.getChildNodes(), buffer, imageURLs);
-        return buffer;
-    }
-
-
-    private static List<RichContent> extractRichContent(Element richContentElement) {
-        List<Element> richContents = XmlUtils.findDirectChildrenForName(richContentElement, "richcontent");
-
-        List<RichContent> result = new ArrayList<>();
-
-        List<String> foundImageUrls = new ArrayList<>();
-
-        for (Element e : richContents) {
-            String textType = findAttribute(e, "type");
-            try {
-                foundImageUrls.clear();
-                RichContentType type = RichContentType.valueOf(textType);
-                String text = extractTextFromHtmlElement(e, new StringBuilder(), foundImageUrls).toString().replace("\r", "");
-                result.add(new RichContent(type, text, foundImageUrls));
-            } catch (IllegalArgumentException ex) {
-                log.warn("Unknown node type : " + textType);
+            else {
+                file = new File(rootFolder.toURI().resolve(imageUri));
             }
-        }
-
-        return result;
-    }
 
-
-    private static String findAttribute(Element element, String attribute) {
-        NamedNodeMap map = element.getAttributes();
-        for (int i = 0; i < map.getLength(); i++) {
-            Attr attr = (Attr) map.item(i);
-            if (attribute.equalsIgnoreCase(attr.getName())) {
-                return attr.getValue();
+            if (file.isFile()) {
+                BufferedImage bufferedImage = ImageIO.read(file);
+                return AwtImageUtils.imageToBase64(bufferedImage);
             }
+        } catch (Exception ex) {
+            log.warn("Can't decode or load image for URI : " + imageUrl);
         }
-        return "";
+        return null;
     }
 
     @Override
@@ -172,49 +87,105 @@ public class Freemind2MindMapImporter extends BaseImportExtension {
             return null;
         }
 
-        Document document = XmlUtils.loadHtmlDocument(new FileInputStream(file), "UTF-8", true);
-        XPath xpath = XPathFactory.newInstance().newXPath();
-        Element rootElement = (Element) xpath.evaluate("/html/body/map", document, XPathConstants.NODE);
-
-        if (rootElement == null) {
-            throw new IllegalArgumentException("Can't parse freemind file as xhtml");
-        }
-
-        Map<String, TopicNode> idTopicMap = new HashMap<>();
-        Map<String, String> linksMap = new HashMap<>();
-        MindMap<TopicNode> resultedMap = MindMapUtils.createModelWithRoot();
-        resultedMap.setAttribute(MindMapConstants.MODEL_ATTR_SHOW_JUMPS, "true");
+        return this.importInBackground(this.getName(context), progress -> this.parseFile(file, progress));
+    }
 
-        List<Element> list = XmlUtils.findDirectChildrenForName(rootElement, "node");
-        if (list.isEmpty()) {
-            resultedMap.getRoot().setText("Empty");
-        }
-        else {
-            parseTopic(file.getParentFile(), resultedMap, null, resultedMap.getRoot(), list.get(0), idTopicMap, linksMap);
+    MindMap<TopicNode> parseFile(File file, ImportProgress progress) throws Exception {
+        ParseContext ctx = new ParseContext();
+        MindMap<TopicNode> resultedMap;
+        try (InputStream in = progress.track(new BufferedInputStream(new FileInputStream(file)), file.length())) {
+            resultedMap = this.parse(XmlUtils.createXmlStreamReader(in), ctx);
+        } catch (XMLStreamException ex) {
+            progress.checkCancelled();
+            // the rich content of some files is not well-formed XHTML, fix it by the lenient parser and try again.
+            log.warn("Can't parse freemind file as XML, try to fix it: " + ex.getMessage());
+            ctx = new ParseContext();
+            String fixed = XmlUtils.toWellFormedXml(new FileInputStream(file), "UTF-8");
+            resultedMap = this.parse(XmlUtils.createXmlStreamReader(new StringReader(fixed)), ctx);
         }
 
-        for (Map.Entry<String, String> l : linksMap.entrySet()) {
-            TopicNode start = idTopicMap.get(l.getKey());
-            TopicNode end = idTopicMap.get(l.getValue());
+        for (Map.Entry<String, String> l : ctx.linksMap.entrySet()) {
+            TopicNode start = ctx.idTopicMap.get(l.getKey());
+            TopicNode end = ctx.idTopicMap.get(l.getValue());
             if (start != null && end != null) {
                 start.setExtra(ExtraTopic.makeLinkTo(resultedMap, end));
             }
         }
 
+        File rootFolder = file.getParentFile();
+        ctx.images.attach(progress, url -> loadImageAsBase64(rootFolder, url));
         return resultedMap;
     }
 
-    private void parseTopic(File rootFolder, MindMap<TopicNode> map, TopicNode parent, TopicNode preGeneratedTopic, Element element, Map<String, TopicNode> idTopicMap, Map<String, String> linksMap) {
+    private MindMap<TopicNode> parse(XMLStreamReader reader, ParseContext ctx) throws XMLStreamException {
+        MindMap<TopicNode> resultedMap = MindMapUtils.createModelWithRoot();
+        resultedMap.setAttribute(MindMapConstants.MODEL_ATTR_SHOW_JUMPS, "true");
 
-        String text = findAttribute(element, "text");
-        String id = findAttribute(element, "id");
-        String position = findAttribute(element, "position");
-        String arrowDestination = findArrowlinkDestination(element);
-        String backgroundColor = findAttribute(element, "background_color");
-        String color = findAttribute(element, "color");
-        String link = findAttribute(element, "link");
+        boolean mapFound = false;
+        boolean rootFound = false;
+        // nodes being parsed, from the current one to the root
+        Deque<NodeFrame> stack = new ArrayDeque<>();
+        try {
+            while (reader.hasNext()) {
+                int event = reader.next();
+                if (event == XMLStreamConstants.START_ELEMENT) {
+                    String name = reader.getLocalName();
+                    if (!mapFound) {
+                        mapFound = "map".equalsIgnoreCase(name);
+                    }
+                    else if ("node".equalsIgnoreCase(name)) {
+                        if (stack.isEmpty()) {
+                            if (rootFound) {
+                                // only the first node is imported as root
+                                XmlUtils.skipElement(reader);
+                            }
+                            else {
+                                rootFound = true;
+                                stack.push(this.startTopic(reader, null, resultedMap.getRoot(), ctx));
+                            }
+                        }
+                        else {
+                            stack.push(this.startTopic(reader, stack.peek().topic, null, ctx));
+                        }
+                    }
+                    else if (!stack.isEmpty() && "arrowlink".equalsIgnoreCase(name)) {
+                        NodeFrame frame = stack.peek();
+                        if (!frame.arrowFound) {
+                            frame.arrowFound = true;
+                            String destination = XmlUtils.findAttribute(reader, "destination", true);
+                            if (!frame.id.isEmpty() && !destination.isEmpty()) {
+                                ctx.linksMap.put(frame.id, destination);
+                            }
+                        }
+                    }
+                    else if (!stack.isEmpty() && "richcontent".equalsIgnoreCase(name)) {
+                        this.processRichContent(reader, stack.peek().topic, ctx);
+                    }
+                }
+                else if (event == XMLStreamConstants.END_ELEMENT && "node".equalsIgnoreCase(reader.getLocalName()) && !stack.isEmpty()) {
+                    stack.pop();
+                }
+            }
+        } finally {
+            reader.close();
+        }
 
-        List<RichContent> foundRichContent = extractRichContent(element);
+        if (!mapFound) {
+            throw new IllegalArgumentException("Can't parse freemind file as xhtml");
+        }
+        if (!rootFound) {
+            resultedMap.getRoot().setText("Empty");
+        }
+        return resultedMap;
+    }
+
+    private NodeFrame startTopic(XMLStreamReader reader, TopicNode parent, TopicNode preGeneratedTopic, ParseContext ctx) {
+        String text = XmlUtils.findAttribute(reader, "text", true);
+        String id = XmlUtils.findAttribute(reader, "id", true);
+        String position = XmlUtils.findAttribute(reader, "position", true);
+        String backgroundColor = XmlUtils.findAttribute(reader, "background_color", true);
+        String color = XmlUtils.findAttribute(reader, "color", true);
+        String link = XmlUtils.findAttribute(reader, "link", true);
 
         TopicNode topicToProcess;
         if (preGeneratedTopic == null) {
@@ -249,28 +220,10 @@ public class Freemind2MindMapImporter extends BaseImportExtension {
 
         topicToProcess.setText(text);
 
-        for (RichContent r : foundRichContent) {
-            switch (r.getType()) {
-                case NODE: {
-                    if (!r.getText().isEmpty()) {
-                        topicToProcess.setText(r.getText().trim());
-                    }
-                }
-                break;
-                case NOTE: {
-                    if (!r.getText().isEmpty()) {
-                        topicToProcess.setExtra(new ExtraNote(r.getText().trim()));
-                    }
-                }
-                break;
-            }
-            processImageLinkForTopic(rootFolder, topicToProcess, r.getFoundImageURLs());
-        }
-
         if (!link.isEmpty()) {
             if (link.startsWith("#")) {
                 if (!id.isEmpty()) {
-                    linksMap.put(id, link.substring(1));
+                    ctx.linksMap.put(id, link.substring(1));
                 }
             }
             else {
@@ -283,15 +236,69 @@ public class Freemind2MindMapImporter extends BaseImportExtension {
         }
 
         if (!id.isEmpty()) {
-            idTopicMap.put(id, topicToProcess);
-            if (!arrowDestination.isEmpty()) {
-                linksMap.put(id, arrowDestination);
+            ctx.idTopicMap.put(id, topicToProcess);
+        }
+        return new NodeFrame(topicToProcess, id);
+    }
+
+    /**
+     * Extract text and image links from the rich content (HTML) of a node, the reader stops at the end of the rich content.
+     */
+    private void processRichContent(XMLStreamReader reader, TopicNode topic, ParseContext ctx) throws XMLStreamException {
+        String textType = XmlUtils.findAttribute(reader, "type", true);
+        RichContentType type;
+        try {
+            type = RichContentType.valueOf(textType);
+        } catch (IllegalArgumentException ex) {
+            log.warn("Unknown node type : " + textType);
+            XmlUtils.skipElement(reader);
+            return;
+        }
+
+        StringBuilder builder = new StringBuilder();
+        List<String> imageUrls = new ArrayList<>();
+        int depth = 1;
+        while (depth > 0 && reader.hasNext()) {
+            switch (reader.next()) {
+                case XMLStreamConstants.START_ELEMENT -> {
+                    String tag = reader.getLocalName().toLowerCase(Locale.ROOT);
+                    if ("head".equals(tag)) {
+                        XmlUtils.skipElement(reader);
+                        break;
+                    }
+                    depth++;
+                    if ("img".equals(tag)) {
+                        String source = XmlUtils.findAttribute(reader, "src", true);
+                        if (!source.isEmpty()) {
+                            imageUrls.add(source);
+                        }
+                    }
+                    if (TOKEN_NEEDS_NEXT_LINE.contains(tag)) {
+                        builder.append('\n');
+                    }
+                }
+                case XMLStreamConstants.END_ELEMENT -> depth--;
+                case XMLStreamConstants.CHARACTERS, XMLStreamConstants.CDATA, XMLStreamConstants.SPACE ->
+                        builder.append(reader.getText());
             }
         }
-        List<Element> nodes = XmlUtils.findDirectChildrenForName(element, "node");
-        for (Element e : nodes) {
-            parseTopic(rootFolder, map, topicToProcess, null, e, idTopicMap, linksMap);
+
+        String text = builder.toString().replace("\r", "");
+        switch (type) {
+            case NODE: {
+                if (!text.isEmpty()) {
+                    topic.setText(text.trim());
+                }
+            }
+            break;
+            case NOTE: {
+                if (!text.isEmpty()) {
+                    topic.setExtra(new ExtraNote(text.trim()));
+                }
+            }
+            break;
         }
+        ctx.images.request(topic, imageUrls);
     }
 
 
@@ -327,31 +334,22 @@ public class Freemind2MindMapImporter extends BaseImportExtension {
         NODE, NOTE
     }
 
-    private static final class RichContent {
-
-        private final RichContentType type;
-        private final String text;
-        private final String[] imageUrls;
-
-        private RichContent(RichContentType type, String text, List<String> foundImageUrls) {
-            this.type = type;
-            this.text = text;
-            this.imageUrls = foundImageUrls.toArray(new String[0]);
-        }
-
-
-        private String[] getFoundImageURLs() {
-            return this.imageUrls;
-        }
+    private static final class NodeFrame {
 
+        private final TopicNode topic;
+        private final String id;
+        private boolean arrowFound = false;
 
-        private RichContentType getType() {
-            return this.type;
+        private NodeFrame(TopicNode topic, String id) {
+            this.topic = topic;
+            this.id = id;
         }
+    }
 
+    private static final class ParseContext {
 
-        private String getText() {
-            return this.text;
-        }
+        private final Map<String, TopicNode> idTopicMap = new HashMap<>();
+        private final Map<String, String> linksMap = new HashMap<>();
+        private final ImageAttachments images = new ImageAttachments();
     }
 }
@@ -0,0 +1,66 @@
+package com.mindolph.mindmap.extension.importers;
+
+import com.mindolph.mindmap.extension.api.ImportProgress;
+import com.mindolph.mindmap.extension.attributes.images.ImageVisualAttributeExtension;
+import com.mindolph.mindmap.model.TopicNode;
+
+import java.util.*;
+import java.util.function.Function;
+
+/**
+ * Collect images to be attached to topics during parsing, the images are loaded and encoded
+ * after the structure of the mind map is built, each distinct image source is loaded and encoded only once.
+ *
+ * @author mindolph.com@gmail.com
+ */
+class ImageAttachments {
+
+    // topic -> candidates of image source, the first one successfully loaded is attached.
+    private final Map<TopicNode, List<String>> requests = new LinkedHashMap<>();
+
+    void request(TopicNode topic, String source) {
+        this.request(topic, List.of(source));
+    }
+
+    void request(TopicNode topic, List<String> sources) {
+        if (!sources.isEmpty()) {
+            requests.computeIfAbsent(topic, t -> new ArrayList<>()).addAll(sources);
+        }
+    }
+
+    /**
+     * Load and attach images to topics.
+     *
+     * @param progress
+     * @param loader   load image and encode it as base64, returns null if failed.
+     * @return topics which image is not attached for failure.
+     */
+    Set<TopicNode> attach(ImportProgress progress, Function<String, String> loader) {
+        Map<String, String> encodedImages = new HashMap<>();
+        Set<TopicNode> failed = new HashSet<>();
+        for (Map.Entry<TopicNode, List<String>> entry : requests.entrySet()) {
+            String encoded = null;
+            for (String source : entry.getValue()) {
+                progress.checkCancelled();
+                if (encodedImages.containsKey(source)) {
+                    encoded = encodedImages.get(source);
+                }
+                else {
+                    encoded = loader.apply(source);
+                    encodedImages.put(source, encoded);
+                }
+                if (encoded != null && !encoded.isEmpty()) {
+                    break;
+                }
+            }
+            if (encoded == null || encoded.isEmpty()) {
+                failed.add(entry.getKey());
+            }
+            else {
+                entry.getKey().setAttribute(ImageVisualAttributeExtension.ATTR_KEY, encoded);
+            }
+        }
+        requests.clear();
+        return failed;
+    }
+}
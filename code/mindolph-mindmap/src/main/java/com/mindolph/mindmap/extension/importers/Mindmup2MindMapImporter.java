@@ -16,6 +16,11 @@
 
 package com.mindolph.mindmap.extension.importers;
 
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
 import com.igormaznitsa.mindmap.model.*;
 import com.mindolph.base.util.ColorUtils;
 import com.mindolph.mfx.dialog.DialogFactory;
@@ -23,6 +28,7 @@ import com.mindolph.mindmap.I18n;
 import com.mindolph.mindmap.constant.MindMapConstants;
 import com.mindolph.mindmap.extension.api.BaseImportExtension;
 import com.mindolph.mindmap.extension.api.ExtensionContext;
+import com.mindolph.mindmap.extension.api.ImportProgress;
 import com.mindolph.mindmap.extension.attributes.images.ImageVisualAttributeExtension;
 import com.mindolph.mindmap.icon.IconID;
 import com.mindolph.mindmap.icon.ImageIconServiceProvider;
@@ -30,15 +36,13 @@ import com.mindolph.mindmap.model.TopicNode;
 import com.mindolph.mindmap.util.MindMapUtils;
 import javafx.scene.image.Image;
 import javafx.scene.paint.Color;
-import org.apache.commons.io.FileUtils;
 import org.apache.commons.lang3.StringUtils;
-import org.json.JSONArray;
-import org.json.JSONObject;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import java.io.File;
+import java.io.*;
 import java.net.URISyntaxException;
+import java.nio.charset.StandardCharsets;
 import java.util.*;
 
 import static com.mindolph.mindmap.constant.StandardTopicAttribute.ATTR_FILL_COLOR;
@@ -57,43 +61,72 @@ public class Mindmup2MindMapImporter extends BaseImportExtension {
             return null;
         }
 
-        JSONObject parsedJson;
-        parsedJson = new JSONObject(FileUtils.readFileToString(file, "UTF-8"));
-
-        MindMap<TopicNode> resultedMap = null;
-
-        Number formatVersion = parsedJson.getNumber("formatVersion");
-        if (formatVersion == null) {
+        try {
+            return this.importInBackground(this.getName(context), progress -> this.parseFile(file, progress));
+        } catch (WrongFormatException ex) {
             DialogFactory.errDialog(I18n.getIns().getString("MMDImporters.Mindmup2MindMap.Error.WrongFormat"));
+            return null;
         }
-        else {
-            resultedMap = MindMapUtils.createModelWithRoot();
-            resultedMap.setAttribute(MindMapConstants.MODEL_ATTR_SHOW_JUMPS, "true");
-
-            TopicNode mindMapRoot = resultedMap.getRoot();
-            Map<Long, TopicNode> mapTopicId = new HashMap<>();
-
-            parseTopic(resultedMap, null, mindMapRoot, parsedJson, mapTopicId);
+    }
 
-            if (!mindMapRoot.getExtras().containsKey(Extra.ExtraType.FILE)) {
-                mindMapRoot.setExtra(new ExtraFile(new MMapURI(null, file, null)));
+    MindMap<TopicNode> parseFile(File file, ImportProgress progress) throws Exception {
+        MindMap<TopicNode> resultedMap = MindMapUtils.createModelWithRoot();
+        resultedMap.setAttribute(MindMapConstants.MODEL_ATTR_SHOW_JUMPS, "true");
+
+        TopicNode mindMapRoot = resultedMap.getRoot();
+        Map<Long, TopicNode> mapTopicId = new HashMap<>();
+        List<JsonObject> links = new ArrayList<>();
+        boolean formatFound = false;
+
+        InputStream in = progress.track(new BufferedInputStream(new FileInputStream(file)), file.length());
+        try (JsonReader reader = new JsonReader(new InputStreamReader(in, StandardCharsets.UTF_8))) {
+            reader.setLenient(true);
+            reader.beginObject();
+            while (reader.hasNext()) {
+                switch (reader.nextName()) {
+                    case "formatVersion" -> {
+                        formatFound = reader.peek() != JsonToken.NULL;
+                        reader.skipValue();
+                    }
+                    case "ideas" -> parseIdeas(reader, resultedMap, null, mindMapRoot, mapTopicId);
+                    case "links" -> {
+                        if (reader.peek() == JsonToken.BEGIN_ARRAY) {
+                            reader.beginArray();
+                            while (reader.hasNext()) {
+                                JsonElement link = JsonParser.parseReader(reader);
+                                if (link.isJsonObject()) {
+                                    links.add(link.getAsJsonObject());
+                                }
+                            }
+                            reader.endArray();
+                        }
+                        else {
+                            reader.skipValue();
+                        }
+                    }
+                    default -> reader.skipValue();
+                }
             }
+            reader.endObject();
+        }
 
-            if (parsedJson.has("links")) {
-                JSONArray links = parsedJson.getJSONArray("links");
-                processLinks(resultedMap, links, mapTopicId);
-            }
+        if (!formatFound) {
+            throw new WrongFormatException();
+        }
+
+        if (!mindMapRoot.getExtras().containsKey(Extra.ExtraType.FILE)) {
+            mindMapRoot.setExtra(new ExtraFile(new MMapURI(null, file, null)));
         }
+
+        processLinks(resultedMap, links, mapTopicId);
         return resultedMap;
     }
 
-    private void processLinks(MindMap<TopicNode> map, JSONArray links, Map<Long, TopicNode> topics) {
-        for (int i = 0; i < links.length(); i++) {
+    private void processLinks(MindMap<TopicNode> map, List<JsonObject> links, Map<Long, TopicNode> topics) {
+        for (JsonObject linkObject : links) {
             try {
-                JSONObject linkObject = links.getJSONObject(i);
-
-                TopicNode fromTopic = topics.get(linkObject.optLong("ideaIdFrom", Long.MIN_VALUE));
-                TopicNode toTopic = topics.get(linkObject.optLong("ideaIdTo", Long.MIN_VALUE));
+                TopicNode fromTopic = topics.get(optLong(linkObject.get("ideaIdFrom")));
+                TopicNode toTopic = topics.get(optLong(linkObject.get("ideaIdTo")));
 
                 if (fromTopic != null && toTopic != null) {
                     fromTopic.setExtra(ExtraTopic.makeLinkTo(map, toTopic));
@@ -104,97 +137,104 @@ public class Mindmup2MindMapImporter extends BaseImportExtension {
         }
     }
 
-    private void parseTopic(MindMap<TopicNode> map, TopicNode parentTopic, TopicNode pregeneratedTopic, JSONObject json, Map<Long, TopicNode> idTopicMap) {
-        JSONObject ideas = json.optJSONObject("ideas");
-        if (ideas != null) {
-
-            List<OrderableIdea> sortedIdeas = new ArrayList<>();
-            for (String key : ideas.keySet()) {
-                JSONObject idea = ideas.optJSONObject(key);
-                if (idea == null) {
-                    continue;
-                }
-                double order = 0.0d;
-                try {
-                    order = Double.parseDouble(key.trim());
-                } catch (NumberFormatException ex) {
-                    LOG.error("Detected unexpected number format in order", ex);
-                }
-                sortedIdeas.add(new OrderableIdea(order, idea));
+    /**
+     * Parse ideas (children) of the parent topic, the topics are created as ideas are read and they are
+     * sorted by the order keys after all ideas are read.
+     */
+    private void parseIdeas(JsonReader reader, MindMap<TopicNode> map, TopicNode parentTopic, TopicNode pregeneratedTopic, Map<Long, TopicNode> idTopicMap) throws IOException {
+        if (reader.peek() != JsonToken.BEGIN_OBJECT) {
+            reader.skipValue();
+            return;
+        }
+        List<OrderableIdea> ideas = new ArrayList<>();
+        reader.beginObject();
+        while (reader.hasNext()) {
+            String key = reader.nextName();
+            if (reader.peek() != JsonToken.BEGIN_OBJECT || (pregeneratedTopic != null && !ideas.isEmpty())) {
+                // process only one idea for root
+                reader.skipValue();
+                continue;
             }
-            Collections.sort(sortedIdeas);
-
-            for (OrderableIdea i : sortedIdeas) {
-                JSONObject ideaObject = i.getIdea();
-
-                String title = ideaObject.optString("title", "");
-                long id = ideaObject.optLong("id", Long.MIN_VALUE);
-
-                TopicNode topicToProcess;
-
-                if (pregeneratedTopic == null) {
-                    topicToProcess = parentTopic.makeChild(title.trim(), parentTopic);
-                    if (topicToProcess.getParent().isRoot()) {
-                        if (i.isLeftBranch()) {
-                            topicToProcess.makeTopicLeftSided(true);
-                            TopicNode firstSibling = parentTopic.getFirst();
-                            if (firstSibling != null && firstSibling != topicToProcess) {
-                                topicToProcess.moveBefore(firstSibling);
-                            }
-                        }
-                    }
+            double order = 0.0d;
+            try {
+                order = Double.parseDouble(key.trim());
+            } catch (NumberFormatException ex) {
+                LOG.error("Detected unexpected number format in order", ex);
+            }
+            TopicNode topicToProcess = pregeneratedTopic == null ? parentTopic.makeChild("", parentTopic) : pregeneratedTopic;
+            parseIdea(reader, map, topicToProcess, idTopicMap);
+            ideas.add(new OrderableIdea(order, topicToProcess));
+        }
+        reader.endObject();
+
+        if (parentTopic != null && ideas.size() > 0) {
+            Collections.sort(ideas);
+            List<TopicNode> sorted = new ArrayList<>();
+            for (OrderableIdea i : ideas) {
+                if (parentTopic.isRoot() && i.isLeftBranch()) {
+                    i.getTopic().makeTopicLeftSided(true);
+                    sorted.add(0, i.getTopic());
                 }
                 else {
-                    topicToProcess = pregeneratedTopic;
-                    topicToProcess.setText(title.trim());
+                    sorted.add(i.getTopic());
                 }
+            }
+            parentTopic.removeAllChildren();
+            sorted.forEach(parentTopic::addChild);
+        }
+    }
 
-                if (id != Long.MIN_VALUE) {
-                    idTopicMap.put(id, topicToProcess);
+    private void parseIdea(JsonReader reader, MindMap<TopicNode> map, TopicNode topicToProcess, Map<Long, TopicNode> idTopicMap) throws IOException {
+        long id = Long.MIN_VALUE;
+        reader.beginObject();
+        while (reader.hasNext()) {
+            switch (reader.nextName()) {
+                case "title" -> topicToProcess.setText(optString(JsonParser.parseReader(reader)).trim());
+                case "id" -> id = optLong(JsonParser.parseReader(reader));
+                case "attr" -> {
+                    JsonElement attributes = JsonParser.parseReader(reader);
+                    if (attributes.isJsonObject()) {
+                        processAttributes(attributes.getAsJsonObject(), topicToProcess);
+                    }
                 }
+                case "ideas" -> parseIdeas(reader, map, topicToProcess, null, idTopicMap);
+                default -> reader.skipValue();
+            }
+        }
+        reader.endObject();
 
-                JSONObject attributes = ideaObject.optJSONObject("attr");
+        if (id != Long.MIN_VALUE) {
+            idTopicMap.put(id, topicToProcess);
+        }
+    }
 
-                if (attributes != null) {
-                    for (String key : attributes.keySet()) {
-                        JSONObject attrJson = attributes.optJSONObject(key);
-                        if (attrJson != null) {
-                            if ("note".equals(key)) {
-                                processAttrNote(attrJson, topicToProcess);
-                            }
-                            else if ("icon".equals(key)) {
-                                processAttrIcon(attrJson, topicToProcess);
-                            }
-                            else if ("style".equals(key)) {
-                                processAttrStyle(attrJson, topicToProcess);
-                            }
-                            else {
-                                LOG.warn("Detected unsupported attribute '" + key + '\'');
-                            }
-                        }
-                    }
+    private void processAttributes(JsonObject attributes, TopicNode topicToProcess) {
+        for (String key : attributes.keySet()) {
+            JsonElement attr = attributes.get(key);
+            if (attr != null && attr.isJsonObject()) {
+                JsonObject attrJson = attr.getAsJsonObject();
+                if ("note".equals(key)) {
+                    processAttrNote(attrJson, topicToProcess);
                 }
-
-                if (id >= 0L) {
-                    idTopicMap.put(id, topicToProcess);
+                else if ("icon".equals(key)) {
+                    processAttrIcon(attrJson, topicToProcess);
                 }
-
-                parseTopic(map, topicToProcess, null, ideaObject, idTopicMap);
-
-                if (parentTopic == null && pregeneratedTopic != null) {
-                    // process only root
-                    break;
+                else if ("style".equals(key)) {
+                    processAttrStyle(attrJson, topicToProcess);
+                }
+                else {
+                    LOG.warn("Detected unsupported attribute '" + key + '\'');
                 }
             }
         }
     }
 
-    private void processAttrNote(JSONObject note, TopicNode topic) {
-        topic.setExtra(new ExtraNote(note.optString("text", "")));
+    private void processAttrNote(JsonObject note, TopicNode topic) {
+        topic.setExtra(new ExtraNote(optString(note.get("text"))));
     }
 
-    private void processAttrIcon(JSONObject icon, TopicNode topic) {
-        String iconUrl = icon.getString("url");
+    private void processAttrIcon(JsonObject icon, TopicNode topic) {
+        String iconUrl = optString(icon.get("url"));
         if (iconUrl.startsWith("data:")) {
             String[] data = iconUrl.split("\\,");
             if (data.length == 2 && data[0].startsWith("data:image/") && data[0].endsWith("base64")) {
@@ -212,7 +252,7 @@ public class Mindmup2MindMapImporter extends BaseImportExtension {
                 }
             }
         }
-        else {
+        else if (!iconUrl.isEmpty()) {
             try {
                 topic.setExtra(new ExtraLink(iconUrl));
             } catch (URISyntaxException ex) {
@@ -221,9 +261,9 @@ public class Mindmup2MindMapImporter extends BaseImportExtension {
         }
     }
 
-    private void processAttrStyle(JSONObject style, TopicNode topic) {
-        String background = style.getString("background");
-        if (background != null) {
+    private void processAttrStyle(JsonObject style, TopicNode topic) {
+        String background = optString(style.get("background"));
+        if (!background.isEmpty()) {
             Color color = ColorUtils.html2color(background, false);
             if (color != null) {
                 topic.setAttribute(ATTR_FILL_COLOR.getText(), ColorUtils.color2html(color, false));
@@ -232,6 +272,21 @@ public class Mindmup2MindMapImporter extends BaseImportExtension {
         }
     }
 
+    private static String optString(JsonElement element) {
+        return element != null && element.isJsonPrimitive() ? element.getAsString() : "";
+    }
+
+    private static long optLong(JsonElement element) {
+        if (element != null && element.isJsonPrimitive()) {
+            try {
+                return element.getAsNumber().longValue();
+            } catch (NumberFormatException | UnsupportedOperationException ex) {
+                // not a number
+            }
+        }
+        return Long.MIN_VALUE;
+    }
+
     @Override
     public String getName(ExtensionContext context) {
         return I18n.getIns().getString("MMDImporters.Mindmup2MindMap.Name");
@@ -260,19 +315,19 @@ public class Mindmup2MindMapImporter extends BaseImportExtension {
     private static final class OrderableIdea implements Comparable<OrderableIdea> {
 
         private final double order;
-        private final JSONObject idea;
+        private final TopicNode topic;
 
-        private OrderableIdea(double order, JSONObject idea) {
+        private OrderableIdea(double order, TopicNode topic) {
             this.order = order;
-            this.idea = idea;
+            this.topic = topic;
         }
 
         private boolean isLeftBranch() {
             return this.order < 0.0d;
         }
 
-        private JSONObject getIdea() {
-            return this.idea;
+        private TopicNode getTopic() {
+            return this.topic;
         }
 
         @Override
@@ -281,4 +336,7 @@ public class Mindmup2MindMapImporter extends BaseImportExtension {
         }
 
     }
+
+    private static final class WrongFormatException extends Exception {
+    }
 }
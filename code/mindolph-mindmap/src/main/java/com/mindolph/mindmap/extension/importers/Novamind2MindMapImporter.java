@@ -24,7 +24,7 @@ import com.mindolph.mindmap.constant.MindMapConstants;
 import com.mindolph.mindmap.constant.StandardTopicAttribute;
 import com.mindolph.mindmap.extension.api.BaseImportExtension;
 import com.mindolph.mindmap.extension.api.ExtensionContext;
-import com.mindolph.mindmap.extension.attributes.images.ImageVisualAttributeExtension;
+import com.mindolph.mindmap.extension.api.ImportProgress;
 import com.mindolph.mindmap.icon.IconID;
 import com.mindolph.mindmap.icon.ImageIconServiceProvider;
 import com.mindolph.mindmap.model.TopicNode;
@@ -36,18 +36,16 @@ import javafx.scene.image.Image;
 import javafx.scene.paint.Color;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
-import org.w3c.dom.Document;
-import org.w3c.dom.Element;
-import org.w3c.dom.Node;
-import org.w3c.dom.NodeList;
 
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
 import java.io.File;
 import java.io.InputStream;
 import java.net.URISyntaxException;
-import java.util.ArrayList;
-import java.util.HashMap;
-import java.util.List;
-import java.util.Map;
+import java.util.*;
+import java.util.concurrent.CancellationException;
+import java.util.zip.ZipEntry;
 import java.util.zip.ZipFile;
 
 public class Novamind2MindMapImporter extends BaseImportExtension {
@@ -139,7 +137,7 @@ public class Novamind2MindMapImporter extends BaseImportExtension {
         }
     }
 
-    private static void convertContentTopicIntoMMTopic(MindMap<TopicNode> map, TopicNode parent, ParsedContent.TopicReference node, Manifest manifest, Map<String, TopicNode> mapRefToTopic) {
+    private static void convertContentTopicIntoMMTopic(MindMap<TopicNode> map, TopicNode parent, ParsedContent.TopicReference node, ImageAttachments images, Map<String, TopicNode> mapRefToTopic) {
         TopicNode processing;
         if (parent == null) {
             processing = map.getRoot();
@@ -169,10 +167,8 @@ public class Novamind2MindMapImporter extends BaseImportExtension {
 
             String imageResourceId = data.getImageResourceId();
             if (imageResourceId != null) {
-                String imageBody = manifest.findResourceImage(imageResourceId);
-                if (imageBody != null) {
-                    processing.setAttribute(ImageVisualAttributeExtension.ATTR_KEY, imageBody);
-                }
+                // the image is extracted after all topics are converted
+                images.request(processing, imageResourceId);
             }
 
             if (data.getNotes() != null) {
@@ -180,7 +176,7 @@ public class Novamind2MindMapImporter extends BaseImportExtension {
             }
 
             for (ParsedContent.TopicReference c : node.getChildren()) {
-                convertContentTopicIntoMMTopic(map, processing, c, manifest, mapRefToTopic);
+                convertContentTopicIntoMMTopic(map, processing, c, images, mapRefToTopic);
             }
         }
     }
@@ -193,33 +189,40 @@ public class Novamind2MindMapImporter extends BaseImportExtension {
             return null;
         }
 
-        ZipFile zipFile = new ZipFile(file);
-        Manifest manifest = new Manifest(zipFile, "manifest.xml");
-        ParsedContent content = new ParsedContent(zipFile, "content.xml");
+        return this.importInBackground(this.getName(context), progress -> this.parseFile(file, progress));
+    }
+
+    MindMap<TopicNode> parseFile(File file, ImportProgress progress) throws Exception {
+        try (ZipFile zipFile = new ZipFile(file)) {
+            Manifest manifest = new Manifest(zipFile, "manifest.xml");
+            ParsedContent content = new ParsedContent(zipFile, "content.xml", progress);
 
-        MindMap<TopicNode> result = MindMapUtils.createModelWithRoot();
-        result.setAttribute(MindMapConstants.MODEL_ATTR_SHOW_JUMPS, "true");
+            MindMap<TopicNode> result = MindMapUtils.createModelWithRoot();
+            result.setAttribute(MindMapConstants.MODEL_ATTR_SHOW_JUMPS, "true");
 
-        result.getRoot().setText("Empty map");
+            result.getRoot().setText("Empty map");
 
-        ParsedContent.TopicReference rootRef = content.getRootTopic();
-        if (rootRef != null) {
-            Map<String, TopicNode> mapIdToTopic = new HashMap<>();
-            convertContentTopicIntoMMTopic(result, null, rootRef, manifest, mapIdToTopic);
+            ParsedContent.TopicReference rootRef = content.getRootTopic();
+            if (rootRef != null) {
+                Map<String, TopicNode> mapIdToTopic = new HashMap<>();
+                ImageAttachments images = new ImageAttachments();
+                convertContentTopicIntoMMTopic(result, null, rootRef, images, mapIdToTopic);
 
-            for (Map.Entry<String, String> link : content.getLinksBetweenTopics().entrySet()) {
-                TopicNode from = mapIdToTopic.get(link.getKey());
-                TopicNode to = mapIdToTopic.get(link.getValue());
+                for (Map.Entry<String, String> link : content.getLinksBetweenTopics().entrySet()) {
+                    TopicNode from = mapIdToTopic.get(link.getKey());
+                    TopicNode to = mapIdToTopic.get(link.getValue());
 
-                if (from != null && to != null) {
-                    from.setExtra(ExtraTopic.makeLinkTo(result, to));
+                    if (from != null && to != null) {
+                        from.setExtra(ExtraTopic.makeLinkTo(result, to));
+                    }
                 }
-            }
 
-            processURLLinks(result, content, rootRef, mapIdToTopic);
+                processURLLinks(result, content, rootRef, mapIdToTopic);
 
+                images.attach(progress, manifest::findResourceImage);
+            }
+            return result;
         }
-        return result;
     }
 
     @Override
@@ -254,24 +257,27 @@ public class Novamind2MindMapImporter extends BaseImportExtension {
 
         private Manifest(ZipFile zipFile, String manifestPath) {
             this.zipFile = zipFile;
-            try {
-                InputStream resourceIn = Utils.findInputStreamForResource(zipFile, manifestPath);
+            try (InputStream resourceIn = Utils.findInputStreamForResource(zipFile, manifestPath)) {
                 if (resourceIn != null) {
-                    Document document = XmlUtils.loadXmlDocument(resourceIn, null, true);
-                    Element main = document.getDocumentElement();
-                    if ("manifest".equals(main.getTagName())) {
-                        for (Element e : XmlUtils.findDirectChildrenForName(main, "resources")) {
-                            for (Element r : XmlUtils.findDirectChildrenForName(e, "resource")) {
-                                String id = r.getAttribute("id");
-                                String url = r.getAttribute("url");
-                                if (!id.isEmpty() && !url.isEmpty()) {
-                                    resourceMap.put(id, new Resource(url));
+                    XMLStreamReader reader = XmlUtils.createXmlStreamReader(resourceIn);
+                    try {
+                        reader.nextTag();
+                        if ("manifest".equals(reader.getLocalName())) {
+                            while (reader.hasNext()) {
+                                if (reader.next() == XMLStreamConstants.START_ELEMENT && "resource".equals(reader.getLocalName())) {
+                                    String id = XmlUtils.findAttribute(reader, "id");
+                                    String url = XmlUtils.findAttribute(reader, "url");
+                                    if (!id.isEmpty() && !url.isEmpty()) {
+                                        resourceMap.put(id, new Resource(url));
+                                    }
                                 }
                             }
                         }
-                    }
-                    else {
-                        LOG.warn("Can't find manifest tag, looks like that format changed");
+                        else {
+                            LOG.warn("Can't find manifest tag, looks like that format changed");
+                        }
+                    } finally {
+                        reader.close();
                     }
                 }
             } catch (Exception ex) {
@@ -332,53 +338,47 @@ public class Novamind2MindMapImporter extends BaseImportExtension {
         private final Map<String, String> linksBetweenTopics = new HashMap<>();
         private final TopicReference rootRef;
 
-        ParsedContent(ZipFile file, String path) {
+        ParsedContent(ZipFile file, String path, ImportProgress progress) {
             TopicReference mapRoot = null;
 
-            try {
-                InputStream resourceIn = Utils.findInputStreamForResource(file, path);
+            ZipEntry entry = file.getEntry(path);
+            try (InputStream resourceIn = Utils.findInputStreamForResource(file, path)) {
                 if (resourceIn != null) {
-                    Document document = XmlUtils.loadXmlDocument(resourceIn, null, true);
-                    Element main = document.getDocumentElement();
-                    if ("document".equals(main.getTagName())) {
-                        for (Element e : XmlUtils.findDirectChildrenForName(main, "topics")) {
-                            for (Element r : XmlUtils.findDirectChildrenForName(e, "topic")) {
-                                String id = r.getAttribute("id");
-                                this.topicsMap.put(id, new ContentTopic(id, r));
-                            }
-                        }
-
-                        Element maps = XmlUtils.findFirstElement(main, "maps");
-                        if (maps != null) {
-                            Element firstMap = XmlUtils.findFirstElement(maps, "map");
-                            if (firstMap != null) {
-                                Element rootTopicNode = XmlUtils.findFirstElement(firstMap, "topic-node");
-                                if (rootTopicNode != null) {
-                                    mapRoot = new TopicReference(rootTopicNode, this.topicsMap);
+                    XMLStreamReader reader = XmlUtils.createXmlStreamReader(progress.track(resourceIn, entry.getSize()));
+                    try {
+                        reader.nextTag();
+                        if ("document".equals(reader.getLocalName())) {
+                            boolean mapFound = false;
+                            while (reader.hasNext()) {
+                                if (reader.next() != XMLStreamConstants.START_ELEMENT) {
+                                    continue;
                                 }
-
-                                for (Element l : XmlUtils.findDirectChildrenForName(firstMap, "link-lines")) {
-                                    for (Element tn : XmlUtils.findDirectChildrenForName(l, "topic-node")) {
-                                        for (Element lld : XmlUtils.findDirectChildrenForName(tn, "link-line-data")) {
-                                            this.linksBetweenTopics.put(lld.getAttribute("start-topic-node-ref"), lld.getAttribute("end-topic-node-ref"));
+                                switch (reader.getLocalName()) {
+                                    case "topic" -> {
+                                        String id = XmlUtils.findAttribute(reader, "id");
+                                        this.topicsMap.put(id, new ContentTopic(id, reader));
+                                    }
+                                    case "map" -> {
+                                        if (mapFound) {
+                                            XmlUtils.skipElement(reader);
+                                        }
+                                        else {
+                                            mapFound = true;
+                                            mapRoot = this.parseMap(reader);
                                         }
                                     }
                                 }
-
-                            }
-                            else {
-                                mapRoot = null;
                             }
                         }
                         else {
-                            mapRoot = null;
+                            LOG.warn("Can't find document, looks like that format changed");
                         }
-
-                    }
-                    else {
-                        LOG.warn("Can't find document, looks like that format changed");
+                    } finally {
+                        reader.close();
                     }
                 }
+            } catch (CancellationException ex) {
+                throw ex;
             } catch (Exception ex) {
                 LOG.error("Can't parse resources list", ex);
             }
@@ -386,6 +386,51 @@ public class Novamind2MindMapImporter extends BaseImportExtension {
             this.rootRef = mapRoot;
         }
 
+        /**
+         * Parse the map element, the reader stops at the end of the map.
+         *
+         * @return reference to the root topic, null if not found
+         */
+        private TopicReference parseMap(XMLStreamReader reader) throws XMLStreamException {
+            TopicReference mapRoot = null;
+            int depth = 1;
+            while (depth > 0 && reader.hasNext()) {
+                int event = reader.next();
+                if (event == XMLStreamConstants.START_ELEMENT) {
+                    String name = reader.getLocalName();
+                    if ("topic-node".equals(name) && mapRoot == null) {
+                        mapRoot = new TopicReference(reader, this.topicsMap);
+                    }
+                    else if ("link-lines".equals(name)) {
+                        this.parseLinkLines(reader);
+                    }
+                    else {
+                        XmlUtils.skipElement(reader);
+                    }
+                }
+                else if (event == XMLStreamConstants.END_ELEMENT) {
+                    depth--;
+                }
+            }
+            return mapRoot;
+        }
+
+        private void parseLinkLines(XMLStreamReader reader) throws XMLStreamException {
+            int depth = 1;
+            while (depth > 0 && reader.hasNext()) {
+                int event = reader.next();
+                if (event == XMLStreamConstants.START_ELEMENT) {
+                    depth++;
+                    if ("link-line-data".equals(reader.getLocalName())) {
+                        this.linksBetweenTopics.put(XmlUtils.findAttribute(reader, "start-topic-node-ref"), XmlUtils.findAttribute(reader, "end-topic-node-ref"));
+                    }
+                }
+                else if (event == XMLStreamConstants.END_ELEMENT) {
+                    depth--;
+                }
+            }
+        }
+
         TopicReference findForTopicId(TopicReference startTopicRef, String contentTopicId) {
             TopicReference result = null;
 
@@ -415,56 +460,53 @@ public class Novamind2MindMapImporter extends BaseImportExtension {
         private static final class TopicReference {
 
             private final String id;
-            private final ContentTopic linkedTopic;
+            private final String topicRef;
+            // the content topics might be defined after the map, so they are looked up lazily.
+            private final Map<String, ContentTopic> topicMap;
 
-            private final Color colorBorder;
-            private final Color colorText;
-            private final Color colorFill;
+            private Color colorBorder;
+            private Color colorText;
+            private Color colorFill;
 
             private final List<TopicReference> children = new ArrayList<>();
 
-            private TopicReference(Element topicNode, Map<String, ContentTopic> topicMap) {
-                this.id = topicNode.getAttribute("id");
-                this.linkedTopic = topicMap.get(topicNode.getAttribute("topic-ref"));
-
-                Element subTopics = XmlUtils.findFirstElement(topicNode, "sub-topics");
-                if (subTopics != null) {
-                    for (Element t : XmlUtils.findDirectChildrenForName(subTopics, "topic-node")) {
-                        this.children.add(new TopicReference(t, topicMap));
-                    }
-                }
-
-                Color tmpColorBackground = null;
-                Color tmpColorText = null;
-                Color tmpColorBorder = null;
-
-                Element topicNodeView = XmlUtils.findFirstElement(topicNode, "topic-node-view");
-                if (topicNodeView != null) {
-                    Element style = XmlUtils.findFirstElement(topicNodeView, "topic-node-style");
-                    if (style != null) {
-                        Element fillStyle = XmlUtils.findFirstElement(style, "fill-style");
-                        Element lineStyle = XmlUtils.findFirstElement(style, "line-style");
-
-                        if (fillStyle != null) {
-                            Element solidColor = XmlUtils.findFirstElement(fillStyle, "solid-color");
-                            if (solidColor != null) {
-                                tmpColorBackground = ColorUtils.html2color(solidColor.getAttribute("color"), false);
-                                if (tmpColorBackground != null) {
-                                    tmpColorText = ColorUtils.makeContrastColor(tmpColorBackground);
-                                }
+            /**
+             * Parse the topic node, the reader stops at the end of the topic node.
+             */
+            private TopicReference(XMLStreamReader reader, Map<String, ContentTopic> topicMap) throws XMLStreamException {
+                this.id = XmlUtils.findAttribute(reader, "id");
+                this.topicRef = XmlUtils.findAttribute(reader, "topic-ref");
+                this.topicMap = topicMap;
+
+                // names of elements from the topic node to the current one
+                Deque<String> path = new ArrayDeque<>();
+                while (reader.hasNext()) {
+                    int event = reader.next();
+                    if (event == XMLStreamConstants.START_ELEMENT) {
+                        String name = reader.getLocalName();
+                        String parent = path.peek();
+                        if ("topic-node".equals(name) && "sub-topics".equals(parent) && path.size() == 1) {
+                            this.children.add(new TopicReference(reader, topicMap));
+                            continue;
+                        }
+                        if ("solid-color".equals(name) && "fill-style".equals(parent) && this.colorFill == null) {
+                            this.colorFill = ColorUtils.html2color(XmlUtils.findAttribute(reader, "color"), false);
+                            if (this.colorFill != null) {
+                                this.colorText = ColorUtils.makeContrastColor(this.colorFill);
                             }
                         }
-
-                        if (lineStyle != null) {
-                            tmpColorBorder = ColorUtils.html2color(lineStyle.getAttribute("color"), false);
+                        else if ("line-style".equals(name) && "topic-node-style".equals(parent) && this.colorBorder == null) {
+                            this.colorBorder = ColorUtils.html2color(XmlUtils.findAttribute(reader, "color"), false);
                         }
-
+                        path.push(name);
+                    }
+                    else if (event == XMLStreamConstants.END_ELEMENT) {
+                        if (path.isEmpty()) {
+                            break; // end of the topic node
+                        }
+                        path.pop();
                     }
                 }
-
-                this.colorBorder = tmpColorBorder;
-                this.colorText = tmpColorText;
-                this.colorFill = tmpColorBackground;
             }
 
             Color getColorBorder() {
@@ -484,7 +526,7 @@ public class Novamind2MindMapImporter extends BaseImportExtension {
             }
 
             ContentTopic getContentTopic() {
-                return this.linkedTopic;
+                return this.topicMap.get(this.topicRef);
             }
 
             public List<TopicReference> getChildren() {
@@ -497,78 +539,128 @@ public class Novamind2MindMapImporter extends BaseImportExtension {
             private final String id;
             private final String richText;
             private final String notes;
-            private final List<String> linkUrls;
+            private final List<String> linkUrls = new ArrayList<>();
             private final String imageResourceId;
 
-            private ContentTopic(String id, Element nodeElement) {
+            /**
+             * Parse the topic, the reader stops at the end of the topic.
+             */
+            private ContentTopic(String id, XMLStreamReader reader) throws XMLStreamException {
                 this.id = id;
-                this.imageResourceId = extractImageId(nodeElement);
-                this.notes = extractNotes(nodeElement);
-                this.linkUrls = extractLinkUrls(nodeElement);
-                this.richText = extractRichTextBlock(nodeElement);
+                StringBuilder richTextBuf = new StringBuilder();
+                StringBuilder notesBuf = new StringBuilder();
+                String imageId = null;
+
+                int depth = 1;
+                while (depth > 0 && reader.hasNext()) {
+                    int event = reader.next();
+                    if (event == XMLStreamConstants.START_ELEMENT) {
+                        switch (reader.getLocalName()) {
+                            case "rich-text" -> richTextBuf.append(extractRichText(reader));
+                            case "notes" -> notesBuf.append(extractRichTextBlock(reader));
+                            case "links" -> extractLinkUrls(reader, this.linkUrls);
+                            case "top-image" -> {
+                                if (imageId == null) {
+                                    String resourceRef = XmlUtils.findAttribute(reader, "resource-ref");
+                                    imageId = resourceRef.isEmpty() ? null : resourceRef;
+                                }
+                                XmlUtils.skipElement(reader);
+                            }
+                            default -> XmlUtils.skipElement(reader);
+                        }
+                    }
+                    else if (event == XMLStreamConstants.END_ELEMENT) {
+                        depth--;
+                    }
+                }
+                this.richText = richTextBuf.length() == 0 ? null : richTextBuf.toString();
+                this.notes = notesBuf.length() == 0 ? null : notesBuf.toString();
+                this.imageResourceId = imageId;
             }
 
-            private static String extractRichText(Element richText) {
+            /**
+             * Extract text from the text runs of the rich text, the reader stops at the end of the rich text.
+             */
+            private static String extractRichText(XMLStreamReader reader) throws XMLStreamException {
                 StringBuilder result = new StringBuilder();
-
-                for (Element r : XmlUtils.findDirectChildrenForName(richText, "text-run")) {
-                    NodeList list = r.getChildNodes();
-                    for (int i = 0; i < list.getLength(); i++) {
-                        Node n = list.item(i);
-
-                        if (n.getNodeType() == Node.ELEMENT_NODE) {
-                            if (n.getNodeName().equals("br")) {
-                                result.append('\n');
-                            }
-                            else {
-                                result.append(n.getTextContent());
-                            }
+                int depth = 1;
+                while (depth > 0 && reader.hasNext()) {
+                    int event = reader.next();
+                    if (event == XMLStreamConstants.START_ELEMENT) {
+                        if ("text-run".equals(reader.getLocalName())) {
+                            extractTextRun(reader, result);
                         }
-                        else if (n.getNodeType() == Node.TEXT_NODE) {
-                            result.append(n.getTextContent());
+                        else {
+                            XmlUtils.skipElement(reader);
                         }
                     }
+                    else if (event == XMLStreamConstants.END_ELEMENT) {
+                        depth--;
+                    }
                 }
-
                 return result.toString();
             }
 
-            private static String extractImageId(Element node) {
-                Element imageElement = XmlUtils.findFirstElement(node, "top-image");
-                String resourceRef = imageElement == null ? "" : imageElement.getAttribute("resource-ref");
-                return resourceRef.isEmpty() ? null : resourceRef;
-            }
-
-            private static String extractNotes(Element node) {
-                StringBuilder result = new StringBuilder();
-                for (Element e : XmlUtils.findDirectChildrenForName(node, "notes")) {
-                    String rtext = extractRichTextBlock(e);
-                    if (rtext != null) {
-                        result.append(rtext);
+            private static void extractTextRun(XMLStreamReader reader, StringBuilder result) throws XMLStreamException {
+                int depth = 1;
+                while (depth > 0 && reader.hasNext()) {
+                    switch (reader.next()) {
+                        case XMLStreamConstants.START_ELEMENT -> {
+                            if ("br".equals(reader.getLocalName())) {
+                                result.append('\n');
+                                XmlUtils.skipElement(reader);
+                            }
+                            else {
+                                result.append(XmlUtils.readTextContent(reader));
+                            }
+                        }
+                        case XMLStreamConstants.END_ELEMENT -> depth--;
+                        case XMLStreamConstants.CHARACTERS, XMLStreamConstants.CDATA, XMLStreamConstants.SPACE ->
+                                result.append(reader.getText());
                     }
                 }
-                return result.length() == 0 ? null : result.toString();
             }
 
-            private static String extractRichTextBlock(Element element) {
+            /**
+             * Extract text from rich texts of the element, the reader stops at the end of the element.
+             */
+            private static String extractRichTextBlock(XMLStreamReader reader) throws XMLStreamException {
                 StringBuilder result = new StringBuilder();
-                for (Element rc : XmlUtils.findDirectChildrenForName(element, "rich-text")) {
-                    result.append(extractRichText(rc));
+                int depth = 1;
+                while (depth > 0 && reader.hasNext()) {
+                    int event = reader.next();
+                    if (event == XMLStreamConstants.START_ELEMENT) {
+                        if ("rich-text".equals(reader.getLocalName())) {
+                            result.append(extractRichText(reader));
+                        }
+                        else {
+                            XmlUtils.skipElement(reader);
+                        }
+                    }
+                    else if (event == XMLStreamConstants.END_ELEMENT) {
+                        depth--;
+                    }
                 }
-                return result.length() == 0 ? null : result.toString();
+                return result.toString();
             }
 
-            private static List<String> extractLinkUrls(Element node) {
-                List<String> result = new ArrayList<>();
-                for (Element links : XmlUtils.findDirectChildrenForName(node, "links")) {
-                    for (Element l : XmlUtils.findDirectChildrenForName(links, "link")) {
-                        String url = l.getAttribute("url");
-                        if (!url.isEmpty()) {
-                            result.add(url);
+            private static void extractLinkUrls(XMLStreamReader reader, List<String> result) throws XMLStreamException {
+                int depth = 1;
+                while (depth > 0 && reader.hasNext()) {
+                    int event = reader.next();
+                    if (event == XMLStreamConstants.START_ELEMENT) {
+                        if ("link".equals(reader.getLocalName())) {
+                            String url = XmlUtils.findAttribute(reader, "url");
+                            if (!url.isEmpty()) {
+                                result.add(url);
+                            }
                         }
+                        XmlUtils.skipElement(reader);
+                    }
+                    else if (event == XMLStreamConstants.END_ELEMENT) {
+                        depth--;
                     }
                 }
-                return result;
             }
 
             String getId() {
@@ -16,6 +16,11 @@
 
 package com.mindolph.mindmap.extension.importers;
 
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
 import com.igormaznitsa.mindmap.model.*;
 import com.mindolph.base.util.ColorUtils;
 import com.mindolph.mindmap.I18n;
@@ -23,27 +28,27 @@ import com.mindolph.mindmap.constant.MindMapConstants;
 import com.mindolph.mindmap.constant.StandardTopicAttribute;
 import com.mindolph.mindmap.extension.api.BaseImportExtension;
 import com.mindolph.mindmap.extension.api.ExtensionContext;
-import com.mindolph.mindmap.extension.attributes.images.ImageVisualAttributeExtension;
+import com.mindolph.mindmap.extension.api.ImportProgress;
 import com.mindolph.mindmap.icon.IconID;
 import com.mindolph.mindmap.icon.ImageIconServiceProvider;
 import com.mindolph.mindmap.model.TopicNode;
-import com.mindolph.mindmap.util.*;
+import com.mindolph.mindmap.util.MindMapUtils;
+import com.mindolph.mindmap.util.Utils;
+import com.mindolph.mindmap.util.XmlUtils;
 import javafx.scene.image.Image;
 import javafx.scene.paint.Color;
-import org.apache.commons.io.IOUtils;
-import org.json.JSONArray;
-import org.json.JSONObject;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
-import org.w3c.dom.Document;
-import org.w3c.dom.Element;
 
-import java.io.File;
-import java.io.InputStream;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+import java.io.*;
 import java.net.URI;
 import java.net.URLEncoder;
 import java.nio.charset.StandardCharsets;
 import java.util.*;
+import java.util.zip.ZipEntry;
 import java.util.zip.ZipFile;
 
 public class XMind2MindMapImporter extends BaseImportExtension {
@@ -56,31 +61,84 @@ public class XMind2MindMapImporter extends BaseImportExtension {
         return new IllegalArgumentException("Wrong or unsupported XMind file format");
     }
 
-
-    private static String extractTopicTitle(Element topic) {
-        List<Element> title = XmlUtils.findDirectChildrenForName(topic, "title");
-        return title.isEmpty() ? "" : title.get(0).getTextContent();
+    /**
+     * Read the attached image from the zip file and encode it as base64, the image data is encoded while reading.
+     *
+     * @param zipFile
+     * @param path    path of the image in the zip file
+     * @return encoded image, null if not found or empty.
+     */
+    private static String loadAttachedImageAsBase64(ZipFile zipFile, String path) {
+        try (InputStream inStream = Utils.findInputStreamForResource(zipFile, path)) {
+            if (inStream == null) {
+                return null;
+            }
+            ByteArrayOutputStream buf = new ByteArrayOutputStream();
+            try (OutputStream out = Base64.getEncoder().wrap(buf)) {
+                inStream.transferTo(out);
+            }
+            return buf.size() == 0 ? null : buf.toString(StandardCharsets.US_ASCII);
+        } catch (Exception ex) {
+            LOGGER.error("Can't decode attached image : " + path, ex);
+            return null;
+        }
     }
 
+    private static void processLink(TopicNode topicToProcess, String theTopicId, String xlink, Map<String, String> linksBetweenTopics) {
+        if (xlink.startsWith("file:")) {
+            try {
+                topicToProcess.setExtra(new ExtraFile(new MMapURI(new File(xlink.substring(5)).toURI())));
+            } catch (Exception ex) {
+                LOGGER.error("Can't convert file link : " + xlink, ex);
+            }
+        }
+        else if (xlink.startsWith("xmind:#")) {
+            linksBetweenTopics.put(theTopicId, xlink.substring(7));
+        }
+        else {
+            try {
+                topicToProcess.setExtra(new ExtraLink(new MMapURI(URI.create(xlink))));
+            } catch (IllegalArgumentException ex) {
+                try {
+                    topicToProcess.setExtra(new ExtraLink(new MMapURI(URLEncoder.encode(xlink, StandardCharsets.UTF_8))));
+                } catch (Exception e) {
+                    LOGGER.error("Can't convert link: " + xlink, e);
+                }
+            } catch (Exception ex) {
+                LOGGER.error("Can't convert link : " + xlink, ex);
+            }
+        }
+    }
 
-    private static List<Element> getChildTopics(Element topic) {
-        List<Element> result = new ArrayList<>();
-
-        for (Element c : XmlUtils.findDirectChildrenForName(topic, "children")) {
-            for (Element t : XmlUtils.findDirectChildrenForName(c, "topics")) {
-                result.addAll(XmlUtils.findDirectChildrenForName(t, "topic"));
+    private static void makeLinksBetweenTopics(MindMap<TopicNode> map, Map<String, TopicNode> topicIdMap,
+                                               Map<String, String> linksBetweenTopics, List<String[]> relationships) {
+        for (String[] relationship : relationships) {
+            if (!linksBetweenTopics.containsKey(relationship[0])) {
+                TopicNode startTopic = topicIdMap.get(relationship[0]);
+                TopicNode endTopic = topicIdMap.get(relationship[1]);
+                if (startTopic != null && endTopic != null) {
+                    startTopic.setExtra(ExtraTopic.makeLinkTo(map, endTopic));
+                }
             }
         }
 
-        return result;
+        for (Map.Entry<String, String> e : linksBetweenTopics.entrySet()) {
+            TopicNode startTopic = topicIdMap.get(e.getKey());
+            TopicNode endTopic = topicIdMap.get(e.getValue());
+            if (startTopic != null && endTopic != null) {
+                startTopic.setExtra(ExtraTopic.makeLinkTo(map, endTopic));
+            }
+        }
     }
 
-    private static void convertTopic(ZipFile zipFile, XMindStyles styles,
+    /**
+     * Convert topic from XML, the reader stops at the end of the topic element.
+     */
+    private static void convertTopic(XMLStreamReader reader, XMindStyles styles, ImageAttachments images,
                                      MindMap<TopicNode> map, TopicNode parent,
                                      TopicNode pregeneratedOne,
-                                     Element topicElement,
                                      Map<String, TopicNode> idTopicMap,
-                                     Map<String, String> linksBetweenTopics) throws Exception {
+                                     Map<String, String> linksBetweenTopics) throws XMLStreamException {
         TopicNode topicToProcess;
 
         if (pregeneratedOne == null) {
@@ -90,176 +148,142 @@ public class XMind2MindMapImporter extends BaseImportExtension {
             topicToProcess = pregeneratedOne;
         }
 
-        topicToProcess.setText(extractTopicTitle(topicElement));
+        topicToProcess.setText("");
 
-        String theTopicId = topicElement.getAttribute("id");
+        String theTopicId = XmlUtils.findAttribute(reader, "id");
 
         idTopicMap.put(theTopicId, topicToProcess);
 
-        String styleId = topicElement.getAttribute("style-id");
+        String styleId = XmlUtils.findAttribute(reader, "style-id");
         if (!styleId.isEmpty()) {
             styles.setStyle(styleId, topicToProcess);
         }
 
-        String attachedImage = extractFirstAttachedImageAsBase64(zipFile, topicElement);
-        if (attachedImage != null && !attachedImage.isEmpty()) {
-            topicToProcess.setAttribute(ImageVisualAttributeExtension.ATTR_KEY, attachedImage);
-        }
-
-        String xlink = topicElement.getAttribute("xlink:href");
+        String xlink = XmlUtils.findAttribute(reader, "xlink:href");
         if (!xlink.isEmpty()) {
-            if (xlink.startsWith("file:")) {
-                try {
-                    topicToProcess.setExtra(new ExtraFile(new MMapURI(new File(xlink.substring(5)).toURI())));
-                } catch (Exception ex) {
-                    LOGGER.error("Can't convert file link : " + xlink, ex);
-                }
-            }
-            else if (xlink.startsWith("xmind:#")) {
-                linksBetweenTopics.put(theTopicId, xlink.substring(7));
-            }
-            else {
-                try {
-                    topicToProcess.setExtra(new ExtraLink(new MMapURI(URI.create(xlink))));
-                } catch (Exception ex) {
-                    LOGGER.error("Can't convert link : " + xlink, ex);
+            processLink(topicToProcess, theTopicId, xlink, linksBetweenTopics);
+        }
+
+        StringBuilder note = new StringBuilder();
+        boolean imageFound = false;
+        int depth = 1;
+        while (depth > 0 && reader.hasNext()) {
+            int event = reader.next();
+            if (event == XMLStreamConstants.END_ELEMENT) {
+                depth--;
+            }
+            else if (event == XMLStreamConstants.START_ELEMENT) {
+                switch (XmlUtils.elementName(reader)) {
+                    case "title" -> topicToProcess.setText(XmlUtils.readTextContent(reader));
+                    case "children" -> convertChildTopics(reader, styles, images, map, topicToProcess, idTopicMap, linksBetweenTopics);
+                    case "xhtml:img" -> {
+                        String link = XmlUtils.findAttribute(reader, "xhtml:src");
+                        if (!imageFound && link.startsWith("xap:")) {
+                            // the image is extracted after the whole content is parsed
+                            imageFound = true;
+                            images.request(topicToProcess, link.substring(4));
+                        }
+                        XmlUtils.skipElement(reader);
+                    }
+                    case "notes" -> {
+                        String extractedNote = extractNote(reader);
+                        if (note.length() > 0) {
+                            note.append('\n');
+                        }
+                        note.append(extractedNote);
+                    }
+                    default -> XmlUtils.skipElement(reader);
                 }
             }
         }
 
-        String extractedNote = extractNote(topicElement);
-
-        if (!extractedNote.isEmpty()) {
-            topicToProcess.setExtra(new ExtraNote(extractedNote));
-        }
-
-        for (Element c : getChildTopics(topicElement)) {
-            convertTopic(zipFile, styles, map, topicToProcess, null, c, idTopicMap, linksBetweenTopics);
+        if (!note.isEmpty()) {
+            topicToProcess.setExtra(new ExtraNote(note.toString()));
         }
     }
 
-
-    private static String extractFirstAttachedImageAsBase64(ZipFile file, Element topic) {
-        String result = null;
-        for (Element e : XmlUtils.findDirectChildrenForName(topic, "xhtml:img")) {
-            String link = e.getAttribute("xhtml:src");
-            if (!link.isEmpty()) {
-                if (link.startsWith("xap:")) {
-                    InputStream inStream = null;
-                    try {
-                        inStream = Utils.findInputStreamForResource(file, link.substring(4));
-                        if (inStream != null) {
-                            byte[] bytes = inStream.readAllBytes();
-                            if (bytes == null || bytes.length == 0) {
-                                break;
-                            }
-                            result = CryptoUtils.base64encode(bytes);
-                        }
-                    } catch (Exception ex) {
-                        LOGGER.error("Can't decode attached image : " + link, ex);
-                    } finally {
-                        IOUtils.closeQuietly(inStream);
-                    }
+    /**
+     * Convert topics in the children element, the reader stops at the end of the children element.
+     */
+    private static void convertChildTopics(XMLStreamReader reader, XMindStyles styles, ImageAttachments images,
+                                           MindMap<TopicNode> map, TopicNode parent,
+                                           Map<String, TopicNode> idTopicMap,
+                                           Map<String, String> linksBetweenTopics) throws XMLStreamException {
+        int depth = 1;
+        while (depth > 0 && reader.hasNext()) {
+            int event = reader.next();
+            if (event == XMLStreamConstants.END_ELEMENT) {
+                depth--;
+            }
+            else if (event == XMLStreamConstants.START_ELEMENT) {
+                String name = reader.getLocalName();
+                if (depth == 1 && "topics".equals(name)) {
+                    depth++;
+                }
+                else if (depth == 2 && "topic".equals(name)) {
+                    convertTopic(reader, styles, images, map, parent, null, idTopicMap, linksBetweenTopics);
+                }
+                else {
+                    XmlUtils.skipElement(reader);
                 }
             }
         }
-        return result;
     }
 
-
-    private static String extractFirstAttachedImageAsBase64(ZipFile file, JSONObject topic) {
-        String result = null;
-        JSONObject image = topic.has("image") ? topic.getJSONObject("image") : null;
-        if (image != null) {
-            String link = image.getString("src");
-            if (link.startsWith("xap:")) {
-                InputStream inStream = null;
-                try {
-                    inStream = Utils.findInputStreamForResource(file, link.substring(4));
-                    byte[] bytes = inStream.readAllBytes();
-                    if (bytes == null || bytes.length == 0) {
-                        return result;
-                    }
-                    result = CryptoUtils.base64encode(bytes);
-                } catch (Exception ex) {
-                    LOGGER.error("Can't decode attached image : " + link, ex);
-                } finally {
-                    IOUtils.closeQuietly(inStream);
+    /**
+     * Extract note from the notes element, the plain text is preferred, the reader stops at the end of the notes element.
+     */
+    private static String extractNote(XMLStreamReader reader) throws XMLStreamException {
+        StringBuilder plain = new StringBuilder();
+        StringBuilder html = new StringBuilder();
+        int depth = 1;
+        while (depth > 0 && reader.hasNext()) {
+            int event = reader.next();
+            if (event == XMLStreamConstants.END_ELEMENT) {
+                depth--;
+            }
+            else if (event == XMLStreamConstants.START_ELEMENT) {
+                String name = reader.getLocalName();
+                if ("plain".equals(name)) {
+                    plain.append(XmlUtils.readTextContent(reader).replace("\r", ""));
+                }
+                else if ("html".equals(name)) {
+                    html.append(XmlUtils.readTextContent(reader).replace("\r", ""));
+                }
+                else {
+                    XmlUtils.skipElement(reader);
                 }
             }
         }
-        return result;
+        return plain.isEmpty() ? html.toString() : plain.toString();
     }
 
-
-    private static String extractNote(Element topic) {
-        StringBuilder result = new StringBuilder();
-
-        for (Element note : XmlUtils.findDirectChildrenForName(topic, "notes")) {
-            String plain = extractTextContentFrom(note, "plain");
-            String html = extractTextContentFrom(note, "html");
-
-            if (result.length() > 0) {
-                result.append('\n');
-            }
-
-            if (!plain.isEmpty()) {
-                result.append(plain);
-            }
-            else if (!html.isEmpty()) {
-                result.append(html);
+    private static String extractNote(JsonElement notes) {
+        if (notes.isJsonObject()) {
+            JsonObject plain = optObject(notes.getAsJsonObject(), "plain");
+            if (plain != null) {
+                String found = optString(plain, "content");
+                if (found != null) {
+                    return found.replace("\r", "");
+                }
             }
         }
-
-        return result.toString();
+        return "";
     }
 
-
-    private static String extractNote(JSONObject topic) {
-        StringBuilder result = new StringBuilder();
-
-        JSONObject notes = topic.has("notes") ? topic.getJSONObject("notes") : null;
-        if (notes != null) {
-            String plain = extractTextContentFrom(notes, "plain");
-
-            if (result.length() > 0) {
-                result.append('\n');
-            }
-
-            if (!plain.isEmpty()) {
-                result.append(plain);
-            }
-        }
-        return result.toString();
+    private static JsonObject optObject(JsonObject object, String key) {
+        JsonElement element = object.get(key);
+        return element != null && element.isJsonObject() ? element.getAsJsonObject() : null;
     }
 
-
-    private static String extractTextContentFrom(Element element, String tag) {
-        StringBuilder result = new StringBuilder();
-
-        for (Element c : XmlUtils.findDirectChildrenForName(element, tag)) {
-            String found = c.getTextContent();
-            if (found != null && !found.isEmpty()) {
-                result.append(found.replace("\r", ""));
-            }
-        }
-
-        return result.toString();
+    private static String optString(JsonObject object, String key) {
+        JsonElement element = object.get(key);
+        return element != null && element.isJsonPrimitive() ? element.getAsString() : null;
     }
 
-
-    private static String extractTextContentFrom(JSONObject element, String tag) {
-        StringBuilder result = new StringBuilder();
-
-        if (element.has(tag)) {
-            JSONObject object = element.getJSONObject(tag);
-            String found = object.getString("content");
-            if (found != null && !found.isEmpty()) {
-                result.append(found.replace("\r", ""));
-            }
-        }
-
-        return result.toString();
+    private static String optString(JsonReader reader) throws IOException {
+        JsonElement element = JsonParser.parseReader(reader);
+        return element.isJsonPrimitive() ? element.getAsString() : null;
     }
 
     @Override
@@ -272,56 +296,69 @@ public class XMind2MindMapImporter extends BaseImportExtension {
             return null;
         }
 
-        ZipFile zipFile = new ZipFile(file);
-        XMindStyles styles = new XMindStyles(zipFile);
-
-        return this.parseZipFile(zipFile);
+        return this.importInBackground(this.getName(context), progress -> {
+            try (ZipFile zipFile = new ZipFile(file)) {
+                return this.parseZipFile(zipFile, progress);
+            }
+        });
     }
 
 
     MindMap<TopicNode> parseZipFile(ZipFile zipFile) throws Exception {
-        InputStream contentStream = Utils.findInputStreamForResource(zipFile, "content.json");
+        return this.parseZipFile(zipFile, ImportProgress.NONE);
+    }
+
+    MindMap<TopicNode> parseZipFile(ZipFile zipFile, ImportProgress progress) throws Exception {
+        ImageAttachments images = new ImageAttachments();
         MindMap<TopicNode> result;
-        if (contentStream == null) {
-            XMindStyles styles = new XMindStyles(zipFile);
-            contentStream = Utils.findInputStreamForResource(zipFile, "content.xml");
-            if (contentStream == null) {
-                throw makeWrongFormatException();
+        try (InputStream jsonStream = openTracked(zipFile, "content.json", progress)) {
+            if (jsonStream == null) {
+                XMindStyles styles = new XMindStyles(zipFile);
+                try (InputStream xmlStream = openTracked(zipFile, "content.xml", progress)) {
+                    if (xmlStream == null) {
+                        throw makeWrongFormatException();
+                    }
+                    result = convertXmlContent(styles, images, xmlStream);
+                }
             }
             else {
-                result = convertXmlContent(styles, zipFile, contentStream);
+                result = convertJsonContent(images, jsonStream);
             }
         }
-        else {
-            result = convertJsonContent(zipFile, contentStream);
-        }
+        images.attach(progress, path -> loadAttachedImageAsBase64(zipFile, path));
         return result;
     }
 
+    private static InputStream openTracked(ZipFile zipFile, String path, ImportProgress progress) throws IOException {
+        ZipEntry entry = zipFile.getEntry(path);
+        if (entry == null || entry.isDirectory()) {
+            return null;
+        }
+        return progress.track(new BufferedInputStream(zipFile.getInputStream(entry)), entry.getSize());
+    }
 
-    private MindMap<TopicNode> convertJsonContent(ZipFile zipFile, InputStream content) throws Exception {
-        JSONArray parsed = new JSONArray(IOUtils.toString(content, StandardCharsets.UTF_8));
 
-        List<JSONObject> sheets = new ArrayList<>();
+    private MindMap<TopicNode> convertJsonContent(ImageAttachments images, InputStream content) throws Exception {
+        MindMap<TopicNode> result = null;
 
-        if (parsed.length() > 0) {
-            for (int i = 0; i < parsed.length(); i++) {
-                JSONObject object = parsed.getJSONObject(i);
-                if ("sheet".equals(object.getString("class"))) {
-                    sheets.add(object);
+        try (JsonReader reader = new JsonReader(new InputStreamReader(content, StandardCharsets.UTF_8))) {
+            reader.beginArray();
+            while (reader.hasNext()) {
+                if (result == null && reader.peek() == JsonToken.BEGIN_OBJECT) {
+                    // only the first sheet is converted
+                    result = convertJsonSheet(images, reader);
+                }
+                else {
+                    reader.skipValue();
                 }
             }
+            reader.endArray();
         }
 
-        MindMap<TopicNode> result;
-
-        if (sheets.isEmpty()) {
+        if (result == null) {
             result = MindMapUtils.createModelWithRoot();
             result.getRoot().setText("Empty");
         }
-        else {
-            result = convertJsonSheet(zipFile, sheets.get(0));
-        }
 
         return result;
     }
@@ -331,14 +368,16 @@ public class XMind2MindMapImporter extends BaseImportExtension {
         return align;
     }
 
-    private static void convertTopic(ZipFile zipFile,
-                                     Map<String, XMindStyle> theme,
+    /**
+     * Convert topic from JSON, the topic is created first and its properties are set as they are read.
+     */
+    private static void convertTopic(JsonReader reader,
+                                     ImageAttachments images,
                                      MindMap<TopicNode> map,
                                      TopicNode parent,
                                      TopicNode pregeneratedOne,
-                                     JSONObject topicElement,
                                      Map<String, TopicNode> idTopicMap,
-                                     Map<String, String> linksBetweenTopics) {
+                                     Map<String, String> linksBetweenTopics) throws IOException {
         TopicNode topicToProcess;
 
         if (pregeneratedOne == null) {
@@ -348,15 +387,94 @@ public class XMind2MindMapImporter extends BaseImportExtension {
             topicToProcess = pregeneratedOne;
         }
 
-        topicToProcess.setText(topicElement.has("title") ? topicElement.getString("title") : "");
+        topicToProcess.setText("");
 
-        String theTopicId =
-                topicElement.has("id") ? topicElement.getString("id") : UUID.randomUUID().toString();
+        String theTopicId = null;
+        String xlink = null;
+        String extractedNote = "";
+
+        reader.beginObject();
+        while (reader.hasNext()) {
+            switch (reader.nextName()) {
+                case "title" -> {
+                    String title = optString(reader);
+                    topicToProcess.setText(title == null ? "" : title);
+                }
+                case "id" -> theTopicId = optString(reader);
+                case "href" -> xlink = optString(reader);
+                case "style" -> {
+                    JsonElement style = JsonParser.parseReader(reader);
+                    JsonObject properties = style.isJsonObject() ? optObject(style.getAsJsonObject(), "properties") : null;
+                    if (properties != null) {
+                        // the styles from theme are applied after the sheet is converted
+                        setAttributeIfPresent(topicToProcess, StandardTopicAttribute.ATTR_FILL_COLOR.getText(), optString(properties, "svg:fill"));
+                        setAttributeIfPresent(topicToProcess, StandardTopicAttribute.ATTR_TEXT_COLOR.getText(), optString(properties, "fo:color"));
+                        setAttributeIfPresent(topicToProcess, StandardTopicAttribute.ATTR_BORDER_COLOR.getText(), optString(properties, "border-line-color"));
+                        String textAlign = optString(properties, "fo:text-align");
+                        setAttributeIfPresent(topicToProcess, "align", textAlign == null ? null : convertTextAlign(textAlign));
+                    }
+                }
+                case "image" -> {
+                    JsonElement image = JsonParser.parseReader(reader);
+                    String link = image.isJsonObject() ? optString(image.getAsJsonObject(), "src") : null;
+                    if (link != null && link.startsWith("xap:")) {
+                        images.request(topicToProcess, link.substring(4));
+                    }
+                }
+                case "notes" -> extractedNote = extractNote(JsonParser.parseReader(reader));
+                case "children" -> {
+                    if (reader.peek() != JsonToken.BEGIN_OBJECT) {
+                        reader.skipValue();
+                        break;
+                    }
+                    reader.beginObject();
+                    while (reader.hasNext()) {
+                        String name = reader.nextName();
+                        if (("attached".equals(name) || "detached".equals(name)) && reader.peek() == JsonToken.BEGIN_ARRAY) {
+                            reader.beginArray();
+                            while (reader.hasNext()) {
+                                convertTopic(reader, images, map, topicToProcess, null, idTopicMap, linksBetweenTopics);
+                            }
+                            reader.endArray();
+                        }
+                        else {
+                            reader.skipValue();
+                        }
+                    }
+                    reader.endObject();
+                }
+                default -> reader.skipValue();
+            }
+        }
+        reader.endObject();
+
+        if (theTopicId == null) {
+            theTopicId = UUID.randomUUID().toString();
+        }
 
         idTopicMap.put(theTopicId, topicToProcess);
 
+        if (xlink != null && !xlink.isEmpty()) {
+            processLink(topicToProcess, theTopicId, xlink, linksBetweenTopics);
+        }
+
+        if (!extractedNote.isEmpty()) {
+            topicToProcess.setExtra(new ExtraNote(extractedNote));
+        }
+    }
+
+    private static void setAttributeIfPresent(TopicNode topic, String name, String value) {
+        if (value != null) {
+            topic.setAttribute(name, value);
+        }
+    }
+
+    /**
+     * Apply styles of theme to the topic and its descendants, the styles set by topics themselves are preserved.
+     */
+    private static void applyTheme(TopicNode topic, int level, Map<String, XMindStyle> theme) {
         String themeName;
-        switch (topicToProcess.getPath().size()) {
+        switch (level) {
             case 1:
                 themeName = "centralTopic";
                 break;
@@ -373,202 +491,141 @@ public class XMind2MindMapImporter extends BaseImportExtension {
             themeStyle = new XMindStyle();
         }
 
-        JSONObject style = topicElement.has("style") ? topicElement.getJSONObject("style") : null;
-        String fillColor;
-        String fontColor;
-        String borderLineColor;
-        String textAlign;
-
-        if (style == null) {
-            fillColor = themeStyle.getBackgroundAsHtml(null);
-            fontColor = themeStyle.getForegroundAsHtml(null);
-            borderLineColor = themeStyle.getBorderColorAsHtml(null);
-            textAlign = themeStyle.getTextAlign(null);
-        }
-        else {
-            JSONObject properties =
-                    style.has("properties") ? style.getJSONObject("properties") : null;
-            if (properties == null) {
-                fillColor = themeStyle.getBackgroundAsHtml(null);
-                fontColor = themeStyle.getForegroundAsHtml(null);
-                borderLineColor = themeStyle.getBorderColorAsHtml(null);
-                textAlign = themeStyle.getTextAlign(null);
-            }
-            else {
-                fillColor = themeStyle.getBackgroundAsHtml(
-                        properties.has("svg:fill") ? properties.getString("svg:fill") : null);
-                fontColor = themeStyle.getForegroundAsHtml(
-                        properties.has("fo:color") ? properties.getString("fo:color") : null);
-                textAlign = themeStyle.getTextAlign(
-                        properties.has("fo:text-align") ? properties.getString("fo:text-align") : null);
-                borderLineColor = themeStyle.getBorderColorAsHtml(
-                        properties.has("border-line-color") ? properties.getString("border-line-color") : null);
-            }
-        }
-        if (fillColor != null) {
-            topicToProcess.setAttribute(StandardTopicAttribute.ATTR_FILL_COLOR.getText(), fillColor);
-        }
-        if (fontColor != null) {
-            topicToProcess.setAttribute(StandardTopicAttribute.ATTR_TEXT_COLOR.getText(), fontColor);
-        }
-        if (borderLineColor != null) {
-            topicToProcess.setAttribute(StandardTopicAttribute.ATTR_BORDER_COLOR.getText(), borderLineColor);
-        }
-        if (textAlign != null) {
-            topicToProcess.setAttribute("align", convertTextAlign(textAlign));
-        }
-
-
-        String attachedImage = extractFirstAttachedImageAsBase64(zipFile, topicElement);
-        if (attachedImage != null && !attachedImage.isEmpty()) {
-            topicToProcess.setAttribute(ImageVisualAttributeExtension.ATTR_KEY, attachedImage);
-        }
-
-        String xlink = topicElement.has("href") ? topicElement.getString("href") : null;
-        if (xlink != null && !xlink.isEmpty()) {
-            if (xlink.startsWith("file:")) {
-                try {
-                    topicToProcess.setExtra(new ExtraFile(new MMapURI(new File(xlink.substring(5)).toURI())));
-                } catch (Exception ex) {
-                    LOGGER.error("Can't convert file link : " + xlink, ex);
-                }
-            }
-            else if (xlink.startsWith("xmind:#")) {
-                linksBetweenTopics.put(theTopicId, xlink.substring(7));
-            }
-            else {
-                try {
-                    topicToProcess.setExtra(new ExtraLink(new MMapURI(URI.create(xlink))));
-                } catch (IllegalArgumentException ex) {
-                    try {
-                        topicToProcess.setExtra(new ExtraLink(new MMapURI(URLEncoder.encode(xlink, StandardCharsets.UTF_8))));
-                    } catch (Exception e) {
-                        LOGGER.error("Can't convert link: " + xlink, e);
-                    }
-                } catch (Exception ex) {
-                    LOGGER.error("Can't convert link : " + xlink, ex);
-                }
-            }
-        }
-
-        String extractedNote = extractNote(topicElement);
+        String fillColor = StandardTopicAttribute.ATTR_FILL_COLOR.getText();
+        String textColor = StandardTopicAttribute.ATTR_TEXT_COLOR.getText();
+        String borderColor = StandardTopicAttribute.ATTR_BORDER_COLOR.getText();
+        setAttributeIfPresent(topic, fillColor, themeStyle.getBackgroundAsHtml(topic.getAttribute(fillColor)));
+        setAttributeIfPresent(topic, textColor, themeStyle.getForegroundAsHtml(topic.getAttribute(textColor)));
+        setAttributeIfPresent(topic, borderColor, themeStyle.getBorderColorAsHtml(topic.getAttribute(borderColor)));
+        setAttributeIfPresent(topic, "align", themeStyle.getTextAlign(topic.getAttribute("align")));
 
-        if (!extractedNote.isEmpty()) {
-            topicToProcess.setExtra(new ExtraNote(extractedNote));
-        }
-
-        JSONObject children =
-                topicElement.has("children") ? topicElement.getJSONObject("children") : null;
-
-        if (children != null) {
-            JSONArray attached = children.has("attached") ? children.getJSONArray("attached") : null;
-            if (attached != null) {
-                for (Object c : attached) {
-                    JSONObject child = (JSONObject) c;
-                    convertTopic(zipFile, theme, map, topicToProcess, null, child, idTopicMap, linksBetweenTopics);
-                }
-            }
-            JSONArray detached = children.has("detached") ? children.getJSONArray("detached") : null;
-            if (detached != null) {
-                for (Object c : detached) {
-                    JSONObject child = (JSONObject) c;
-                    convertTopic(zipFile, theme, map, topicToProcess, null, child, idTopicMap, linksBetweenTopics);
-                }
-            }
+        for (TopicNode child : topic.getChildren()) {
+            applyTheme(child, level + 1, theme);
         }
     }
 
 
-    private Map<String, XMindStyle> extractThemes(JSONObject sheet) {
+    private Map<String, XMindStyle> extractThemes(JsonObject themeObject) {
         Map<String, XMindStyle> result = new HashMap<>();
-
-        if (sheet.has("theme")) {
-            JSONObject themeObject = sheet.getJSONObject("theme");
-            List<String> themeNames = Arrays.asList("centralTopic", "mainTopic", "subTopic");
-            for (String name : themeNames) {
-                if (themeObject.has(name)) {
-                    result.put(name, new XMindStyle(themeObject.getJSONObject(name)));
-                }
+        List<String> themeNames = Arrays.asList("centralTopic", "mainTopic", "subTopic");
+        for (String name : themeNames) {
+            JsonObject style = optObject(themeObject, name);
+            if (style != null) {
+                result.put(name, new XMindStyle(style));
             }
         }
         return result;
     }
 
 
-    private MindMap<TopicNode> convertJsonSheet(ZipFile file, JSONObject sheet) throws Exception {
+    /**
+     * Convert sheet from JSON.
+     *
+     * @return converted mind map, null if the object is not a sheet.
+     */
+    private MindMap<TopicNode> convertJsonSheet(ImageAttachments images, JsonReader reader) throws Exception {
         MindMap<TopicNode> resultedMap = MindMapUtils.createModelWithRoot();
         resultedMap.setAttribute(MindMapConstants.MODEL_ATTR_SHOW_JUMPS, "true");
 
         TopicNode rootTopic = resultedMap.getRoot();
         rootTopic.setText("Empty sheet");
 
-        Map<String, XMindStyle> theme = extractThemes(sheet);
+        Map<String, XMindStyle> theme = new HashMap<>();
 
         Map<String, TopicNode> topicIdMap = new HashMap<>();
         Map<String, String> linksBetweenTopics = new HashMap<>();
-
-        JSONObject rootTopicObj = sheet.getJSONObject("rootTopic");
-        if (rootTopicObj != null) {
-            convertTopic(file, theme, resultedMap, null, rootTopic, rootTopicObj, topicIdMap, linksBetweenTopics);
-        }
-
-        if (sheet.has("relationships")) {
-            for (Object l : sheet.getJSONArray("relationships")) {
-                JSONObject relationship = (JSONObject) l;
-                String end1 = relationship.getString("end1Id");
-                String end2 = relationship.getString("end2Id");
-                if (!linksBetweenTopics.containsKey(end1)) {
-                    TopicNode startTopic = topicIdMap.get(end1);
-                    TopicNode endTopic = topicIdMap.get(end2);
-                    if (startTopic != null && endTopic != null) {
-                        startTopic.setExtra(ExtraTopic.makeLinkTo(resultedMap, endTopic));
+        List<String[]> relationships = new ArrayList<>();
+        String objectClass = null;
+
+        reader.beginObject();
+        while (reader.hasNext()) {
+            switch (reader.nextName()) {
+                case "class" -> objectClass = optString(reader);
+                case "rootTopic" -> {
+                    if (reader.peek() == JsonToken.BEGIN_OBJECT) {
+                        convertTopic(reader, images, resultedMap, null, rootTopic, topicIdMap, linksBetweenTopics);
+                    }
+                    else {
+                        reader.skipValue();
                     }
                 }
+                case "theme" -> {
+                    JsonElement themeObject = JsonParser.parseReader(reader);
+                    if (themeObject.isJsonObject()) {
+                        theme = extractThemes(themeObject.getAsJsonObject());
+                    }
+                }
+                case "relationships" -> {
+                    JsonElement array = JsonParser.parseReader(reader);
+                    if (array.isJsonArray()) {
+                        for (JsonElement l : array.getAsJsonArray()) {
+                            if (l.isJsonObject()) {
+                                relationships.add(new String[]{optString(l.getAsJsonObject(), "end1Id"), optString(l.getAsJsonObject(), "end2Id")});
+                            }
+                        }
+                    }
+                }
+                default -> reader.skipValue();
             }
         }
+        reader.endObject();
 
-        for (Map.Entry<String, String> e : linksBetweenTopics.entrySet()) {
-            TopicNode startTopic = topicIdMap.get(e.getKey());
-            TopicNode endTopic = topicIdMap.get(e.getValue());
-            if (startTopic != null && endTopic != null) {
-                startTopic.setExtra(ExtraTopic.makeLinkTo(resultedMap, endTopic));
-            }
+        if (!"sheet".equals(objectClass)) {
+            return null;
         }
 
+        applyTheme(rootTopic, 1, theme);
+        makeLinksBetweenTopics(resultedMap, topicIdMap, linksBetweenTopics, relationships);
+
         return resultedMap;
     }
 
 
     private MindMap<TopicNode> convertXmlContent(
             XMindStyles style,
-            ZipFile zipFile,
+            ImageAttachments images,
             InputStream content) throws Exception {
-        Document document =
-                XmlUtils.loadXmlDocument(content, null, true);
+        XMLStreamReader reader = XmlUtils.createXmlStreamReader(content);
 
-        Element rootElement = document.getDocumentElement();
-        if (!rootElement.getTagName().equals("xmap-content")) {
-            makeWrongFormatException();
+        MindMap<TopicNode> result = null;
+        try {
+            reader.nextTag();
+            if (!reader.getLocalName().equals("xmap-content")) {
+                throw makeWrongFormatException();
+            }
+            int depth = 1;
+            while (depth > 0 && reader.hasNext()) {
+                int event = reader.next();
+                if (event == XMLStreamConstants.END_ELEMENT) {
+                    depth--;
+                }
+                else if (event == XMLStreamConstants.START_ELEMENT) {
+                    if (result == null && "sheet".equals(reader.getLocalName())) {
+                        // only the first sheet is converted
+                        result = convertXmlSheet(style, images, reader);
+                    }
+                    else {
+                        XmlUtils.skipElement(reader);
+                    }
+                }
+            }
+        } finally {
+            reader.close();
         }
 
-        List<Element> xmlSheets =
-                XmlUtils.findDirectChildrenForName(document.getDocumentElement(), "sheet");
-
-        MindMap<TopicNode> result;
-
-        if (xmlSheets.isEmpty()) {
+        if (result == null) {
             result = MindMapUtils.createModelWithRoot();
             result.getRoot().setText("Empty");
         }
-        else {
-            result = convertXmlSheet(style, zipFile, xmlSheets.get(0));
-        }
 
         return result;
     }
 
 
-    private MindMap<TopicNode> convertXmlSheet(XMindStyles styles, ZipFile file, Element sheet) throws Exception {
+    /**
+     * Convert sheet from XML, the reader stops at the end of the sheet element.
+     */
+    private MindMap<TopicNode> convertXmlSheet(XMindStyles styles, ImageAttachments images, XMLStreamReader reader) throws Exception {
         MindMap<TopicNode> resultedMap = MindMapUtils.createModelWithRoot();
         resultedMap.setAttribute(MindMapConstants.MODEL_ATTR_SHOW_JUMPS, "true");
 
@@ -577,39 +634,39 @@ public class XMind2MindMapImporter extends BaseImportExtension {
 
         Map<String, TopicNode> topicIdMap = new HashMap<>();
         Map<String, String> linksBetweenTopics = new HashMap<>();
-
-        List<Element> rootTopics = XmlUtils.findDirectChildrenForName(sheet, "topic");
-        if (!rootTopics.isEmpty()) {
-            convertTopic(file, styles, resultedMap, null, rootTopic, rootTopics.get(0), topicIdMap,
-                    linksBetweenTopics);
-        }
-
-        for (Element l : XmlUtils.findDirectChildrenForName(sheet, "relationships")) {
-            for (Element r : XmlUtils.findDirectChildrenForName(l, "relationship")) {
-                String end1 = r.getAttribute("end1");
-                String end2 = r.getAttribute("end2");
-                if (!linksBetweenTopics.containsKey(end1)) {
-                    TopicNode startTopic = topicIdMap.get(end1);
-                    TopicNode endTopic = topicIdMap.get(end2);
-                    if (startTopic != null && endTopic != null) {
-                        startTopic.setExtra(ExtraTopic.makeLinkTo(resultedMap, endTopic));
-                    }
+        List<String[]> relationships = new ArrayList<>();
+
+        boolean rootFound = false;
+        int depth = 1;
+        while (depth > 0 && reader.hasNext()) {
+            int event = reader.next();
+            if (event == XMLStreamConstants.END_ELEMENT) {
+                depth--;
+            }
+            else if (event == XMLStreamConstants.START_ELEMENT) {
+                String name = reader.getLocalName();
+                if (depth == 1 && "topic".equals(name) && !rootFound) {
+                    rootFound = true;
+                    convertTopic(reader, styles, images, resultedMap, null, rootTopic, topicIdMap, linksBetweenTopics);
+                }
+                else if (depth == 1 && "relationships".equals(name)) {
+                    depth++;
+                }
+                else if (depth == 2 && "relationship".equals(name)) {
+                    relationships.add(new String[]{XmlUtils.findAttribute(reader, "end1"), XmlUtils.findAttribute(reader, "end2")});
+                    XmlUtils.skipElement(reader);
+                }
+                else {
+                    XmlUtils.skipElement(reader);
                 }
             }
         }
 
-        for (Map.Entry<String, String> e : linksBetweenTopics.entrySet()) {
-            TopicNode startTopic = topicIdMap.get(e.getKey());
-            TopicNode endTopic = topicIdMap.get(e.getValue());
-            if (startTopic != null && endTopic != null) {
-                startTopic.setExtra(ExtraTopic.makeLinkTo(resultedMap, endTopic));
-            }
-        }
+        makeLinksBetweenTopics(resultedMap, topicIdMap, linksBetweenTopics, relationships);
 
         return resultedMap;
     }
 
-
     @Override
     public String getName(ExtensionContext context) {
         return I18n.getIns().getString("MMDImporters.XMind2MindMap.Name");
@@ -637,8 +694,8 @@ public class XMind2MindMapImporter extends BaseImportExtension {
         private final Color border;
         private final String textAlign;
 
-        XMindStyle(JSONObject jsonObject) {
-            JSONObject properties = jsonObject.has("properties") ? jsonObject.getJSONObject("properties") : null;
+        XMindStyle(JsonObject jsonObject) {
+            JsonObject properties = optObject(jsonObject, "properties");
             if (properties == null) {
                 this.background = null;
                 this.foreground = null;
@@ -646,14 +703,13 @@ public class XMind2MindMapImporter extends BaseImportExtension {
                 this.textAlign = null;
             }
             else {
-                this.background = properties.has("svg:fill") ?
-                        ColorUtils.html2color(properties.getString("svg:fill"), false) : null;
-                this.foreground = properties.has("fo:color") ?
-                        ColorUtils.html2color(properties.getString("fo:color"), false) : null;
-                this.border = properties.has("border-line-color") ?
-                        ColorUtils.html2color(properties.getString("border-line-color"), false) : null;
-                this.textAlign =
-                        properties.has("fo:text-align") ? properties.getString("fo:text-align") : null;
+                String fill = optString(properties, "svg:fill");
+                String color = optString(properties, "fo:color");
+                String borderColor = optString(properties, "border-line-color");
+                this.background = fill != null ? ColorUtils.html2color(fill, false) : null;
+                this.foreground = color != null ? ColorUtils.html2color(color, false) : null;
+                this.border = borderColor != null ? ColorUtils.html2color(borderColor, false) : null;
+                this.textAlign = optString(properties, "fo:text-align");
             }
         }
 
@@ -664,22 +720,30 @@ public class XMind2MindMapImporter extends BaseImportExtension {
             this.foreground = null;
         }
 
-        XMindStyle(Element style) {
+        /**
+         * Parse style from XML, the reader stops at the end of the style element.
+         */
+        XMindStyle(XMLStreamReader reader) throws XMLStreamException {
             Color back = null;
             Color front = null;
             Color bord = null;
             String align = null;
 
-            for (Element t : XmlUtils.findDirectChildrenForName(style, "topic-properties")) {
-                String colorFill = t.getAttribute("svg:fill");
-                String colorText = t.getAttribute("fo:color");
-                String textAlign = t.getAttribute("fo:text-align");
-
-                String colorBorder = t.getAttribute("border-line-color");
-                back = ColorUtils.html2color(colorFill, false);
-                front = ColorUtils.html2color(colorText, false);
-                bord = ColorUtils.html2color(colorBorder, false);
-                align = convertTextAlign(textAlign);
+            int depth = 1;
+            while (depth > 0 && reader.hasNext()) {
+                int event = reader.next();
+                if (event == XMLStreamConstants.END_ELEMENT) {
+                    depth--;
+                }
+                else if (event == XMLStreamConstants.START_ELEMENT) {
+                    if (depth == 1 && "topic-properties".equals(reader.getLocalName())) {
+                        back = ColorUtils.html2color(XmlUtils.findAttribute(reader, "svg:fill"), false);
+                        front = ColorUtils.html2color(XmlUtils.findAttribute(reader, "fo:color"), false);
+                        bord = ColorUtils.html2color(XmlUtils.findAttribute(reader, "border-line-color"), false);
+                        align = convertTextAlign(XmlUtils.findAttribute(reader, "fo:text-align"));
+                    }
+                    XmlUtils.skipElement(reader);
+                }
             }
 
             this.foreground = front;
@@ -745,21 +809,16 @@ public class XMind2MindMapImporter extends BaseImportExtension {
         private final Map<String, XMindStyle> stylesMap = new HashMap<>();
 
         private XMindStyles(ZipFile zipFile) {
-            try {
-                InputStream stylesXml = Utils.findInputStreamForResource(zipFile, "styles.xml");
+            try (InputStream stylesXml = Utils.findInputStreamForResource(zipFile, "styles.xml")) {
                 if (stylesXml != null) {
-                    Document parsedStyles = XmlUtils.loadXmlDocument(stylesXml, null, true);
-                    Element root = parsedStyles.getDocumentElement();
-
-                    if ("xmap-styles".equals(root.getTagName())) {
-                        for (Element styles : XmlUtils.findDirectChildrenForName(root, "styles")) {
-                            for (Element style : XmlUtils.findDirectChildrenForName(styles, "style")) {
-                                String id = style.getAttribute("id");
-                                if (!id.isEmpty() && "topic".equals(style.getAttribute("type"))) {
-                                    this.stylesMap.put(id, new XMindStyle(style));
-                                }
-                            }
+                    XMLStreamReader reader = XmlUtils.createXmlStreamReader(new BufferedInputStream(stylesXml));
+                    try {
+                        reader.nextTag();
+                        if ("xmap-styles".equals(reader.getLocalName())) {
+                            this.parseStyles(reader);
                         }
+                    } finally {
+                        reader.close();
                     }
                 }
             } catch (Exception ex) {
@@ -767,6 +826,34 @@ public class XMind2MindMapImporter extends BaseImportExtension {
             }
         }
 
+        private void parseStyles(XMLStreamReader reader) throws XMLStreamException {
+            int depth = 1;
+            while (depth > 0 && reader.hasNext()) {
+                int event = reader.next();
+                if (event == XMLStreamConstants.END_ELEMENT) {
+                    depth--;
+                }
+                else if (event == XMLStreamConstants.START_ELEMENT) {
+                    String name = reader.getLocalName();
+                    if (depth == 1 && "styles".equals(name)) {
+                        depth++;
+                    }
+                    else if (depth == 2 && "style".equals(name)) {
+                        String id = XmlUtils.findAttribute(reader, "id");
+                        if (!id.isEmpty() && "topic".equals(XmlUtils.findAttribute(reader, "type"))) {
+                            this.stylesMap.put(id, new XMindStyle(reader));
+                        }
+                        else {
+                            XmlUtils.skipElement(reader);
+                        }
+                    }
+                    else {
+                        XmlUtils.skipElement(reader);
+                    }
+                }
+            }
+        }
+
         private void setStyle(String styleId, TopicNode topic) {
             XMindStyle foundStyle = this.stylesMap.get(styleId);
             if (foundStyle != null) {
@@ -34,6 +34,9 @@ public class ModelManager {
         BaseElement parentEle = (BaseElement) parent.getPayload();
         for (TopicNode child : parent.getChildren()) {
             BaseElement ele = (BaseElement) child.getPayload();
+            if (ele == null) {
+                continue; // not laid out since it's in collapsed branch.
+            }
             if (ele.isLeftDirection() && !child.isLeftSidedTopic()) {
                 log.debug("fix one:" + child.getText());
                 child.makeTopicLeftSided(true);
@@ -0,0 +1,52 @@
+package com.mindolph.mindmap.extension.importers;
+
+import com.igormaznitsa.mindmap.model.Extra.ExtraType;
+import com.igormaznitsa.mindmap.model.MindMap;
+import com.mindolph.base.util.ColorUtils;
+import com.mindolph.mindmap.extension.api.ImportProgress;
+import com.mindolph.mindmap.extension.attributes.images.ImageVisualAttributeExtension;
+import com.mindolph.mindmap.model.TopicNode;
+import javafx.scene.paint.Color;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.io.File;
+
+import static com.mindolph.mindmap.constant.StandardTopicAttribute.ATTR_FILL_COLOR;
+import static com.mindolph.mindmap.constant.StandardTopicAttribute.ATTR_TEXT_COLOR;
+
+public class CoggleMM2MindMapImporterTest {
+
+    private static final CoggleMM2MindMapImporter INSTANCE = new CoggleMM2MindMapImporter();
+
+    private File findFile(String resource) throws Exception {
+        return new File(this.getClass().getResource("/importers/" + resource).toURI());
+    }
+
+    @Test
+    public void testParse() throws Exception {
+        MindMap<TopicNode> parsed = INSTANCE.parseFile(findFile("coggle.mm"), ImportProgress.NONE);
+        TopicNode root = parsed.getRoot();
+        Assertions.assertEquals("Root", root.getText());
+        Assertions.assertEquals(2, root.getChildren().size());
+
+        TopicNode docs = root.getChildren().get(0);
+        Assertions.assertEquals("Docs site logo", docs.getText());
+        Assertions.assertTrue(docs.isLeftSidedTopic());
+        Assertions.assertTrue(docs.isCollapsed());
+        Color edgeColor = Color.web("#ff0000");
+        Assertions.assertEquals(ColorUtils.color2html(edgeColor, false), docs.getAttribute(ATTR_FILL_COLOR.getText()));
+        Assertions.assertEquals(ColorUtils.color2html(ColorUtils.makeContrastColor(edgeColor), false), docs.getAttribute(ATTR_TEXT_COLOR.getText()));
+        Assertions.assertEquals("https://mindolph.com", docs.getExtras().get(ExtraType.LINK).getAsString());
+        // the image can't be loaded, so it's kept in note.
+        Assertions.assertNull(docs.getAttribute(ImageVisualAttributeExtension.ATTR_KEY));
+        Assertions.assertEquals("Detected image links\n---------------\nfile:/nonexistent/logo.png", docs.getExtras().get(ExtraType.NOTE).getAsString());
+        Assertions.assertEquals(1, docs.getChildren().size());
+        Assertions.assertEquals("Child", docs.getChildren().get(0).getText());
+
+        TopicNode plain = root.getChildren().get(1);
+        Assertions.assertEquals("Plain", plain.getText());
+        Assertions.assertFalse(plain.isLeftSidedTopic());
+        Assertions.assertTrue(plain.getExtras().isEmpty());
+    }
+}
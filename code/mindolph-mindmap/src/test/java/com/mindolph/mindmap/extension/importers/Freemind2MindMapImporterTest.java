@@ -0,0 +1,66 @@
+package com.mindolph.mindmap.extension.importers;
+
+import com.igormaznitsa.mindmap.model.Extra.ExtraType;
+import com.igormaznitsa.mindmap.model.ExtraTopic;
+import com.igormaznitsa.mindmap.model.MindMap;
+import com.mindolph.base.util.ColorUtils;
+import com.mindolph.mindmap.extension.api.ImportProgress;
+import com.mindolph.mindmap.extension.attributes.images.ImageVisualAttributeExtension;
+import com.mindolph.mindmap.model.TopicNode;
+import javafx.scene.paint.Color;
+import org.apache.commons.lang3.StringUtils;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.io.File;
+
+import static com.mindolph.mindmap.constant.StandardTopicAttribute.ATTR_FILL_COLOR;
+import static com.mindolph.mindmap.constant.StandardTopicAttribute.ATTR_TEXT_COLOR;
+
+public class Freemind2MindMapImporterTest {
+
+    private static final Freemind2MindMapImporter INSTANCE = new Freemind2MindMapImporter();
+
+    private File findFile(String resource) throws Exception {
+        return new File(this.getClass().getResource("/importers/" + resource).toURI());
+    }
+
+    @Test
+    public void testParse() throws Exception {
+        MindMap<TopicNode> parsed = INSTANCE.parseFile(findFile("freemind.mm"), ImportProgress.NONE);
+        TopicNode root = parsed.getRoot();
+        Assertions.assertEquals("Root", root.getText());
+        Assertions.assertEquals(ColorUtils.color2html(Color.web("#000000"), false), root.getAttribute(ATTR_TEXT_COLOR.getText()));
+        Assertions.assertEquals(ColorUtils.color2html(Color.web("#ffff00"), false), root.getAttribute(ATTR_FILL_COLOR.getText()));
+        Assertions.assertEquals(2, root.getChildren().size());
+
+        TopicNode left = root.getChildren().get(0);
+        TopicNode right = root.getChildren().get(1);
+        Assertions.assertEquals("Left", left.getText());
+        Assertions.assertTrue(left.isLeftSidedTopic());
+        Assertions.assertEquals("https://mindolph.com", left.getExtras().get(ExtraType.LINK).getAsString());
+        // arrow link
+        Assertions.assertSame(right, parsed.findTopicForLink((ExtraTopic) left.getExtras().get(ExtraType.TOPIC)));
+
+        Assertions.assertEquals("Right", right.getText());
+        Assertions.assertFalse(right.isLeftSidedTopic());
+        Assertions.assertEquals("Note line\nsecond", right.getExtras().get(ExtraType.NOTE).getAsString());
+        Assertions.assertTrue(StringUtils.isNotBlank(right.getAttribute(ImageVisualAttributeExtension.ATTR_KEY)));
+
+        // link to topic by id
+        TopicNode jump = right.getChildren().get(0);
+        Assertions.assertEquals("Jump", jump.getText());
+        Assertions.assertSame(left, parsed.findTopicForLink((ExtraTopic) jump.getExtras().get(ExtraType.TOPIC)));
+    }
+
+    @Test
+    public void testParseMalformed() throws Exception {
+        // the rich content is not well-formed, it's parsed again by the lenient parser.
+        MindMap<TopicNode> parsed = INSTANCE.parseFile(findFile("freemind_malformed.mm"), ImportProgress.NONE);
+        TopicNode root = parsed.getRoot();
+        Assertions.assertEquals("Root", root.getText());
+        Assertions.assertEquals(2, root.getChildren().size());
+        Assertions.assertEquals("line\nnext", root.getChildren().get(0).getText());
+        Assertions.assertEquals("Plain", root.getChildren().get(1).getText());
+    }
+}
@@ -0,0 +1,58 @@
+package com.mindolph.mindmap.extension.importers;
+
+import com.igormaznitsa.mindmap.model.Extra.ExtraType;
+import com.igormaznitsa.mindmap.model.ExtraTopic;
+import com.igormaznitsa.mindmap.model.MindMap;
+import com.mindolph.base.util.ColorUtils;
+import com.mindolph.mindmap.extension.api.ImportProgress;
+import com.mindolph.mindmap.extension.attributes.images.ImageVisualAttributeExtension;
+import com.mindolph.mindmap.model.TopicNode;
+import javafx.scene.paint.Color;
+import org.apache.commons.io.FileUtils;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.io.File;
+import java.util.Base64;
+
+import static com.mindolph.mindmap.constant.StandardTopicAttribute.ATTR_FILL_COLOR;
+
+public class Mindmup2MindMapImporterTest {
+
+    private static final Mindmup2MindMapImporter INSTANCE = new Mindmup2MindMapImporter();
+
+    private File findFile(String resource) throws Exception {
+        return new File(this.getClass().getResource("/importers/" + resource).toURI());
+    }
+
+    @Test
+    public void testParse() throws Exception {
+        MindMap<TopicNode> parsed = INSTANCE.parseFile(findFile("mindmup.mup"), ImportProgress.NONE);
+        TopicNode root = parsed.getRoot();
+        Assertions.assertEquals("Root", root.getText());
+        Assertions.assertEquals("Root note", root.getExtras().get(ExtraType.NOTE).getAsString());
+        Assertions.assertNotNull(root.getExtras().get(ExtraType.FILE));
+
+        // ordered by the keys, the left branches go first.
+        Assertions.assertEquals(3, root.getChildren().size());
+        TopicNode left = root.getChildren().get(0);
+        Assertions.assertEquals("Left", left.getText());
+        Assertions.assertTrue(left.isLeftSidedTopic());
+        Assertions.assertEquals(ColorUtils.color2html(Color.web("#ff0000"), false), left.getAttribute(ATTR_FILL_COLOR.getText()));
+
+        TopicNode right1 = root.getChildren().get(1);
+        Assertions.assertEquals("Right 1", right1.getText());
+        Assertions.assertFalse(right1.isLeftSidedTopic());
+        Assertions.assertEquals("https://mindolph.com", right1.getExtras().get(ExtraType.LINK).getAsString());
+
+        TopicNode right2 = root.getChildren().get(2);
+        Assertions.assertEquals("Right 2", right2.getText());
+        Assertions.assertEquals(1, right2.getChildren().size());
+        TopicNode leaf = right2.getChildren().get(0);
+        Assertions.assertEquals("Leaf", leaf.getText());
+        String expectedImage = Base64.getEncoder().encodeToString(FileUtils.readFileToByteArray(findFile("freemind.png")));
+        Assertions.assertEquals(expectedImage, leaf.getAttribute(ImageVisualAttributeExtension.ATTR_KEY));
+        // links are resolved after all ideas are read.
+        Assertions.assertSame(left, parsed.findTopicForLink((ExtraTopic) leaf.getExtras().get(ExtraType.TOPIC)));
+    }
+}
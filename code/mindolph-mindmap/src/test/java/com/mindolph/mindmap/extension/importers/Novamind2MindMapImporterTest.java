@@ -0,0 +1,57 @@
+package com.mindolph.mindmap.extension.importers;
+
+import com.igormaznitsa.mindmap.model.Extra.ExtraType;
+import com.igormaznitsa.mindmap.model.ExtraTopic;
+import com.igormaznitsa.mindmap.model.MindMap;
+import com.mindolph.base.util.ColorUtils;
+import com.mindolph.mindmap.extension.api.ImportProgress;
+import com.mindolph.mindmap.extension.attributes.images.ImageVisualAttributeExtension;
+import com.mindolph.mindmap.model.TopicNode;
+import javafx.scene.paint.Color;
+import org.apache.commons.io.FileUtils;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.io.File;
+import java.util.Base64;
+
+import static com.mindolph.mindmap.constant.StandardTopicAttribute.ATTR_BORDER_COLOR;
+import static com.mindolph.mindmap.constant.StandardTopicAttribute.ATTR_FILL_COLOR;
+
+public class Novamind2MindMapImporterTest {
+
+    private static final Novamind2MindMapImporter INSTANCE = new Novamind2MindMapImporter();
+
+    private File findFile(String resource) throws Exception {
+        return new File(this.getClass().getResource("/importers/" + resource).toURI());
+    }
+
+    @Test
+    public void testParse() throws Exception {
+        // the topics are defined after the map in content, they are resolved by references after parsing.
+        MindMap<TopicNode> parsed = INSTANCE.parseFile(findFile("novamind.nm5"), ImportProgress.NONE);
+        TopicNode root = parsed.getRoot();
+        Assertions.assertEquals("Central\nTopic", root.getText());
+        Assertions.assertEquals(ColorUtils.color2html(Color.web("#ff0000"), false), root.getAttribute(ATTR_FILL_COLOR.getText()));
+        Assertions.assertEquals(ColorUtils.color2html(Color.web("#0000ff"), false), root.getAttribute(ATTR_BORDER_COLOR.getText()));
+        Assertions.assertEquals(2, root.getChildren().size());
+
+        TopicNode withNote = root.getChildren().get(0);
+        TopicNode withLinks = root.getChildren().get(1);
+        Assertions.assertEquals("With note", withNote.getText());
+        Assertions.assertEquals("Some note", withNote.getExtras().get(ExtraType.NOTE).getAsString());
+        // the image is extracted from the resources of the file.
+        String expectedImage = Base64.getEncoder().encodeToString(FileUtils.readFileToByteArray(findFile("freemind.png")));
+        Assertions.assertEquals(expectedImage, withNote.getAttribute(ImageVisualAttributeExtension.ATTR_KEY));
+
+        Assertions.assertEquals("With links", withLinks.getText());
+        Assertions.assertEquals("https://mindolph.com", withLinks.getExtras().get(ExtraType.LINK).getAsString());
+        Assertions.assertSame(withNote, parsed.findTopicForLink((ExtraTopic) withLinks.getExtras().get(ExtraType.TOPIC)));
+        Assertions.assertEquals(1, withLinks.getChildren().size());
+
+        // link line between topics
+        TopicNode leaf = withLinks.getChildren().get(0);
+        Assertions.assertEquals("Leaf", leaf.getText());
+        Assertions.assertSame(leaf, parsed.findTopicForLink((ExtraTopic) withNote.getExtras().get(ExtraType.TOPIC)));
+    }
+}
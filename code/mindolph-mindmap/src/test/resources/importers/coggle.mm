@@ -0,0 +1,10 @@
+<?xml version="1.0" encoding="UTF-8"?>
+<map version="0.9.0">
+<node TEXT="Root">
+<node TEXT="Docs [site](https://mindolph.com) ![logo](file:/nonexistent/logo.png)" POSITION="left" FOLDED="true">
+<edge COLOR="#ff0000"/>
+<node TEXT="Child"/>
+</node>
+<node TEXT="Plain" POSITION="right"/>
+</node>
+</map>
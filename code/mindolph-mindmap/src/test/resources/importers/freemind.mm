@@ -0,0 +1,11 @@
+<map version="1.0.1">
+<node ID="ID_1" TEXT="Root" COLOR="#000000" BACKGROUND_COLOR="#ffff00">
+<node ID="ID_2" TEXT="Left" POSITION="left" LINK="https://mindolph.com">
+<arrowlink DESTINATION="ID_3"/>
+</node>
+<node ID="ID_3" TEXT="Right" POSITION="right">
+<richcontent TYPE="NOTE"><html><head><title>ignored</title></head><body><p>Note line</p><p>second <img src="freemind.png"/></p></body></html></richcontent>
+<node ID="ID_4" TEXT="Jump" LINK="#ID_2"/>
+</node>
+</node>
+</map>
@@ -0,0 +1,8 @@
+<map version="1.0.1">
+<node TEXT="Root">
+<node TEXT="Rich">
+<richcontent TYPE="NODE"><html><body><p>line<br>next</p></body></html></richcontent>
+</node>
+<node TEXT="Plain"/>
+</node>
+</map>
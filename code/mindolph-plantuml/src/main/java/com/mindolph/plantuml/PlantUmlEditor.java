@@ -113,6 +113,7 @@ public class PlantUmlEditor extends BasePreviewEditor implements Initializable {
             codeArea.requestFocus();
 
         });
+        snippetView.setPreviewProvider(new PlantUmlSnippetPreviewProvider());
         // load all snippet groups for plantuml.
         snippetView.load(Arrays.asList(new GeneralSnippetGroup(),
                         new DiagramSnippetGroup(),
@@ -237,14 +238,14 @@ public class PlantUmlEditor extends BasePreviewEditor implements Initializable {
 
     @Override
     protected void nextPage() {
-        if (indicator.nextPage()) {
+        if (!isLargeFile() && indicator.nextPage()) {
             refresh(codeArea.getText());
         }
     }
 
     @Override
     protected void prevPage() {
-        if (indicator.prevPage()) {
+        if (!isLargeFile() && indicator.prevPage()) {
             refresh(codeArea.getText());
         }
     }
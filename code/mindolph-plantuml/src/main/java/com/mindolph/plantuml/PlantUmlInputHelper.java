@@ -1,6 +1,7 @@
 package com.mindolph.plantuml;
 
 import com.mindolph.base.plugin.InputHelper;
+import com.mindolph.core.collection.WordTrie;
 import com.mindolph.plantuml.constant.PlantUmlConstants;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -17,12 +18,15 @@ public class PlantUmlInputHelper implements InputHelper {
 
     private final List<String> preDefinedWords = new ArrayList<>();
 
+    private final WordTrie preDefinedTrie = new WordTrie();
 
     public PlantUmlInputHelper() {
         preDefinedWords.addAll(List.of(PlantUmlConstants.KEYWORDS));
         preDefinedWords.addAll(List.of(PlantUmlConstants.DIAGRAM_KEYWORDS));
         preDefinedWords.addAll(List.of(PlantUmlConstants.CONTAINING_KEYWORDS));
         preDefinedWords.addAll(List.of(PlantUmlConstants.DIRECTIVE));
+        // duplicates are counted once
+        preDefinedWords.stream().distinct().forEach(preDefinedTrie::add);
     }
 
     @Override
@@ -30,6 +34,11 @@ public class PlantUmlInputHelper implements InputHelper {
         return preDefinedWords;
     }
 
+    @Override
+    public List<String> getHelpWords(Object editorId, String prefix, int limit) {
+        return preDefinedTrie.complete(prefix, limit);
+    }
+
 
     @Override
     public void updateContextText(Object editorId, String text) {
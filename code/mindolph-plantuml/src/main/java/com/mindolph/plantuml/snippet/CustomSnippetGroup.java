@@ -7,9 +7,12 @@ import com.mindolph.base.control.snippet.BaseSnippetGroup;
  */
 public class CustomSnippetGroup extends BaseSnippetGroup {
 
+    public CustomSnippetGroup() {
+        super.alwaysShow = true;
+    }
+
     @Override
     public void init() {
-        super.alwaysShow = true;
     }
 
     @Override
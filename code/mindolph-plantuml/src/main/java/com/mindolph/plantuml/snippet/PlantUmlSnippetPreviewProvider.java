@@ -0,0 +1,56 @@
+package com.mindolph.plantuml.snippet;
+
+import com.mindolph.base.control.snippet.Snippet;
+import com.mindolph.base.control.snippet.SnippetPreviewProvider;
+import javafx.scene.image.Image;
+import net.sourceforge.plantuml.SourceStringReader;
+import org.apache.commons.lang3.StringUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.swing.*;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.FutureTask;
+
+/**
+ * Render thumbnails of PlantUML snippets.
+ *
+ * @author mindolph.com@gmail.com
+ */
+public class PlantUmlSnippetPreviewProvider implements SnippetPreviewProvider {
+
+    private static final Logger log = LoggerFactory.getLogger(PlantUmlSnippetPreviewProvider.class);
+
+    private static final int THUMBNAIL_WIDTH = 120;
+    private static final int THUMBNAIL_HEIGHT = 90;
+
+    @Override
+    public Image render(Snippet snippet) {
+        String code = "@startuml\n%s\n@enduml".formatted(StringUtils.remove(snippet.getCode(), "⨁"));
+        // The FileFormat uses AWT resources, so it should be run in Swing thread, otherwise it will be blocked.
+        FutureTask<Image> task = new FutureTask<>(() -> {
+            SourceStringReader reader = new SourceStringReader(code);
+            if (reader.getBlocks().isEmpty()
+                    || StringUtils.contains(reader.getBlocks().get(0).getDiagram().getWarningOrError(), "(Error)")) {
+                log.debug("No preview for snippet: " + snippet.getTitle());
+                return null;
+            }
+            try (ByteArrayOutputStream os = new ByteArrayOutputStream()) {
+                reader.outputImage(os, 0);
+                return new Image(new ByteArrayInputStream(os.toByteArray()), THUMBNAIL_WIDTH, THUMBNAIL_HEIGHT, true, true);
+            }
+        });
+        SwingUtilities.invokeLater(task);
+        try {
+            return task.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return null;
+        } catch (ExecutionException e) {
+            log.warn("Failed to render preview of snippet: " + snippet.getTitle(), e);
+            return null;
+        }
+    }
+}